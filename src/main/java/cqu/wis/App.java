@@ -1,8 +1,18 @@
 package cqu.wis;
 
+import cqu.wis.data.AuditLog;
+import cqu.wis.data.DiskResultCache;
+import cqu.wis.data.PriceHistoryData;
+import cqu.wis.data.RoutedUserData;
+import cqu.wis.data.RoutedWhiskeyData;
+import cqu.wis.data.ShardedWhiskeyData;
 import cqu.wis.data.UserData;
+import cqu.wis.data.UserSource;
 import cqu.wis.roles.SceneCoordinator;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeySource;
+import cqu.wis.roles.LoginRateLimiter;
+import cqu.wis.roles.PriceHistoryManager;
 import cqu.wis.roles.SceneCoordinator.SceneKey;
 import cqu.wis.roles.UserDataManager;
 import cqu.wis.roles.UserDataValidator;
@@ -10,7 +20,9 @@ import cqu.wis.roles.WhiskeyDataManager;
 import cqu.wis.roles.WhiskeyDataValidator;
 import cqu.wis.view.LoginController;
 import cqu.wis.view.PasswordController;
+import cqu.wis.server.QueryServer;
 import cqu.wis.view.QueryController;
+import cqu.wis.view.UiPerformanceMonitor;
 import java.sql.SQLException;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -45,11 +57,18 @@ public class App extends Application {
      * The main entry point for the application.
      *
      * <p>
-     * Calls the JavaFX launch method to begin the application lifecycle.</p>
+     * Calls the JavaFX launch method to begin the application lifecycle. When
+     * started with {@code --server}, runs the headless {@link QueryServer}
+     * instead of the GUI.</p>
      *
-     * @param args Command-line arguments passed during startup (not used).
+     * @param args Command-line arguments passed during startup; only
+     * {@code --server} is recognised.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && "--server".equals(args[0])) {
+            QueryServer.main(args);
+            return;
+        }
         launch();
     }
 
@@ -63,7 +82,11 @@ public class App extends Application {
      * <li>Instantiates corresponding data managers and validators.</li>
      * <li>Loads and registers FXML-based scenes for login, query, and password
      * reset.</li>
-     * <li>Starts the application by showing the login screen.</li>
+     * <li>Attaches a {@link UiPerformanceMonitor} to every scene and publishes
+     * it through JMX.</li>
+     * <li>Starts the application by showing the login screen, which starts
+     * loading the catalog and the price history in the background while the
+     * user logs in.</li>
      * </ul>
      *
      * @param stage The primary window (Stage) provided by the JavaFX runtime.
@@ -72,9 +95,23 @@ public class App extends Application {
     public void start(Stage stage) {
         SceneCoordinator sc = new SceneCoordinator(stage);
 
-        // Create and connect the data sources
-        WhiskeyData wd = new WhiskeyData();
-        UserData ud = new UserData();
+        // Create and connect the data sources; the catalog may be split by
+        // region across several databases given by wis.shards, and reads may
+        // be served by the replicas given by wis.whiskey.replicas and
+        // wis.users.replicas
+        String shards = System.getProperty("wis.shards");
+        String whiskeyReplicas = System.getProperty("wis.whiskey.replicas");
+        String userReplicas = System.getProperty("wis.users.replicas");
+        WhiskeySource wd;
+        if (shards != null) {
+            wd = ShardedWhiskeyData.parse(shards, System.getProperty("wis.shards.user", "root"),
+                    System.getProperty("wis.shards.password", "pass"));
+        } else if (whiskeyReplicas != null) {
+            wd = RoutedWhiskeyData.withReplicas(whiskeyReplicas);
+        } else {
+            wd = new WhiskeyData();
+        }
+        UserSource ud = userReplicas == null ? new UserData() : RoutedUserData.withReplicas(userReplicas);
 
         try {
             wd.connect();
@@ -90,37 +127,62 @@ public class App extends Application {
             return;
         }
 
+        PriceHistoryData phd = new PriceHistoryData();
+        try {
+            phd.connect();
+        } catch (SQLException e) {
+            showAlertAndExit("Cannot connect to WHISKEY database for price history:\n" + e.getMessage());
+            return;
+        }
+
         // Create data managers and validators
-        WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd, DiskResultCache.getInstance());
         WhiskeyDataValidator wdv = new WhiskeyDataValidator();
         UserDataManager udm = new UserDataManager(ud);
         UserDataValidator udv = new UserDataValidator();
+        LoginRateLimiter limiter = new LoginRateLimiter();
+        PriceHistoryManager phm = new PriceHistoryManager(phd);
 
         try {
             // Load Query scene
             Scene queryScene = makeScene(SceneKey.QUERY);
             QueryController qc = (QueryController) queryScene.getUserData();
-            qc.inject(sc, wdm, wdv);
+            qc.inject(sc, wdm, wdv, phm);
             sc.addScene(SceneKey.QUERY, queryScene);
 
             // Load Login scene
             Scene loginScene = makeScene(SceneKey.LOGIN);
             LoginController lc = (LoginController) loginScene.getUserData();
-            lc.inject(sc, udm, udv);
+            lc.inject(sc, udm, udv, limiter, AuditLog.getInstance());
             sc.addScene(SceneKey.LOGIN, loginScene);
 
             // Load Password scene
             Scene passwordScene = makeScene(SceneKey.PASSWORD);
             PasswordController pc = (PasswordController) passwordScene.getUserData();
-            pc.inject(sc, udm, udv);
+            pc.inject(sc, udm, udv, limiter, AuditLog.getInstance());
             sc.addScene(SceneKey.PASSWORD, passwordScene);
+
+            // Measure pulses and handlers in every scene, and the time from a
+            // query button to its display update
+            UiPerformanceMonitor monitor = new UiPerformanceMonitor();
+            monitor.attach(SceneKey.QUERY.name(), queryScene);
+            monitor.measureDisplays(queryScene, qc.getUpdateDispatcher());
+            monitor.attach(SceneKey.LOGIN.name(), loginScene);
+            monitor.attach(SceneKey.PASSWORD.name(), passwordScene);
+            monitor.register();
         } catch (Exception e) {
             e.printStackTrace();
             showAlertAndExit("Failed to load UI:\n" + e.getMessage());
             return;
         }
 
-        // Show the login screen
+        // Warm the catalog and load the price history while the user first
+        // logs in (later returns to the login screen find both done), then
+        // show the login screen
+        sc.setOnShown(SceneKey.LOGIN, () -> {
+            wdm.startWarmUp();
+            phm.startLoading();
+        });
         sc.start();
     }
 
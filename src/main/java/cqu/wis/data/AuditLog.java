@@ -0,0 +1,627 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only audit trail of login attempts and password changes, written
+ * asynchronously.
+ *
+ * <p>
+ * {@link #record(Type, String, boolean, String)} only places the event in a
+ * bounded lock-free ring buffer and returns; it takes microseconds. A single
+ * writer thread takes the waiting events in batches, appends each batch to
+ * {@code audit.log} as JSON lines and then forces the file to disk once for
+ * the whole batch (group fsync), so a burst of attempts costs one fsync
+ * rather than one each. Events are never dropped while the log is open: if
+ * the buffer is full, callers wait briefly for the writer to catch up.</p>
+ *
+ * <p>
+ * When the file would grow past its size limit it is rotated: {@code audit.log}
+ * becomes {@code audit.log.1}, older files shift up by one, and the oldest
+ * beyond the retained count is deleted.</p>
+ *
+ * <p>
+ * Configuration is read from system properties:</p>
+ * <ul>
+ * <li>{@code wis.audit.dir} – log directory (default
+ * {@code ~/.wis/audit})</li>
+ * <li>{@code wis.audit.maxBytes} – size at which the file is rotated (default
+ * 10 MB)</li>
+ * <li>{@code wis.audit.files} – number of rotated files kept (default 10)</li>
+ * <li>{@code wis.audit.bufferSize} – ring buffer capacity, rounded up to a
+ * power of two (default 8192)</li>
+ * </ul>
+ *
+ * <p>
+ * If the file cannot be written, the error is logged and the events are kept
+ * in memory and written again with increasing delays (up to
+ * {@value #MAX_RETRY_MILLIS} ms) until the file is writable; {@link #flush()}
+ * throws meanwhile. If more events are waiting than the ring buffer holds, the
+ * oldest are discarded, and so are any still unwritten when the log is
+ * closed; each discard is logged as an error and counted by
+ * {@link #getFailedCount()}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class AuditLog implements AutoCloseable {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(AuditLog.class);
+
+    /**
+     * Name of the active log file.
+     */
+    static final String FILE_NAME = "audit.log";
+
+    /**
+     * Largest number of events written and forced together.
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * How long the idle writer waits before checking for events again, in
+     * nanoseconds.
+     */
+    private static final long IDLE_PARK_NANOS = 5_000_000;
+
+    /**
+     * How long a caller waits for space in a full buffer before checking
+     * again, in nanoseconds.
+     */
+    private static final long FULL_PARK_NANOS = 50_000;
+
+    /**
+     * Delay before the first retry after a write fails, in milliseconds.
+     */
+    private static final long MIN_RETRY_MILLIS = 100;
+
+    /**
+     * Longest delay between retries, in milliseconds.
+     */
+    private static final long MAX_RETRY_MILLIS = 5_000;
+
+    /**
+     * The kind of an audited action.
+     */
+    public static enum Type {
+        /**
+         * A login attempt.
+         */
+        LOGIN,
+        /**
+         * A password change attempt.
+         */
+        PASSWORD_CHANGE
+    }
+
+    /**
+     * An audited action.
+     *
+     * @param time When the action happened, in milliseconds since the epoch.
+     * @param type The kind of action.
+     * @param username The username entered.
+     * @param success Whether the action succeeded.
+     * @param outcome The message shown to the user.
+     */
+    record Event(long time, Type type, String username, boolean success, String outcome) {
+
+    }
+
+    /**
+     * Holds the shared instance, created on first use.
+     */
+    private static final class Holder {
+
+        /**
+         * Shared instance configured from system properties, closed at
+         * shutdown so that waiting events are written.
+         */
+        static final AuditLog INSTANCE = new AuditLog(
+                Paths.get(System.getProperty("wis.audit.dir", System.getProperty("user.home") + "/.wis/audit")),
+                Integer.getInteger("wis.audit.bufferSize", 8192),
+                Long.getLong("wis.audit.maxBytes", 10L * 1024 * 1024),
+                Integer.getInteger("wis.audit.files", 10));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::close, "wis-audit-shutdown"));
+        }
+    }
+
+    /**
+     * Directory holding the log files.
+     */
+    private final Path directory;
+
+    /**
+     * Size at which the active file is rotated, in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Number of rotated files kept.
+     */
+    private final int maxFiles;
+
+    /**
+     * Ring buffer slots.
+     */
+    private final AtomicReferenceArray<Event> slots;
+
+    /**
+     * Sequence number of each slot: equal to the claim position when the slot
+     * is free for it, one more once it is published.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Mask turning a position into a slot index.
+     */
+    private final int mask;
+
+    /**
+     * Next position to be claimed by a caller.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to be taken by the writer; used only by the writer.
+     */
+    private long head;
+
+    /**
+     * Number of events taken by the writer and written or discarded.
+     */
+    private volatile long completed;
+
+    /**
+     * Number of events discarded without being written.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Number of times a caller found the buffer full.
+     */
+    private final AtomicLong fullWaits = new AtomicLong();
+
+    /**
+     * The writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the writer is about to park or parked.
+     */
+    private volatile boolean writerIdle;
+
+    /**
+     * Set by {@link #close()}.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Why the last write failed, or {@code null} if it succeeded.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Events taken from the ring buffer and not yet written, oldest first.
+     * Used only by the writer.
+     */
+    private final List<Event> pending = new ArrayList<>(BATCH_SIZE);
+
+    /**
+     * The active log file, or {@code null} until first written. Used only by
+     * the writer.
+     */
+    private FileChannel channel;
+
+    /**
+     * Size of the active log file in bytes. Used only by the writer.
+     */
+    private long size;
+
+    /**
+     * Constructs an audit log and starts its writer thread.
+     *
+     * @param directory The directory holding the log files; created on first
+     * write. Must not be {@code null}.
+     * @param capacity The ring buffer capacity, rounded up to a power of two.
+     * Must be positive.
+     * @param maxBytes The size at which the active file is rotated. Must be
+     * positive.
+     * @param maxFiles The number of rotated files kept. Must not be negative.
+     * @throws NullPointerException If {@code directory} is {@code null}.
+     * @throws IllegalArgumentException If a limit is out of range.
+     */
+    public AuditLog(Path directory, int capacity, long maxBytes, int maxFiles) {
+        if (directory == null) {
+            throw new NullPointerException("Directory cannot be null");
+        }
+        if (capacity <= 0 || capacity > (1 << 30) || maxBytes <= 0 || maxFiles < 0) {
+            throw new IllegalArgumentException("Capacity and size limit must be positive");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        writer = new Thread(this::run, "wis-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the shared audit log configured from system properties.
+     *
+     * @return the shared {@link AuditLog} instance.
+     */
+    public static AuditLog getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Records an action. Returns once the event is buffered; it is written
+     * shortly afterwards.
+     *
+     * @param type The kind of action. Must not be {@code null}.
+     * @param username The username entered; may be {@code null}.
+     * @param success Whether the action succeeded.
+     * @param outcome The message shown to the user; may be {@code null}.
+     * @throws NullPointerException If {@code type} is {@code null}.
+     * @throws IllegalStateException If the log has been closed, so the event
+     * cannot be recorded.
+     */
+    public void record(Type type, String username, boolean success, String outcome) {
+        if (type == null) {
+            throw new NullPointerException("Type cannot be null");
+        }
+        Event event = new Event(System.currentTimeMillis(), type, username, success, outcome);
+        boolean waited = false;
+        while (!closed) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long diff = sequences.get(slot) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(slot, event);
+                    sequences.set(slot, position + 1);
+                    if (writerIdle) {
+                        LockSupport.unpark(writer);
+                    }
+                    return;
+                }
+            } else if (diff < 0) {
+                // Full: the writer has not yet freed this slot
+                if (!waited) {
+                    fullWaits.incrementAndGet();
+                    waited = true;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+        throw new IllegalStateException("Audit log is closed; " + type + " by " + username + " not recorded");
+    }
+
+    /**
+     * Waits until every event recorded before the call has been written and
+     * forced to disk, or has been discarded.
+     *
+     * @throws UncheckedIOException If the file cannot be written at present;
+     * the events are kept and retried.
+     * @throws IllegalStateException If the calling thread is interrupted
+     * while waiting.
+     */
+    public void flush() {
+        long target = tail.get();
+        synchronized (this) {
+            while (completed < target && writer.isAlive()) {
+                IOException cause = failure;
+                if (cause != null) {
+                    throw new UncheckedIOException("Audit log unavailable; events are held for retry", cause);
+                }
+                LockSupport.unpark(writer);
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the audit log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events that were discarded without being
+     * written.
+     *
+     * @return The failed event count.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of times a caller found the buffer full and had to
+     * wait for the writer.
+     *
+     * @return The full-buffer wait count.
+     */
+    public long getFullWaitCount() {
+        return fullWaits.get();
+    }
+
+    /**
+     * Writes the events already recorded, stops the writer and closes the
+     * file. Events that still cannot be written are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writer loop: takes batches of published events and writes them until
+     * the log is closed and the buffer is empty. After a failed write the
+     * events are kept and written again once the retry delay has passed.
+     */
+    private void run() {
+        long retryDelay = MIN_RETRY_MILLIS;
+        long retryAt = 0;
+        while (true) {
+            takeBatch();
+            if (pending.isEmpty()) {
+                if (closed && tail.get() == head) {
+                    break;
+                }
+                park(IDLE_PARK_NANOS);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (failure != null && !closed && now - retryAt < 0) {
+                park(Math.min(IDLE_PARK_NANOS, retryAt - now));
+                continue;
+            }
+            if (write(pending)) {
+                if (failure != null) {
+                    LOG.warn("Audit log available again; {} held events written", pending.size());
+                    failure = null;
+                }
+                retryDelay = MIN_RETRY_MILLIS;
+                pending.clear();
+            } else if (closed) {
+                discard(pending.size(), "audit log closed while unavailable");
+                pending.clear();
+            } else {
+                retryAt = System.nanoTime() + retryDelay * 1_000_000;
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_MILLIS);
+            }
+            synchronized (this) {
+                completed = head - pending.size();
+                notifyAll();
+            }
+        }
+        closeChannel();
+    }
+
+    /**
+     * Parks the writer until an event is published or a time has passed.
+     *
+     * @param nanos The longest time to park, in nanoseconds.
+     */
+    private void park(long nanos) {
+        writerIdle = true;
+        if (!isPublished(head)) {
+            LockSupport.parkNanos(nanos);
+        }
+        writerIdle = false;
+    }
+
+    /**
+     * Moves published events from the ring buffer to {@link #pending},
+     * freeing their slots: up to {@link #BATCH_SIZE} at a time while the file
+     * is writable, and while it is not, as many as the ring buffer holds,
+     * discarding the oldest waiting events to make room.
+     */
+    private void takeBatch() {
+        int limit = failure == null ? BATCH_SIZE : mask + 1;
+        while (isPublished(head)) {
+            if (pending.size() >= limit) {
+                if (failure == null) {
+                    return;
+                }
+                int n = Math.min(BATCH_SIZE, pending.size());
+                pending.subList(0, n).clear();
+                discard(n, "audit log unavailable and buffer full");
+            }
+            int slot = (int) head & mask;
+            pending.add(slots.get(slot));
+            slots.set(slot, null);
+            sequences.set(slot, head + mask + 1);
+            head++;
+        }
+    }
+
+    /**
+     * Counts and logs events discarded without being written.
+     *
+     * @param n The number of events.
+     * @param reason Why they were discarded.
+     */
+    private void discard(int n, String reason) {
+        failed.addAndGet(n);
+        LOG.error("{} audit events lost ({} in total): {}", n, failed.get(), reason, failure);
+    }
+
+    /**
+     * Returns whether the event at a position has been published.
+     *
+     * @param position The position.
+     * @return {@code true} if the event can be taken.
+     */
+    private boolean isPublished(long position) {
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    /**
+     * Appends a batch to the active file, rotating it first if needed, and
+     * forces it to disk. The first failure of an outage is logged as an
+     * error.
+     *
+     * @param batch The events.
+     * @return {@code true} if the batch was written.
+     */
+    private boolean write(List<Event> batch) {
+        StringBuilder sb = new StringBuilder(batch.size() * 128);
+        for (Event e : batch) {
+            appendJson(sb, e);
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(sb.toString());
+        try {
+            if (channel != null && size > 0 && size + bytes.remaining() > maxBytes) {
+                rotate();
+            }
+            if (channel == null) {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(directory.resolve(FILE_NAME), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                size = channel.size();
+            }
+            while (bytes.hasRemaining()) {
+                size += channel.write(bytes);
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            closeChannel();
+            if (failure == null) {
+                LOG.error("Audit log unavailable; {} events held for retry", batch.size(), e);
+            }
+            failure = e;
+            return false;
+        }
+    }
+
+    /**
+     * Closes the active file and shifts it and the older files up by one,
+     * deleting the oldest beyond {@link #maxFiles}.
+     *
+     * @throws IOException If a file cannot be moved or deleted.
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+        Path active = directory.resolve(FILE_NAME);
+        if (maxFiles == 0) {
+            Files.deleteIfExists(active);
+            return;
+        }
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = directory.resolve(FILE_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.move(active, directory.resolve(FILE_NAME + ".1"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Closes the active file, if open.
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Every batch was already forced
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Appends an event as one line of JSON.
+     *
+     * @param sb The output.
+     * @param e The event.
+     */
+    static void appendJson(StringBuilder sb, Event e) {
+        sb.append("{\"time\":\"").append(Instant.ofEpochMilli(e.time()))
+                .append("\",\"type\":\"").append(e.type())
+                .append("\",\"user\":");
+        appendString(sb, e.username());
+        sb.append(",\"success\":").append(e.success()).append(",\"outcome\":");
+        appendString(sb, e.outcome());
+        sb.append("}\n");
+    }
+
+    /**
+     * Appends a JSON string literal, or {@code null}.
+     *
+     * @param sb The output.
+     * @param s The string, or {@code null}.
+     */
+    private static void appendString(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' ->
+                    sb.append("\\\"");
+                case '\\' ->
+                    sb.append("\\\\");
+                case '\n' ->
+                    sb.append("\\n");
+                case '\r' ->
+                    sb.append("\\r");
+                case '\t' ->
+                    sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,450 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a JDBC connection healthy for one data access object.
+ *
+ * <p>
+ * The supervisor holds the active connection plus a pre-validated standby
+ * connection. When a statement fails because its connection broke (for
+ * example after a MySQL restart), {@link #recover(SQLException, Connection)}
+ * promotes the standby in place of the dead connection, so the caller can
+ * retry within milliseconds. A background monitor checks both connections
+ * periodically and reopens missing ones with exponential backoff.</p>
+ *
+ * <p>
+ * Each promotion increments {@link #getGeneration()}, which tells the owner to
+ * re-prepare its statements on the new connection.</p>
+ *
+ * <p>
+ * Connections to MySQL are opened with connect and socket timeouts, so an
+ * unreachable server cannot block a caller indefinitely.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class ConnectionSupervisor implements AutoCloseable {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(ConnectionSupervisor.class);
+
+    /**
+     * Interval between health checks while both connections are healthy, in
+     * milliseconds.
+     */
+    private static final long HEALTH_INTERVAL_MILLIS = 5_000;
+
+    /**
+     * First reconnect delay after a failure, in milliseconds.
+     */
+    private static final long MIN_BACKOFF_MILLIS = 250;
+
+    /**
+     * Largest reconnect delay, in milliseconds.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Seconds allowed for {@link Connection#isValid(int)} checks.
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Milliseconds allowed for establishing a MySQL connection.
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * Milliseconds a MySQL socket read may block. Longer than any latency
+     * budget, so it only ends reads the server will never answer.
+     */
+    static final int SOCKET_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Scheduler shared by all supervisors; its single daemon thread only runs
+     * short health checks and reconnect attempts.
+     */
+    private static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wis-connection-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * JDBC URL of the database.
+     */
+    private final String url;
+
+    /**
+     * Database username.
+     */
+    private final String user;
+
+    /**
+     * Database password.
+     */
+    private final String password;
+
+    /**
+     * Connection used for statements. Guarded by {@code this}.
+     */
+    private Connection active;
+
+    /**
+     * Validated spare connection, or {@code null}. Guarded by {@code this}.
+     */
+    private Connection standby;
+
+    /**
+     * Incremented each time {@link #active} is replaced.
+     */
+    private volatile long generation;
+
+    /**
+     * Delay before the next reconnect attempt. Only used by the monitor.
+     */
+    private long backoffMillis = MIN_BACKOFF_MILLIS;
+
+    /**
+     * The next scheduled monitor run.
+     */
+    private ScheduledFuture<?> nextCheck;
+
+    /**
+     * Set once {@link #close()} has been called.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Opens the active and standby connections and starts monitoring them.
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException If the active connection cannot be opened. A
+     * failure to open the standby is retried in the background.
+     */
+    public ConnectionSupervisor(String url, String user, String password) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.active = open();
+        try {
+            this.standby = open();
+        } catch (SQLException e) {
+            this.standby = null;
+        }
+        schedule(standby == null ? MIN_BACKOFF_MILLIS : HEALTH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Returns the connection statements should currently run on.
+     *
+     * @return the active connection.
+     */
+    public synchronized Connection getConnection() {
+        return active;
+    }
+
+    /**
+     * Returns the JDBC URL of the supervised database.
+     *
+     * @return the URL.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns a counter that changes whenever the active connection is
+     * replaced.
+     *
+     * @return the connection generation.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns whether an exception indicates that the connection itself is
+     * broken rather than the statement being wrong.
+     *
+     * @param e the exception thrown by a statement.
+     * @return {@code true} for connection failures (SQL state class 08).
+     */
+    public static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLRecoverableException
+                || (state != null && state.startsWith("08"));
+    }
+
+    /**
+     * Returns whether an exception clearly blames the statement or its data,
+     * so the connection need not be probed.
+     *
+     * @param e the exception thrown by a statement.
+     * @return {@code true} for syntax, access, data and constraint errors
+     * (SQL state classes 21, 22, 23, 42 and 44).
+     */
+    static boolean isStatementFailure(SQLException e) {
+        if (e instanceof SQLSyntaxErrorException
+                || e instanceof SQLDataException
+                || e instanceof SQLIntegrityConstraintViolationException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state == null || state.length() < 2) {
+            return false;
+        }
+        return switch (state.substring(0, 2)) {
+            case "21", "22", "23", "42", "44" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Replaces a connection that failed with the standby or a freshly opened
+     * connection. Errors that clearly blame the statement are rejected
+     * without probing the connection, since a probe may block for up to
+     * {@value #VALIDATION_TIMEOUT_SECONDS} seconds; other errors that are not
+     * connection failures, such as timeouts or unknown states, are probed.
+     *
+     * @param e The exception thrown by the failed statement.
+     * @param failed The connection the statement ran on.
+     * @return {@code true} if a working connection is now active and the
+     * statement should be retried; {@code false} if the failure was not a
+     * connection failure or no connection could be obtained.
+     */
+    public boolean recover(SQLException e, Connection failed) {
+        if (closed) {
+            return false;
+        }
+        if (!isConnectionFailure(e) && (isStatementFailure(e) || isValid(failed))) {
+            return false;
+        }
+        Connection spare;
+        synchronized (this) {
+            if (active != failed) {
+                return true;    // another caller already recovered
+            }
+            spare = standby;
+            standby = null;
+        }
+        closeQuietly(failed);
+        if (spare == null || !isValid(spare)) {
+            closeQuietly(spare);
+            try {
+                spare = open();
+            } catch (SQLException ex) {
+                rescheduleNow();
+                return false;
+            }
+        }
+        synchronized (this) {
+            active = spare;
+            generation++;
+        }
+        rescheduleNow();
+        return true;
+    }
+
+    /**
+     * Stops monitoring and closes both connections.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection a;
+        Connection s;
+        synchronized (this) {
+            if (nextCheck != null) {
+                nextCheck.cancel(false);
+            }
+            a = active;
+            s = standby;
+            standby = null;
+        }
+        closeQuietly(s);
+        if (a != null) {
+            try {
+                a.close();
+            } catch (SQLException ex) {
+                LOG.warn("Disconnection error", ex);
+            }
+        }
+    }
+
+    /**
+     * Monitor task: validates the active connection, promoting the standby if
+     * it has died, and makes sure a valid standby exists. Reschedules itself
+     * at the health interval, or with exponential backoff while reconnecting
+     * fails.
+     */
+    private void check() {
+        if (closed) {
+            return;
+        }
+        Connection a;
+        synchronized (this) {
+            a = active;
+        }
+        if (!isValid(a)) {
+            recover(new SQLNonTransientConnectionException("Connection no longer valid", "08003"), a);
+        }
+        boolean healthy = ensureStandby();
+        if (healthy) {
+            backoffMillis = MIN_BACKOFF_MILLIS;
+            schedule(HEALTH_INTERVAL_MILLIS);
+        } else {
+            schedule(backoffMillis);
+            backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+        }
+    }
+
+    /**
+     * Makes sure a validated standby connection exists.
+     *
+     * @return {@code true} if a valid standby is available.
+     */
+    private boolean ensureStandby() {
+        Connection s;
+        synchronized (this) {
+            s = standby;
+        }
+        if (s != null && isValid(s)) {
+            return true;
+        }
+        Connection fresh;
+        try {
+            fresh = open();
+        } catch (SQLException e) {
+            return false;
+        }
+        synchronized (this) {
+            if (standby == s && !closed) {
+                standby = fresh;
+                fresh = null;
+            }
+        }
+        closeQuietly(s);
+        closeQuietly(fresh);
+        return true;
+    }
+
+    /**
+     * Runs the monitor as soon as possible, e.g. after a failover.
+     */
+    private void rescheduleNow() {
+        backoffMillis = MIN_BACKOFF_MILLIS;
+        schedule(0);
+    }
+
+    /**
+     * Schedules the next monitor run, replacing any pending one.
+     *
+     * @param delayMillis delay before the run.
+     */
+    private synchronized void schedule(long delayMillis) {
+        if (closed) {
+            return;
+        }
+        if (nextCheck != null) {
+            nextCheck.cancel(false);
+        }
+        nextCheck = MONITOR.schedule(this::check, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a new connection.
+     *
+     * @return the connection.
+     * @throws SQLException if the database cannot be reached.
+     */
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection(url, connectionProperties(url, user, password));
+    }
+
+    /**
+     * Opens a connection to the same database that this supervisor neither
+     * monitors nor replaces, for work that must not share the active
+     * connection. The caller closes it.
+     *
+     * @return the connection.
+     * @throws SQLException if the database cannot be reached.
+     */
+    Connection openUnmanaged() throws SQLException {
+        return open();
+    }
+
+    /**
+     * Builds the properties for opening a connection, adding connect and
+     * socket timeouts for MySQL URLs. Other drivers ignore unknown
+     * properties inconsistently, so they only receive the credentials.
+     *
+     * @param url the JDBC URL of the database.
+     * @param user the database username.
+     * @param password the database password.
+     * @return the connection properties.
+     */
+    static Properties connectionProperties(String url, String user, String password) {
+        Properties props = new Properties();
+        if (user != null) {
+            props.setProperty("user", user);
+        }
+        if (password != null) {
+            props.setProperty("password", password);
+        }
+        if (url.startsWith("jdbc:mysql:")) {
+            props.setProperty("connectTimeout", Integer.toString(CONNECT_TIMEOUT_MILLIS));
+            props.setProperty("socketTimeout", Integer.toString(SOCKET_TIMEOUT_MILLIS));
+        }
+        return props;
+    }
+
+    /**
+     * Checks a connection without throwing.
+     *
+     * @param c the connection, may be {@code null}.
+     * @return {@code true} if the connection is open and answers.
+     */
+    private static boolean isValid(Connection c) {
+        try {
+            return c != null && c.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a connection, ignoring errors.
+     *
+     * @param c the connection, may be {@code null}.
+     */
+    private static void closeQuietly(Connection c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException e) {
+                // Already broken; nothing more to do
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package cqu.wis.data;
+
+/**
+ * Thrown when a database statement fails and cannot be retried.
+ *
+ * <p>
+ * Distinguishes a failed lookup from one that found nothing, so callers do
+ * not mistake a database outage for an unknown user or an empty result, and
+ * never cache it as one.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class DataAccessException extends RuntimeException {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new exception.
+     *
+     * @param message the detail message, naming the failed operation.
+     * @param cause the driver's exception.
+     */
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
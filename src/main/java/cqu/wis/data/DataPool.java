@@ -0,0 +1,88 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool of connected data access objects.
+ *
+ * <p>
+ * {@link WhiskeyData} and {@link UserData} hold a single connection and
+ * prepared statements that must not be shared between threads. The pool lets
+ * many threads use them safely by lending each instance to one caller at a
+ * time.</p>
+ *
+ * @param <T> the type of data access object held by the pool.
+ *
+ * @author Prajita Bhandari
+ */
+class DataPool<T> {
+
+    /**
+     * Every member of the pool, borrowed or not.
+     */
+    private final List<T> members = new ArrayList<>();
+
+    /**
+     * Members currently available to borrow.
+     */
+    private final BlockingQueue<T> idle;
+
+    /**
+     * Creates a pool of {@code size} members produced by {@code factory}.
+     *
+     * @param size the number of members. Must be positive.
+     * @param factory creates each member.
+     * @throws IllegalArgumentException If {@code size} is not positive.
+     */
+    DataPool(int size, Supplier<T> factory) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            T member = factory.get();
+            members.add(member);
+            idle.add(member);
+        }
+    }
+
+    /**
+     * Returns every member of the pool, for connecting or disconnecting them
+     * all.
+     *
+     * @return the pool members.
+     */
+    List<T> members() {
+        return members;
+    }
+
+    /**
+     * Borrows a member, applies {@code work} to it and returns it to the pool.
+     * Blocks while all members are in use.
+     *
+     * @param <R> the result type.
+     * @param work the operation to perform with the borrowed member.
+     * @return the result of {@code work}.
+     * @throws IllegalStateException If the calling thread is interrupted while
+     * waiting for a member.
+     */
+    <R> R call(Function<T, R> work) {
+        T member;
+        try {
+            member = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a connection", e);
+        }
+        try {
+            return work.apply(member);
+        } finally {
+            idle.add(member);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Location and credentials of one database.
+ *
+ * @param url The JDBC URL of the database.
+ * @param user The database username.
+ * @param password The database password.
+ *
+ * @author Prajita Bhandari
+ */
+public record DatabaseEndpoint(String url, String user, String password) {
+
+    /**
+     * Validates the endpoint.
+     *
+     * @throws NullPointerException If any component is {@code null}.
+     */
+    public DatabaseEndpoint {
+        if (url == null || user == null || password == null) {
+            throw new NullPointerException("URL, user and password cannot be null");
+        }
+    }
+
+    /**
+     * Creates endpoints with the same credentials from a whitespace-separated
+     * list of JDBC URLs, as read from a system property.
+     *
+     * @param urls The URLs; may be blank.
+     * @param user The username for every endpoint.
+     * @param password The password for every endpoint.
+     * @return The endpoints, in the order listed.
+     * @throws NullPointerException If any argument is {@code null}.
+     */
+    static List<DatabaseEndpoint> parseAll(String urls, String user, String password) {
+        if (urls == null) {
+            throw new NullPointerException("URLs cannot be null");
+        }
+        List<DatabaseEndpoint> endpoints = new ArrayList<>();
+        for (String url : urls.trim().split("\\s+")) {
+            if (!url.isEmpty()) {
+                endpoints.add(new DatabaseEndpoint(url, user, password));
+            }
+        }
+        return endpoints;
+    }
+}
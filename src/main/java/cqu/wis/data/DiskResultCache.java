@@ -0,0 +1,457 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent cache of whiskey query results stored under the user's home
+ * directory.
+ *
+ * <p>
+ * Each result is kept in its own file, named after a hash of its key (query
+ * type and parameters), and encoded with {@link WhiskeyDetailsCodec}. A file
+ * holds a header with the key and the time the result was saved, followed by
+ * the records and a CRC-32 of everything before it. Files that are truncated,
+ * corrupt or belong to a different key are discarded on read. Callers sharing
+ * a directory between databases must include the database in the key, as
+ * {@code WhiskeyDataManager} does.</p>
+ *
+ * <p>
+ * The total size of the cache is bounded: when a write pushes it over the
+ * limit, the least recently used files are deleted. Reading an entry marks it
+ * as used.</p>
+ *
+ * <p>
+ * Configuration is read from system properties:</p>
+ * <ul>
+ * <li>{@code wis.cache.dir} – cache directory (default
+ * {@code ~/.wis/cache})</li>
+ * <li>{@code wis.cache.maxBytes} – size limit in bytes (default 64 MB)</li>
+ * </ul>
+ *
+ * <p>
+ * The cache is best effort: I/O errors behave as misses. After a failed
+ * write the cache is bypassed for a delay that doubles with each further
+ * failure, up to {@value #MAX_RETRY_MILLIS} ms, and then tried again; the
+ * first failure and the recovery are logged.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class DiskResultCache {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(DiskResultCache.class);
+
+    /**
+     * File signature, "WISC" in ASCII.
+     */
+    private static final int MAGIC = 0x57495343;
+
+    /**
+     * Version of the file layout.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Extension of cache files.
+     */
+    private static final String SUFFIX = ".wrc";
+
+    /**
+     * Lowercase hexadecimal digits indexed by nibble value.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * How long the cache is bypassed after the first failed write, in
+     * milliseconds.
+     */
+    private static final long MIN_RETRY_MILLIS = 1_000;
+
+    /**
+     * Longest time the cache is bypassed after a failed write, in
+     * milliseconds.
+     */
+    private static final long MAX_RETRY_MILLIS = 60_000;
+
+    /**
+     * Shared instance configured from system properties.
+     */
+    private static final DiskResultCache INSTANCE = new DiskResultCache(
+            Paths.get(System.getProperty("wis.cache.dir",
+                    System.getProperty("user.home") + "/.wis/cache")),
+            Long.getLong("wis.cache.maxBytes", 64L * 1024 * 1024));
+
+    /**
+     * A result read from the cache.
+     *
+     * @param records The cached records, unmodifiable.
+     * @param savedAt The time the result was written, in milliseconds since
+     * the epoch.
+     */
+    public static record Entry(List<WhiskeyData.WhiskeyDetails> records, long savedAt) {
+
+    }
+
+    /**
+     * Directory holding the cache files.
+     */
+    private final Path directory;
+
+    /**
+     * Size limit of the cache in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Total size of the cache files, or -1 until the directory is scanned.
+     * Guarded by {@code this}.
+     */
+    private long totalBytes = -1;
+
+    /**
+     * Time before which the cache is bypassed after a failed write, in
+     * milliseconds since the epoch; 0 while writes succeed.
+     */
+    private volatile long retryAt;
+
+    /**
+     * Time the cache is bypassed after the next failed write. Guarded by
+     * {@code this}.
+     */
+    private long retryDelay = MIN_RETRY_MILLIS;
+
+    /**
+     * Constructs a cache in the given directory.
+     *
+     * @param directory The directory holding the cache files; created on
+     * first write. Must not be {@code null}.
+     * @param maxBytes The size limit in bytes. Must be positive.
+     * @throws NullPointerException If {@code directory} is {@code null}.
+     * @throws IllegalArgumentException If {@code maxBytes} is not positive.
+     */
+    public DiskResultCache(Path directory, long maxBytes) {
+        if (directory == null) {
+            throw new NullPointerException("Directory cannot be null");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Size limit must be positive");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the shared cache configured from system properties.
+     *
+     * @return the shared {@link DiskResultCache} instance.
+     */
+    public static DiskResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reads the cached result for a key.
+     *
+     * @param key The query type and parameters, e.g. {@code "region:Islay"}.
+     * @return The cached entry, or {@code null} if there is none or the file
+     * is unreadable or corrupt.
+     */
+    public Entry get(String key) {
+        if (isBypassed()) {
+            return null;
+        }
+        Path file = fileFor(key);
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;    // missing or unreadable: a miss
+        }
+        Entry entry = decode(key, data);
+        if (entry == null) {
+            delete(file);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result for a key, replacing any previous result, and evicts
+     * the least recently used files if the cache is over its size limit.
+     *
+     * @param key The query type and parameters.
+     * @param records The records to store. Must not be {@code null}.
+     */
+    public void put(String key, List<WhiskeyData.WhiskeyDetails> records) {
+        if (isBypassed()) {
+            return;
+        }
+        byte[] data = encode(key, records, System.currentTimeMillis());
+        Path file = fileFor(key);
+        synchronized (this) {
+            try {
+                Files.createDirectories(directory);
+                scanIfNeeded();
+                long previous = sizeOf(file);
+                Path tmp = Files.createTempFile(directory, "put", ".tmp");
+                try {
+                    Files.write(tmp, data);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                totalBytes += data.length - previous;
+                if (totalBytes > maxBytes) {
+                    evict(file);
+                }
+                if (retryAt != 0) {
+                    LOG.warn("Result cache available again");
+                    retryAt = 0;
+                    retryDelay = MIN_RETRY_MILLIS;
+                }
+            } catch (IOException e) {
+                if (retryAt == 0) {
+                    LOG.warn("Result cache unavailable; retrying in {} ms", retryDelay, e);
+                }
+                retryAt = System.currentTimeMillis() + retryDelay;
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the cache is being bypassed after a failed write.
+     *
+     * @return {@code true} until the retry delay has passed.
+     */
+    private boolean isBypassed() {
+        long at = retryAt;
+        return at != 0 && System.currentTimeMillis() < at;
+    }
+
+    /**
+     * Deletes all cached results.
+     */
+    public synchronized void clear() {
+        for (Path file : listFiles()) {
+            delete(file);
+        }
+        totalBytes = 0;
+    }
+
+    /**
+     * Returns the total size of the cache files.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getSizeBytes() {
+        scanIfNeeded();
+        return totalBytes;
+    }
+
+    /**
+     * Encodes a result into the cache file layout.
+     *
+     * @param key The key stored in the header.
+     * @param records The records.
+     * @param savedAt The time of writing in milliseconds since the epoch.
+     * @return The file contents.
+     */
+    static byte[] encode(String key, List<WhiskeyData.WhiskeyDetails> records, long savedAt) {
+        int size = 4 + 1 + 5 + key.length() * 3 + 8 + 5 + 4;
+        for (WhiskeyData.WhiskeyDetails d : records) {
+            size += WhiskeyDetailsCodec.maxEncodedSize(d);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(MAGIC).put(VERSION);
+        WhiskeyDetailsCodec.putString(buf, key);
+        buf.putLong(savedAt);
+        WhiskeyDetailsCodec.putVarInt(buf, records.size());
+        for (WhiskeyData.WhiskeyDetails d : records) {
+            WhiskeyDetailsCodec.put(buf, d);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        byte[] data = new byte[buf.position()];
+        System.arraycopy(buf.array(), 0, data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Decodes and checks a cache file.
+     *
+     * @param key The key the file is expected to hold.
+     * @param data The file contents.
+     * @return The entry, or {@code null} if the file is corrupt or holds a
+     * different key.
+     */
+    static Entry decode(String key, byte[] data) {
+        if (data.length < 4 + 1 + 4) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        if (buf.getInt(data.length - 4) != (int) crc.getValue()
+                || buf.getInt() != MAGIC || buf.get() != VERSION) {
+            return null;
+        }
+        try {
+            if (!key.equals(WhiskeyDetailsCodec.getString(buf))) {
+                return null;
+            }
+            long savedAt = buf.getLong();
+            int count = WhiskeyDetailsCodec.getVarInt(buf);
+            if (count < 0) {
+                return null;
+            }
+            List<WhiskeyData.WhiskeyDetails> records = new ArrayList<>(Math.min(count, data.length));
+            for (int i = 0; i < count; i++) {
+                records.add(WhiskeyDetailsCodec.get(buf));
+            }
+            return new Entry(List.copyOf(records), savedAt);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the cache is within its
+     * size limit. Must be called holding the lock.
+     *
+     * @param keep The file just written, which is never evicted.
+     */
+    private void evict(Path keep) {
+        List<Path> files = listFiles();
+        files.sort(Comparator.comparing(DiskResultCache::lastModified));
+        for (Path file : files) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            if (file.equals(keep)) {
+                continue;
+            }
+            long size = sizeOf(file);
+            if (delete(file)) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    /**
+     * Computes the total size of the cache files on first use. Must be called
+     * holding the lock.
+     */
+    private void scanIfNeeded() {
+        if (totalBytes < 0) {
+            long total = 0;
+            for (Path file : listFiles()) {
+                total += sizeOf(file);
+            }
+            totalBytes = total;
+        }
+    }
+
+    /**
+     * Lists the cache files.
+     *
+     * @return The files; empty if the directory does not exist.
+     */
+    private List<Path> listFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            ds.forEach(files::add);
+        } catch (IOException e) {
+            // Treat as empty
+        }
+        return files;
+    }
+
+    /**
+     * Returns the file holding the result for a key.
+     *
+     * @param key The key.
+     * @return The path of the cache file.
+     */
+    private Path fileFor(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            char[] name = new char[32];
+            for (int i = 0; i < 16; i++) {
+                name[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+                name[2 * i + 1] = HEX[hash[i] & 0xf];
+            }
+            return directory.resolve(new String(name) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns the size of a file without throwing.
+     *
+     * @param file The file.
+     * @return Its size in bytes, or 0 if it does not exist.
+     */
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the modification time of a file without throwing.
+     *
+     * @param file The file.
+     * @return Its modification time, or the epoch if unknown.
+     */
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Deletes a file without throwing.
+     *
+     * @param file The file.
+     * @return {@code true} if the file was deleted.
+     */
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
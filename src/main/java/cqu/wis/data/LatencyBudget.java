@@ -0,0 +1,107 @@
+package cqu.wis.data;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Per-operation latency budgets enforced on JDBC statements.
+ *
+ * <p>
+ * Each budget is applied to its prepared statement with
+ * {@link PreparedStatement#setQueryTimeout(int)}, so the driver cancels a
+ * statement that runs past its deadline and the caller receives a
+ * {@link QueryTimeoutException} instead of waiting forever.</p>
+ *
+ * <p>
+ * The default of each budget can be overridden with the system property
+ * {@code wis.budget.<name>Ms}, e.g. {@code -Dwis.budget.loginMs=2000}. JDBC
+ * timeouts have a resolution of one second, so budgets are rounded up to
+ * whole seconds.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public enum LatencyBudget {
+
+    /**
+     * User lookup during login or password change.
+     */
+    LOGIN(3_000),
+    /**
+     * Password update.
+     */
+    PASSWORD_UPDATE(5_000),
+    /**
+     * Search for malts from a region.
+     */
+    REGION_SEARCH(5_000),
+    /**
+     * Search for malts in an age range.
+     */
+    AGE_SEARCH(5_000),
+    /**
+     * Retrieval of all malts.
+     */
+    ALL_MALTS(10_000),
+    /**
+     * Retrieval of one malt's price history.
+     */
+    PRICE_HISTORY(3_000),
+    /**
+     * Retrieval of the price history of every malt.
+     */
+    PRICE_HISTORY_LOAD(60_000);
+
+    /**
+     * The budget in milliseconds.
+     */
+    private final long millis;
+
+    /**
+     * Creates a budget, applying any system property override.
+     *
+     * @param defaultMillis the default budget in milliseconds.
+     */
+    LatencyBudget(long defaultMillis) {
+        this.millis = Long.getLong("wis.budget." + propertyName() + "Ms", defaultMillis);
+    }
+
+    /**
+     * Returns the budget in milliseconds.
+     *
+     * @return the budget.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Applies the budget to a statement as its query timeout.
+     *
+     * @param stmt the statement to limit.
+     * @throws SQLException if the driver rejects the timeout.
+     */
+    void applyTo(PreparedStatement stmt) throws SQLException {
+        stmt.setQueryTimeout((int) Math.max(1, (millis + 999) / 1000));
+    }
+
+    /**
+     * Returns the camel-case name used in the system property, e.g.
+     * {@code regionSearch}.
+     *
+     * @return the property name.
+     */
+    private String propertyName() {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : name().toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+}
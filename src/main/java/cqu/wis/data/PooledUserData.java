@@ -0,0 +1,85 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+
+/**
+ * Thread-safe {@link UserSource} backed by a fixed pool of connections.
+ *
+ * <p>
+ * Each lookup or update borrows one pooled {@link UserData} instance for the
+ * duration of the call, so concurrent callers never share a connection or
+ * prepared statement. Used by the headless query server.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class PooledUserData implements UserSource {
+
+    /**
+     * The pooled instances, each with its own connection.
+     */
+    private final DataPool<UserData> pool;
+
+    /**
+     * Creates a pool of {@code size} USERS database connections. The
+     * connections are opened by {@link #connect()}.
+     *
+     * @param size the number of connections. Must be positive.
+     * @throws IllegalArgumentException If {@code size} is not positive.
+     */
+    public PooledUserData(int size) {
+        pool = new DataPool<>(size, UserData::new);
+    }
+
+    /**
+     * Connects every pooled instance to the USERS database.
+     *
+     * @throws SQLException if any connection fails.
+     */
+    @Override
+    public void connect() throws SQLException {
+        for (UserData ud : pool.members()) {
+            ud.connect();
+        }
+    }
+
+    /**
+     * Connects every pooled instance to the given USERS database.
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException if any connection fails.
+     */
+    public void connect(String url, String user, String password) throws SQLException {
+        for (UserData ud : pool.members()) {
+            ud.connect(url, user, password);
+        }
+    }
+
+    /**
+     * Closes every pooled connection.
+     */
+    @Override
+    public void disconnect() {
+        pool.members().forEach(UserData::disconnect);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UserData.UserDetails findUser(String name) {
+        return pool.call(ud -> ud.findUser(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updatePassword(String name, String newPassword) {
+        pool.call(ud -> {
+            ud.updatePassword(name, newPassword);
+            return null;
+        });
+    }
+}
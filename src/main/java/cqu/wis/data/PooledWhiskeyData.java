@@ -0,0 +1,108 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe {@link WhiskeySource} backed by a fixed pool of connections.
+ *
+ * <p>
+ * Each query borrows one pooled {@link WhiskeyData} instance for the duration
+ * of the call, so concurrent callers never share a connection or prepared
+ * statement. Used by the headless query server.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class PooledWhiskeyData implements WhiskeySource {
+
+    /**
+     * The pooled instances, each with its own connection.
+     */
+    private final DataPool<WhiskeyData> pool;
+
+    /**
+     * Creates a pool of {@code size} WHISKEY database connections. The
+     * connections are opened by {@link #connect()}.
+     *
+     * @param size the number of connections. Must be positive.
+     * @throws IllegalArgumentException If {@code size} is not positive.
+     */
+    public PooledWhiskeyData(int size) {
+        pool = new DataPool<>(size, WhiskeyData::new);
+    }
+
+    /**
+     * Connects every pooled instance to the WHISKEY database.
+     *
+     * @throws SQLException if any connection fails.
+     */
+    @Override
+    public void connect() throws SQLException {
+        for (WhiskeyData wd : pool.members()) {
+            wd.connect();
+        }
+    }
+
+    /**
+     * Connects every pooled instance to the given WHISKEY database.
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException if any connection fails.
+     */
+    public void connect(String url, String user, String password) throws SQLException {
+        for (WhiskeyData wd : pool.members()) {
+            wd.connect(url, user, password);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSource() {
+        return pool.members().get(0).getSource();
+    }
+
+    /**
+     * Closes every pooled connection.
+     */
+    @Override
+    public void disconnect() {
+        pool.members().forEach(WhiskeyData::disconnect);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+        return pool.call(WhiskeyData::getAllMalts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+        return pool.call(wd -> wd.forEachMalt(sink));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region) {
+        return pool.call(wd -> wd.getMaltsFromRegion(region));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int lower, int upper) {
+        return pool.call(wd -> wd.getMaltsInAgeRange(lower, upper));
+    }
+}
@@ -0,0 +1,260 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Data access class for the price history of each single malt.
+ *
+ * <p>
+ * Prices are kept in the {@code PRICEHISTORY} table of the {@code WHISKEY}
+ * database, one row for each date on which a malt's price changed:</p>
+ * <pre>
+ * CREATE TABLE PRICEHISTORY (
+ *     DISTILLERY VARCHAR(64) NOT NULL,
+ *     PRICEDATE DATE NOT NULL,
+ *     PRICE INT NOT NULL,
+ *     PRIMARY KEY (DISTILLERY, PRICEDATE))
+ * </pre>
+ *
+ * <p>
+ * The table may be very large, so the full history is only ever streamed in
+ * key order with {@link #forEachPrice(Consumer)}, for loading into a compact
+ * in-memory store; a single malt's history can be read with
+ * {@link #getPriceHistory(String)}.</p>
+ *
+ * <p>
+ * Like {@link WhiskeyData}, the connection is kept healthy by a
+ * {@link ConnectionSupervisor}, a query broken by a lost connection before
+ * any row was delivered is retried once, and errors are logged and thrown as
+ * a {@link DataAccessException}, so a failed read is never taken for a malt
+ * without history.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class PriceHistoryData {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(PriceHistoryData.class);
+
+    /**
+     * SQL query to retrieve every price change in key order.
+     */
+    private static final String ALL_PRICES_SQL
+            = "SELECT DISTILLERY, PRICEDATE, PRICE FROM PRICEHISTORY ORDER BY DISTILLERY, PRICEDATE";
+
+    /**
+     * SQL query to retrieve one malt's price changes in date order.
+     */
+    private static final String MALT_PRICES_SQL
+            = "SELECT DISTILLERY, PRICEDATE, PRICE FROM PRICEHISTORY WHERE DISTILLERY = ? ORDER BY PRICEDATE";
+
+    /**
+     * Log that statements exceeding the slow-query threshold are reported to.
+     */
+    private final SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+
+    /**
+     * Supervisor owning the JDBC connections to the WHISKEY database.
+     */
+    private ConnectionSupervisor supervisor;
+
+    /**
+     * Connection the prepared statements belong to.
+     */
+    private Connection conn;
+
+    /**
+     * Supervisor generation the prepared statements were created for.
+     */
+    private long preparedGeneration;
+
+    /**
+     * Prepared SQL statement to retrieve every price change.
+     */
+    private PreparedStatement getAllPrices;
+
+    /**
+     * Prepared SQL statement to retrieve one malt's price changes.
+     */
+    private PreparedStatement getMaltPrices;
+
+    /**
+     * A price change of a malt.
+     *
+     * @param distillery Name of the distillery.
+     * @param date Date from which the price applies.
+     * @param price The price from that date.
+     */
+    public static record PricePoint(String distillery, LocalDate date, int price) {
+
+    }
+
+    /**
+     * Establishes a connection to the default WHISKEY database, as used by
+     * {@link WhiskeyData#connect()}.
+     *
+     * @throws SQLException If a database access error occurs or the connection
+     * fails.
+     */
+    public void connect() throws SQLException {
+        connect(WhiskeyData.DEFAULT_URL, WhiskeyData.DEFAULT_USER, WhiskeyData.DEFAULT_PASSWORD);
+    }
+
+    /**
+     * Establishes a connection to the given WHISKEY database and prepares
+     * reusable SQL statements, each limited by its {@link LatencyBudget}.
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException If a database access error occurs or the connection
+     * fails.
+     */
+    public void connect(String url, String user, String password) throws SQLException {
+        supervisor = new ConnectionSupervisor(url, user, password);
+        prepareStatements();
+    }
+
+    /**
+     * Prepares the SQL statements on the supervisor's active connection if
+     * they were prepared for an earlier connection (or not at all).
+     *
+     * @throws SQLException If a statement cannot be prepared.
+     */
+    private void prepareStatements() throws SQLException {
+        long generation = supervisor.getGeneration();
+        if (conn != null && generation == preparedGeneration) {
+            return;
+        }
+        conn = supervisor.getConnection();
+        getAllPrices = conn.prepareStatement(ALL_PRICES_SQL);
+        LatencyBudget.PRICE_HISTORY_LOAD.applyTo(getAllPrices);
+        getAllPrices.setFetchSize(WhiskeyData.STREAM_FETCH_SIZE);
+        getMaltPrices = conn.prepareStatement(MALT_PRICES_SQL);
+        LatencyBudget.PRICE_HISTORY.applyTo(getMaltPrices);
+        preparedGeneration = generation;
+    }
+
+    /**
+     * Closes the database connections and stops their health monitoring. Does
+     * nothing if this object was never connected.
+     */
+    public void disconnect() {
+        if (supervisor != null) {
+            supervisor.close();
+        }
+    }
+
+    /**
+     * Streams every price change to a consumer as it is read, ordered by
+     * distillery and then date, without collecting them into a list. Rows are
+     * fetched from the server {@value WhiskeyData#STREAM_FETCH_SIZE} at a
+     * time; with MySQL this requires {@code useCursorFetch=true} on the URL,
+     * as in the default URL.
+     *
+     * @param sink Receives each price change. Must not be {@code null}.
+     * @return The number of price changes delivered.
+     * @throws NullPointerException If {@code sink} is {@code null}.
+     * @throws QueryTimeoutException If the query exceeds
+     * {@link LatencyBudget#PRICE_HISTORY_LOAD}.
+     * @throws DataAccessException If the query fails, before or after some
+     * price changes were delivered.
+     */
+    public int forEachPrice(Consumer<? super PricePoint> sink) {
+        if (sink == null) {
+            throw new NullPointerException("Sink cannot be null");
+        }
+        return executeQuery("getAllPrices", LatencyBudget.PRICE_HISTORY_LOAD, () -> getAllPrices,
+                ALL_PRICES_SQL, sink);
+    }
+
+    /**
+     * Retrieves one malt's price changes in date order.
+     *
+     * @param distillery The name of the distillery.
+     * @return The price changes, or an empty list if there are none.
+     * @throws QueryTimeoutException If the query exceeds
+     * {@link LatencyBudget#PRICE_HISTORY}.
+     * @throws DataAccessException If the query fails.
+     */
+    public List<PricePoint> getPriceHistory(String distillery) {
+        List<PricePoint> results = new ArrayList<>();
+        executeQuery("getPriceHistory", LatencyBudget.PRICE_HISTORY, () -> getMaltPrices,
+                MALT_PRICES_SQL, results::add, distillery);
+        return results;
+    }
+
+    /**
+     * Binds the parameters to a prepared statement, executes it and passes
+     * each row to a consumer as a {@link PricePoint}, retrying once if the
+     * connection turns out to be broken before any row was delivered.
+     *
+     * @param operation The name of the query operation being executed.
+     * @param budget The latency budget applied to {@code stmt}.
+     * @param stmt Supplies the current prepared SQL statement for
+     * {@code sql}.
+     * @param sql The SQL text of the statement.
+     * @param sink Receives each row in result set order.
+     * @param params The values to bind to the statement placeholders.
+     * @return The number of rows delivered to {@code sink}.
+     * @throws QueryTimeoutException If the statement exceeds {@code budget}.
+     * @throws DataAccessException If the statement fails.
+     */
+    private int executeQuery(String operation, LatencyBudget budget, Supplier<PreparedStatement> stmt,
+            String sql, Consumer<? super PricePoint> sink, Object... params) {
+        long start = System.nanoTime();
+        int rows = 0;
+        SQLTimeoutException timeout = null;
+        SQLException failure = null;
+        boolean mayRetry = true;
+        while (true) {
+            try {
+                prepareStatements();
+                PreparedStatement ps = stmt.get();
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Date date = rs.getDate("PRICEDATE");
+                        sink.accept(new PricePoint(rs.getString("DISTILLERY"), date.toLocalDate(),
+                                rs.getInt("PRICE")));
+                        rows++;
+                    }
+                }
+            } catch (SQLTimeoutException e) {
+                timeout = e;
+            } catch (SQLException e) {
+                if (mayRetry && rows == 0 && supervisor.recover(e, conn)) {
+                    mayRetry = false;
+                    continue;
+                }
+                LOG.warn("Price history query error in {} after {} rows", operation, rows, e);
+                failure = e;
+            }
+            break;
+        }
+        slowQueryLog.record(supervisor, sql, params, System.nanoTime() - start, rows);
+        if (timeout != null) {
+            throw new QueryTimeoutException(operation, budget, timeout);
+        }
+        if (failure != null) {
+            throw new DataAccessException(operation + (rows == 0 ? " failed" : " failed after " + rows + " rows"),
+                    failure);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,47 @@
+package cqu.wis.data;
+
+/**
+ * Thrown when a database statement is cancelled because it exceeded its
+ * {@link LatencyBudget}.
+ *
+ * <p>
+ * Distinguishes a slow database from an empty result, so controllers can tell
+ * the user that a search timed out rather than that nothing was found. It is
+ * a {@link DataAccessException}, so callers that only need to know that the
+ * database failed can handle both together.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class QueryTimeoutException extends DataAccessException {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The budget that was exceeded.
+     */
+    private final LatencyBudget budget;
+
+    /**
+     * Constructs a new exception for the given operation and budget.
+     *
+     * @param operation the name of the operation that timed out.
+     * @param budget the budget that was exceeded.
+     * @param cause the driver's timeout exception.
+     */
+    public QueryTimeoutException(String operation, LatencyBudget budget, Throwable cause) {
+        super(operation + " exceeded its " + budget.getMillis() + " ms budget", cause);
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the budget that was exceeded.
+     *
+     * @return the latency budget.
+     */
+    public LatencyBudget getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,496 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Routes reads to replica data objects and writes to the primary.
+ *
+ * <p>
+ * The router creates, connects and disconnects the data objects of the
+ * primary and every replica. The primary must be reachable when the router is
+ * connected; a replica that cannot be connected is left out and connected
+ * again at each lag measurement until it succeeds.</p>
+ *
+ * <p>
+ * Each replica's lag is measured every {@code checkMillis} on its own
+ * monitoring connection. A read goes to the replica with the fewest reads in
+ * progress among those whose last measured lag is at most
+ * {@code maxLagMillis}, starting the search at a rotating position so that
+ * idle replicas share the load; if no replica qualifies the read goes to the
+ * primary. A replica that is not connected or whose lag cannot be measured
+ * does not qualify.</p>
+ *
+ * <p>
+ * If a read fails on a replica for any reason other than a timeout, the
+ * replica is treated as lagging by an unknown amount until its next
+ * successful measurement, and the read is repeated once on another suitable
+ * replica or on the primary, so a replica that dies between measurements
+ * does not fail reads while the primary is healthy.</p>
+ *
+ * <p>
+ * Reads and writes may carry a key, such as a username. After a write for a
+ * key, reads for that key go to the primary until a replica's lag is known to
+ * be shorter than the time since the write, so a caller always reads its own
+ * writes.</p>
+ *
+ * <p>
+ * Each data object is used by one caller at a time; a router may be shared
+ * between threads.</p>
+ *
+ * @param <T> The data object type.
+ *
+ * @author Prajita Bhandari
+ */
+final class ReplicaRouter<T> implements AutoCloseable {
+
+    /**
+     * Logger for unavailable replicas.
+     */
+    private static final Log LOG = Log.get(ReplicaRouter.class);
+
+    /**
+     * Number of keys with recent writes above which expired entries are
+     * purged on the next write.
+     */
+    private static final int PURGE_THRESHOLD = 1024;
+
+    /**
+     * Measures replica lag on a shared daemon thread.
+     */
+    private static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wis-replica-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The primary database.
+     */
+    private final DatabaseEndpoint primaryEndpoint;
+
+    /**
+     * The primary data object.
+     */
+    private final T primary;
+
+    /**
+     * Connects a data object to its database.
+     */
+    private final Connector<T> connector;
+
+    /**
+     * Disconnects a data object.
+     */
+    private final Consumer<T> disconnector;
+
+    /**
+     * The replicas.
+     */
+    private final List<Replica<T>> replicas = new ArrayList<>();
+
+    /**
+     * Measures replica lag.
+     */
+    private final ReplicationLag lag;
+
+    /**
+     * Largest lag in milliseconds at which a replica serves reads.
+     */
+    private final long maxLagMillis;
+
+    /**
+     * Interval in milliseconds between lag measurements.
+     */
+    private final long checkMillis;
+
+    /**
+     * Time of the last write for each key, in milliseconds since the epoch.
+     */
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    /**
+     * Position at which the next replica search starts.
+     */
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * The scheduled lag measurement, or {@code null} before {@link #start()}.
+     */
+    private ScheduledFuture<?> check;
+
+    /**
+     * Connects a data object to a database.
+     *
+     * @param <T> The data object type.
+     */
+    @FunctionalInterface
+    interface Connector<T> {
+
+        /**
+         * Connects a data object.
+         *
+         * @param data The data object.
+         * @param endpoint The database to connect it to.
+         * @throws SQLException If the connection fails.
+         */
+        void connect(T data, DatabaseEndpoint endpoint) throws SQLException;
+    }
+
+    /**
+     * A replica data object and its measured state.
+     *
+     * @param <T> The data object type.
+     */
+    private static final class Replica<T> {
+
+        /**
+         * The replica data object.
+         */
+        final T data;
+
+        /**
+         * Where the replica is, for its monitoring connection.
+         */
+        final DatabaseEndpoint endpoint;
+
+        /**
+         * Reads in progress on this replica.
+         */
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        /**
+         * Whether the data object is connected.
+         */
+        volatile boolean connected;
+
+        /**
+         * Whether a failure to connect has been logged since the last
+         * attempt that succeeded.
+         */
+        boolean reported;
+
+        /**
+         * Monitoring connection, or {@code null} until it can be opened.
+         */
+        ConnectionSupervisor monitor;
+
+        /**
+         * Last measured lag in milliseconds; {@link Long#MAX_VALUE} if
+         * unknown.
+         */
+        volatile long lagMillis = Long.MAX_VALUE;
+
+        /**
+         * Creates a replica entry.
+         *
+         * @param data The replica data object.
+         * @param endpoint Where the replica is.
+         */
+        Replica(T data, DatabaseEndpoint endpoint) {
+            this.data = data;
+            this.endpoint = endpoint;
+        }
+    }
+
+    /**
+     * Creates a router and a data object for the primary and each replica.
+     * The data objects are connected by {@link #connect()}.
+     *
+     * @param primary The primary database.
+     * @param replicas The replica databases; may be empty.
+     * @param factory Creates an unconnected data object.
+     * @param connector Connects a data object to a database.
+     * @param disconnector Disconnects a data object.
+     * @param lag Measures replica lag.
+     * @param maxLagMillis Largest lag at which a replica serves reads.
+     * @param checkMillis Interval between lag measurements. Must be positive.
+     * @throws NullPointerException If an argument is {@code null}.
+     */
+    ReplicaRouter(DatabaseEndpoint primary, List<DatabaseEndpoint> replicas, Supplier<T> factory,
+            Connector<T> connector, Consumer<T> disconnector, ReplicationLag lag, long maxLagMillis,
+            long checkMillis) {
+        if (primary == null || replicas == null || factory == null || connector == null
+                || disconnector == null || lag == null) {
+            throw new NullPointerException("Primary, replicas and lag probe cannot be null");
+        }
+        this.primaryEndpoint = primary;
+        this.primary = factory.get();
+        for (DatabaseEndpoint endpoint : replicas) {
+            this.replicas.add(new Replica<>(factory.get(), endpoint));
+        }
+        this.connector = connector;
+        this.disconnector = disconnector;
+        this.lag = lag;
+        this.maxLagMillis = maxLagMillis;
+        this.checkMillis = checkMillis;
+    }
+
+    /**
+     * Connects the primary and every reachable replica, measures the
+     * replicas' lag and schedules further measurements.
+     *
+     * @throws SQLException If the primary cannot be connected; nothing is
+     * left connected.
+     */
+    synchronized void connect() throws SQLException {
+        connector.connect(primary, primaryEndpoint);
+        for (Replica<T> replica : replicas) {
+            tryConnect(replica);
+        }
+        start();
+    }
+
+    /**
+     * Measures every replica's lag and schedules further measurements.
+     */
+    private synchronized void start() {
+        checkReplicas();
+        if (check == null) {
+            check = MONITOR.scheduleWithFixedDelay(this::checkReplicas, checkMillis, checkMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Measures every replica's lag now, first connecting any replica that is
+     * not yet connected.
+     */
+    synchronized void checkReplicas() {
+        for (Replica<T> replica : replicas) {
+            replica.lagMillis = replica.connected || tryConnect(replica) ? measure(replica) : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Connects a replica's data object, logging the first of consecutive
+     * failures.
+     *
+     * @param replica The replica.
+     * @return {@code true} if the replica is now connected.
+     */
+    private boolean tryConnect(Replica<T> replica) {
+        try {
+            connector.connect(replica.data, replica.endpoint);
+            replica.connected = true;
+            replica.reported = false;
+        } catch (SQLException e) {
+            if (!replica.reported) {
+                replica.reported = true;
+                LOG.warn("Replica {} unavailable; reads go to other databases until it connects",
+                        replica.endpoint.url(), e);
+            }
+        }
+        return replica.connected;
+    }
+
+    /**
+     * Returns the last measured lag of each replica.
+     *
+     * @return The lags in milliseconds, in replica order.
+     */
+    List<Long> getLags() {
+        return replicas.stream().map(r -> r.lagMillis).toList();
+    }
+
+    /**
+     * Performs a read on a replica, or on the primary if no replica is
+     * suitable. A read that fails on a replica is repeated once.
+     *
+     * @param <R> The result type.
+     * @param key The key read, or {@code null} if the read is not tied to a
+     * key that may have been written.
+     * @param work The read.
+     * @return The result of {@code work}.
+     */
+    <R> R read(String key, Function<T, R> work) {
+        return read(key, work, () -> true);
+    }
+
+    /**
+     * Performs a read on a replica, or on the primary if no replica is
+     * suitable. If the read fails on a replica with a
+     * {@link DataAccessException} other than a {@link QueryTimeoutException},
+     * the replica's lag becomes unknown and, if {@code retryable} allows it,
+     * the read is repeated once on the database chosen next.
+     *
+     * @param <R> The result type.
+     * @param key The key read, or {@code null} if the read is not tied to a
+     * key that may have been written.
+     * @param work The read.
+     * @param retryable Tells, after a failure, whether the read may be
+     * repeated; for example not once a streamed read has delivered rows.
+     * @return The result of {@code work}.
+     */
+    <R> R read(String key, Function<T, R> work, BooleanSupplier retryable) {
+        Replica<T> replica = choose(key);
+        if (replica == null) {
+            return onPrimary(work);
+        }
+        try {
+            return onReplica(replica, work);
+        } catch (QueryTimeoutException e) {
+            throw e;
+        } catch (DataAccessException e) {
+            replica.lagMillis = Long.MAX_VALUE;
+            LOG.warn("Read failed on replica {}; it serves no reads until its next lag measurement",
+                    replica.endpoint.url(), e);
+            if (!retryable.getAsBoolean()) {
+                throw e;
+            }
+        }
+        Replica<T> next = choose(key);
+        return next == null ? onPrimary(work) : onReplica(next, work);
+    }
+
+    /**
+     * Performs a write on the primary and sends later reads of its key to the
+     * primary until the replicas have caught up.
+     *
+     * @param <R> The result type.
+     * @param key The key written. Must not be {@code null}.
+     * @param work The write.
+     * @return The result of {@code work}.
+     */
+    <R> R write(String key, Function<T, R> work) {
+        try {
+            return onPrimary(work);
+        } finally {
+            long now = System.currentTimeMillis();
+            if (lastWrite.size() > PURGE_THRESHOLD) {
+                lastWrite.values().removeIf(at -> now - at > maxLagMillis + checkMillis);
+            }
+            lastWrite.put(key, now);
+        }
+    }
+
+    /**
+     * Stops measuring lag, closes the monitoring connections and disconnects
+     * every data object.
+     */
+    @Override
+    public synchronized void close() {
+        if (check != null) {
+            check.cancel(false);
+            check = null;
+        }
+        for (Replica<T> replica : replicas) {
+            if (replica.monitor != null) {
+                replica.monitor.close();
+                replica.monitor = null;
+            }
+            replica.lagMillis = Long.MAX_VALUE;
+            if (replica.connected) {
+                replica.connected = false;
+                disconnector.accept(replica.data);
+            }
+        }
+        disconnector.accept(primary);
+    }
+
+    /**
+     * Performs work on a replica, counting it as in progress there.
+     *
+     * @param <R> The result type.
+     * @param replica The replica.
+     * @param work The work.
+     * @return The result of {@code work}.
+     */
+    private <R> R onReplica(Replica<T> replica, Function<T, R> work) {
+        replica.inFlight.incrementAndGet();
+        try {
+            synchronized (replica.data) {
+                return work.apply(replica.data);
+            }
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Performs work on the primary.
+     *
+     * @param <R> The result type.
+     * @param work The work.
+     * @return The result of {@code work}.
+     */
+    private <R> R onPrimary(Function<T, R> work) {
+        synchronized (primary) {
+            return work.apply(primary);
+        }
+    }
+
+    /**
+     * Chooses the least busy replica that is recent enough for a read.
+     *
+     * @param key The key read, or {@code null}.
+     * @return The replica, or {@code null} if none is suitable.
+     */
+    private Replica<T> choose(String key) {
+        long limit = maxLagMillis;
+        if (key != null) {
+            Long at = lastWrite.get(key);
+            if (at != null) {
+                long since = System.currentTimeMillis() - at;
+                if (since > maxLagMillis + checkMillis) {
+                    lastWrite.remove(key, at);
+                } else {
+                    // The lag may have grown since it was measured
+                    limit = Math.min(limit, since - checkMillis - 1);
+                }
+            }
+        }
+        Replica<T> best = null;
+        int n = replicas.size();
+        int start = nextReplica.getAndIncrement();
+        for (int i = 0; i < n; i++) {
+            Replica<T> replica = replicas.get(Math.floorMod(start + i, n));
+            if (replica.lagMillis <= limit
+                    && (best == null || replica.inFlight.get() < best.inFlight.get())) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures a replica's lag on its monitoring connection, opening the
+     * connection if needed.
+     *
+     * @param replica The replica.
+     * @return The lag in milliseconds, or {@link Long#MAX_VALUE} if it cannot
+     * be measured.
+     */
+    private long measure(Replica<T> replica) {
+        Connection c = null;
+        try {
+            if (replica.monitor == null) {
+                DatabaseEndpoint e = replica.endpoint;
+                replica.monitor = new ConnectionSupervisor(e.url(), e.user(), e.password());
+            }
+            c = replica.monitor.getConnection();
+            return Math.max(0, lag.lagMillis(c));
+        } catch (SQLException e) {
+            if (c != null) {
+                replica.monitor.recover(e, c);
+            }
+            return Long.MAX_VALUE;
+        } catch (RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
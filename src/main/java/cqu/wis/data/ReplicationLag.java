@@ -0,0 +1,47 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures how far a replica database is behind its primary.
+ *
+ * @author Prajita Bhandari
+ */
+@FunctionalInterface
+public interface ReplicationLag {
+
+    /**
+     * Returns the replication lag of a replica.
+     *
+     * @param replica A connection to the replica.
+     * @return The lag in milliseconds, or {@link Long#MAX_VALUE} if the
+     * replica is not replicating.
+     * @throws SQLException If the lag cannot be read.
+     */
+    long lagMillis(Connection replica) throws SQLException;
+
+    /**
+     * Returns a probe reading {@code Seconds_Behind_Source} from MySQL's
+     * {@code SHOW REPLICA STATUS}. A server that reports no replication status
+     * is not replicating from the primary (for example, replication was
+     * reset or the URL names the wrong server), so its lag is unknown and it
+     * serves no reads.
+     *
+     * @return The MySQL probe.
+     */
+    static ReplicationLag mysql() {
+        return replica -> {
+            try (Statement st = replica.createStatement();
+                    ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+                if (!rs.next()) {
+                    return Long.MAX_VALUE;
+                }
+                long seconds = rs.getLong("Seconds_Behind_Source");
+                return rs.wasNull() ? Long.MAX_VALUE : seconds * 1000;
+            }
+        };
+    }
+}
@@ -0,0 +1,138 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * {@link UserSource} that reads from replica USERS databases and writes to the
+ * primary.
+ *
+ * <p>
+ * {@link #findUser(String)} is served by the least busy replica whose
+ * replication lag is within {@code wis.replica.maxLagMs} milliseconds
+ * (default 1000), measured every {@code wis.replica.checkMs} milliseconds
+ * (default 1000). {@link #updatePassword(String, String)} goes to the primary,
+ * and lookups of a user whose password was just changed also go to the
+ * primary until the replicas have caught up, so a changed password works at
+ * once. See {@link ReplicaRouter}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class RoutedUserData implements UserSource {
+
+    /**
+     * Routes each lookup and update.
+     */
+    private final ReplicaRouter<UserData> router;
+
+    /**
+     * Creates a routed data source measuring lag with
+     * {@link ReplicationLag#mysql()}. The databases are connected by
+     * {@link #connect()}.
+     *
+     * @param primary The primary database.
+     * @param replicas The replica databases; may be empty.
+     * @throws NullPointerException If an argument is {@code null}.
+     */
+    public RoutedUserData(DatabaseEndpoint primary, List<DatabaseEndpoint> replicas) {
+        this(primary, replicas, ReplicationLag.mysql(), Long.getLong("wis.replica.maxLagMs", 1000),
+                Long.getLong("wis.replica.checkMs", 1000));
+    }
+
+    /**
+     * Creates a routed data source with an explicit lag probe and limits.
+     *
+     * @param primary The primary database.
+     * @param replicas The replica databases; may be empty.
+     * @param lag Measures replica lag.
+     * @param maxLagMillis Largest lag at which a replica serves lookups.
+     * @param checkMillis Interval between lag measurements. Must be positive.
+     * @throws NullPointerException If an argument is {@code null}.
+     */
+    RoutedUserData(DatabaseEndpoint primary, List<DatabaseEndpoint> replicas, ReplicationLag lag,
+            long maxLagMillis, long checkMillis) {
+        router = new ReplicaRouter<>(primary, replicas, UserData::new,
+                (ud, e) -> ud.connect(e.url(), e.user(), e.password()), UserData::disconnect,
+                lag, maxLagMillis, checkMillis);
+    }
+
+    /**
+     * Creates a routed data source over the default USERS database and
+     * replicas with the same credentials.
+     *
+     * @param replicaUrls Whitespace-separated JDBC URLs of the replicas, as
+     * read from the {@code wis.users.replicas} system property.
+     * @return The routed data source, not yet connected.
+     * @throws NullPointerException If {@code replicaUrls} is {@code null}.
+     */
+    public static RoutedUserData withReplicas(String replicaUrls) {
+        DatabaseEndpoint primary = new DatabaseEndpoint(UserData.DEFAULT_URL, UserData.DEFAULT_USER,
+                UserData.DEFAULT_PASSWORD);
+        return new RoutedUserData(primary,
+                DatabaseEndpoint.parseAll(replicaUrls, UserData.DEFAULT_USER, UserData.DEFAULT_PASSWORD));
+    }
+
+    /**
+     * Connects to the primary and every reachable replica and starts
+     * measuring lag. A replica that cannot be connected serves no reads and
+     * is connected again at each lag measurement.
+     *
+     * @throws SQLException If the primary cannot be connected.
+     */
+    @Override
+    public void connect() throws SQLException {
+        router.connect();
+    }
+
+    /**
+     * Stops measuring lag and disconnects from every database.
+     */
+    @Override
+    public void disconnect() {
+        router.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Served by a replica unless this user's password was changed too
+     * recently for the replicas to have it.</p>
+     */
+    @Override
+    public UserData.UserDetails findUser(String name) {
+        return router.read(name, ud -> ud.findUser(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Always performed on the primary.</p>
+     */
+    @Override
+    public void updatePassword(String name, String newPassword) {
+        router.write(name, ud -> {
+            ud.updatePassword(name, newPassword);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the last measured lag of each replica.
+     *
+     * @return The lags in milliseconds, in replica order;
+     * {@link Long#MAX_VALUE} for a replica whose lag is unknown.
+     */
+    public List<Long> getReplicaLags() {
+        return router.getLags();
+    }
+
+    /**
+     * Measures every replica's lag now instead of waiting for the next
+     * scheduled measurement.
+     */
+    void checkReplicas() {
+        router.checkReplicas();
+    }
+}
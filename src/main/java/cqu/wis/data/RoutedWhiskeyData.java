@@ -0,0 +1,167 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * {@link WhiskeySource} that serves every query from replica WHISKEY databases.
+ *
+ * <p>
+ * All catalog queries are read-only, so each goes to the least busy replica
+ * whose replication lag is within {@code wis.replica.maxLagMs} milliseconds
+ * (default 1000), measured every {@code wis.replica.checkMs} milliseconds
+ * (default 1000), or to the primary if no replica qualifies. Adding replicas
+ * adds read capacity. See {@link ReplicaRouter}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class RoutedWhiskeyData implements WhiskeySource {
+
+    /**
+     * Routes each query.
+     */
+    private final ReplicaRouter<WhiskeyData> router;
+
+    /**
+     * JDBC URL of the primary, which the replicas copy.
+     */
+    private final String source;
+
+    /**
+     * Creates a routed data source measuring lag with
+     * {@link ReplicationLag#mysql()}. The databases are connected by
+     * {@link #connect()}.
+     *
+     * @param primary The primary database.
+     * @param replicas The replica databases; may be empty.
+     * @throws NullPointerException If an argument is {@code null}.
+     */
+    public RoutedWhiskeyData(DatabaseEndpoint primary, List<DatabaseEndpoint> replicas) {
+        this(primary, replicas, ReplicationLag.mysql(), Long.getLong("wis.replica.maxLagMs", 1000),
+                Long.getLong("wis.replica.checkMs", 1000));
+    }
+
+    /**
+     * Creates a routed data source with an explicit lag probe and limits.
+     *
+     * @param primary The primary database.
+     * @param replicas The replica databases; may be empty.
+     * @param lag Measures replica lag.
+     * @param maxLagMillis Largest lag at which a replica serves queries.
+     * @param checkMillis Interval between lag measurements. Must be positive.
+     * @throws NullPointerException If an argument is {@code null}.
+     */
+    RoutedWhiskeyData(DatabaseEndpoint primary, List<DatabaseEndpoint> replicas, ReplicationLag lag,
+            long maxLagMillis, long checkMillis) {
+        router = new ReplicaRouter<>(primary, replicas, WhiskeyData::new,
+                (wd, e) -> wd.connect(e.url(), e.user(), e.password()), WhiskeyData::disconnect,
+                lag, maxLagMillis, checkMillis);
+        source = primary.url();
+    }
+
+    /**
+     * Creates a routed data source over the default WHISKEY database and
+     * replicas with the same credentials.
+     *
+     * @param replicaUrls Whitespace-separated JDBC URLs of the replicas, as
+     * read from the {@code wis.whiskey.replicas} system property.
+     * @return The routed data source, not yet connected.
+     * @throws NullPointerException If {@code replicaUrls} is {@code null}.
+     */
+    public static RoutedWhiskeyData withReplicas(String replicaUrls) {
+        DatabaseEndpoint primary = new DatabaseEndpoint(WhiskeyData.DEFAULT_URL, WhiskeyData.DEFAULT_USER,
+                WhiskeyData.DEFAULT_PASSWORD);
+        return new RoutedWhiskeyData(primary,
+                DatabaseEndpoint.parseAll(replicaUrls, WhiskeyData.DEFAULT_USER, WhiskeyData.DEFAULT_PASSWORD));
+    }
+
+    /**
+     * Connects to the primary and every reachable replica and starts
+     * measuring lag. A replica that cannot be connected serves no reads and
+     * is connected again at each lag measurement.
+     *
+     * @throws SQLException If the primary cannot be connected.
+     */
+    @Override
+    public void connect() throws SQLException {
+        router.connect();
+    }
+
+    /**
+     * Returns the primary's URL; the replicas hold the same data.
+     *
+     * @return the JDBC URL of the primary.
+     */
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Stops measuring lag and disconnects from every database.
+     */
+    @Override
+    public void disconnect() {
+        router.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+        return router.read(null, WhiskeyData::getAllMalts);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * A read that fails on a replica is repeated elsewhere only if no record
+     * had been delivered, so the consumer never receives a record twice.</p>
+     */
+    @Override
+    public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+        AtomicBoolean delivered = new AtomicBoolean();
+        return router.read(null, wd -> wd.forEachMalt(malt -> {
+            delivered.set(true);
+            sink.accept(malt);
+        }), () -> !delivered.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region) {
+        return router.read(null, wd -> wd.getMaltsFromRegion(region));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int lower, int upper) {
+        return router.read(null, wd -> wd.getMaltsInAgeRange(lower, upper));
+    }
+
+    /**
+     * Returns the last measured lag of each replica.
+     *
+     * @return The lags in milliseconds, in replica order;
+     * {@link Long#MAX_VALUE} for a replica whose lag is unknown.
+     */
+    public List<Long> getReplicaLags() {
+        return router.getLags();
+    }
+
+    /**
+     * Measures every replica's lag now instead of waiting for the next
+     * scheduled measurement.
+     */
+    void checkReplicas() {
+        router.checkReplicas();
+    }
+}
@@ -0,0 +1,450 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link WhiskeySource} over a catalog split by region across several WHISKEY
+ * databases (shards).
+ *
+ * <p>
+ * Each shard holds the {@code SINGLEMALTS} rows of the regions assigned to it
+ * and is accessed through its own {@link WhiskeyData}. A region search is
+ * routed to the shard owning the region (regions are matched ignoring case);
+ * a search for a region no shard owns is sent to every shard. The other
+ * queries are sent to every shard in parallel and the results are merged in
+ * shard order. {@link #forEachMalt(Consumer)} merges the shards' streams as
+ * they arrive, in batches, so the catalog is never collected in full.</p>
+ *
+ * <p>
+ * If a shard fails or exceeds its latency budget, the whole query fails with
+ * the shard's {@link DataAccessException} or {@link QueryTimeoutException}, so
+ * a missing shard is never mistaken for a region without malts. Each shard
+ * is used by one query at a time, so an instance may be shared between
+ * threads.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class ShardedWhiskeyData implements WhiskeySource {
+
+    /**
+     * Number of records passed from a shard to the merging thread at a time.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Number of batches that may wait to be merged before the shards pause.
+     */
+    private static final int QUEUE_BATCHES = 64;
+
+    /**
+     * End-of-stream marker of a shard that finished without error.
+     */
+    private static final Object DONE = new Object();
+
+    /**
+     * Runs the per-shard queries on daemon threads.
+     */
+    private static final ExecutorService FAN_OUT = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "wis-shard-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Location and regions of one shard.
+     *
+     * @param url The JDBC URL of the shard's WHISKEY database.
+     * @param user The database username.
+     * @param password The database password.
+     * @param regions The regions whose rows the shard holds.
+     */
+    public static record Shard(String url, String user, String password, Set<String> regions) {
+
+        /**
+         * Validates and copies the shard description.
+         *
+         * @throws NullPointerException If any component is {@code null}.
+         */
+        public Shard {
+            if (url == null || user == null || password == null || regions == null) {
+                throw new NullPointerException("Shard URL, user, password and regions cannot be null");
+            }
+            regions = Set.copyOf(regions);
+        }
+    }
+
+    /**
+     * The shard descriptions, in merge order.
+     */
+    private final List<Shard> shards;
+
+    /**
+     * The data access object of each shard, in the order of {@link #shards}.
+     */
+    private final List<WhiskeyData> members = new ArrayList<>();
+
+    /**
+     * The data access object owning each region, matched ignoring case.
+     */
+    private final Map<String, WhiskeyData> owners = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Creates a sharded data source. The shards are connected by
+     * {@link #connect()}.
+     *
+     * @param shards The shards, in the order their results are merged. Must
+     * not be empty.
+     * @throws NullPointerException If {@code shards} is {@code null}.
+     * @throws IllegalArgumentException If {@code shards} is empty or two
+     * shards claim the same region.
+     */
+    public ShardedWhiskeyData(List<Shard> shards) {
+        if (shards == null) {
+            throw new NullPointerException("Shards cannot be null");
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        for (Shard shard : this.shards) {
+            WhiskeyData member = new WhiskeyData();
+            members.add(member);
+            for (String region : shard.regions()) {
+                if (owners.put(region, member) != null) {
+                    throw new IllegalArgumentException("Region " + region + " is assigned to more than one shard");
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a sharded data source from a specification of the form
+     * {@code Islay,Speyside=jdbc:mysql://host1/WHISKEY Highland,Lowland=jdbc:mysql://host2/WHISKEY},
+     * that is, whitespace-separated entries each giving a shard's regions and
+     * URL, as read from the {@code wis.shards} system property.
+     *
+     * @param spec The shard specification.
+     * @param user The username for every shard.
+     * @param password The password for every shard.
+     * @return The sharded data source, not yet connected.
+     * @throws NullPointerException If any argument is {@code null}.
+     * @throws IllegalArgumentException If an entry is malformed.
+     */
+    public static ShardedWhiskeyData parse(String spec, String user, String password) {
+        if (spec == null) {
+            throw new NullPointerException("Shard specification cannot be null");
+        }
+        List<Shard> shards = new ArrayList<>();
+        for (String entry : spec.trim().split("\\s+")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException("Shard entry must be regions=url: " + entry);
+            }
+            Set<String> regions = Set.of(entry.substring(0, eq).split(","));
+            shards.add(new Shard(entry.substring(eq + 1), user, password, regions));
+        }
+        return new ShardedWhiskeyData(shards);
+    }
+
+    /**
+     * Connects every shard to its database.
+     *
+     * @throws SQLException If any shard cannot be connected; the shards
+     * already connected are disconnected.
+     */
+    @Override
+    public void connect() throws SQLException {
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                Shard shard = shards.get(i);
+                members.get(i).connect(shard.url(), shard.user(), shard.password());
+            }
+        } catch (SQLException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the URLs of the shards, in order, separated by spaces.
+     *
+     * @return the shards' JDBC URLs.
+     */
+    @Override
+    public String getSource() {
+        StringBuilder sb = new StringBuilder();
+        for (Shard shard : shards) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(shard.url());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Disconnects every connected shard.
+     */
+    @Override
+    public void disconnect() {
+        for (WhiskeyData member : members) {
+            if (member.getSupervisor() != null) {
+                member.disconnect();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The shards are queried in parallel and their records are returned
+     * shard by shard.</p>
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+        return fanOut(WhiskeyData::getAllMalts);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The shards are queried in parallel; records are delivered on the
+     * calling thread in batches as each shard produces them, so records of
+     * different shards may interleave.</p>
+     *
+     * @throws IllegalStateException If the calling thread is interrupted
+     * while waiting for the shards.
+     */
+    @Override
+    public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+        if (sink == null) {
+            throw new NullPointerException("Sink cannot be null");
+        }
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        for (WhiskeyData member : members) {
+            FAN_OUT.execute(() -> streamShard(member, queue, cancelled));
+        }
+        int remaining = members.size();
+        int rows = 0;
+        RuntimeException failure = null;
+        try {
+            while (remaining > 0) {
+                Object item = queue.take();
+                if (item instanceof List<?> batch) {
+                    for (Object d : batch) {
+                        sink.accept((WhiskeyData.WhiskeyDetails) d);
+                    }
+                    rows += batch.size();
+                } else {
+                    remaining--;
+                    if (item instanceof RuntimeException e && failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for shard results", e);
+        } finally {
+            cancelled.set(true);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Only the shard owning {@code region} is queried, or every shard if
+     * none owns it.</p>
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region) {
+        WhiskeyData owner = region == null ? null : owners.get(region);
+        if (owner == null) {
+            return fanOut(member -> member.getMaltsFromRegion(region));
+        }
+        synchronized (owner) {
+            return owner.getMaltsFromRegion(region);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The shards are queried in parallel and their records are returned
+     * shard by shard.</p>
+     */
+    @Override
+    public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int lower, int upper) {
+        return fanOut(member -> member.getMaltsInAgeRange(lower, upper));
+    }
+
+    /**
+     * Runs a query on every shard in parallel and concatenates the results in
+     * shard order.
+     *
+     * @param query The query to run on one shard.
+     * @return The merged records.
+     * @throws QueryTimeoutException If a shard exceeds its latency budget.
+     * @throws DataAccessException If a shard's query fails.
+     */
+    private List<WhiskeyData.WhiskeyDetails> fanOut(Function<WhiskeyData, List<WhiskeyData.WhiskeyDetails>> query) {
+        List<CompletableFuture<List<WhiskeyData.WhiskeyDetails>>> futures = new ArrayList<>();
+        for (WhiskeyData member : members) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                synchronized (member) {
+                    return query.apply(member);
+                }
+            }, FAN_OUT));
+        }
+        List<WhiskeyData.WhiskeyDetails> merged = new ArrayList<>();
+        for (CompletableFuture<List<WhiskeyData.WhiskeyDetails>> future : futures) {
+            try {
+                merged.addAll(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Streams all records of one shard into the merge queue in batches,
+     * followed by {@link #DONE} or the exception that ended the stream.
+     *
+     * @param member The shard.
+     * @param queue The merge queue.
+     * @param cancelled Set when the merging thread stops reading.
+     */
+    private static void streamShard(WhiskeyData member, BlockingQueue<Object> queue, AtomicBoolean cancelled) {
+        Object end = DONE;
+        try {
+            Batcher batcher = new Batcher(queue, cancelled);
+            synchronized (member) {
+                member.forEachMalt(batcher);
+            }
+            batcher.flush();
+        } catch (CancellationException e) {
+            return;
+        } catch (RuntimeException e) {
+            end = e;
+        }
+        try {
+            offer(queue, end, cancelled);
+        } catch (CancellationException e) {
+            // The merging thread has stopped reading
+        }
+    }
+
+    /**
+     * Adds an item to the merge queue, waiting while it is full.
+     *
+     * @param queue The merge queue.
+     * @param item The batch or end marker.
+     * @param cancelled Set when the merging thread stops reading.
+     * @throws CancellationException If the merging thread stopped reading or
+     * this thread was interrupted.
+     */
+    private static void offer(BlockingQueue<Object> queue, Object item, AtomicBoolean cancelled) {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (cancelled.get()) {
+                    throw new CancellationException("Shard results are no longer read");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted passing shard results");
+        }
+    }
+
+    /**
+     * Collects the records of one shard into batches and passes each full
+     * batch to the merge queue.
+     */
+    private static final class Batcher implements Consumer<WhiskeyData.WhiskeyDetails> {
+
+        /**
+         * The merge queue.
+         */
+        private final BlockingQueue<Object> queue;
+
+        /**
+         * Set when the merging thread stops reading.
+         */
+        private final AtomicBoolean cancelled;
+
+        /**
+         * The batch being filled.
+         */
+        private List<WhiskeyData.WhiskeyDetails> batch = new ArrayList<>(BATCH_SIZE);
+
+        /**
+         * Creates a batcher for one shard stream.
+         *
+         * @param queue The merge queue.
+         * @param cancelled Set when the merging thread stops reading.
+         */
+        Batcher(BlockingQueue<Object> queue, AtomicBoolean cancelled) {
+            this.queue = queue;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * Adds a record, passing the batch on when it is full.
+         *
+         * @param d The record.
+         */
+        @Override
+        public void accept(WhiskeyData.WhiskeyDetails d) {
+            batch.add(d);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Passes the records collected so far to the merge queue.
+         */
+        void flush() {
+            if (!batch.isEmpty()) {
+                offer(queue, batch, cancelled);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+    }
+}
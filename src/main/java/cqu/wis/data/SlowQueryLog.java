@@ -0,0 +1,284 @@
+package cqu.wis.data;
+
+import cqu.wis.log.Log;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Detector for slow statements executed by {@link WhiskeyData} and
+ * {@link UserData}.
+ *
+ * <p>
+ * Any statement that takes longer than the configured threshold is written to
+ * a rotating log file together with its bound parameters, duration and row
+ * count. The first time a given SQL string (query shape) is found to be slow,
+ * an {@code EXPLAIN} of the statement is captured as well, so missing indexes
+ * and plan regressions can be found without a DBA. The {@code EXPLAIN} runs in
+ * the background on a connection of its own, limited to
+ * {@value #EXPLAIN_TIMEOUT_SECONDS} seconds, so it never delays the caller or
+ * its next statement and is unaffected by a failover of the caller's
+ * connection; if it fails or times out the shape is explained again on its
+ * next slow execution.</p>
+ *
+ * <p>
+ * Configuration is read from system properties:</p>
+ * <ul>
+ * <li>{@code wis.slowquery.thresholdMs} – threshold in milliseconds (default
+ * 500)</li>
+ * <li>{@code wis.slowquery.dir} – log directory (default
+ * {@code ~/.wis/logs})</li>
+ * </ul>
+ *
+ * <p>
+ * The log rotates through {@value #FILE_COUNT} files of at most
+ * {@value #FILE_LIMIT} bytes each.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class SlowQueryLog {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(SlowQueryLog.class);
+
+    /**
+     * Maximum size in bytes of a single log file before rotation.
+     */
+    private static final int FILE_LIMIT = 5 * 1024 * 1024;
+
+    /**
+     * Number of log files kept in the rotation.
+     */
+    private static final int FILE_COUNT = 5;
+
+    /**
+     * Longest time an {@code EXPLAIN} may run, in seconds.
+     */
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Runs {@code EXPLAIN} statements off the callers' threads.
+     */
+    private static final ExecutorService EXPLAINER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wis-slow-query-explain");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Shared instance used by the data access classes.
+     */
+    private static final SlowQueryLog INSTANCE = new SlowQueryLog(
+            Long.getLong("wis.slowquery.thresholdMs", 500),
+            Paths.get(System.getProperty("wis.slowquery.dir",
+                    System.getProperty("user.home") + "/.wis/logs")));
+
+    /**
+     * Threshold above which a statement is considered slow, in nanoseconds.
+     */
+    private final long thresholdNanos;
+
+    /**
+     * Directory the rotating log files are written to.
+     */
+    private final Path directory;
+
+    /**
+     * SQL strings for which an {@code EXPLAIN} has been captured.
+     */
+    private final Set<String> explainedShapes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * SQL strings for which an {@code EXPLAIN} is queued or running.
+     */
+    private final Set<String> explaining = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Logger writing to the rotating file, created on the first slow
+     * statement.
+     */
+    private volatile Logger logger;
+
+    /**
+     * Set once the log file could not be opened, so the failure is reported
+     * only once.
+     */
+    private volatile boolean unavailable;
+
+    /**
+     * Constructs a slow-query log with the given threshold and log directory.
+     *
+     * @param thresholdMillis the threshold in milliseconds above which a
+     * statement is logged. Must not be negative.
+     * @param directory the directory the log files are written to. Must not be
+     * {@code null}.
+     * @throws IllegalArgumentException If {@code thresholdMillis} is negative.
+     * @throws NullPointerException If {@code directory} is {@code null}.
+     */
+    public SlowQueryLog(long thresholdMillis, Path directory) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        if (directory == null) {
+            throw new NullPointerException("Directory cannot be null");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the shared slow-query log configured from system properties.
+     *
+     * @return the shared {@link SlowQueryLog} instance.
+     */
+    public static SlowQueryLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records a completed statement, logging it if it exceeded the threshold.
+     *
+     * <p>
+     * For the first slow execution of each distinct SQL string an
+     * {@code EXPLAIN} is queued to run with the same parameters on a new
+     * connection to the same database, and its plan rows are appended to the
+     * log when it completes. The shape counts as explained only once that
+     * succeeds.</p>
+     *
+     * @param supervisor the supervisor of the connection the statement was
+     * executed on, used to open the connection for the {@code EXPLAIN}.
+     * @param sql the SQL text of the statement.
+     * @param params the parameters bound to the statement.
+     * @param elapsedNanos how long the statement took, in nanoseconds.
+     * @param rowCount the number of rows returned or updated.
+     */
+    public void record(ConnectionSupervisor supervisor, String sql, Object[] params, long elapsedNanos, int rowCount) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        Logger log = logger();
+        if (log == null) {
+            return;
+        }
+        log.warning(String.format("%s SLOW %d ms rows=%d sql=[%s] params=%s",
+                Instant.now(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rowCount, sql, Arrays.toString(params)));
+        if (!explainedShapes.contains(sql) && explaining.add(sql)) {
+            Object[] bound = params.clone();
+            EXPLAINER.execute(() -> {
+                try {
+                    log.warning(explain(supervisor, sql, bound));
+                    explainedShapes.add(sql);
+                } catch (SQLException e) {
+                    log.warning("EXPLAIN [" + sql + "] failed: " + e.getMessage());
+                } finally {
+                    explaining.remove(sql);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns whether an {@code EXPLAIN} has been captured for a SQL string.
+     *
+     * @param sql the SQL text.
+     * @return {@code true} if its plan has been logged.
+     */
+    boolean isExplained(String sql) {
+        return explainedShapes.contains(sql);
+    }
+
+    /**
+     * Runs {@code EXPLAIN} for the given statement on a new connection and
+     * renders the plan rows as text.
+     *
+     * @param supervisor the supervisor whose database the statement ran on.
+     * @param sql the SQL text of the statement.
+     * @param params the parameters to bind.
+     * @return the rendered plan.
+     * @throws SQLException if the connection cannot be opened, or the
+     * explain fails or exceeds {@link #EXPLAIN_TIMEOUT_SECONDS}.
+     */
+    private static String explain(ConnectionSupervisor supervisor, String sql, Object[] params)
+            throws SQLException {
+        StringBuilder sb = new StringBuilder("EXPLAIN [").append(sql).append(']');
+        try (Connection conn = supervisor.openUnmanaged();
+                PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            stmt.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData md = rs.getMetaData();
+                while (rs.next()) {
+                    sb.append(System.lineSeparator()).append("  ");
+                    for (int c = 1; c <= md.getColumnCount(); c++) {
+                        sb.append(md.getColumnLabel(c)).append('=').append(rs.getString(c));
+                        if (c < md.getColumnCount()) {
+                            sb.append(", ");
+                        }
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the file logger, creating the log directory and rotating file
+     * handler on first use.
+     *
+     * @return the logger, or {@code null} if the log file cannot be opened.
+     */
+    private Logger logger() {
+        Logger log = logger;
+        if (log != null || unavailable) {
+            return log;
+        }
+        synchronized (this) {
+            if (logger == null && !unavailable) {
+                try {
+                    Files.createDirectories(directory);
+                    FileHandler handler = new FileHandler(
+                            directory.resolve("slow-query.%g.log").toString(),
+                            FILE_LIMIT, FILE_COUNT, true);
+                    handler.setFormatter(new Formatter() {
+                        @Override
+                        public String format(LogRecord record) {
+                            return record.getMessage() + System.lineSeparator();
+                        }
+                    });
+                    Logger l = Logger.getAnonymousLogger();
+                    l.setUseParentHandlers(false);
+                    l.setLevel(Level.ALL);
+                    l.addHandler(handler);
+                    logger = l;
+                } catch (IOException e) {
+                    unavailable = true;
+                    LOG.warn("Slow query log unavailable", e);
+                }
+            }
+            return logger;
+        }
+    }
+}
@@ -4,11 +4,12 @@
  */
 package cqu.wis.data;
 
+import cqu.wis.log.Log;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 
 /**
  * Data access layer class for managing user authentication data in the
@@ -21,18 +22,69 @@ import java.sql.SQLException;
  * internally via JDBC.</p>
  *
  * <p>
+ * The connection is kept healthy by a {@link ConnectionSupervisor}: a
+ * statement that fails because the connection broke is retried once on the
+ * standby connection, and statements are re-prepared whenever the connection
+ * changes.</p>
+ *
+ * <p>
  * Used in the Whiskey Information System (WIS) for secure user login and
  * credential management.</p>
  *
  * @author Prajita Bhandari
  */
-public class UserData {
+public class UserData implements UserSource {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(UserData.class);
+
+    /**
+     * JDBC URL of the default USERS database.
+     */
+    static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/USERS";
+
+    /**
+     * Username for the default USERS database.
+     */
+    static final String DEFAULT_USER = "root";
+
+    /**
+     * Password for the default USERS database.
+     */
+    static final String DEFAULT_PASSWORD = "pass";
+
+    /**
+     * SQL text to retrieve user details by username.
+     */
+    private static final String FIND_USER_SQL = "SELECT * FROM PASSWORDS WHERE USERNAME = ?";
 
     /**
-     * JDBC connection to the USERS database.
+     * SQL text to update a user's password.
+     */
+    private static final String UPDATE_PASSWORD_SQL = "UPDATE PA" + "SSWORDS SET PASSWORD = ? WHERE USERNAME = ?";
+
+    /**
+     * Log that statements exceeding the slow-query threshold are reported to.
+     */
+    private final SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+
+    /**
+     * Supervisor owning the JDBC connections to the USERS database.
+     */
+    private ConnectionSupervisor supervisor;
+
+    /**
+     * Connection the prepared statements belong to.
      */
     private Connection conn;
 
+    /**
+     * Supervisor generation the prepared statements were created for.
+     */
+    private long preparedGeneration;
+
     /**
      * Prepared SQL statement to retrieve user details by username.
      */
@@ -73,55 +125,197 @@ public class UserData {
      * @throws SQLException If a database access error occurs, such as
      * connection failure or invalid credentials.
      */
+    @Override
     public void connect() throws SQLException {
-        conn = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/USERS", "root", "pass"
-        );
-        findUserStmt = conn.prepareStatement(
-                "SELECT * FROM PASSWORDS WHERE USERNAME = ?"
-        );
-        updatePasswordStmt = conn.prepareStatement(
-                "UPDATE PA" + "SSWORDS SET PASSWORD = ? WHERE USERNAME = ?"
-        );
+        connect(DEFAULT_URL, DEFAULT_USER, DEFAULT_PASSWORD);
+    }
+
+    /**
+     * Establishes a connection to the given USERS database and prepares
+     * reusable SQL statements, each limited by its {@link LatencyBudget}.
+     *
+     * <p>
+     * Allows a stand-in database (for example an embedded database used for
+     * load testing) to be used in place of the default MySQL server.</p>
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException If a database access error occurs or the connection
+     * fails.
+     */
+    public void connect(String url, String user, String password) throws SQLException {
+        supervisor = new ConnectionSupervisor(url, user, password);
+        prepareStatements();
+    }
+
+    /**
+     * Prepares the SQL statements on the supervisor's active connection if
+     * they were prepared for an earlier connection (or not at all).
+     *
+     * @throws SQLException If a statement cannot be prepared.
+     */
+    private void prepareStatements() throws SQLException {
+        long generation = supervisor.getGeneration();
+        if (conn != null && generation == preparedGeneration) {
+            return;
+        }
+        conn = supervisor.getConnection();
+        findUserStmt = conn.prepareStatement(FIND_USER_SQL);
+        LatencyBudget.LOGIN.applyTo(findUserStmt);
+        updatePasswordStmt = conn.prepareStatement(UPDATE_PASSWORD_SQL);
+        LatencyBudget.PASSWORD_UPDATE.applyTo(updatePasswordStmt);
+        preparedGeneration = generation;
+    }
+
+    /**
+     * Returns the supervisor of this object's connections.
+     *
+     * @return the supervisor, or {@code null} before {@link #connect()}.
+     */
+    ConnectionSupervisor getSupervisor() {
+        return supervisor;
+    }
+
+    /**
+     * Closes the database connections and stops their health monitoring.
+     * Does nothing if this object was never connected.
+     */
+    @Override
+    public void disconnect() {
+        if (supervisor != null) {
+            supervisor.close();
+        }
     }
 
     /**
      * Retrieves user credentials from the database by username.
      *
+     * <p>
+     * Each lookup is recorded as a {@link UserQueryEvent} and reported to the
+     * {@link SlowQueryLog}.</p>
+     *
      * @param name The username to search for. Must not be {@code null} or
      * empty.
      * @return A {@link UserDetails} record containing the username and password
-     * if found; otherwise, returns {@code null} if the user is not found or a
-     * database error occurs.
+     * if found; otherwise, returns {@code null} if the user is not found.
+     * @throws QueryTimeoutException if the lookup exceeds
+     * {@link LatencyBudget#LOGIN}.
+     * @throws DataAccessException if the lookup fails for another reason, so
+     * that a database error is never mistaken for an unknown user.
      */
+    @Override
     public UserDetails findUser(String name) {
-        try {
-            findUserStmt.setString(1, name);
-            ResultSet rs = findUserStmt.executeQuery();
-            if (rs.next()) {
-                return new UserDetails(name, rs.getString("PASSWORD"));
+        UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        UserDetails details = null;
+        SQLTimeoutException timeout = null;
+        SQLException failure = null;
+        boolean mayRetry = true;
+        while (true) {
+            try {
+                prepareStatements();
+                findUserStmt.setString(1, name);
+                ResultSet rs = findUserStmt.executeQuery();
+                if (rs.next()) {
+                    details = new UserDetails(name, rs.getString("PASSWORD"));
+                }
+            } catch (SQLTimeoutException e) {
+                timeout = e;
+            } catch (SQLException e) {
+                if (mayRetry && supervisor.recover(e, conn)) {
+                    mayRetry = false;
+                    continue;
+                }
+                LOG.warn("Find user error", e);
+                failure = e;
             }
-        } catch (SQLException e) {
-            System.err.println("Find user error: " + e.getMessage());
+            break;
+        }
+        int rowCount = details == null ? 0 : 1;
+        slowQueryLog.record(supervisor, FIND_USER_SQL, new Object[]{name}, System.nanoTime() - start, rowCount);
+        commitEvent(event, "findUser", name, rowCount);
+        if (timeout != null) {
+            throw new QueryTimeoutException("findUser", LatencyBudget.LOGIN, timeout);
         }
-        return null;
+        if (failure != null) {
+            throw new DataAccessException("findUser failed", failure);
+        }
+        return details;
     }
 
     /**
      * Updates the password for a given user in the database.
      *
+     * <p>
+     * Each update is recorded as a {@link UserQueryEvent} and reported to the
+     * {@link SlowQueryLog}.</p>
+     *
      * @param name The username whose password should be updated. Must not be
      * {@code null} or empty.
      * @param newPassword The new password to store (typically hashed). Must not
      * be {@code null}.
+     * @throws QueryTimeoutException if the update exceeds
+     * {@link LatencyBudget#PASSWORD_UPDATE}.
+     * @throws DataAccessException if the update fails for another reason.
      */
+    @Override
     public void updatePassword(String name, String newPassword) {
-        try {
-            updatePasswordStmt.setString(1, newPassword);
-            updatePasswordStmt.setString(2, name);
-            updatePasswordStmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Update password error: " + e.getMessage());
+        UserQueryEvent event = new UserQueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int updated = 0;
+        SQLTimeoutException timeout = null;
+        SQLException failure = null;
+        boolean mayRetry = true;
+        while (true) {
+            try {
+                prepareStatements();
+                updatePasswordStmt.setString(1, newPassword);
+                updatePasswordStmt.setString(2, name);
+                updated = updatePasswordStmt.executeUpdate();
+            } catch (SQLTimeoutException e) {
+                timeout = e;
+            } catch (SQLException e) {
+                // Setting the same password twice is harmless, so retrying is safe
+                if (mayRetry && supervisor.recover(e, conn)) {
+                    mayRetry = false;
+                    continue;
+                }
+                LOG.warn("Update password error", e);
+                failure = e;
+            }
+            break;
+        }
+        // The new password hash is deliberately left out of the logged parameters
+        slowQueryLog.record(supervisor, UPDATE_PASSWORD_SQL, new Object[]{"?", name},
+                System.nanoTime() - start, updated);
+        commitEvent(event, "updatePassword", name, updated);
+        if (timeout != null) {
+            throw new QueryTimeoutException("updatePassword", LatencyBudget.PASSWORD_UPDATE, timeout);
+        }
+        if (failure != null) {
+            throw new DataAccessException("updatePassword failed", failure);
+        }
+    }
+
+    /**
+     * Completes a {@link UserQueryEvent} and commits it if the event is enabled
+     * in the running recording.
+     *
+     * @param event the event started before the statement was executed.
+     * @param operation the name of the operation that was executed.
+     * @param name the username the statement was executed for.
+     * @param rowCount the number of rows found or updated.
+     */
+    private static void commitEvent(UserQueryEvent event, String operation, String name, int rowCount) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.username = name;
+            event.rowCount = rowCount;
+            event.commit();
         }
     }
 }
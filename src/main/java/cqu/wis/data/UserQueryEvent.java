@@ -0,0 +1,39 @@
+package cqu.wis.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every lookup or update executed
+ * against the USERS database.
+ *
+ * @author Prajita Bhandari
+ */
+@Name("cqu.wis.UserQuery")
+@Label("User Query")
+@Category({"WIS", "Database"})
+@Description("Execution of a statement against the USERS database")
+@StackTrace(false)
+public class UserQueryEvent extends jdk.jfr.Event {
+
+    /**
+     * Name of the operation ({@code findUser} or {@code updatePassword}).
+     */
+    @Label("Operation")
+    public String operation;
+
+    /**
+     * Username the statement was executed for.
+     */
+    @Label("Username")
+    public String username;
+
+    /**
+     * Number of rows found or updated by the statement.
+     */
+    @Label("Row Count")
+    public int rowCount;
+}
@@ -0,0 +1,50 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+
+/**
+ * Access to user credentials.
+ *
+ * <p>
+ * Implemented by {@link UserData} over a single database, and by
+ * {@link PooledUserData} and {@link RoutedUserData}, which combine several
+ * {@link UserData} objects. Each implementation knows its own databases, so
+ * connecting takes no arguments.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public interface UserSource {
+
+    /**
+     * Connects to the database or databases holding the users.
+     *
+     * @throws SQLException If a database cannot be connected.
+     */
+    void connect() throws SQLException;
+
+    /**
+     * Closes every connection. Does nothing if not connected.
+     */
+    void disconnect();
+
+    /**
+     * Retrieves a user's credentials.
+     *
+     * @param name The username to look up.
+     * @return The user's details, or {@code null} if there is no such user.
+     * @throws QueryTimeoutException If the lookup exceeds its latency budget.
+     * @throws DataAccessException If the lookup fails, so that a database
+     * error is never mistaken for an unknown user.
+     */
+    UserData.UserDetails findUser(String name);
+
+    /**
+     * Stores a new password for a user.
+     *
+     * @param name The username.
+     * @param newPassword The new password, typically hashed.
+     * @throws QueryTimeoutException If the update exceeds its latency budget.
+     * @throws DataAccessException If the update fails.
+     */
+    void updatePassword(String name, String newPassword);
+}
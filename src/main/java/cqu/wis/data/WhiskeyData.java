@@ -4,13 +4,17 @@ package cqu.wis.data;
  * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
  * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
  */
+import cqu.wis.log.Log;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Data access layer class for managing whiskey information in the database.
@@ -20,20 +24,84 @@ import java.util.List;
  * to retrieve whiskey records, filter by region, and filter by age range.</p>
  *
  * <p>
- * It uses {@link PreparedStatement} to prevent SQL injection and handles all
- * SQL-related exceptions gracefully, returning empty lists in case of
- * errors.</p>
+ * It uses {@link PreparedStatement} to prevent SQL injection. A query that
+ * fails is logged and reported as a {@link DataAccessException}, so that a
+ * failed or truncated result is never mistaken for a complete one.</p>
+ *
+ * <p>
+ * The connection is kept healthy by a {@link ConnectionSupervisor}: a query
+ * that fails because the connection broke is retried once on the standby
+ * connection, and statements are re-prepared whenever the connection
+ * changes.</p>
  *
  * @author Prajita Bhandari
  *
  */
-public class WhiskeyData {
+public class WhiskeyData implements WhiskeySource {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(WhiskeyData.class);
+
+    /**
+     * JDBC URL of the default WHISKEY database.
+     */
+    static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/WHISKEY?useCursorFetch=true";
+
+    /**
+     * Number of rows fetched from the server at a time by the statements
+     * that stream whole tables. MySQL Connector/J honours it only when the
+     * URL sets {@code useCursorFetch=true}; otherwise it reads the entire
+     * result into memory before returning the first row.
+     */
+    static final int STREAM_FETCH_SIZE = 1_000;
 
     /**
-     * JDBC connection to the WHISKEY database.
+     * Username for the default WHISKEY database.
+     */
+    static final String DEFAULT_USER = "root";
+
+    /**
+     * Password for the default WHISKEY database.
+     */
+    static final String DEFAULT_PASSWORD = "pass";
+
+    /**
+     * SQL text to retrieve all single malt whiskey records.
+     */
+    private static final String ALL_MALTS_SQL = "SELECT * FROM SINGLEMALTS";
+
+    /**
+     * SQL text to retrieve whiskey records filtered by region.
+     */
+    private static final String MALTS_FROM_REGION_SQL = "SELECT * FROM SINGLEMALTS WHERE REGION = ?";
+
+    /**
+     * SQL text to retrieve whiskey records filtered by age range.
+     */
+    private static final String MALTS_IN_AGE_RANGE_SQL = "SELECT * FROM SINGLEMALTS WHERE AGE BETWEEN ? AND ?";
+
+    /**
+     * Log that statements exceeding the slow-query threshold are reported to.
+     */
+    private final SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+
+    /**
+     * Supervisor owning the JDBC connections to the WHISKEY database.
+     */
+    private ConnectionSupervisor supervisor;
+
+    /**
+     * Connection the prepared statements belong to.
      */
     private Connection conn;
 
+    /**
+     * Supervisor generation the prepared statements were created for.
+     */
+    private long preparedGeneration;
+
     /**
      * Prepared SQL statement to retrieve all single malt whiskey records.
      */
@@ -69,7 +137,7 @@ public class WhiskeyData {
      * <p>
      * Database details:</p>
      * <ul>
-     * <li>URL: {@code jdbc:mysql://localhost:3306/WHISKEY}</li>
+     * <li>URL: {@code jdbc:mysql://localhost:3306/WHISKEY?useCursorFetch=true}</li>
      * <li>Username: {@code root}</li>
      * <li>Password: {@code pass}</li>
      * </ul>
@@ -77,35 +145,125 @@ public class WhiskeyData {
      * @throws SQLException if a database access error occurs or the connection
      * fails.
      */
+    @Override
     public void connect() throws SQLException {
-        conn = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/WHISKEY", "root", "pass"
-        );
-        getAllMalts = conn.prepareStatement("SELECT * FROM SINGLEMALTS");
-        getMaltsFromRegion = conn.prepareStatement("SELECT * FROM SINGLEMALTS WHERE REGION = ?");
-        getMaltsInAgeRange = conn.prepareStatement("SELECT * FROM SINGLEMALTS WHERE AGE BETWEEN ? AND ?");
+        connect(DEFAULT_URL, DEFAULT_USER, DEFAULT_PASSWORD);
     }
 
     /**
-     * Closes the database connection and any associated resources. Logs an
-     * error message if disconnection fails.
+     * Establishes a connection to the given WHISKEY database and prepares
+     * reusable SQL statements, each limited by its {@link LatencyBudget}.
+     *
+     * <p>
+     * Allows a stand-in database (for example an embedded database used for
+     * load testing) to be used in place of the default MySQL server.</p>
+     *
+     * @param url The JDBC URL of the database.
+     * @param user The database username.
+     * @param password The database password.
+     * @throws SQLException If a database access error occurs or the connection
+     * fails.
      */
+    public void connect(String url, String user, String password) throws SQLException {
+        supervisor = new ConnectionSupervisor(url, user, password);
+        prepareStatements();
+    }
+
+    /**
+     * Prepares the SQL statements on the supervisor's active connection if
+     * they were prepared for an earlier connection (or not at all).
+     *
+     * @throws SQLException If a statement cannot be prepared.
+     */
+    private void prepareStatements() throws SQLException {
+        long generation = supervisor.getGeneration();
+        if (conn != null && generation == preparedGeneration) {
+            return;
+        }
+        conn = supervisor.getConnection();
+        getAllMalts = conn.prepareStatement(ALL_MALTS_SQL);
+        LatencyBudget.ALL_MALTS.applyTo(getAllMalts);
+        getAllMalts.setFetchSize(STREAM_FETCH_SIZE);
+        getMaltsFromRegion = conn.prepareStatement(MALTS_FROM_REGION_SQL);
+        LatencyBudget.REGION_SEARCH.applyTo(getMaltsFromRegion);
+        getMaltsInAgeRange = conn.prepareStatement(MALTS_IN_AGE_RANGE_SQL);
+        LatencyBudget.AGE_SEARCH.applyTo(getMaltsInAgeRange);
+        preparedGeneration = generation;
+    }
+
+    /**
+     * Returns an identifier of the database this object reads from, so that
+     * results kept outside it (such as in a {@link DiskResultCache}) can be
+     * told apart from those of another database.
+     *
+     * @return the JDBC URL of the database, or {@code null} before
+     * {@link #connect()}.
+     */
+    @Override
+    public String getSource() {
+        return supervisor == null ? null : supervisor.getUrl();
+    }
+
+    /**
+     * Returns the supervisor of this object's connections.
+     *
+     * @return the supervisor, or {@code null} before {@link #connect()}.
+     */
+    ConnectionSupervisor getSupervisor() {
+        return supervisor;
+    }
+
+    /**
+     * Closes the database connections, stops their health monitoring and
+     * releases any associated resources. Logs an error message if
+     * disconnection fails. Does nothing if this object was never connected.
+     */
+    @Override
     public void disconnect() {
-        try {
-            conn.close();
-        } catch (SQLException e) {
-            System.err.println("Disconnection error: " + e.getMessage());
+        if (supervisor != null) {
+            supervisor.close();
         }
     }
 
     /**
      * Retrieves all single-malt whiskey records from the database.
      *
-     * @return a list of {@link WhiskeyDetails}, or an empty list if no data or
-     * an error occurs.
+     * @return a list of {@link WhiskeyDetails}, or an empty list if there is
+     * no data.
+     * @throws QueryTimeoutException if the query exceeds
+     * {@link LatencyBudget#ALL_MALTS}.
+     * @throws DataAccessException if the query fails.
      */
+    @Override
     public List<WhiskeyDetails> getAllMalts() {
-        return executeQuery(getAllMalts);
+        return executeQuery("getAllMalts", LatencyBudget.ALL_MALTS, () -> getAllMalts, ALL_MALTS_SQL);
+    }
+
+    /**
+     * Streams all single-malt whiskey records from the database to a consumer
+     * as they are read, without collecting them into a list.
+     *
+     * <p>
+     * Used to load catalogs that may not fit in memory; rows are fetched from
+     * the server {@value #STREAM_FETCH_SIZE} at a time. If an error occurs
+     * part-way through, the exception is thrown after the records already
+     * delivered, so the consumer must discard what it has received.</p>
+     *
+     * @param sink receives each record in query order. Must not be
+     * {@code null}.
+     * @return the number of records delivered.
+     * @throws NullPointerException if {@code sink} is {@code null}.
+     * @throws QueryTimeoutException if the query exceeds
+     * {@link LatencyBudget#ALL_MALTS}.
+     * @throws DataAccessException if the query fails, before or after some
+     * records were delivered.
+     */
+    @Override
+    public int forEachMalt(Consumer<? super WhiskeyDetails> sink) {
+        if (sink == null) {
+            throw new NullPointerException("Sink cannot be null");
+        }
+        return executeQuery("getAllMalts", LatencyBudget.ALL_MALTS, () -> getAllMalts, ALL_MALTS_SQL, sink);
     }
 
     /**
@@ -113,16 +271,15 @@ public class WhiskeyData {
      *
      * @param region the region to filter by (e.g., "Islay", "Highland").
      * @return a list of {@link WhiskeyDetails} from the specified region, or an
-     * empty list if none found or a SQL error occurs.
+     * empty list if none found.
+     * @throws QueryTimeoutException if the query exceeds
+     * {@link LatencyBudget#REGION_SEARCH}.
+     * @throws DataAccessException if the query fails.
      */
+    @Override
     public List<WhiskeyDetails> getMaltsFromRegion(String region) {
-        try {
-            getMaltsFromRegion.setString(1, region);
-            return executeQuery(getMaltsFromRegion);
-        } catch (SQLException e) {
-            System.err.println("Region query error: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return executeQuery("getMaltsFromRegion", LatencyBudget.REGION_SEARCH,
+                () -> getMaltsFromRegion, MALTS_FROM_REGION_SQL, region);
     }
 
     /**
@@ -131,41 +288,116 @@ public class WhiskeyData {
      * @param lower the lower bound of the age range (inclusive).
      * @param upper the upper bound of the age range (inclusive).
      * @return a list of {@link WhiskeyDetails} within the given age range, or
-     * an empty list if none match or a SQL error occurs.
+     * an empty list if none match.
+     * @throws QueryTimeoutException if the query exceeds
+     * {@link LatencyBudget#AGE_SEARCH}.
+     * @throws DataAccessException if the query fails.
      */
+    @Override
     public List<WhiskeyDetails> getMaltsInAgeRange(int lower, int upper) {
-        try {
-            getMaltsInAgeRange.setInt(1, lower);
-            getMaltsInAgeRange.setInt(2, upper);
-            return executeQuery(getMaltsInAgeRange);
-        } catch (SQLException e) {
-            System.err.println("Age range query error: " + e.getMessage());
-            return new ArrayList<>();
-        }
+        return executeQuery("getMaltsInAgeRange", LatencyBudget.AGE_SEARCH,
+                () -> getMaltsInAgeRange, MALTS_IN_AGE_RANGE_SQL, lower, upper);
     }
 
     /**
-     * Executes the given {@link PreparedStatement} and converts the result set
-     * into a list of {@link WhiskeyDetails} records.
+     * Executes a query and collects its records into a list.
      *
-     * @param stmt a pre-configured SQL statement ready for execution.
-     * @return a list of whiskey records from the database, or an empty list if
-     * an error occurs.
+     * @param operation the name of the query operation being executed.
+     * @param budget the latency budget applied to {@code stmt}.
+     * @param stmt supplies the current prepared SQL statement for {@code sql}.
+     * @param sql the SQL text of the statement.
+     * @param params the values to bind to the statement placeholders, in
+     * order.
+     * @return a list of whiskey records from the database.
+     * @throws QueryTimeoutException if the statement exceeds {@code budget}.
+     * @throws DataAccessException if the statement fails.
      */
-    private List<WhiskeyDetails> executeQuery(PreparedStatement stmt) {
+    private List<WhiskeyDetails> executeQuery(String operation, LatencyBudget budget,
+            Supplier<PreparedStatement> stmt, String sql, Object... params) {
         List<WhiskeyDetails> results = new ArrayList<>();
-        try (ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                results.add(new WhiskeyDetails(
-                        rs.getString("DISTILLERY"),
-                        rs.getInt("AGE"),
-                        rs.getString("REGION"),
-                        rs.getInt("PRICE")
-                ));
+        executeQuery(operation, budget, stmt, sql, results::add, params);
+        return results;
+    }
+
+    /**
+     * Binds the parameters to the given {@link PreparedStatement}, executes it
+     * and passes each row of the result set to a consumer as a
+     * {@link WhiskeyDetails} record.
+     *
+     * <p>
+     * Each execution is recorded as a {@link WhiskeyQueryEvent} carrying the
+     * operation name, bound parameters and row count, and is reported to the
+     * {@link SlowQueryLog} if it exceeds the slow-query threshold. If the
+     * connection turns out to be broken before any row was delivered, the
+     * query is retried once on the connection the supervisor recovers; a
+     * failure after rows were delivered cannot be retried without repeating
+     * them, so it is thrown.</p>
+     *
+     * @param operation the name of the query operation being executed.
+     * @param budget the latency budget applied to {@code stmt}.
+     * @param stmt supplies the current prepared SQL statement for {@code sql}.
+     * @param sql the SQL text of the statement.
+     * @param sink receives each record in result set order.
+     * @param params the values to bind to the statement placeholders, in
+     * order.
+     * @return the number of records delivered to {@code sink}.
+     * @throws QueryTimeoutException if the statement exceeds {@code budget}.
+     * @throws DataAccessException if the statement fails.
+     */
+    private int executeQuery(String operation, LatencyBudget budget, Supplier<PreparedStatement> stmt,
+            String sql, Consumer<? super WhiskeyDetails> sink, Object... params) {
+        WhiskeyQueryEvent event = new WhiskeyQueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int rows = 0;
+        SQLTimeoutException timeout = null;
+        SQLException failure = null;
+        boolean mayRetry = true;
+        while (true) {
+            try {
+                prepareStatements();
+                PreparedStatement ps = stmt.get();
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(new WhiskeyDetails(
+                                rs.getString("DISTILLERY"),
+                                rs.getInt("AGE"),
+                                rs.getString("REGION"),
+                                rs.getInt("PRICE")
+                        ));
+                        rows++;
+                    }
+                }
+            } catch (SQLTimeoutException e) {
+                timeout = e;
+            } catch (SQLException e) {
+                if (mayRetry && rows == 0 && supervisor.recover(e, conn)) {
+                    mayRetry = false;
+                    continue;
+                }
+                LOG.warn("Query execution error in {} after {} rows", operation, rows, e);
+                failure = e;
             }
-        } catch (SQLException e) {
-            System.err.println("Query execution error: " + e.getMessage());
+            break;
         }
-        return results;
+        slowQueryLog.record(supervisor, sql, params, System.nanoTime() - start, rows);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.parameters = Arrays.toString(params);
+            event.rowCount = rows;
+            event.commit();
+        }
+        if (timeout != null) {
+            throw new QueryTimeoutException(operation, budget, timeout);
+        }
+        if (failure != null) {
+            throw new DataAccessException(operation + (rows == 0 ? " failed" : " failed after " + rows + " rows"),
+                    failure);
+        }
+        return rows;
     }
 }
@@ -0,0 +1,156 @@
+package cqu.wis.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link WhiskeyData.WhiskeyDetails} records.
+ *
+ * <p>
+ * Integers are written as zig-zag variable-length integers (one byte for any
+ * age and usually two for a price) and strings as a variable-length byte
+ * count followed by their UTF-8 bytes. A typical record takes about 20 bytes,
+ * against well over 100 bytes for the same record held as Java objects.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class WhiskeyDetailsCodec {
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private WhiskeyDetailsCodec() {
+    }
+
+    /**
+     * Returns an upper bound on the number of bytes {@link #put} writes for a
+     * record.
+     *
+     * @param d The record. Must not be {@code null}.
+     * @return The maximum encoded size in bytes.
+     */
+    public static int maxEncodedSize(WhiskeyData.WhiskeyDetails d) {
+        return maxStringSize(d.distillery()) + maxStringSize(d.region()) + 10;
+    }
+
+    /**
+     * Writes a record at the buffer's position.
+     *
+     * @param buf The buffer; must have at least {@link #maxEncodedSize}
+     * bytes remaining.
+     * @param d The record to write. Must not be {@code null}.
+     */
+    public static void put(ByteBuffer buf, WhiskeyData.WhiskeyDetails d) {
+        putString(buf, d.distillery());
+        putVarInt(buf, d.age());
+        putString(buf, d.region());
+        putVarInt(buf, d.price());
+    }
+
+    /**
+     * Reads a record written by {@link #put} from the buffer's position.
+     *
+     * @param buf The buffer to read from.
+     * @return The decoded record.
+     * @throws java.nio.BufferUnderflowException If the buffer ends before the
+     * record does.
+     */
+    public static WhiskeyData.WhiskeyDetails get(ByteBuffer buf) {
+        String distillery = getString(buf);
+        int age = getVarInt(buf);
+        String region = getString(buf);
+        int price = getVarInt(buf);
+        return new WhiskeyData.WhiskeyDetails(distillery, age, region, price);
+    }
+
+    /**
+     * Writes an {@code int} as a zig-zag variable-length integer of one to
+     * five bytes.
+     *
+     * @param buf The buffer to write to.
+     * @param value The value to write.
+     */
+    public static void putVarInt(ByteBuffer buf, int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7f) != 0) {
+            buf.put((byte) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    /**
+     * Reads an {@code int} written by {@link #putVarInt}.
+     *
+     * @param buf The buffer to read from.
+     * @return The decoded value.
+     * @throws IllegalArgumentException If the encoding is longer than five
+     * bytes.
+     */
+    public static int getVarInt(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            v |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer");
+    }
+
+    /**
+     * Writes a string as its UTF-8 byte count followed by the bytes. A
+     * {@code null} string is written as a count of -1.
+     *
+     * @param buf The buffer to write to.
+     * @param s The string, may be {@code null}.
+     */
+    public static void putString(ByteBuffer buf, String s) {
+        if (s == null) {
+            putVarInt(buf, -1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarInt(buf, bytes.length);
+        buf.put(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #putString}.
+     *
+     * @param buf The buffer to read from.
+     * @return The decoded string, or {@code null}.
+     * @throws IllegalArgumentException If the encoded length is invalid.
+     */
+    public static String getString(ByteBuffer buf) {
+        int length = getVarInt(buf);
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new IllegalArgumentException("Malformed string length: " + length);
+        }
+        if (length > buf.remaining()) {
+            throw new IllegalArgumentException("String runs past end of data");
+        }
+        if (!buf.hasArray()) {
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+
+    /**
+     * Returns an upper bound on the encoded size of a string.
+     *
+     * @param s The string, may be {@code null}.
+     * @return The maximum number of bytes {@link #putString} writes.
+     */
+    private static int maxStringSize(String s) {
+        return 5 + (s == null ? 0 : s.length() * 3);
+    }
+}
@@ -0,0 +1,44 @@
+package cqu.wis.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every query executed against the
+ * WHISKEY database.
+ *
+ * <p>
+ * The event duration covers statement execution and result-set conversion, so
+ * a recording analysed in JDK Mission Control shows exactly how much time is
+ * spent in JDBC for each search.</p>
+ *
+ * @author Prajita Bhandari
+ */
+@Name("cqu.wis.WhiskeyQuery")
+@Label("Whiskey Query")
+@Category({"WIS", "Database"})
+@Description("Execution of a query against the WHISKEY database")
+@StackTrace(false)
+public class WhiskeyQueryEvent extends jdk.jfr.Event {
+
+    /**
+     * Name of the query operation (e.g. {@code getMaltsFromRegion}).
+     */
+    @Label("Operation")
+    public String operation;
+
+    /**
+     * Bound query parameters rendered as text, empty if the query has none.
+     */
+    @Label("Parameters")
+    public String parameters;
+
+    /**
+     * Number of rows returned by the query.
+     */
+    @Label("Row Count")
+    public int rowCount;
+}
@@ -0,0 +1,84 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read access to the whiskey catalog.
+ *
+ * <p>
+ * Implemented by {@link WhiskeyData} over a single database, and by
+ * {@link PooledWhiskeyData}, {@link RoutedWhiskeyData} and
+ * {@link ShardedWhiskeyData}, which combine several {@link WhiskeyData}
+ * objects. Each implementation knows its own databases, so connecting takes
+ * no arguments.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public interface WhiskeySource {
+
+    /**
+     * Connects to the database or databases holding the catalog.
+     *
+     * @throws SQLException If a database cannot be connected.
+     */
+    void connect() throws SQLException;
+
+    /**
+     * Closes every connection. Does nothing if not connected.
+     */
+    void disconnect();
+
+    /**
+     * Returns an identifier of the databases the catalog is read from, so
+     * that results kept elsewhere (such as in a {@link DiskResultCache}) can
+     * be told apart from those of other databases.
+     *
+     * @return The identifier, or {@code null} if not yet known.
+     */
+    String getSource();
+
+    /**
+     * Retrieves every single-malt whiskey record.
+     *
+     * @return The records; empty if there are none.
+     * @throws QueryTimeoutException If the query exceeds its latency budget.
+     * @throws DataAccessException If the query fails.
+     */
+    List<WhiskeyData.WhiskeyDetails> getAllMalts();
+
+    /**
+     * Streams every single-malt whiskey record to a consumer as it is read.
+     * If the query fails part-way, the exception is thrown after the records
+     * already delivered, so the consumer must discard what it has received.
+     *
+     * @param sink Receives each record. Must not be {@code null}.
+     * @return The number of records delivered.
+     * @throws NullPointerException If {@code sink} is {@code null}.
+     * @throws QueryTimeoutException If the query exceeds its latency budget.
+     * @throws DataAccessException If the query fails.
+     */
+    int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink);
+
+    /**
+     * Retrieves the records from one region.
+     *
+     * @param region The region, e.g. {@code "Islay"}.
+     * @return The matching records; empty if there are none.
+     * @throws QueryTimeoutException If the query exceeds its latency budget.
+     * @throws DataAccessException If the query fails.
+     */
+    List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region);
+
+    /**
+     * Retrieves the records within an age range.
+     *
+     * @param lower The lowest age (inclusive).
+     * @param upper The highest age (inclusive).
+     * @return The matching records; empty if there are none.
+     * @throws QueryTimeoutException If the query exceeds its latency budget.
+     * @throws DataAccessException If the query fails.
+     */
+    List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int lower, int upper);
+}
@@ -0,0 +1,279 @@
+package cqu.wis.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Writes log events on a background thread.
+ *
+ * <p>
+ * Callers only place events on a bounded queue, so a storm of failures never
+ * makes them wait for the console. A single writer thread formats the waiting
+ * events and passes each batch to the sink in one call. When the queue is
+ * full the {@link DropPolicy} decides which event is lost; lost events are
+ * counted per level, and the writer reports how many were lost before its
+ * next batch.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class AsyncAppender implements AutoCloseable {
+
+    /**
+     * Largest number of events formatted and written together.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Which event is lost when the queue is full.
+     */
+    public static enum DropPolicy {
+        /**
+         * The new event is discarded, keeping the start of a burst.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest waiting event is discarded, keeping the end of a burst.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * Events waiting to be written.
+     */
+    private final BlockingQueue<LogEvent> queue;
+
+    /**
+     * Which event is lost when the queue is full.
+     */
+    private final DropPolicy policy;
+
+    /**
+     * Receives each formatted batch.
+     */
+    private final Consumer<String> sink;
+
+    /**
+     * Number of lost events for each level, indexed by ordinal.
+     */
+    private final AtomicLongArray dropped = new AtomicLongArray(Level.values().length);
+
+    /**
+     * Number of lost events not yet reported by the writer.
+     */
+    private final AtomicLong unreported = new AtomicLong();
+
+    /**
+     * Number of events accepted onto the queue.
+     */
+    private final AtomicLong accepted = new AtomicLong();
+
+    /**
+     * Number of accepted events written, or discarded by
+     * {@link DropPolicy#DROP_OLDEST}.
+     */
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * The writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * Set by {@link #close()}.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates an appender writing to standard error.
+     *
+     * @param capacity The queue capacity. Must be positive.
+     * @param policy Which event is lost when the queue is full. Must not be
+     * {@code null}.
+     * @throws NullPointerException If {@code policy} is {@code null}.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public AsyncAppender(int capacity, DropPolicy policy) {
+        this(capacity, policy, s -> {
+            System.err.print(s);
+            System.err.flush();
+        });
+    }
+
+    /**
+     * Creates an appender writing to the given sink.
+     *
+     * @param capacity The queue capacity. Must be positive.
+     * @param policy Which event is lost when the queue is full. Must not be
+     * {@code null}.
+     * @param sink Receives each formatted batch. Must not be {@code null}.
+     * @throws NullPointerException If {@code policy} or {@code sink} is
+     * {@code null}.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    AsyncAppender(int capacity, DropPolicy policy, Consumer<String> sink) {
+        if (policy == null || sink == null) {
+            throw new NullPointerException("Policy and sink cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.sink = sink;
+        writer = new Thread(this::run, "wis-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues an event, or drops an event if the queue is full. Never blocks.
+     * Events appended after {@link #close()} are dropped.
+     *
+     * @param event The event.
+     */
+    void append(LogEvent event) {
+        if (closed) {
+            drop(event);
+            return;
+        }
+        if (queue.offer(event)) {
+            accepted.incrementAndGet();
+            return;
+        }
+        if (policy == DropPolicy.DROP_OLDEST) {
+            LogEvent oldest = queue.poll();
+            if (oldest != null) {
+                drop(oldest);
+                completed.incrementAndGet();
+            }
+            if (queue.offer(event)) {
+                accepted.incrementAndGet();
+                return;
+            }
+        }
+        drop(event);
+    }
+
+    /**
+     * Returns the total number of events lost.
+     *
+     * @return The dropped event count.
+     */
+    public long getDroppedCount() {
+        long total = 0;
+        for (int i = 0; i < dropped.length(); i++) {
+            total += dropped.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of events of one level lost.
+     *
+     * @param level The level. Must not be {@code null}.
+     * @return The dropped event count for {@code level}.
+     */
+    public long getDroppedCount(Level level) {
+        return dropped.get(level.ordinal());
+    }
+
+    /**
+     * Waits until every event accepted before the call has been written.
+     *
+     * @throws IllegalStateException If the calling thread is interrupted
+     * while waiting.
+     */
+    public void flush() {
+        long target = accepted.get();
+        synchronized (this) {
+            while (completed.get() < target && writer.isAlive()) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the events already queued and stops the writer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts a lost event.
+     *
+     * @param event The event.
+     */
+    private void drop(LogEvent event) {
+        dropped.incrementAndGet(event.level().ordinal());
+        unreported.incrementAndGet();
+    }
+
+    /**
+     * Writer loop: takes batches of events and writes them until the
+     * appender is closed and the queue is empty.
+     */
+    private void run() {
+        List<LogEvent> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder sb = new StringBuilder(BATCH_SIZE * 128);
+        while (true) {
+            try {
+                LogEvent first = closed ? queue.poll() : queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Woken by close: write what is left, then stop
+                continue;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            long lost = unreported.getAndSet(0);
+            if (lost > 0) {
+                new LogEvent(System.currentTimeMillis(), Level.WARN, AsyncAppender.class.getName(),
+                        Thread.currentThread().getName(), "Dropped {} log events because the queue was full",
+                        new Object[]{lost}).appendTo(sb);
+            }
+            for (LogEvent event : batch) {
+                try {
+                    event.appendTo(sb);
+                } catch (RuntimeException e) {
+                    // An argument's toString failed; keep the rest of the batch
+                    sb.append("level=").append(event.level()).append(" msg=\"Unformattable log event\"\n");
+                }
+            }
+            try {
+                sink.accept(sb.toString());
+            } catch (RuntimeException e) {
+                // Nowhere left to report a failing sink
+            }
+            synchronized (this) {
+                completed.addAndGet(batch.size());
+                notifyAll();
+            }
+            batch.clear();
+            sb.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cqu.wis.log;
+
+/**
+ * Severity of a log event, in increasing order.
+ *
+ * @author Prajita Bhandari
+ */
+public enum Level {
+    /**
+     * Detail useful only while diagnosing a problem.
+     */
+    DEBUG,
+    /**
+     * Normal but noteworthy events.
+     */
+    INFO,
+    /**
+     * Failures the system recovers from, such as a failed query.
+     */
+    WARN,
+    /**
+     * Failures that leave part of the system unusable.
+     */
+    ERROR;
+
+    /**
+     * Parses a level name, ignoring case.
+     *
+     * @param name The name, or {@code null}.
+     * @param fallback The level returned if {@code name} is {@code null} or
+     * not a level.
+     * @return The named level, or {@code fallback}.
+     */
+    static Level parse(String name, Level fallback) {
+        if (name != null) {
+            for (Level level : values()) {
+                if (level.name().equalsIgnoreCase(name.trim())) {
+                    return level;
+                }
+            }
+        }
+        return fallback;
+    }
+}
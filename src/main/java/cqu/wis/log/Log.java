@@ -0,0 +1,242 @@
+package cqu.wis.log;
+
+/**
+ * A named logger writing structured events through an {@link AsyncAppender}.
+ *
+ * <p>
+ * Messages are parameterized: each {@code {}} in the message is replaced by
+ * the next argument, and a trailing {@link Throwable} without a placeholder is
+ * written as the event's error. The level is checked before anything else,
+ * and formatting is left to the appender's thread, so a disabled or
+ * dropped event costs the caller almost nothing:</p>
+ * <pre>
+ * private static final Log LOG = Log.get(UserData.class);
+ * LOG.warn("Find user error: {}", e.getMessage());
+ * </pre>
+ *
+ * <p>
+ * The shared appender is configured from system properties:</p>
+ * <ul>
+ * <li>{@code wis.log.level} – lowest level written (default
+ * {@code INFO})</li>
+ * <li>{@code wis.log.queueSize} – events held while the writer catches up
+ * (default 1024)</li>
+ * <li>{@code wis.log.dropPolicy} – {@code DROP_NEWEST} (default) or
+ * {@code DROP_OLDEST}</li>
+ * </ul>
+ *
+ * @author Prajita Bhandari
+ */
+public final class Log {
+
+    /**
+     * Lowest level written by loggers from {@link #get(Class)}.
+     */
+    private static volatile Level threshold = Level.parse(System.getProperty("wis.log.level"), Level.INFO);
+
+    /**
+     * Holds the shared appender, created on first use.
+     */
+    private static final class Holder {
+
+        /**
+         * Shared appender writing to standard error, closed at shutdown so
+         * that queued events are written.
+         */
+        static final AsyncAppender APPENDER = new AsyncAppender(
+                Integer.getInteger("wis.log.queueSize", 1024),
+                AsyncAppender.DropPolicy.valueOf(System.getProperty("wis.log.dropPolicy",
+                        AsyncAppender.DropPolicy.DROP_NEWEST.name())));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(APPENDER::close, "wis-log-shutdown"));
+        }
+    }
+
+    /**
+     * Name written with each event.
+     */
+    private final String name;
+
+    /**
+     * Receives the events, or {@code null} to use the shared appender.
+     */
+    private final AsyncAppender appender;
+
+    /**
+     * Lowest level written, or {@code null} to use the shared threshold.
+     */
+    private final Level level;
+
+    /**
+     * Creates a logger.
+     *
+     * @param name Name written with each event.
+     * @param appender Receives the events, or {@code null} for the shared
+     * appender.
+     * @param level Lowest level written, or {@code null} for the shared
+     * threshold.
+     */
+    Log(String name, AsyncAppender appender, Level level) {
+        this.name = name;
+        this.appender = appender;
+        this.level = level;
+    }
+
+    /**
+     * Returns a logger named after a class, using the shared appender and
+     * threshold.
+     *
+     * @param type The class. Must not be {@code null}.
+     * @return The logger.
+     * @throws NullPointerException If {@code type} is {@code null}.
+     */
+    public static Log get(Class<?> type) {
+        if (type == null) {
+            throw new NullPointerException("Type cannot be null");
+        }
+        return new Log(type.getName(), null, null);
+    }
+
+    /**
+     * Changes the lowest level written by loggers from {@link #get(Class)}.
+     *
+     * @param level The level. Must not be {@code null}.
+     * @throws NullPointerException If {@code level} is {@code null}.
+     */
+    public static void setThreshold(Level level) {
+        if (level == null) {
+            throw new NullPointerException("Level cannot be null");
+        }
+        threshold = level;
+    }
+
+    /**
+     * Returns the shared appender, for its dropped event counters.
+     *
+     * @return The shared {@link AsyncAppender}.
+     */
+    public static AsyncAppender getAppender() {
+        return Holder.APPENDER;
+    }
+
+    /**
+     * Returns whether events of a level are written.
+     *
+     * @param level The level.
+     * @return {@code true} if events of {@code level} are written.
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level == null ? threshold : this.level) >= 0;
+    }
+
+    /**
+     * Logs a debug event with one argument.
+     *
+     * @param message The message.
+     * @param arg The argument.
+     */
+    public void debug(String message, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            emit(Level.DEBUG, message, new Object[]{arg});
+        }
+    }
+
+    /**
+     * Logs a debug event.
+     *
+     * @param message The message.
+     * @param args The arguments.
+     */
+    public void debug(String message, Object... args) {
+        if (isEnabled(Level.DEBUG)) {
+            emit(Level.DEBUG, message, args);
+        }
+    }
+
+    /**
+     * Logs an info event with one argument.
+     *
+     * @param message The message.
+     * @param arg The argument.
+     */
+    public void info(String message, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            emit(Level.INFO, message, new Object[]{arg});
+        }
+    }
+
+    /**
+     * Logs an info event.
+     *
+     * @param message The message.
+     * @param args The arguments.
+     */
+    public void info(String message, Object... args) {
+        if (isEnabled(Level.INFO)) {
+            emit(Level.INFO, message, args);
+        }
+    }
+
+    /**
+     * Logs a warning with one argument.
+     *
+     * @param message The message.
+     * @param arg The argument.
+     */
+    public void warn(String message, Object arg) {
+        if (isEnabled(Level.WARN)) {
+            emit(Level.WARN, message, new Object[]{arg});
+        }
+    }
+
+    /**
+     * Logs a warning.
+     *
+     * @param message The message.
+     * @param args The arguments.
+     */
+    public void warn(String message, Object... args) {
+        if (isEnabled(Level.WARN)) {
+            emit(Level.WARN, message, args);
+        }
+    }
+
+    /**
+     * Logs an error with one argument.
+     *
+     * @param message The message.
+     * @param arg The argument.
+     */
+    public void error(String message, Object arg) {
+        if (isEnabled(Level.ERROR)) {
+            emit(Level.ERROR, message, new Object[]{arg});
+        }
+    }
+
+    /**
+     * Logs an error.
+     *
+     * @param message The message.
+     * @param args The arguments.
+     */
+    public void error(String message, Object... args) {
+        if (isEnabled(Level.ERROR)) {
+            emit(Level.ERROR, message, args);
+        }
+    }
+
+    /**
+     * Captures an enabled event and hands it to the appender.
+     *
+     * @param level The level.
+     * @param message The message.
+     * @param args The arguments.
+     */
+    private void emit(Level level, String message, Object[] args) {
+        LogEvent event = new LogEvent(System.currentTimeMillis(), level, name,
+                Thread.currentThread().getName(), message == null ? "null" : message,
+                args == null ? new Object[0] : args);
+        (appender == null ? Holder.APPENDER : appender).append(event);
+    }
+}
@@ -0,0 +1,138 @@
+package cqu.wis.log;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A log event as captured on the calling thread. The message is not
+ * formatted until the event is written, so a caller only pays for copying
+ * references.
+ *
+ * @param time When the event happened, in milliseconds since the epoch.
+ * @param level The severity.
+ * @param logger The name of the logger.
+ * @param thread The name of the calling thread.
+ * @param message The message, with a {@code {}} placeholder for each
+ * argument.
+ * @param args The arguments; a trailing {@link Throwable} without a
+ * placeholder is written as the event's error.
+ *
+ * @author Prajita Bhandari
+ */
+record LogEvent(long time, Level level, String logger, String thread, String message, Object[] args) {
+
+    /**
+     * Appends the event as one line of {@code key=value} fields:
+     * {@code time}, {@code level}, {@code logger}, {@code thread},
+     * {@code msg} and, if there is an error, {@code error} and {@code stack}.
+     * {@code error} summarises the error and its chain of causes;
+     * {@code stack} holds the full stack trace, including causes and
+     * suppressed exceptions, with its line breaks escaped so the event stays
+     * on one line.
+     *
+     * @param sb The output.
+     */
+    void appendTo(StringBuilder sb) {
+        sb.append("time=").append(Instant.ofEpochMilli(time))
+                .append(" level=").append(level)
+                .append(" logger=").append(logger)
+                .append(" thread=");
+        appendValue(sb, thread);
+        StringBuilder msg = new StringBuilder(message.length() + 32);
+        int used = format(msg);
+        sb.append(" msg=");
+        appendValue(sb, msg.toString());
+        if (used < args.length && args[args.length - 1] instanceof Throwable t) {
+            sb.append(" error=");
+            appendValue(sb, causeChain(t));
+            StringWriter trace = new StringWriter();
+            t.printStackTrace(new PrintWriter(trace));
+            sb.append(" stack=");
+            appendValue(sb, trace.toString().stripTrailing());
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Describes an error and each of its causes, outermost first, as
+     * {@code "class: message; caused by class: message"}.
+     *
+     * @param t The error.
+     * @return The description.
+     */
+    static String causeChain(Throwable t) {
+        StringBuilder sb = new StringBuilder();
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable c = t; c != null && seen.add(c); c = c.getCause()) {
+            if (c != t) {
+                sb.append("; caused by ");
+            }
+            sb.append(c.getClass().getName());
+            if (c.getMessage() != null) {
+                sb.append(": ").append(c.getMessage());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replaces each {@code {}} in the message with the next argument.
+     * Placeholders beyond the arguments are left as they are.
+     *
+     * @param out The output.
+     * @return The number of arguments used.
+     */
+    int format(StringBuilder out) {
+        int used = 0;
+        int from = 0;
+        int at;
+        while (used < args.length && (at = message.indexOf("{}", from)) >= 0) {
+            out.append(message, from, at).append(args[used++]);
+            from = at + 2;
+        }
+        out.append(message, from, message.length());
+        return used;
+    }
+
+    /**
+     * Appends a value, quoted and escaped if it contains spaces, quotes,
+     * equals signs or control characters.
+     *
+     * @param sb The output.
+     * @param value The value.
+     */
+    private static void appendValue(StringBuilder sb, String value) {
+        boolean plain = !value.isEmpty();
+        for (int i = 0; i < value.length() && plain; i++) {
+            char c = value.charAt(i);
+            plain = c > ' ' && c != '"' && c != '=' && c != '\\';
+        }
+        if (plain) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' ->
+                    sb.append("\\\"");
+                case '\\' ->
+                    sb.append("\\\\");
+                case '\n' ->
+                    sb.append("\\n");
+                case '\r' ->
+                    sb.append("\\r");
+                case '\t' ->
+                    sb.append("\\t");
+                default ->
+                    sb.append(c < ' ' ? ' ' : c);
+            }
+        }
+        sb.append('"');
+    }
+}
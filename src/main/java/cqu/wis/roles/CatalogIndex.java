@@ -0,0 +1,176 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bitmap indexes over the records of a {@link ResultSnapshot}.
+ *
+ * <p>
+ * The index holds one {@link CompressedBitmap} of record positions per region
+ * and one per age bucket (a bucket is a single year of age, so age ranges need
+ * no re-check of the records). Combined filters are expressed with the
+ * bitmaps' {@code and}, {@code or} and {@code andNot} operations, for
+ * example</p>
+ * <pre>
+ * index.region("Islay").and(index.ageBetween(10, 15)).andNot(index.region("Lowland"))
+ * </pre>
+ * <p>
+ * and only the final bitmap is turned into records with
+ * {@link #materialize(CompressedBitmap)}. Filtering therefore touches a few
+ * bytes per matching record rather than every record in the catalog.</p>
+ *
+ * <p>
+ * An index is immutable and describes the snapshot it was built from; build a
+ * new one when the snapshot changes.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class CatalogIndex {
+
+    /**
+     * The indexed records.
+     */
+    private final ResultSnapshot snapshot;
+
+    /**
+     * Positions of the records in each region. Region names are matched
+     * exactly.
+     */
+    private final Map<String, CompressedBitmap> regions;
+
+    /**
+     * Positions of the records of each age, ordered by age.
+     */
+    private final TreeMap<Integer, CompressedBitmap> ages;
+
+    /**
+     * Positions of every record.
+     */
+    private final CompressedBitmap all;
+
+    /**
+     * Creates an index from its bitmaps.
+     *
+     * @param snapshot The indexed records.
+     * @param regions The region bitmaps.
+     * @param ages The age bitmaps.
+     */
+    private CatalogIndex(ResultSnapshot snapshot, Map<String, CompressedBitmap> regions,
+            TreeMap<Integer, CompressedBitmap> ages) {
+        this.snapshot = snapshot;
+        this.regions = regions;
+        this.ages = ages;
+        this.all = CompressedBitmap.range(snapshot.size());
+    }
+
+    /**
+     * Builds the region and age indexes of a snapshot in one pass.
+     *
+     * @param snapshot The records to index. Must not be {@code null}.
+     * @return The index.
+     * @throws NullPointerException If {@code snapshot} is {@code null}.
+     */
+    public static CatalogIndex build(ResultSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new NullPointerException("Snapshot cannot be null");
+        }
+        Map<String, CompressedBitmap.Builder> regionBuilders = new HashMap<>();
+        Map<Integer, CompressedBitmap.Builder> ageBuilders = new HashMap<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            WhiskeyData.WhiskeyDetails d = snapshot.get(i);
+            if (d.region() != null) {
+                regionBuilders.computeIfAbsent(d.region(), k -> new CompressedBitmap.Builder()).add(i);
+            }
+            ageBuilders.computeIfAbsent(d.age(), k -> new CompressedBitmap.Builder()).add(i);
+        }
+        Map<String, CompressedBitmap> regions = new HashMap<>();
+        regionBuilders.forEach((k, b) -> regions.put(k, b.build()));
+        TreeMap<Integer, CompressedBitmap> ages = new TreeMap<>();
+        ageBuilders.forEach((k, b) -> ages.put(k, b.build()));
+        return new CatalogIndex(snapshot, regions, ages);
+    }
+
+    /**
+     * Returns the snapshot this index describes.
+     *
+     * @return The indexed snapshot.
+     */
+    public ResultSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the regions present in the snapshot.
+     *
+     * @return An unmodifiable set of region names.
+     */
+    public Set<String> getRegions() {
+        return Collections.unmodifiableSet(regions.keySet());
+    }
+
+    /**
+     * Returns the positions of every record, the starting point for a NOT.
+     *
+     * @return A bitmap of all positions.
+     */
+    public CompressedBitmap all() {
+        return all;
+    }
+
+    /**
+     * Returns the positions of the records in a region.
+     *
+     * @param region The region name, matched exactly.
+     * @return The matching positions; empty if the region is unknown.
+     */
+    public CompressedBitmap region(String region) {
+        return regions.getOrDefault(region, CompressedBitmap.empty());
+    }
+
+    /**
+     * Returns the positions of the records whose age lies in a range.
+     *
+     * @param min The minimum age in years (inclusive).
+     * @param max The maximum age in years (inclusive).
+     * @return The matching positions; empty if {@code min > max}.
+     */
+    public CompressedBitmap ageBetween(int min, int max) {
+        CompressedBitmap result = CompressedBitmap.empty();
+        if (min > max) {
+            return result;
+        }
+        for (CompressedBitmap b : ages.subMap(min, true, max, true).values()) {
+            result = result.or(b);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions not in {@code positions}.
+     *
+     * @param positions The positions to exclude.
+     * @return The complement within this snapshot.
+     */
+    public CompressedBitmap not(CompressedBitmap positions) {
+        return all.andNot(positions);
+    }
+
+    /**
+     * Returns the records at the given positions, in snapshot order.
+     *
+     * @param positions The positions, typically the result of a filter.
+     * @return An unmodifiable list of the records.
+     */
+    public List<WhiskeyData.WhiskeyDetails> materialize(CompressedBitmap positions) {
+        List<WhiskeyData.WhiskeyDetails> out = new ArrayList<>(positions.cardinality());
+        positions.forEach(i -> out.add(snapshot.get(i)));
+        return Collections.unmodifiableList(out);
+    }
+}
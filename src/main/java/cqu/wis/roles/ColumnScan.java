@@ -0,0 +1,93 @@
+package cqu.wis.roles;
+
+/**
+ * Range scan over primitive {@code int} columns, producing the positions of
+ * matching rows.
+ *
+ * <p>
+ * Two implementations exist: {@link ScalarColumnScan}, a branch-free loop, and
+ * {@code VectorColumnScan}, which compares many rows per instruction using the
+ * incubating {@code jdk.incubator.vector} API. The vector implementation is
+ * only used when that module is present at run time (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}) and the system property
+ * {@code wis.vector} is not {@code false}; otherwise {@link #best()} falls
+ * back to the scalar loop.</p>
+ *
+ * @author Prajita Bhandari
+ */
+interface ColumnScan {
+
+    /**
+     * Returns a short name of the implementation for reports.
+     *
+     * @return The implementation name.
+     */
+    String name();
+
+    /**
+     * Writes the positions of the rows whose value lies in
+     * {@code [min, max]}.
+     *
+     * @param column The column values.
+     * @param size The number of rows to scan, from position 0.
+     * @param min The lower bound (inclusive).
+     * @param max The upper bound (inclusive).
+     * @param out Receives the positions in increasing order; must hold at least
+     * {@code size} elements.
+     * @return The number of positions written.
+     */
+    int between(int[] column, int size, int min, int max, int[] out);
+
+    /**
+     * Writes the positions of the rows whose values lie in both ranges.
+     *
+     * @param a The first column.
+     * @param aMin The lower bound for {@code a} (inclusive).
+     * @param aMax The upper bound for {@code a} (inclusive).
+     * @param b The second column.
+     * @param bMin The lower bound for {@code b} (inclusive).
+     * @param bMax The upper bound for {@code b} (inclusive).
+     * @param size The number of rows to scan, from position 0.
+     * @param out Receives the positions in increasing order; must hold at least
+     * {@code size} elements.
+     * @return The number of positions written.
+     */
+    int between(int[] a, int aMin, int aMax, int[] b, int bMin, int bMax, int size, int[] out);
+
+    /**
+     * Returns the scalar implementation.
+     *
+     * @return The scalar scan.
+     */
+    static ColumnScan scalar() {
+        return ScalarColumnScan.INSTANCE;
+    }
+
+    /**
+     * Returns the vector implementation if the vector module is present.
+     *
+     * @return The vector scan, or {@code null} if unavailable.
+     */
+    static ColumnScan vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // Loaded reflectively so this class never links against the module
+            return (ColumnScan) Class.forName("cqu.wis.roles.VectorColumnScan")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the fastest implementation available.
+     *
+     * @return The vector scan if available and enabled, else the scalar scan.
+     */
+    static ColumnScan best() {
+        ColumnScan v = Boolean.parseBoolean(System.getProperty("wis.vector", "true")) ? vector() : null;
+        return v != null ? v : scalar();
+    }
+}
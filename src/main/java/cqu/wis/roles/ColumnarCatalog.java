@@ -0,0 +1,198 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Column-oriented copy of the ages and prices of a {@link ResultSnapshot} for
+ * fast range filtering.
+ *
+ * <p>
+ * Ages and prices are held in two {@code int[]} columns and scanned with the
+ * fastest available {@link ColumnScan}: a vectorized scan comparing many rows
+ * per instruction when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, otherwise a branch-free scalar
+ * loop. Filters return record positions; only the matches are turned into
+ * records with {@link #materialize(int[])}.</p>
+ *
+ * <p>
+ * A catalog is immutable and describes the snapshot it was built from.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class ColumnarCatalog {
+
+    /**
+     * The records the columns were built from, or {@code null} for bare
+     * columns.
+     */
+    private final ResultSnapshot snapshot;
+
+    /**
+     * Age of each record.
+     */
+    private final int[] ages;
+
+    /**
+     * Price of each record.
+     */
+    private final int[] prices;
+
+    /**
+     * The scan implementation.
+     */
+    private final ColumnScan scan;
+
+    /**
+     * Creates a catalog over the given columns.
+     *
+     * @param snapshot The source records, or {@code null}.
+     * @param ages The age column.
+     * @param prices The price column, the same length as {@code ages}.
+     * @param scan The scan implementation.
+     */
+    private ColumnarCatalog(ResultSnapshot snapshot, int[] ages, int[] prices, ColumnScan scan) {
+        this.snapshot = snapshot;
+        this.ages = ages;
+        this.prices = prices;
+        this.scan = scan;
+    }
+
+    /**
+     * Builds the age and price columns of a snapshot.
+     *
+     * @param snapshot The records. Must not be {@code null}.
+     * @return The columnar catalog.
+     * @throws NullPointerException If {@code snapshot} is {@code null}.
+     */
+    public static ColumnarCatalog build(ResultSnapshot snapshot) {
+        return build(snapshot, ColumnScan.best());
+    }
+
+    /**
+     * Builds the columns of a snapshot using a given scan implementation.
+     *
+     * @param snapshot The records. Must not be {@code null}.
+     * @param scan The scan implementation.
+     * @return The columnar catalog.
+     * @throws NullPointerException If {@code snapshot} is {@code null}.
+     */
+    static ColumnarCatalog build(ResultSnapshot snapshot, ColumnScan scan) {
+        if (snapshot == null) {
+            throw new NullPointerException("Snapshot cannot be null");
+        }
+        int size = snapshot.size();
+        int[] ages = new int[size];
+        int[] prices = new int[size];
+        for (int i = 0; i < size; i++) {
+            WhiskeyData.WhiskeyDetails d = snapshot.get(i);
+            ages[i] = d.age();
+            prices[i] = d.price();
+        }
+        return new ColumnarCatalog(snapshot, ages, prices, scan);
+    }
+
+    /**
+     * Wraps bare columns without records, for benchmarks over more rows than
+     * fit in memory as objects.
+     *
+     * @param ages The age column.
+     * @param prices The price column, the same length as {@code ages}.
+     * @param scan The scan implementation.
+     * @return The columnar catalog; {@link #materialize} is not supported.
+     */
+    static ColumnarCatalog ofColumns(int[] ages, int[] prices, ColumnScan scan) {
+        if (ages.length != prices.length) {
+            throw new IllegalArgumentException("Columns must have the same length");
+        }
+        return new ColumnarCatalog(null, ages, prices, scan);
+    }
+
+    /**
+     * Returns the snapshot the columns were built from.
+     *
+     * @return The snapshot.
+     */
+    public ResultSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the name of the scan implementation in use.
+     *
+     * @return For example {@code "scalar"} or {@code "vector(8 lanes)"}.
+     */
+    public String getEngine() {
+        return scan.name();
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return ages.length;
+    }
+
+    /**
+     * Returns the positions of the records whose age lies in a range.
+     *
+     * @param min The minimum age in years (inclusive).
+     * @param max The maximum age in years (inclusive).
+     * @return The matching positions in increasing order.
+     */
+    public int[] ageBetween(int min, int max) {
+        int[] out = new int[ages.length];
+        return Arrays.copyOf(out, scan.between(ages, ages.length, min, max, out));
+    }
+
+    /**
+     * Returns the positions of the records whose price lies in a range.
+     *
+     * @param min The minimum price (inclusive).
+     * @param max The maximum price (inclusive).
+     * @return The matching positions in increasing order.
+     */
+    public int[] priceBetween(int min, int max) {
+        int[] out = new int[prices.length];
+        return Arrays.copyOf(out, scan.between(prices, prices.length, min, max, out));
+    }
+
+    /**
+     * Returns the positions of the records whose age and price both lie in the
+     * given ranges, scanning both columns in one pass.
+     *
+     * @param minAge The minimum age in years (inclusive).
+     * @param maxAge The maximum age in years (inclusive).
+     * @param minPrice The minimum price (inclusive).
+     * @param maxPrice The maximum price (inclusive).
+     * @return The matching positions in increasing order.
+     */
+    public int[] ageAndPriceBetween(int minAge, int maxAge, int minPrice, int maxPrice) {
+        int[] out = new int[ages.length];
+        return Arrays.copyOf(out, scan.between(ages, minAge, maxAge, prices, minPrice, maxPrice, ages.length, out));
+    }
+
+    /**
+     * Returns the records at the given positions.
+     *
+     * @param positions The positions, typically the result of a filter.
+     * @return An unmodifiable list of the records.
+     * @throws IllegalStateException If the catalog was built from bare
+     * columns.
+     */
+    public List<WhiskeyData.WhiskeyDetails> materialize(int[] positions) {
+        if (snapshot == null) {
+            throw new IllegalStateException("No records behind these columns");
+        }
+        List<WhiskeyData.WhiskeyDetails> out = new ArrayList<>(positions.length);
+        for (int p : positions) {
+            out.add(snapshot.get(p));
+        }
+        return Collections.unmodifiableList(out);
+    }
+}
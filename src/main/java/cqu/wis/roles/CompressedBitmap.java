@@ -0,0 +1,591 @@
+package cqu.wis.roles;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed set of non-negative record positions.
+ *
+ * <p>
+ * Positions are split into chunks of 65536 by their upper 16 bits. Each chunk
+ * is stored in whichever container is smaller: a sorted {@code char[]} of the
+ * lower 16 bits while the chunk holds at most {@value #ARRAY_MAX} positions,
+ * otherwise a 1024-word {@code long[]} bitmap (8 KB). Sparse sets thus cost
+ * two bytes per position and dense sets one bit per position, and the
+ * {@link #and}, {@link #or} and {@link #andNot} operations work chunk by
+ * chunk with merges or word-wide bitwise instructions.</p>
+ *
+ * <p>
+ * Bitmaps are created with a {@link Builder} and never change afterwards, so
+ * they may be shared between threads.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class CompressedBitmap {
+
+    /**
+     * Largest number of positions held in an array container.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    /**
+     * Number of {@code long} words in a bitmap container.
+     */
+    private static final int WORDS = 1024;
+
+    /**
+     * The empty bitmap.
+     */
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Object[0], 0);
+
+    /**
+     * Upper 16 bits of each chunk, in increasing order.
+     */
+    private final char[] keys;
+
+    /**
+     * Container of each chunk: a {@code char[]} or a {@code long[]}.
+     */
+    private final Object[] containers;
+
+    /**
+     * Number of positions in the set.
+     */
+    private final int cardinality;
+
+    /**
+     * Creates a bitmap from its chunks.
+     *
+     * @param keys The chunk keys.
+     * @param containers The chunk containers, all non-empty.
+     * @param cardinality The total number of positions.
+     */
+    private CompressedBitmap(char[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Accumulates positions in increasing order into a new bitmap.
+     */
+    public static final class Builder {
+
+        /**
+         * Keys of the completed chunks.
+         */
+        private char[] keys = new char[4];
+
+        /**
+         * Containers of the completed chunks.
+         */
+        private Object[] containers = new Object[4];
+
+        /**
+         * Number of completed chunks.
+         */
+        private int chunks;
+
+        /**
+         * Number of positions in the completed chunks.
+         */
+        private int total;
+
+        /**
+         * Key of the chunk being filled, or -1.
+         */
+        private int currentKey = -1;
+
+        /**
+         * Array container of the chunk being filled.
+         */
+        private char[] array = new char[16];
+
+        /**
+         * Bitmap container of the chunk being filled once it outgrows the
+         * array, otherwise {@code null}.
+         */
+        private long[] bits;
+
+        /**
+         * Number of positions in the chunk being filled.
+         */
+        private int count;
+
+        /**
+         * Last position added, or -1.
+         */
+        private int last = -1;
+
+        /**
+         * Adds a position.
+         *
+         * @param position The position; must be greater than any position
+         * added before.
+         * @return This builder.
+         * @throws IllegalArgumentException If {@code position} is negative or
+         * not increasing.
+         */
+        public Builder add(int position) {
+            if (position <= last) {
+                throw new IllegalArgumentException("Positions must be non-negative and increasing");
+            }
+            last = position;
+            int key = position >>> 16;
+            char low = (char) position;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            if (bits != null) {
+                bits[low >>> 6] |= 1L << low;
+            } else if (count == ARRAY_MAX) {
+                bits = new long[WORDS];
+                for (int i = 0; i < count; i++) {
+                    bits[array[i] >>> 6] |= 1L << array[i];
+                }
+                bits[low >>> 6] |= 1L << low;
+            } else {
+                if (count == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_MAX, count * 2));
+                }
+                array[count] = low;
+            }
+            count++;
+            return this;
+        }
+
+        /**
+         * Returns a bitmap of the positions added so far.
+         *
+         * @return The bitmap.
+         */
+        public CompressedBitmap build() {
+            flush();
+            currentKey = -1;
+            return chunks == 0 ? EMPTY
+                    : new CompressedBitmap(Arrays.copyOf(keys, chunks), Arrays.copyOf(containers, chunks), total);
+        }
+
+        /**
+         * Completes the current chunk.
+         */
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            if (chunks == keys.length) {
+                keys = Arrays.copyOf(keys, chunks * 2);
+                containers = Arrays.copyOf(containers, chunks * 2);
+            }
+            keys[chunks] = (char) currentKey;
+            containers[chunks++] = bits != null ? bits : Arrays.copyOf(array, count);
+            total += count;
+            bits = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Returns the empty bitmap.
+     *
+     * @return A bitmap with no positions.
+     */
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a bitmap of all positions from 0 to {@code size - 1}.
+     *
+     * @param size The number of positions.
+     * @return The bitmap.
+     */
+    public static CompressedBitmap range(int size) {
+        Builder b = new Builder();
+        for (int i = 0; i < size; i++) {
+            b.add(i);
+        }
+        return b.build();
+    }
+
+    /**
+     * Returns the number of positions in the set.
+     *
+     * @return The cardinality.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns whether the set is empty.
+     *
+     * @return {@code true} if there are no positions.
+     */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns whether a position is in the set.
+     *
+     * @param position The position.
+     * @return {@code true} if present.
+     */
+    public boolean contains(int position) {
+        if (position < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, (char) (position >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        char low = (char) position;
+        return containers[i] instanceof long[] w
+                ? (w[low >>> 6] & (1L << low)) != 0
+                : Arrays.binarySearch((char[]) containers[i], low) >= 0;
+    }
+
+    /**
+     * Passes every position to {@code action} in increasing order.
+     *
+     * @param action Receives the positions.
+     */
+    public void forEach(IntConsumer action) {
+        for (int c = 0; c < keys.length; c++) {
+            int high = keys[c] << 16;
+            if (containers[c] instanceof long[] w) {
+                for (int i = 0; i < WORDS; i++) {
+                    long word = w[i];
+                    while (word != 0) {
+                        action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) containers[c]) {
+                    action.accept(high | low);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the positions in increasing order.
+     *
+     * @return A new array of the positions.
+     */
+    public int[] toArray() {
+        int[] out = new int[cardinality];
+        int[] n = {0};
+        forEach(p -> out[n[0]++] = p);
+        return out;
+    }
+
+    /**
+     * Returns the positions present in both this set and {@code other}.
+     *
+     * @param other The other set.
+     * @return The intersection.
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        Merger m = new Merger(Math.min(keys.length, other.keys.length));
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                m.add(keys[i], and(containers[i++], other.containers[j++]));
+            }
+        }
+        return m.build();
+    }
+
+    /**
+     * Returns the positions present in this set, {@code other} or both.
+     *
+     * @param other The other set.
+     * @return The union.
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        Merger m = new Merger(keys.length + other.keys.length);
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                m.add(keys[i], containers[i++]);
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                m.add(other.keys[j], other.containers[j++]);
+            } else {
+                m.add(keys[i], or(containers[i++], other.containers[j++]));
+            }
+        }
+        return m.build();
+    }
+
+    /**
+     * Returns the positions present in this set but not in {@code other}.
+     *
+     * @param other The set to remove.
+     * @return The difference.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        Merger m = new Merger(keys.length);
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            m.add(keys[i], j < other.keys.length && other.keys[j] == keys[i]
+                    ? andNot(containers[i], other.containers[j]) : containers[i]);
+        }
+        return m.build();
+    }
+
+    /**
+     * Returns the number of bytes used by the containers, for sizing.
+     *
+     * @return The approximate memory used in bytes.
+     */
+    public long sizeInBytes() {
+        long size = keys.length * 2L;
+        for (Object c : containers) {
+            size += c instanceof long[] ? WORDS * 8L : ((char[]) c).length * 2L;
+        }
+        return size;
+    }
+
+    /**
+     * Collects result chunks, skipping empty containers.
+     */
+    private static final class Merger {
+
+        /**
+         * Keys of the result chunks.
+         */
+        private final char[] keys;
+
+        /**
+         * Containers of the result chunks.
+         */
+        private final Object[] containers;
+
+        /**
+         * Number of result chunks.
+         */
+        private int n;
+
+        /**
+         * Number of positions in the result.
+         */
+        private int total;
+
+        /**
+         * Creates a merger for at most {@code capacity} chunks.
+         *
+         * @param capacity The maximum number of chunks.
+         */
+        Merger(int capacity) {
+            keys = new char[capacity];
+            containers = new Object[capacity];
+        }
+
+        /**
+         * Appends a chunk unless its container is empty.
+         *
+         * @param key The chunk key, greater than any added before.
+         * @param container The chunk container.
+         */
+        void add(char key, Object container) {
+            int card = cardinality(container);
+            if (card > 0) {
+                keys[n] = key;
+                containers[n++] = container;
+                total += card;
+            }
+        }
+
+        /**
+         * Returns the bitmap of the chunks added.
+         *
+         * @return The bitmap.
+         */
+        CompressedBitmap build() {
+            return n == 0 ? EMPTY
+                    : new CompressedBitmap(Arrays.copyOf(keys, n), Arrays.copyOf(containers, n), total);
+        }
+    }
+
+    /**
+     * Returns the number of positions in a container.
+     */
+    private static int cardinality(Object c) {
+        if (c instanceof char[] a) {
+            return a.length;
+        }
+        int card = 0;
+        for (long word : (long[]) c) {
+            card += Long.bitCount(word);
+        }
+        return card;
+    }
+
+    /**
+     * Converts a bitmap container to an array container if it is small
+     * enough.
+     */
+    private static Object shrink(long[] w) {
+        int card = cardinality(w);
+        if (card > ARRAY_MAX) {
+            return w;
+        }
+        char[] out = new char[card];
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = w[i];
+            while (word != 0) {
+                out[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns a bitmap container with the positions of an array container.
+     */
+    private static long[] toBits(char[] a) {
+        long[] w = new long[WORDS];
+        for (char low : a) {
+            w[low >>> 6] |= 1L << low;
+        }
+        return w;
+    }
+
+    /**
+     * Intersects two containers.
+     */
+    private static Object and(Object x, Object y) {
+        if (x instanceof long[] a && y instanceof long[] b) {
+            long[] w = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                w[i] = a[i] & b[i];
+            }
+            return shrink(w);
+        }
+        if (x instanceof char[] a && y instanceof char[] b) {
+            char[] out = new char[Math.min(a.length, b.length)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        char[] a = x instanceof char[] ca ? ca : (char[]) y;
+        long[] b = x instanceof long[] lb ? lb : (long[]) y;
+        return filter(a, b, true);
+    }
+
+    /**
+     * Unites two containers.
+     */
+    private static Object or(Object x, Object y) {
+        if (x instanceof char[] a && y instanceof char[] b) {
+            if (a.length + b.length > ARRAY_MAX) {
+                long[] w = toBits(a);
+                for (char low : b) {
+                    w[low >>> 6] |= 1L << low;
+                }
+                return shrink(w);
+            }
+            char[] out = new char[a.length + b.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length || j < b.length) {
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    out[n++] = a[i++];
+                } else if (i == a.length || a[i] > b[j]) {
+                    out[n++] = b[j++];
+                } else {
+                    out[n++] = a[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        long[] w = x instanceof long[] a ? a.clone() : toBits((char[]) x);
+        if (y instanceof long[] b) {
+            for (int i = 0; i < WORDS; i++) {
+                w[i] |= b[i];
+            }
+        } else {
+            for (char low : (char[]) y) {
+                w[low >>> 6] |= 1L << low;
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Removes the positions of one container from another.
+     */
+    private static Object andNot(Object x, Object y) {
+        if (x instanceof char[] a) {
+            if (y instanceof long[] b) {
+                return filter(a, b, false);
+            }
+            char[] b = (char[]) y;
+            char[] out = new char[a.length];
+            int n = 0;
+            int j = 0;
+            for (char low : a) {
+                while (j < b.length && b[j] < low) {
+                    j++;
+                }
+                if (j == b.length || b[j] != low) {
+                    out[n++] = low;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        long[] w = ((long[]) x).clone();
+        if (y instanceof long[] b) {
+            for (int i = 0; i < WORDS; i++) {
+                w[i] &= ~b[i];
+            }
+        } else {
+            for (char low : (char[]) y) {
+                w[low >>> 6] &= ~(1L << low);
+            }
+        }
+        return shrink(w);
+    }
+
+    /**
+     * Keeps the array positions whose bit is set ({@code keep}) or clear.
+     */
+    private static char[] filter(char[] a, long[] b, boolean keep) {
+        char[] out = new char[a.length];
+        int n = 0;
+        for (char low : a) {
+            if (((b[low >>> 6] & (1L << low)) != 0) == keep) {
+                out[n++] = low;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
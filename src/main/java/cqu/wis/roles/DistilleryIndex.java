@@ -0,0 +1,90 @@
+package cqu.wis.roles;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Sorted index of the distillery names of a {@link ResultSnapshot}.
+ *
+ * <p>
+ * Holds the record positions ordered by distillery name, ignoring case, so
+ * the first record at or after a key is found by binary search in
+ * O(log n).</p>
+ *
+ * @author Prajita Bhandari
+ */
+final class DistilleryIndex {
+
+    /**
+     * Order used for distillery names; {@code null} names sort first.
+     */
+    private static final Comparator<String> ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * The indexed snapshot.
+     */
+    private final ResultSnapshot snapshot;
+
+    /**
+     * Distillery names in sorted order.
+     */
+    private final String[] keys;
+
+    /**
+     * Snapshot position of each entry of {@link #keys}.
+     */
+    private final int[] positions;
+
+    /**
+     * Sorts the distillery names of a snapshot.
+     *
+     * @param snapshot The snapshot to index.
+     */
+    DistilleryIndex(ResultSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int size = snapshot.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        // Stable sort: equal names keep snapshot order
+        Arrays.sort(order, (a, b) -> ORDER.compare(snapshot.get(a).distillery(), snapshot.get(b).distillery()));
+        keys = new String[size];
+        positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = order[i];
+            keys[i] = snapshot.get(order[i]).distillery();
+        }
+    }
+
+    /**
+     * Returns the snapshot this index describes.
+     *
+     * @return The indexed snapshot.
+     */
+    ResultSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Finds the record whose distillery is the first at or after a key in
+     * name order.
+     *
+     * @param key The key, compared ignoring case.
+     * @return The snapshot position of that record, or -1 if every name sorts
+     * before the key.
+     */
+    int ceiling(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ORDER.compare(keys[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < keys.length ? positions[lo] : -1;
+    }
+}
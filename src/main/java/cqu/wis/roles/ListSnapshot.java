@@ -0,0 +1,35 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.List;
+
+/**
+ * {@link ResultSnapshot} held in an unmodifiable list.
+ *
+ * @param records The unmodifiable records of the snapshot.
+ *
+ * @author Prajita Bhandari
+ */
+record ListSnapshot(List<WhiskeyData.WhiskeyDetails> records) implements ResultSnapshot {
+
+    /**
+     * The shared empty snapshot.
+     */
+    static final ListSnapshot EMPTY = new ListSnapshot(List.of());
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WhiskeyData.WhiskeyDetails get(int index) {
+        return records.get(index);
+    }
+}
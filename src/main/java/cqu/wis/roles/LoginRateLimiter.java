@@ -0,0 +1,313 @@
+package cqu.wis.roles;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter for login and password-change attempts.
+ *
+ * <p>
+ * Each attempt must obtain a token from a per-username bucket and from a
+ * global bucket before any database lookup or hash computation takes place,
+ * so scripted brute-force traffic is rejected cheaply.</p>
+ *
+ * <p>
+ * Buckets are lock-free: each one stores a single "theoretical arrival time"
+ * in an {@link AtomicLong} and is updated with one compare-and-set (the generic
+ * cell rate algorithm, which behaves exactly like a token bucket). The global
+ * limit is split evenly across {@value #STRIPES} striped buckets selected by
+ * username hash so concurrent callers do not contend on one counter, and
+ * statistics use {@link LongAdder}. The global burst must therefore be at
+ * least {@value #STRIPES}, and each stripe allows
+ * {@code globalBurst / }{@value #STRIPES} attempts, rounded down. An attempt
+ * rejected by the global limit gives its per-username token back, so a busy
+ * system does not also lock out the users who were turned away.</p>
+ *
+ * <p>
+ * Memory is bounded: at most {@code maxTrackedKeys} usernames are tracked.
+ * When the limit is reached, buckets that have fully refilled are swept (they
+ * carry no state), and if the table is still full, untracked usernames share a
+ * small set of overflow buckets. Sweeps run at most once per username refill
+ * interval, so a flood of new usernames against a full table of active ones
+ * falls back to the overflow buckets instead of scanning the table on every
+ * attempt.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class LoginRateLimiter {
+
+    /**
+     * Number of stripes the global limit and the overflow buckets are split
+     * into.
+     */
+    private static final int STRIPES = 8;
+
+    /**
+     * A lock-free token bucket.
+     */
+    private static final class Bucket {
+
+        /**
+         * Time (in clock nanoseconds) at which the bucket would be full again.
+         */
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Attempts to take one token.
+         *
+         * @param now the current clock reading in nanoseconds.
+         * @param interval nanoseconds between token refills.
+         * @param tolerance how far ahead of {@code now} the arrival time may
+         * run, i.e. {@code interval * (burst - 1)}.
+         * @return {@code true} if a token was taken.
+         */
+        boolean tryTake(long now, long interval, long tolerance) {
+            while (true) {
+                long current = tat.get();
+                long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                if (base - now > tolerance) {
+                    return false;
+                }
+                if (tat.compareAndSet(current, base + interval)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Returns a token taken by {@link #tryTake(long, long, long)}.
+         *
+         * @param interval nanoseconds between token refills.
+         */
+        void refund(long interval) {
+            tat.addAndGet(-interval);
+        }
+
+        /**
+         * Returns whether the bucket has refilled completely and can be
+         * forgotten without changing behaviour.
+         *
+         * @param now the current clock reading in nanoseconds.
+         * @return {@code true} if the bucket is full.
+         */
+        boolean isIdle(long now) {
+            long current = tat.get();
+            return current == Long.MIN_VALUE || current - now <= 0;
+        }
+    }
+
+    /**
+     * Per-username buckets.
+     */
+    private final ConcurrentHashMap<String, Bucket> userBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Shared buckets for usernames that cannot be tracked individually.
+     */
+    private final Bucket[] overflowBuckets = new Bucket[STRIPES];
+
+    /**
+     * Striped buckets that together enforce the global limit.
+     */
+    private final Bucket[] globalBuckets = new Bucket[STRIPES];
+
+    /**
+     * Nanoseconds between per-user token refills.
+     */
+    private final long userInterval;
+
+    /**
+     * Per-user burst tolerance in nanoseconds.
+     */
+    private final long userTolerance;
+
+    /**
+     * Nanoseconds between token refills of one global stripe.
+     */
+    private final long globalInterval;
+
+    /**
+     * Burst tolerance of one global stripe in nanoseconds.
+     */
+    private final long globalTolerance;
+
+    /**
+     * Maximum number of usernames tracked individually.
+     */
+    private final int maxTrackedKeys;
+
+    /**
+     * Clock reading before which no further sweep of idle buckets may start.
+     */
+    private final AtomicLong nextSweep;
+
+    /**
+     * Number of attempts allowed.
+     */
+    private final LongAdder allowed = new LongAdder();
+
+    /**
+     * Number of attempts rejected.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Constructs a rate limiter with defaults suitable for interactive
+     * logins: a burst of 5 attempts per username refilling one every 5
+     * seconds, a global burst of 80 refilling at 40 per second, and at most
+     * 10,000 tracked usernames.
+     */
+    public LoginRateLimiter() {
+        this(0.2, 5, 40, 80, 10_000);
+    }
+
+    /**
+     * Constructs a rate limiter with the given limits.
+     *
+     * @param userPerSecond Sustained attempts per second allowed per username.
+     * @param userBurst Attempts a single username may make in a burst.
+     * @param globalPerSecond Sustained attempts per second allowed overall.
+     * @param globalBurst Attempts allowed overall in a burst; at least
+     * {@value #STRIPES}.
+     * @param maxTrackedKeys Maximum number of usernames tracked individually.
+     * @throws IllegalArgumentException If any argument is not positive, or
+     * {@code globalBurst} is less than {@value #STRIPES}.
+     */
+    public LoginRateLimiter(double userPerSecond, int userBurst,
+            double globalPerSecond, int globalBurst, int maxTrackedKeys) {
+        this(userPerSecond, userBurst, globalPerSecond, globalBurst, maxTrackedKeys, System::nanoTime);
+    }
+
+    /**
+     * Constructs a rate limiter with an explicit clock, allowing refill to be
+     * tested without waiting.
+     *
+     * @param userPerSecond Sustained attempts per second allowed per username.
+     * @param userBurst Attempts a single username may make in a burst.
+     * @param globalPerSecond Sustained attempts per second allowed overall.
+     * @param globalBurst Attempts allowed overall in a burst; at least
+     * {@value #STRIPES}.
+     * @param maxTrackedKeys Maximum number of usernames tracked individually.
+     * @param clock Source of the current time in nanoseconds.
+     * @throws IllegalArgumentException If any limit is not positive, or
+     * {@code globalBurst} is less than {@value #STRIPES}.
+     */
+    LoginRateLimiter(double userPerSecond, int userBurst, double globalPerSecond,
+            int globalBurst, int maxTrackedKeys, LongSupplier clock) {
+        if (userPerSecond <= 0 || userBurst <= 0 || globalPerSecond <= 0
+                || globalBurst <= 0 || maxTrackedKeys <= 0) {
+            throw new IllegalArgumentException("Rate limits must be positive");
+        }
+        if (globalBurst < STRIPES) {
+            throw new IllegalArgumentException("Global burst must be at least " + STRIPES);
+        }
+        this.userInterval = (long) (TimeUnit.SECONDS.toNanos(1) / userPerSecond);
+        this.userTolerance = userInterval * (userBurst - 1);
+        this.globalInterval = (long) (TimeUnit.SECONDS.toNanos(1) * STRIPES / globalPerSecond);
+        this.globalTolerance = globalInterval * (globalBurst / STRIPES - 1);
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+        for (int i = 0; i < STRIPES; i++) {
+            overflowBuckets[i] = new Bucket();
+            globalBuckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Attempts to obtain permission for one authentication attempt. A token is
+     * taken from the username's bucket and then from the global limit; if the
+     * global limit rejects the attempt, the username's token is returned.
+     *
+     * @param username The username the attempt is for. A {@code null} value
+     * is treated as the empty username.
+     * @return {@code true} if the attempt may proceed, {@code false} if it must
+     * be rejected.
+     */
+    public boolean tryAcquire(String username) {
+        String key = username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+        int stripe = (key.hashCode() & 0x7fffffff) % STRIPES;
+        long now = clock.getAsLong();
+        Bucket user = bucketFor(key, stripe, now);
+        boolean ok = user.tryTake(now, userInterval, userTolerance);
+        if (ok && !globalBuckets[stripe].tryTake(now, globalInterval, globalTolerance)) {
+            user.refund(userInterval);
+            ok = false;
+        }
+        (ok ? allowed : rejected).increment();
+        return ok;
+    }
+
+    /**
+     * Returns the number of attempts allowed so far.
+     *
+     * @return the allowed attempt count.
+     */
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    /**
+     * Returns the number of attempts rejected so far.
+     *
+     * @return the rejected attempt count.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of usernames currently tracked individually.
+     *
+     * @return the tracked username count.
+     */
+    public int getTrackedKeyCount() {
+        return userBuckets.size();
+    }
+
+    /**
+     * Finds or creates the bucket for a username, falling back to an overflow
+     * bucket when the tracking table is full.
+     *
+     * @param key The normalised username.
+     * @param stripe The stripe selected for the username.
+     * @param now The current clock reading in nanoseconds.
+     * @return the bucket to take a token from.
+     */
+    private Bucket bucketFor(String key, int stripe, long now) {
+        Bucket bucket = userBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (userBuckets.size() >= maxTrackedKeys) {
+            sweep(now);
+            if (userBuckets.size() >= maxTrackedKeys) {
+                return overflowBuckets[stripe];
+            }
+        }
+        return userBuckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    /**
+     * Removes buckets that have fully refilled, at most once per username
+     * refill interval. Only the caller that claims the interval sweeps;
+     * others proceed without waiting.
+     *
+     * @param now The current clock reading in nanoseconds.
+     */
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next >= 0 && nextSweep.compareAndSet(next, now + userInterval)) {
+            userBuckets.values().removeIf(b -> b.isIdle(now));
+        }
+    }
+}
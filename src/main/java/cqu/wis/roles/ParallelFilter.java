@@ -0,0 +1,198 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * Filters the records of a {@link ResultSnapshot} on all cores.
+ *
+ * <p>
+ * Snapshots smaller than the threshold ({@code wis.parallel.threshold},
+ * default 50000 records) are filtered by a plain loop, since splitting the
+ * work would cost more than it saves. Larger snapshots are cut into chunks of
+ * equal size that a {@link ForkJoinPool} filters independently; each chunk
+ * collects its matches into its own array, and the arrays are then copied
+ * once, in chunk order, into the result. Matches therefore keep their order
+ * in the snapshot.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class ParallelFilter {
+
+    /**
+     * Default number of records at and above which filtering runs in
+     * parallel.
+     */
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("wis.parallel.threshold", 50_000);
+
+    /**
+     * Smallest number of records given to one chunk.
+     */
+    private static final int MIN_CHUNK = 4096;
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ParallelFilter() {
+    }
+
+    /**
+     * Returns the records matching a predicate, in snapshot order, using the
+     * common pool above the default threshold.
+     *
+     * @param snapshot The records to filter. Must not be {@code null}.
+     * @param predicate The condition, which must be safe to call from several
+     * threads. Must not be {@code null}.
+     * @return An unmodifiable list of the matching records.
+     */
+    public static List<WhiskeyData.WhiskeyDetails> filter(ResultSnapshot snapshot,
+            Predicate<WhiskeyData.WhiskeyDetails> predicate) {
+        return filter(snapshot, predicate, DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the records matching a predicate, in snapshot order.
+     *
+     * @param snapshot The records to filter. Must not be {@code null}.
+     * @param predicate The condition, which must be safe to call from several
+     * threads. Must not be {@code null}.
+     * @param threshold The size at and above which the pool is used.
+     * @param pool The pool that runs the chunks.
+     * @return An unmodifiable list of the matching records.
+     */
+    static List<WhiskeyData.WhiskeyDetails> filter(ResultSnapshot snapshot,
+            Predicate<WhiskeyData.WhiskeyDetails> predicate, int threshold, ForkJoinPool pool) {
+        if (snapshot == null || predicate == null) {
+            throw new NullPointerException("Snapshot and predicate cannot be null");
+        }
+        int size = snapshot.size();
+        if (size < threshold || pool.getParallelism() < 2) {
+            List<WhiskeyData.WhiskeyDetails> out = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                WhiskeyData.WhiskeyDetails d = snapshot.get(i);
+                if (predicate.test(d)) {
+                    out.add(d);
+                }
+            }
+            return Collections.unmodifiableList(out);
+        }
+        // A few chunks per worker evens out chunks that match more than others
+        int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, size / MIN_CHUNK));
+        WhiskeyData.WhiskeyDetails[][] parts = new WhiskeyData.WhiskeyDetails[chunks][];
+        int[] counts = new int[chunks];
+        pool.invoke(new ChunkTask(snapshot, predicate, 0, chunks, chunks, parts, counts));
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        WhiskeyData.WhiskeyDetails[] result = new WhiskeyData.WhiskeyDetails[total];
+        int at = 0;
+        for (int c = 0; c < chunks; c++) {
+            System.arraycopy(parts[c], 0, result, at, counts[c]);
+            at += counts[c];
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    /**
+     * Filters a range of chunks, splitting it in half until one chunk
+     * remains. Tasks are never serialized, so the fields referring to the
+     * shared records and results are transient.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The records being filtered.
+         */
+        private final transient ResultSnapshot snapshot;
+
+        /**
+         * The filter condition.
+         */
+        private final transient Predicate<WhiskeyData.WhiskeyDetails> predicate;
+
+        /**
+         * First chunk of this task (inclusive).
+         */
+        private final int from;
+
+        /**
+         * Last chunk of this task (exclusive).
+         */
+        private final int to;
+
+        /**
+         * Total number of chunks.
+         */
+        private final int chunks;
+
+        /**
+         * Receives the matches of each chunk.
+         */
+        private final transient WhiskeyData.WhiskeyDetails[][] parts;
+
+        /**
+         * Receives the number of matches of each chunk.
+         */
+        private final int[] counts;
+
+        /**
+         * Creates a task for chunks {@code from} to {@code to - 1}.
+         *
+         * @param snapshot The records being filtered.
+         * @param predicate The filter condition.
+         * @param from First chunk (inclusive).
+         * @param to Last chunk (exclusive).
+         * @param chunks Total number of chunks.
+         * @param parts Receives the matches of each chunk.
+         * @param counts Receives the number of matches of each chunk.
+         */
+        ChunkTask(ResultSnapshot snapshot, Predicate<WhiskeyData.WhiskeyDetails> predicate,
+                int from, int to, int chunks, WhiskeyData.WhiskeyDetails[][] parts, int[] counts) {
+            this.snapshot = snapshot;
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+            this.chunks = chunks;
+            this.parts = parts;
+            this.counts = counts;
+        }
+
+        /**
+         * Filters one chunk, or splits the range and runs both halves.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(snapshot, predicate, from, mid, chunks, parts, counts),
+                        new ChunkTask(snapshot, predicate, mid, to, chunks, parts, counts));
+                return;
+            }
+            int size = snapshot.size();
+            int start = (int) ((long) size * from / chunks);
+            int end = (int) ((long) size * to / chunks);
+            WhiskeyData.WhiskeyDetails[] out = new WhiskeyData.WhiskeyDetails[end - start];
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                WhiskeyData.WhiskeyDetails d = snapshot.get(i);
+                if (predicate.test(d)) {
+                    out[n++] = d;
+                }
+            }
+            parts[from] = out;
+            counts[from] = n;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package cqu.wis.roles;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Allocation-free SHA‐1 password hashing.
+ *
+ * <p>
+ * A {@link MessageDigest} with its UTF‐8 input buffer, digest buffer and hex
+ * buffer is borrowed from a small shared pool for each call, so hashing a
+ * password allocates nothing but the resulting {@link String}, and
+ * {@link #matches(String, String)} allocates nothing at all. The pool is not
+ * tied to threads, so it stays small when the callers are short-lived virtual
+ * threads (as in the query server), where thread-local state would be
+ * created afresh for every request. The encoded password is zeroed as soon as
+ * it has been digested, so it does not linger in a pooled buffer. Input is
+ * always encoded as UTF‐8, independent of the platform default charset.</p>
+ *
+ * <p>
+ * {@link #matches(String, String)} compares the computed hash against a stored
+ * hex hash in constant time, so response time does not reveal how many leading
+ * characters of a guess were correct.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class PasswordHasher {
+
+    /**
+     * Length in bytes of a SHA‐1 digest.
+     */
+    private static final int DIGEST_LENGTH = 20;
+
+    /**
+     * Lowercase hexadecimal digits indexed by nibble value.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Idle hashing states. A call that finds none creates one, and a state
+     * returned to a full pool is dropped.
+     */
+    private static final BlockingQueue<State> POOL
+            = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Reusable buffers and digest instance, used by one call at a time.
+     */
+    private static final class State {
+
+        /**
+         * The SHA‐1 digest, reset after every use.
+         */
+        private final MessageDigest md;
+
+        /**
+         * UTF‐8 encoded input, grown when a longer input is seen.
+         */
+        private byte[] input = new byte[64];
+
+        /**
+         * Output digest bytes.
+         */
+        private final byte[] digest = new byte[DIGEST_LENGTH];
+
+        /**
+         * Hex rendering of the digest.
+         */
+        private final char[] hex = new char[DIGEST_LENGTH * 2];
+
+        /**
+         * Creates a hashing state.
+         */
+        State() {
+            try {
+                md = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 not available", e);
+            }
+        }
+    }
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private PasswordHasher() {
+    }
+
+    /**
+     * Computes the lowercase hexadecimal SHA‐1 hash of a string's UTF‐8
+     * encoding.
+     *
+     * @param s The string to hash. Must not be {@code null}.
+     * @return The 40-character lowercase hex digest.
+     * @throws NullPointerException If {@code s} is {@code null}.
+     */
+    public static String sha1Hex(String s) {
+        State st = acquire();
+        try {
+            digest(st, s);
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int b = st.digest[i];
+                st.hex[2 * i] = HEX[(b >> 4) & 0xf];
+                st.hex[2 * i + 1] = HEX[b & 0xf];
+            }
+            return new String(st.hex);
+        } finally {
+            POOL.offer(st);
+        }
+    }
+
+    /**
+     * Checks in constant time whether the SHA‐1 hash of a password equals a
+     * stored lowercase hex hash.
+     *
+     * @param password The plain-text password to check. Must not be
+     * {@code null}.
+     * @param storedHex The stored hash. A {@code null} or wrongly sized value
+     * never matches.
+     * @return {@code true} if the hashes are equal.
+     */
+    public static boolean matches(String password, String storedHex) {
+        if (password == null || storedHex == null || storedHex.length() != DIGEST_LENGTH * 2) {
+            return false;
+        }
+        State st = acquire();
+        try {
+            digest(st, password);
+            int diff = 0;
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int b = st.digest[i];
+                diff |= HEX[(b >> 4) & 0xf] ^ storedHex.charAt(2 * i);
+                diff |= HEX[b & 0xf] ^ storedHex.charAt(2 * i + 1);
+            }
+            return diff == 0;
+        } finally {
+            POOL.offer(st);
+        }
+    }
+
+    /**
+     * Takes an idle state from the pool, or creates one if none is idle.
+     *
+     * @return A state for the caller's exclusive use until it is returned.
+     */
+    private static State acquire() {
+        State st = POOL.poll();
+        return st != null ? st : new State();
+    }
+
+    /**
+     * Encodes the input as UTF‐8 into the state's buffer, digests it into the
+     * state's digest buffer and zeroes the encoded input.
+     *
+     * @param st The state to use.
+     * @param s The string to hash.
+     */
+    private static void digest(State st, String s) {
+        int len = encodeUtf8(st, s);
+        try {
+            st.md.update(st.input, 0, len);
+            st.md.digest(st.digest, 0, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            st.md.reset();
+            throw new IllegalStateException("SHA-1 digest failed", e);
+        } finally {
+            Arrays.fill(st.input, 0, len, (byte) 0);
+        }
+    }
+
+    /**
+     * Encodes a string as UTF‐8 into the state's input buffer, replacing
+     * unpaired surrogates with {@code '?'} as {@link String#getBytes} does.
+     *
+     * @param st The state owning the buffer.
+     * @param s The string to encode.
+     * @return The number of bytes written.
+     */
+    private static int encodeUtf8(State st, String s) {
+        int max = s.length() * 3;
+        if (st.input.length < max) {
+            st.input = new byte[Math.max(max, st.input.length * 2)];
+        }
+        byte[] out = st.input;
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xc0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                out[n++] = (byte) (0xf0 | (cp >> 18));
+                out[n++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                out[n++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                out[n++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                out[n++] = '?';
+            } else {
+                out[n++] = (byte) (0xe0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[n++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,244 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.PriceHistoryData;
+import cqu.wis.log.Log;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Business logic class serving each malt's price history from memory.
+ *
+ * <p>
+ * {@link #load()} streams the whole {@code PRICEHISTORY} table once and keeps
+ * each malt's history as a compact {@link PriceSeries}, so that price-at-date
+ * and min/max queries never touch the database again. Until that has
+ * happened, a malt's history is read from the database on demand and kept in
+ * a small least-recently-used cache; while a load is in progress, histories
+ * not already cached are reported as not yet available rather than waiting
+ * for the load to release the connection.</p>
+ *
+ * <p>
+ * {@link #getSeriesAsync(String)} never blocks its caller: a history that is
+ * not in memory is read on the loader thread, after any load already queued
+ * there, so it is answered from memory once that load completes. A load that
+ * fails keeps nothing and may be started again.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class PriceHistoryManager {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(PriceHistoryManager.class);
+
+    /**
+     * Number of histories read on demand that are kept before a full load.
+     */
+    static final int FETCH_CACHE_CAPACITY = 256;
+
+    /**
+     * Runs background loads on a daemon thread, so that a load never delays
+     * application exit.
+     */
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wis-price-history");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The underlying PriceHistoryData object for database access.
+     */
+    private final PriceHistoryData phd;
+
+    /**
+     * Every malt's history once loaded, or {@code null} before.
+     */
+    private volatile Map<String, PriceSeries> loaded;
+
+    /**
+     * Histories read on demand, in access order. Guarded by its own monitor.
+     */
+    private final LinkedHashMap<String, PriceSeries> fetched = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PriceSeries> eldest) {
+            return size() > FETCH_CACHE_CAPACITY;
+        }
+    };
+
+    /**
+     * Whether a load is in progress.
+     */
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    /**
+     * Constructs a PriceHistoryManager.
+     *
+     * @param phd The PriceHistoryData object used for database access.
+     * @throws NullPointerException If {@code phd} is {@code null}.
+     */
+    public PriceHistoryManager(PriceHistoryData phd) {
+        if (phd == null) {
+            throw new NullPointerException("PriceHistoryData cannot be null");
+        }
+        this.phd = phd;
+    }
+
+    /**
+     * Starts loading every malt's history on a background thread, unless a
+     * load is already running or has completed.
+     *
+     * @return {@code true} if a load was started.
+     */
+    public boolean startLoading() {
+        if (loaded != null || !loading.compareAndSet(false, true)) {
+            return false;
+        }
+        LOADER.execute(() -> {
+            try {
+                loadAll();
+            } catch (RuntimeException e) {
+                LOG.warn("Price history load failed", e);
+            } finally {
+                loading.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Loads every malt's history into memory on the calling thread.
+     *
+     * @throws cqu.wis.data.QueryTimeoutException If the load exceeds its
+     * latency budget; nothing is kept.
+     * @throws cqu.wis.data.DataAccessException If the load fails; nothing is
+     * kept.
+     */
+    public void load() {
+        loading.set(true);
+        try {
+            loadAll();
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    /**
+     * Returns whether every malt's history is held in memory.
+     *
+     * @return {@code true} once a load has completed.
+     */
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    /**
+     * Returns a malt's price history.
+     *
+     * @param distillery The name of the distillery. Must not be
+     * {@code null}.
+     * @return The history, which is empty if the malt has none; or
+     * {@code null} if a load is in progress and the history is not yet
+     * available.
+     * @throws NullPointerException If {@code distillery} is {@code null}.
+     * @throws cqu.wis.data.QueryTimeoutException If reading the history
+     * exceeds its latency budget.
+     * @throws cqu.wis.data.DataAccessException If reading the history fails.
+     */
+    public PriceSeries getSeries(String distillery) {
+        if (distillery == null) {
+            throw new NullPointerException("Distillery cannot be null");
+        }
+        PriceSeries series = inMemory(distillery);
+        if (series != null || loading.get()) {
+            return series;
+        }
+        return fetch(distillery);
+    }
+
+    /**
+     * Returns a malt's price history without blocking the caller.
+     *
+     * @param distillery The name of the distillery. Must not be
+     * {@code null}.
+     * @return A future completed with the history, which is empty if the malt
+     * has none; already complete if the history is in memory. It completes
+     * exceptionally with a {@link cqu.wis.data.QueryTimeoutException} or
+     * {@link cqu.wis.data.DataAccessException} if the history cannot be
+     * read.
+     * @throws NullPointerException If {@code distillery} is {@code null}.
+     */
+    public CompletableFuture<PriceSeries> getSeriesAsync(String distillery) {
+        if (distillery == null) {
+            throw new NullPointerException("Distillery cannot be null");
+        }
+        PriceSeries series = inMemory(distillery);
+        if (series != null) {
+            return CompletableFuture.completedFuture(series);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            PriceSeries s = inMemory(distillery);
+            return s != null ? s : fetch(distillery);
+        }, LOADER);
+    }
+
+    /**
+     * Returns a malt's history if it is loaded or cached.
+     *
+     * @param distillery The name of the distillery.
+     * @return The history, or {@code null} if it must be read.
+     */
+    private PriceSeries inMemory(String distillery) {
+        Map<String, PriceSeries> all = loaded;
+        if (all != null) {
+            return all.getOrDefault(distillery, PriceSeries.EMPTY);
+        }
+        synchronized (fetched) {
+            return fetched.get(distillery);
+        }
+    }
+
+    /**
+     * Reads a malt's history from the database and caches it.
+     *
+     * @param distillery The name of the distillery.
+     * @return The history.
+     */
+    private PriceSeries fetch(String distillery) {
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        synchronized (phd) {
+            for (PriceHistoryData.PricePoint p : phd.getPriceHistory(distillery)) {
+                builder.add(p.date(), p.price());
+            }
+        }
+        PriceSeries series = builder.build();
+        synchronized (fetched) {
+            fetched.put(distillery, series);
+        }
+        return series;
+    }
+
+    /**
+     * Streams the table into one builder per malt and publishes the built
+     * series. Nothing is published if the stream fails.
+     */
+    private void loadAll() {
+        Map<String, PriceSeries.Builder> builders = new HashMap<>();
+        synchronized (phd) {
+            phd.forEachPrice(p -> builders.computeIfAbsent(p.distillery(), k -> new PriceSeries.Builder())
+                    .add(p.date(), p.price()));
+        }
+        Map<String, PriceSeries> all = new HashMap<>(builders.size() * 4 / 3 + 1);
+        builders.forEach((distillery, builder) -> all.put(distillery, builder.build()));
+        loaded = all;
+        synchronized (fetched) {
+            fetched.clear();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package cqu.wis.roles;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * One malt's price history, held compactly in memory.
+ *
+ * <p>
+ * The series is a list of price changes in date order; each price applies
+ * from its date until the next change. Points are grouped into blocks of
+ * {@value #BLOCK_SIZE}. The first point of each block is kept as plain
+ * integers together with the block's lowest and highest price; every other
+ * point is stored as the number of days since the previous point (an
+ * unsigned varint) and the change in price (a zig-zag varint), which usually
+ * takes two or three bytes per point.</p>
+ *
+ * <p>
+ * {@link #priceAt(LocalDate)} binary-searches the blocks and decodes at most
+ * one block. {@link #range(LocalDate, LocalDate)} decodes only the blocks at
+ * either end of the period and answers the blocks in between from their
+ * stored lowest and highest prices.</p>
+ *
+ * <p>
+ * Instances are immutable and are created with a {@link Builder}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class PriceSeries {
+
+    /**
+     * Number of points in each block.
+     */
+    static final int BLOCK_SIZE = 32;
+
+    /**
+     * A series without any points.
+     */
+    public static final PriceSeries EMPTY = new Builder().build();
+
+    /**
+     * Encoded deltas of every point that is not the first of its block.
+     */
+    private final byte[] data;
+
+    /**
+     * Number of points.
+     */
+    private final int size;
+
+    /**
+     * Epoch day of the first point of each block.
+     */
+    private final int[] blockDays;
+
+    /**
+     * Price of the first point of each block.
+     */
+    private final int[] blockPrices;
+
+    /**
+     * Offset in {@link #data} of the second point of each block.
+     */
+    private final int[] blockOffsets;
+
+    /**
+     * Lowest price in each block.
+     */
+    private final int[] blockMin;
+
+    /**
+     * Highest price in each block.
+     */
+    private final int[] blockMax;
+
+    /**
+     * Lowest and highest price in effect during a period.
+     *
+     * @param min The lowest price.
+     * @param max The highest price.
+     */
+    public static record PriceRange(int min, int max) {
+
+    }
+
+    /**
+     * Creates a series from a builder's arrays, trimmed to size.
+     *
+     * @param b The builder.
+     */
+    private PriceSeries(Builder b) {
+        int blocks = (b.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        data = Arrays.copyOf(b.data, b.length);
+        size = b.size;
+        blockDays = Arrays.copyOf(b.blockDays, blocks);
+        blockPrices = Arrays.copyOf(b.blockPrices, blocks);
+        blockOffsets = Arrays.copyOf(b.blockOffsets, blocks);
+        blockMin = Arrays.copyOf(b.blockMin, blocks);
+        blockMax = Arrays.copyOf(b.blockMax, blocks);
+    }
+
+    /**
+     * Returns the number of price changes.
+     *
+     * @return The number of points.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate number of bytes the series occupies, excluding
+     * object headers.
+     *
+     * @return The encoded size in bytes.
+     */
+    public int getEncodedBytes() {
+        return data.length + blockDays.length * 5 * Integer.BYTES;
+    }
+
+    /**
+     * Returns the price in effect on a date: that of the last change on or
+     * before it.
+     *
+     * @param date The date. Must not be {@code null}.
+     * @return The price, or empty if the series starts after {@code date}.
+     */
+    public OptionalInt priceAt(LocalDate date) {
+        Cursor c = seek(toDay(date));
+        return c == null ? OptionalInt.empty() : OptionalInt.of(c.price);
+    }
+
+    /**
+     * Returns the lowest and highest price in effect on any day of a period:
+     * the price in effect on {@code from} and every change up to and including
+     * {@code to}.
+     *
+     * @param from The first day of the period. Must not be {@code null}.
+     * @param to The last day of the period. Must not be {@code null}.
+     * @return The range, or empty if the series starts after {@code to}.
+     * @throws IllegalArgumentException If {@code to} is before {@code from}.
+     */
+    public Optional<PriceRange> range(LocalDate from, LocalDate to) {
+        int fromDay = toDay(from);
+        int toDay = toDay(to);
+        if (toDay < fromDay) {
+            throw new IllegalArgumentException("Period cannot end before it starts");
+        }
+        Cursor end = seek(toDay);
+        if (end == null) {
+            return Optional.empty();
+        }
+        Cursor start = seek(fromDay);
+        int first = start == null ? 0 : start.index;
+        int last = end.index;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int b = first / BLOCK_SIZE; b <= last / BLOCK_SIZE; b++) {
+            int blockFirst = b * BLOCK_SIZE;
+            int blockLast = Math.min(size, blockFirst + BLOCK_SIZE) - 1;
+            if (blockFirst >= first && blockLast <= last) {
+                min = Math.min(min, blockMin[b]);
+                max = Math.max(max, blockMax[b]);
+                continue;
+            }
+            Cursor c = new Cursor(b);
+            while (true) {
+                if (c.index >= first) {
+                    min = Math.min(min, c.price);
+                    max = Math.max(max, c.price);
+                }
+                if (c.index == Math.min(blockLast, last)) {
+                    break;
+                }
+                c.next();
+            }
+        }
+        return Optional.of(new PriceRange(min, max));
+    }
+
+    /**
+     * Positions a cursor at the last point on or before a day.
+     *
+     * @param day The epoch day.
+     * @return The cursor, or {@code null} if every point is after
+     * {@code day}.
+     */
+    private Cursor seek(int day) {
+        int b = Arrays.binarySearch(blockDays, day);
+        if (b < 0) {
+            b = -b - 2;
+            if (b < 0) {
+                return null;
+            }
+        }
+        Cursor c = new Cursor(b);
+        int blockLast = Math.min(size, b * BLOCK_SIZE + BLOCK_SIZE) - 1;
+        while (c.index < blockLast && c.peekDay() <= day) {
+            c.next();
+        }
+        return c;
+    }
+
+    /**
+     * Converts a date to an epoch day.
+     *
+     * @param date The date.
+     * @return The epoch day.
+     * @throws NullPointerException If {@code date} is {@code null}.
+     */
+    private static int toDay(LocalDate date) {
+        if (date == null) {
+            throw new NullPointerException("Date cannot be null");
+        }
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * Decodes the points of one block in order.
+     */
+    private final class Cursor {
+
+        /**
+         * Index of the current point.
+         */
+        int index;
+
+        /**
+         * Epoch day of the current point.
+         */
+        int day;
+
+        /**
+         * Price of the current point.
+         */
+        int price;
+
+        /**
+         * Offset in {@link #data} of the next point.
+         */
+        int pos;
+
+        /**
+         * Creates a cursor at the first point of a block.
+         *
+         * @param block The block.
+         */
+        Cursor(int block) {
+            index = block * BLOCK_SIZE;
+            day = blockDays[block];
+            price = blockPrices[block];
+            pos = blockOffsets[block];
+        }
+
+        /**
+         * Returns the epoch day of the next point without moving to it.
+         *
+         * @return The next point's epoch day.
+         */
+        int peekDay() {
+            int p = pos;
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[p++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return day + delta;
+        }
+
+        /**
+         * Moves to the next point of the block.
+         */
+        void next() {
+            day += readVarint();
+            int zigzag = readVarint();
+            price += (zigzag >>> 1) ^ -(zigzag & 1);
+            index++;
+        }
+
+        /**
+         * Reads an unsigned varint.
+         *
+         * @return The value.
+         */
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Builds a {@link PriceSeries} from price changes added in date order.
+     */
+    public static final class Builder {
+
+        /**
+         * Encoded deltas.
+         */
+        private byte[] data = new byte[64];
+
+        /**
+         * Number of bytes used in {@link #data}.
+         */
+        private int length;
+
+        /**
+         * Number of points added.
+         */
+        private int size;
+
+        /**
+         * Epoch day of the first point of each block.
+         */
+        private int[] blockDays = new int[4];
+
+        /**
+         * Price of the first point of each block.
+         */
+        private int[] blockPrices = new int[4];
+
+        /**
+         * Offset of the second point of each block.
+         */
+        private int[] blockOffsets = new int[4];
+
+        /**
+         * Lowest price in each block.
+         */
+        private int[] blockMin = new int[4];
+
+        /**
+         * Highest price in each block.
+         */
+        private int[] blockMax = new int[4];
+
+        /**
+         * Epoch day of the last point added.
+         */
+        private int lastDay;
+
+        /**
+         * Price of the last point added.
+         */
+        private int lastPrice;
+
+        /**
+         * Adds a price change after those already added.
+         *
+         * @param date The date from which the price applies. Must not be
+         * {@code null}.
+         * @param price The price.
+         * @return This builder.
+         * @throws NullPointerException If {@code date} is {@code null}.
+         * @throws IllegalArgumentException If {@code date} is not after the
+         * date of the last change added.
+         */
+        public Builder add(LocalDate date, int price) {
+            int day = toDay(date);
+            if (size > 0 && day <= lastDay) {
+                throw new IllegalArgumentException("Dates must be added in increasing order");
+            }
+            int block = size / BLOCK_SIZE;
+            if (size % BLOCK_SIZE == 0) {
+                if (block == blockDays.length) {
+                    int capacity = block * 2;
+                    blockDays = Arrays.copyOf(blockDays, capacity);
+                    blockPrices = Arrays.copyOf(blockPrices, capacity);
+                    blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+                    blockMin = Arrays.copyOf(blockMin, capacity);
+                    blockMax = Arrays.copyOf(blockMax, capacity);
+                }
+                blockDays[block] = day;
+                blockPrices[block] = price;
+                blockOffsets[block] = length;
+                blockMin[block] = price;
+                blockMax[block] = price;
+            } else {
+                writeVarint(day - lastDay);
+                int delta = price - lastPrice;
+                writeVarint((delta << 1) ^ (delta >> 31));
+                blockMin[block] = Math.min(blockMin[block], price);
+                blockMax[block] = Math.max(blockMax[block], price);
+            }
+            lastDay = day;
+            lastPrice = price;
+            size++;
+            return this;
+        }
+
+        /**
+         * Creates the series from the changes added so far.
+         *
+         * @return The series.
+         */
+        public PriceSeries build() {
+            return new PriceSeries(this);
+        }
+
+        /**
+         * Appends an unsigned varint.
+         *
+         * @param value The value.
+         */
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Shared in-memory cache of whiskey query results.
+ *
+ * <p>
+ * Results are keyed by query type and parameters and kept for a fixed
+ * time-to-live. Concurrent requests for the same key that miss the cache
+ * share a single database query ("single flight"), so the load on the database
+ * stays flat however many clients ask for the same data. Results are stored as
+ * unmodifiable lists and may be shared freely. A query that fails, with an
+ * exception or an error, is reported to every request waiting for it and is
+ * not cached, so the next request runs it again.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class QueryResultCache {
+
+    /**
+     * A cached or in-flight query result.
+     *
+     * @param result Future completed with the query result.
+     * @param expiresAt Clock reading in nanoseconds after which the entry is
+     * stale.
+     */
+    private record Entry(CompletableFuture<List<WhiskeyData.WhiskeyDetails>> result, long expiresAt) {
+
+    }
+
+    /**
+     * Cached entries by key.
+     */
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Time-to-live of an entry, in nanoseconds.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Maximum number of entries kept before the cache is cleared.
+     */
+    private final int maxEntries;
+
+    /**
+     * Constructs a cache with the given time-to-live and size bound.
+     *
+     * @param ttlMillis The time-to-live of a result in milliseconds.
+     * @param maxEntries The maximum number of distinct queries cached.
+     * @throws IllegalArgumentException If either argument is not positive.
+     */
+    public QueryResultCache(long ttlMillis, int maxEntries) {
+        if (ttlMillis <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("TTL and size must be positive");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached result for {@code key}, running {@code query} to load
+     * it if it is missing or stale.
+     *
+     * @param key The query type and parameters, e.g. {@code "region:Islay"}.
+     * @param query Loads the result from the database.
+     * @return An unmodifiable list of matching records.
+     * @throws RuntimeException Any exception thrown by {@code query}, such as a
+     * {@link cqu.wis.data.QueryTimeoutException}; failed results are not
+     * cached.
+     * @throws Error Any error thrown by {@code query}; it is not cached
+     * either.
+     */
+    public List<WhiskeyData.WhiskeyDetails> get(String key, Supplier<List<WhiskeyData.WhiskeyDetails>> query) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry == null || now - entry.expiresAt() >= 0) {
+            if (entry == null && entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            Entry fresh = new Entry(new CompletableFuture<>(), now + ttlNanos);
+            Entry current = entry == null
+                    ? entries.putIfAbsent(key, fresh)
+                    : entries.replace(key, entry, fresh) ? null : entries.get(key);
+            if (current == null) {
+                try {
+                    fresh.result().complete(List.copyOf(query.get()));
+                } catch (Throwable t) {
+                    // Any failure must complete the future, or waiters block forever
+                    entries.remove(key, fresh);
+                    fresh.result().completeExceptionally(t);
+                    throw t;
+                }
+                entry = fresh;
+            } else {
+                entry = current;
+            }
+        }
+        try {
+            return entry.result().join();
+        } catch (CompletionException e) {
+            // Rethrow the query's own exception (e.g. a timeout) to every waiter
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
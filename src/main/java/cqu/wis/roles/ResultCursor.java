@@ -0,0 +1,143 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+
+/**
+ * Lightweight navigation position over a {@link ResultSnapshot}.
+ *
+ * <p>
+ * A cursor belongs to one session or window and is not thread-safe; the
+ * snapshot it browses is immutable and may be shared by any number of cursors.
+ * Navigation wraps around cyclically at both ends.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class ResultCursor {
+
+    /**
+     * The snapshot being browsed.
+     */
+    private final ResultSnapshot snapshot;
+
+    /**
+     * Index of the current record, or -1 if the snapshot is empty.
+     */
+    private int currentIndex;
+
+    /**
+     * Creates a cursor positioned on the first record of the snapshot.
+     *
+     * @param snapshot The snapshot to browse. Must not be {@code null}.
+     * @throws NullPointerException If {@code snapshot} is {@code null}.
+     */
+    public ResultCursor(ResultSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new NullPointerException("Snapshot cannot be null");
+        }
+        this.snapshot = snapshot;
+        this.currentIndex = snapshot.isEmpty() ? -1 : 0;
+    }
+
+    /**
+     * Returns the snapshot this cursor browses.
+     *
+     * @return the snapshot.
+     */
+    public ResultSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the index of the current record.
+     *
+     * @return the current index, or -1 if the snapshot is empty.
+     */
+    public int getIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Moves to and returns the first record.
+     *
+     * @return The first {@link WhiskeyData.WhiskeyDetails}, or {@code null} if
+     * the snapshot is empty.
+     */
+    public WhiskeyData.WhiskeyDetails first() {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        currentIndex = 0;
+        return snapshot.get(currentIndex);
+    }
+
+    /**
+     * Moves to and returns the next record, wrapping around cyclically.
+     *
+     * @return The next {@link WhiskeyData.WhiskeyDetails}, or {@code null} if
+     * the snapshot is empty.
+     */
+    public WhiskeyData.WhiskeyDetails next() {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        currentIndex = (currentIndex + 1) % snapshot.size();
+        return snapshot.get(currentIndex);
+    }
+
+    /**
+     * Moves to and returns the previous record, wrapping around cyclically.
+     *
+     * @return The previous {@link WhiskeyData.WhiskeyDetails}, or {@code null}
+     * if the snapshot is empty.
+     */
+    public WhiskeyData.WhiskeyDetails previous() {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        currentIndex = (currentIndex - 1 + snapshot.size()) % snapshot.size();
+        return snapshot.get(currentIndex);
+    }
+
+    /**
+     * Moves to and returns the last record.
+     *
+     * @return The last {@link WhiskeyData.WhiskeyDetails}, or {@code null} if
+     * the snapshot is empty.
+     */
+    public WhiskeyData.WhiskeyDetails last() {
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        currentIndex = snapshot.size() - 1;
+        return snapshot.get(currentIndex);
+    }
+
+    /**
+     * Moves to and returns the record at an index.
+     *
+     * @param index The zero-based index.
+     * @return The {@link WhiskeyData.WhiskeyDetails} at {@code index}, or
+     * {@code null} if the index is out of range, in which case the cursor does
+     * not move.
+     */
+    public WhiskeyData.WhiskeyDetails seek(int index) {
+        if (index < 0 || index >= snapshot.size()) {
+            return null;
+        }
+        currentIndex = index;
+        return snapshot.get(currentIndex);
+    }
+
+    /**
+     * Returns the current record without moving.
+     *
+     * @return The current {@link WhiskeyData.WhiskeyDetails}, or {@code null}
+     * if the snapshot is empty.
+     */
+    public WhiskeyData.WhiskeyDetails getCurrent() {
+        if (currentIndex < 0) {
+            return null;
+        }
+        return snapshot.get(currentIndex);
+    }
+}
@@ -0,0 +1,72 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.List;
+
+/**
+ * Immutable, shareable set of whiskey records produced by a query.
+ *
+ * <p>
+ * A snapshot never changes after it is created, so any number of sessions or
+ * windows may browse it concurrently through their own {@link ResultCursor}
+ * without copying the records or taking locks.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public interface ResultSnapshot {
+
+    /**
+     * Returns the number of records in the snapshot.
+     *
+     * @return the record count.
+     */
+    int size();
+
+    /**
+     * Returns the record at the given position.
+     *
+     * @param index The position, from 0 to {@code size() - 1}.
+     * @return The record at {@code index}.
+     * @throws IndexOutOfBoundsException If {@code index} is out of range.
+     */
+    WhiskeyData.WhiskeyDetails get(int index);
+
+    /**
+     * Returns whether the snapshot holds no records.
+     *
+     * @return {@code true} if {@link #size()} is 0.
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Opens a new cursor positioned on the first record of this snapshot.
+     *
+     * @return a new {@link ResultCursor}.
+     */
+    default ResultCursor openCursor() {
+        return new ResultCursor(this);
+    }
+
+    /**
+     * Creates a snapshot of the given records. The list is copied unless it is
+     * already unmodifiable.
+     *
+     * @param records The records to hold. Must not be {@code null} or contain
+     * {@code null}.
+     * @return a snapshot of {@code records}.
+     */
+    static ResultSnapshot of(List<WhiskeyData.WhiskeyDetails> records) {
+        return new ListSnapshot(List.copyOf(records));
+    }
+
+    /**
+     * Returns the empty snapshot.
+     *
+     * @return a snapshot with no records.
+     */
+    static ResultSnapshot empty() {
+        return ListSnapshot.EMPTY;
+    }
+}
@@ -0,0 +1,63 @@
+package cqu.wis.roles;
+
+/**
+ * Portable {@link ColumnScan} using one comparison per row.
+ *
+ * <p>
+ * Each range test is a single unsigned comparison, and every position is
+ * written unconditionally while the output index only advances on a match, so
+ * the loop has no data-dependent branches to mispredict.</p>
+ *
+ * @author Prajita Bhandari
+ */
+final class ScalarColumnScan implements ColumnScan {
+
+    /**
+     * Shared instance; the scan holds no state.
+     */
+    static final ScalarColumnScan INSTANCE = new ScalarColumnScan();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int between(int[] column, int size, int min, int max, int[] out) {
+        if (min > max) {
+            return 0;
+        }
+        int width = max - min;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            out[n] = i;
+            n += Integer.compareUnsigned(column[i] - min, width) <= 0 ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int between(int[] a, int aMin, int aMax, int[] b, int bMin, int bMax, int size, int[] out) {
+        if (aMin > aMax || bMin > bMax) {
+            return 0;
+        }
+        int aWidth = aMax - aMin;
+        int bWidth = bMax - bMin;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            out[n] = i;
+            n += (Integer.compareUnsigned(a[i] - aMin, aWidth) <= 0
+                    & Integer.compareUnsigned(b[i] - bMin, bWidth) <= 0) ? 1 : 0;
+        }
+        return n;
+    }
+}
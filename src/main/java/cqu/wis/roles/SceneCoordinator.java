@@ -4,6 +4,7 @@
  */
 package cqu.wis.roles;
 
+import cqu.wis.log.Log;
 import java.util.HashMap;
 import java.util.Map;
 import javafx.scene.Scene;
@@ -27,6 +28,11 @@ import javafx.stage.Stage;
  */
 public class SceneCoordinator {
 
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(SceneCoordinator.class);
+
     /**
      * Enumeration defining the available scenes in the application.
      *
@@ -52,6 +58,11 @@ public class SceneCoordinator {
      */
     private final Map<SceneKey, Scene> scenes = new HashMap<>();
 
+    /**
+     * Actions run each time the scene with the corresponding key is shown.
+     */
+    private final Map<SceneKey, Runnable> onShown = new HashMap<>();
+
     /**
      * Constructs a new SceneCoordinator with the provided JavaFX primary stage.
      *
@@ -86,6 +97,27 @@ public class SceneCoordinator {
         scenes.put(key, value);
     }
 
+    /**
+     * Registers an action to run each time a scene is shown, such as starting
+     * background work the next scene will need.
+     *
+     * <p>
+     * The action runs on the JavaFX application thread after the scene is
+     * displayed, so it should return quickly. Registering an action for a key
+     * replaces any previous action for it.</p>
+     *
+     * @param key The scene whose display triggers the action.
+     * @param action The action to run.
+     * @throws NullPointerException If either {@code key} or {@code action} is
+     * {@code null}.
+     */
+    public void setOnShown(SceneKey key, Runnable action) {
+        if (key == null || action == null) {
+            throw new NullPointerException("SceneKey and action must not be null");
+        }
+        onShown.put(key, action);
+    }
+
     /**
      * Starts the application by setting the initial scene to
      * {@link SceneKey#LOGIN}.
@@ -104,7 +136,12 @@ public class SceneCoordinator {
      * This method sets the new scene on the JavaFX stage and brings it to the
      * foreground. If the specified scene was not registered using
      * {@link #addScene(SceneKey, Scene)}, a message will be printed to the
-     * error output.</p>
+     * error output. Once the scene is shown, the action registered for it
+     * with {@link #setOnShown(SceneKey, Runnable)}, if any, is run.</p>
+     *
+     * <p>
+     * Each switch is recorded as a {@link SceneSwitchEvent} whose duration
+     * includes showing the stage.</p>
      *
      * @param key The {@link SceneKey} that corresponds to the scene to display.
      * @throws NullPointerException If {@code key} is {@code null}.
@@ -113,13 +150,25 @@ public class SceneCoordinator {
         if (key == null) {
             throw new NullPointerException("SceneKey must not be null");
         }
+        SceneSwitchEvent event = new SceneSwitchEvent();
+        event.begin();
         Scene scene = scenes.get(key);
         if (scene != null) {
             stage.setScene(scene);
             stage.setTitle("Whiskey Information System");
             stage.show();
         } else {
-            System.err.println("Scene not found for key: " + key);
+            LOG.error("Scene not found for key: {}", key);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.scene = key.name();
+            event.found = scene != null;
+            event.commit();
+        }
+        Runnable action = onShown.get(key);
+        if (scene != null && action != null) {
+            action.run();
         }
     }
 }
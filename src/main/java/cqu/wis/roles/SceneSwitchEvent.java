@@ -0,0 +1,33 @@
+package cqu.wis.roles;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted whenever {@link SceneCoordinator} switches
+ * the scene shown on the primary stage.
+ *
+ * @author Prajita Bhandari
+ */
+@Name("cqu.wis.SceneSwitch")
+@Label("Scene Switch")
+@Category({"WIS", "User Interface"})
+@Description("Switch of the scene displayed on the primary stage")
+@StackTrace(false)
+public class SceneSwitchEvent extends jdk.jfr.Event {
+
+    /**
+     * Name of the requested {@link SceneCoordinator.SceneKey}.
+     */
+    @Label("Scene")
+    public String scene;
+
+    /**
+     * Whether a scene was registered for the requested key.
+     */
+    @Label("Found")
+    public boolean found;
+}
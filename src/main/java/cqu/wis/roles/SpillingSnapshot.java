@@ -0,0 +1,371 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeyDetailsCodec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link ResultSnapshot} that keeps records in memory up to a byte budget and
+ * spills the rest to a temporary memory-mapped file.
+ *
+ * <p>
+ * Records are appended through a {@link Builder}. While the estimated heap
+ * size of the records held stays within the budget they are kept as objects;
+ * every later record is encoded with {@link WhiskeyDetailsCodec} into a
+ * temporary file, and only its offset (four bytes) stays on the heap. When the
+ * snapshot is built the file is mapped read-only and deleted, so the mapping
+ * is its only reference; the operating system pages it in and out as records
+ * are browsed and releases it when the snapshot is garbage collected. Spilled
+ * records are decoded on each {@link #get(int)}, so navigation is transparent
+ * to callers.</p>
+ *
+ * <p>
+ * The budget defaults to the {@code wis.result.memoryBytes} system property
+ * (32 MB if unset), and spill files are created in {@code wis.result.spillDir}
+ * (the system temporary directory if unset). A single spill file is limited to
+ * 2 GB of encoded records.</p>
+ *
+ * @author Prajita Bhandari
+ */
+final class SpillingSnapshot implements ResultSnapshot {
+
+    /**
+     * Default number of bytes of records held on the heap per result.
+     */
+    static final long DEFAULT_BUDGET_BYTES = Long.getLong("wis.result.memoryBytes", 32L * 1024 * 1024);
+
+    /**
+     * Directory in which spill files are created.
+     */
+    private static final Path SPILL_DIR = Paths.get(System.getProperty("wis.result.spillDir",
+            System.getProperty("java.io.tmpdir")));
+
+    /**
+     * Estimated heap size of a record object excluding its strings.
+     */
+    private static final int RECORD_OVERHEAD = 32;
+
+    /**
+     * Estimated heap size of a string object excluding its characters.
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * Size of the buffer through which records are written to the spill file.
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The records held in memory, positions 0 to {@code head.size() - 1}.
+     */
+    private final List<WhiskeyData.WhiskeyDetails> head;
+
+    /**
+     * The mapped spill file.
+     */
+    private final ByteBuffer spill;
+
+    /**
+     * Offset in {@link #spill} of each spilled record.
+     */
+    private final int[] offsets;
+
+    /**
+     * Creates a snapshot from its in-memory and spilled parts.
+     *
+     * @param head The records held in memory.
+     * @param spill The mapped spill file.
+     * @param offsets The offset of each spilled record.
+     */
+    private SpillingSnapshot(List<WhiskeyData.WhiskeyDetails> head, ByteBuffer spill, int[] offsets) {
+        this.head = head;
+        this.spill = spill;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Creates a snapshot of the given records within a memory budget.
+     *
+     * @param records The records to hold. Must not be {@code null} or contain
+     * {@code null}.
+     * @param budgetBytes The estimated number of bytes of records to keep on
+     * the heap.
+     * @return A snapshot of {@code records}; an in-memory snapshot if they fit
+     * within the budget.
+     * @throws UncheckedIOException If the spill file cannot be written.
+     */
+    static ResultSnapshot copyOf(List<WhiskeyData.WhiskeyDetails> records, long budgetBytes) {
+        if (estimateBytes(records) <= budgetBytes) {
+            return ResultSnapshot.of(records);
+        }
+        try (Builder builder = new Builder(budgetBytes)) {
+            records.forEach(builder::add);
+            return builder.build();
+        }
+    }
+
+    /**
+     * Estimates the heap size of a list of records.
+     *
+     * @param records The records.
+     * @return The estimated size in bytes.
+     */
+    static long estimateBytes(List<WhiskeyData.WhiskeyDetails> records) {
+        long total = 0;
+        for (WhiskeyData.WhiskeyDetails d : records) {
+            total += estimateBytes(d);
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the heap size of a record, assuming compact (Latin-1) strings
+     * that are not shared with other records.
+     *
+     * @param d The record.
+     * @return The estimated size in bytes.
+     */
+    static int estimateBytes(WhiskeyData.WhiskeyDetails d) {
+        return RECORD_OVERHEAD + estimateBytes(d.distillery()) + estimateBytes(d.region());
+    }
+
+    /**
+     * Estimates the heap size of a string.
+     *
+     * @param s The string, or {@code null}.
+     * @return The estimated size in bytes; 0 for {@code null}.
+     */
+    private static int estimateBytes(String s) {
+        return s == null ? 0 : STRING_OVERHEAD + s.length();
+    }
+
+    /**
+     * Returns the number of records held in memory.
+     *
+     * @return The in-memory record count.
+     */
+    int getHeldCount() {
+        return head.size();
+    }
+
+    /**
+     * Returns the number of records read from the spill file.
+     *
+     * @return The spilled record count.
+     */
+    int getSpilledCount() {
+        return offsets.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return head.size() + offsets.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WhiskeyData.WhiskeyDetails get(int index) {
+        if (index < head.size()) {
+            return head.get(index);
+        }
+        int spilled = index - head.size();
+        if (spilled >= offsets.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        ByteBuffer buf = spill.duplicate();
+        buf.position(offsets[spilled]);
+        return WhiskeyDetailsCodec.get(buf);
+    }
+
+    /**
+     * Appends records to a new snapshot, spilling those beyond the memory
+     * budget to a temporary file.
+     *
+     * <p>
+     * A builder is used by one thread. Close it when done; closing a builder
+     * that was not built deletes its spill file.</p>
+     */
+    static final class Builder implements AutoCloseable {
+
+        /**
+         * The estimated number of bytes of records to keep on the heap.
+         */
+        private final long budgetBytes;
+
+        /**
+         * Estimated heap size of the records held so far.
+         */
+        private long heldBytes;
+
+        /**
+         * The records held in memory.
+         */
+        private final List<WhiskeyData.WhiskeyDetails> head = new ArrayList<>();
+
+        /**
+         * The spill file, or {@code null} until the budget is exceeded.
+         */
+        private FileChannel channel;
+
+        /**
+         * Buffers encoded records before they are written to
+         * {@link #channel}.
+         */
+        private ByteBuffer pending;
+
+        /**
+         * Bytes written to {@link #channel} so far.
+         */
+        private long written;
+
+        /**
+         * Offset of each spilled record.
+         */
+        private int[] offsets = new int[0];
+
+        /**
+         * Number of entries used in {@link #offsets}.
+         */
+        private int spilledCount;
+
+        /**
+         * Creates a builder.
+         *
+         * @param budgetBytes The estimated number of bytes of records to keep
+         * on the heap. Must not be negative.
+         * @throws IllegalArgumentException If {@code budgetBytes} is negative.
+         */
+        Builder(long budgetBytes) {
+            if (budgetBytes < 0) {
+                throw new IllegalArgumentException("Budget cannot be negative");
+            }
+            this.budgetBytes = budgetBytes;
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @param d The record. Must not be {@code null}.
+         * @throws NullPointerException If {@code d} is {@code null}.
+         * @throws IllegalStateException If the spill file would exceed 2 GB.
+         * @throws UncheckedIOException If the spill file cannot be written.
+         */
+        void add(WhiskeyData.WhiskeyDetails d) {
+            if (d == null) {
+                throw new NullPointerException("Record cannot be null");
+            }
+            if (channel == null) {
+                int size = estimateBytes(d);
+                if (heldBytes + size <= budgetBytes) {
+                    heldBytes += size;
+                    head.add(d);
+                    return;
+                }
+                openSpill();
+            }
+            int max = WhiskeyDetailsCodec.maxEncodedSize(d);
+            if (pending.remaining() < max) {
+                flush();
+                if (pending.capacity() < max) {
+                    pending = ByteBuffer.allocate(max);
+                }
+            }
+            long offset = written + pending.position();
+            if (offset > Integer.MAX_VALUE - max) {
+                throw new IllegalStateException("Spilled result exceeds 2 GB");
+            }
+            if (spilledCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(1024, spilledCount * 2));
+            }
+            offsets[spilledCount++] = (int) offset;
+            WhiskeyDetailsCodec.put(pending, d);
+        }
+
+        /**
+         * Builds the snapshot of the records added, mapping and deleting the
+         * spill file if one was written.
+         *
+         * @return The snapshot; an in-memory snapshot if nothing was spilled.
+         * @throws UncheckedIOException If the spill file cannot be mapped.
+         */
+        ResultSnapshot build() {
+            if (channel == null) {
+                return ResultSnapshot.of(head);
+            }
+            flush();
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, written);
+                return new SpillingSnapshot(List.copyOf(head), mapped, Arrays.copyOf(offsets, spilledCount));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Closes and deletes the spill file, if any. A snapshot already built
+         * keeps reading its mapping.
+         */
+        @Override
+        public void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Deleted on close; nothing else to release
+            }
+        }
+
+        /**
+         * Creates the spill file, deleted when its channel is closed.
+         *
+         * @throws UncheckedIOException If the file cannot be created.
+         */
+        private void openSpill() {
+            try {
+                Path file = Files.createTempFile(SPILL_DIR, "wis-result", ".spill");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pending = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        }
+
+        /**
+         * Writes the buffered records to the spill file.
+         *
+         * @throws UncheckedIOException If the write fails.
+         */
+        private void flush() {
+            pending.flip();
+            try {
+                while (pending.hasRemaining()) {
+                    written += channel.write(pending, written);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pending.clear();
+        }
+    }
+}
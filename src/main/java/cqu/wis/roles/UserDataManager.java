@@ -5,13 +5,18 @@
 package cqu.wis.roles;
 
 import cqu.wis.data.UserData;
+import cqu.wis.data.UserSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  * Manager class that provides a business logic layer for user data operations.
  *
  * <p>
  * This class acts as an intermediary between controllers and the
- * {@link UserData} data access object (DAO). It handles validation and invokes
+ * {@link UserSource} data access object (DAO). It handles validation and invokes
  * lower-level database operations such as retrieving user records and updating
  * passwords.</p>
  *
@@ -19,57 +24,190 @@ import cqu.wis.data.UserData;
  * Used by controller classes to abstract away direct interaction with database
  * APIs.</p>
  *
+ * <p>
+ * User lookups are served from a bounded, least-recently-used cache with a
+ * short time-to-live. Unknown usernames are cached as well (negative caching),
+ * but a lookup that failed is never cached, so a brief database outage is not
+ * remembered as "not found". {@link #updatePassword(String, String)}
+ * invalidates the cached entry for the user after writing through to the
+ * database, so bursts of logins mostly stop reaching the USERS database.</p>
+ *
  * @author Prajita Bhandari
  *
  */
 public class UserDataManager {
 
     /**
-     * Reference to the UserData object for performing database operations.
+     * Reference to the UserSource for performing database operations.
      */
-    private final UserData ud;
+    private final UserSource ud;
 
     /**
-     * Constructs a new UserDataManager with the specified UserData instance.
+     * Default maximum number of usernames held in the lookup cache.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 256;
+
+    /**
+     * Default time-to-live of a cached lookup, in milliseconds.
+     */
+    public static final long DEFAULT_CACHE_TTL_MILLIS = 10_000;
+
+    /**
+     * A cached lookup result.
      *
-     * @param ud The {@link UserData} instance to use for database operations.
+     * @param details The user record, or {@code null} if the username was not
+     * found.
+     * @param expiresAt Clock reading in nanoseconds after which the entry is
+     * stale.
+     */
+    private record CacheEntry(UserData.UserDetails details, long expiresAt) {
+
+    }
+
+    /**
+     * Lookup cache in access order, so the eldest entry is the least recently
+     * used. Guarded by its own monitor.
+     */
+    private final LinkedHashMap<String, CacheEntry> cache;
+
+    /**
+     * Number of invalidations so far, used to avoid caching a lookup that raced
+     * with a password update. Guarded by the monitor of {@link #cache}.
+     */
+    private long invalidations;
+
+    /**
+     * Time-to-live of a cached lookup, in nanoseconds.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Source of the current time in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Constructs a new UserDataManager with the specified UserSource and
+     * the default cache capacity and time-to-live.
+     *
+     * @param ud The {@link UserSource} to use for database operations.
+     * Must not be {@code null}.
+     * @throws NullPointerException If {@code ud} is {@code null}.
+     */
+    public UserDataManager(UserSource ud) {
+        this(ud, DEFAULT_CACHE_CAPACITY, DEFAULT_CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * Constructs a new UserDataManager with the specified UserSource and
+     * lookup cache settings.
+     *
+     * @param ud The {@link UserSource} to use for database operations.
      * Must not be {@code null}.
+     * @param cacheCapacity The maximum number of usernames to cache. Zero
+     * disables caching.
+     * @param ttlMillis The time-to-live of a cached lookup in milliseconds.
      * @throws NullPointerException If {@code ud} is {@code null}.
+     * @throws IllegalArgumentException If {@code cacheCapacity} or
+     * {@code ttlMillis} is negative.
+     */
+    public UserDataManager(UserSource ud, int cacheCapacity, long ttlMillis) {
+        this(ud, cacheCapacity, ttlMillis, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new UserDataManager with an explicit clock, allowing cache
+     * expiry to be tested without waiting.
+     *
+     * @param ud The {@link UserSource} to use for database operations.
+     * @param cacheCapacity The maximum number of usernames to cache.
+     * @param ttlMillis The time-to-live of a cached lookup in milliseconds.
+     * @param clock Source of the current time in nanoseconds.
      */
-    public UserDataManager(UserData ud) {
+    UserDataManager(UserSource ud, int cacheCapacity, long ttlMillis, LongSupplier clock) {
         if (ud == null) {
-            throw new NullPointerException("UserData cannot be null");
+            throw new NullPointerException("UserSource cannot be null");
+        }
+        if (cacheCapacity < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Cache capacity and TTL must not be negative");
         }
         this.ud = ud;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
     }
 
     /**
      * Finds and retrieves user details by username.
      *
+     * <p>
+     * A fresh cached result (including a cached "not found") is returned
+     * without querying the database.</p>
+     *
      * @param name The username to search for. Must not be {@code null} or
      * empty.
      * @return A {@link cqu.wis.data.UserData.UserDetails} record containing
      * user information if found, or {@code null} if no user exists with the
-     * specified username or if a database error occurs.
+     * specified username.
      * @throws IllegalArgumentException If {@code name} is {@code null} or
      * empty.
+     * @throws cqu.wis.data.DataAccessException If the lookup fails or exceeds
+     * its latency budget; failures are not cached.
      */
     public cqu.wis.data.UserData.UserDetails findUser(String name) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
-        return ud.findUser(name);
+        long now = clock.getAsLong();
+        long seen;
+        synchronized (cache) {
+            CacheEntry entry = cache.get(name);
+            if (entry != null && now - entry.expiresAt() < 0) {
+                return entry.details();
+            }
+            seen = invalidations;
+        }
+        UserData.UserDetails details = ud.findUser(name);
+        synchronized (cache) {
+            if (seen == invalidations) {
+                cache.put(name, new CacheEntry(details, now + ttlNanos));
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Removes all cached lookups, forcing the next lookup of every user to
+     * reach the database.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            invalidations++;
+            cache.clear();
+        }
     }
 
     /**
      * Updates the password for an existing user.
      *
+     * <p>
+     * The update is written through to the database and the cached lookup for
+     * the user is invalidated, even if the update fails, since the database
+     * may have committed it before the failure was reported.</p>
+     *
      * @param name The username of the user whose password should be updated.
      * Must not be {@code null} or empty.
      * @param newPassword The new password to set for the user (hashed). Must
      * not be {@code null}.
      * @throws IllegalArgumentException If {@code name} is {@code null} or
      * empty, or if {@code newPassword} is {@code null}.
+     * @throws cqu.wis.data.DataAccessException If the update fails or exceeds
+     * its latency budget.
      */
     public void updatePassword(String name, String newPassword) {
         if (name == null || name.isEmpty()) {
@@ -78,6 +216,13 @@ public class UserDataManager {
         if (newPassword == null) {
             throw new IllegalArgumentException("New password cannot be null");
         }
-        ud.updatePassword(name, newPassword);
+        try {
+            ud.updatePassword(name, newPassword);
+        } finally {
+            synchronized (cache) {
+                invalidations++;
+                cache.remove(name);
+            }
+        }
     }
 }
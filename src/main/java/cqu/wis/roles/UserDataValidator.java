@@ -5,8 +5,6 @@
 package cqu.wis.roles;
 
 import cqu.wis.data.UserData;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * Validator class for user data operations including authentication, password
@@ -42,27 +40,22 @@ public class UserDataValidator {
     }
 
     /**
-     * Generates a SHA‐1 hash of the provided input string.
+     * Generates a SHA‐1 hash of the UTF‐8 encoding of the provided input
+     * string.
+     *
+     * <p>
+     * Delegates to {@link PasswordHasher}, which reuses pooled digest
+     * instances and buffers.</p>
      *
      * @param s The string to hash (e.g., a password); must not be {@code null}.
      * @return Lowercase hexadecimal string of the SHA‐1 hash, or {@code null}
-     * if hashing fails.
+     * if {@code s} is {@code null}.
      */
     public static String generateSHA1(String s) {
         if (s == null) {
             return null;
         }
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            byte[] bytes = md.digest(s.getBytes());
-            StringBuilder sb = new StringBuilder(bytes.length * 2);
-            for (byte b : bytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            return null;
-        }
+        return PasswordHasher.sha1Hex(s);
     }
 
     /**
@@ -128,9 +121,8 @@ public class UserDataValidator {
             return new ValidationResponse(true, "Default password, please change.");
         }
 
-        // 3) Compare SHA-1 hashes
-        String hashedInput = generateSHA1(enteredPass);
-        if (hashedInput == null || !hashedInput.equals(ud.password())) {
+        // 3) Compare SHA-1 hashes in constant time
+        if (!PasswordHasher.matches(enteredPass, ud.password())) {
             return new ValidationResponse(false, "Incorrect password.");
         }
 
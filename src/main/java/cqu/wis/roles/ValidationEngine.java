@@ -0,0 +1,179 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk validator for whiskey records, for example before an import.
+ *
+ * <p>
+ * Every {@link Rule} is a fixed check compiled into this class; checking a
+ * record allocates nothing and yields a bit mask of the rules it breaks, so a
+ * valid record costs a few comparisons and no objects. Batches at or above
+ * {@value #PARALLEL_THRESHOLD} records are checked in parallel. Only the
+ * invalid rows are kept in the resulting {@link ValidationReport}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class ValidationEngine {
+
+    /**
+     * Number of records at and above which a batch is checked in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 20_000;
+
+    /**
+     * Oldest accepted age, matching the default upper bound of
+     * {@link WhiskeyDataValidator#checkAgeRange(String, String)}.
+     */
+    static final int MAX_AGE = 100;
+
+    /**
+     * The checks applied to each record.
+     */
+    public enum Rule {
+        /**
+         * The distillery name must not be {@code null} or blank.
+         */
+        DISTILLERY_REQUIRED("Distillery is required."),
+        /**
+         * The region must consist of letters only, as for region searches.
+         */
+        REGION_ALPHABETIC("Region must be alphabetic."),
+        /**
+         * The age must lie between 0 and {@value ValidationEngine#MAX_AGE}.
+         */
+        AGE_IN_RANGE("Age must be between 0 and " + MAX_AGE + "."),
+        /**
+         * The price must not be negative.
+         */
+        PRICE_NON_NEGATIVE("Price must not be negative.");
+
+        /**
+         * Message shown for a record breaking the rule.
+         */
+        private final String message;
+
+        /**
+         * Creates a rule with its message.
+         *
+         * @param message The message.
+         */
+        Rule(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Returns the message shown for a record breaking the rule.
+         *
+         * @return The message.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the bit of this rule in a failure mask.
+         *
+         * @return The bit.
+         */
+        int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ValidationEngine() {
+    }
+
+    /**
+     * Returns whether a string is non-empty and consists of the letters
+     * {@code a-z} and {@code A-Z} only; the same test as the pattern
+     * {@code [a-zA-Z]+}, without a regex engine.
+     *
+     * @param s The string, may be {@code null}.
+     * @return {@code true} if the string is alphabetic.
+     */
+    public static boolean isAlphabetic(String s) {
+        if (s == null || s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks one record against all rules.
+     *
+     * @param d The record. Must not be {@code null}.
+     * @return A mask with the {@link Rule#bit()} of each broken rule set; 0 if
+     * the record is valid.
+     */
+    public static int check(WhiskeyData.WhiskeyDetails d) {
+        int mask = 0;
+        if (d.distillery() == null || d.distillery().isBlank()) {
+            mask |= Rule.DISTILLERY_REQUIRED.bit();
+        }
+        if (!isAlphabetic(d.region())) {
+            mask |= Rule.REGION_ALPHABETIC.bit();
+        }
+        if (d.age() < 0 || d.age() > MAX_AGE) {
+            mask |= Rule.AGE_IN_RANGE.bit();
+        }
+        if (d.price() < 0) {
+            mask |= Rule.PRICE_NON_NEGATIVE.bit();
+        }
+        return mask;
+    }
+
+    /**
+     * Validates a batch of records.
+     *
+     * @param rows The records. Must not be {@code null}; a {@code null}
+     * element is reported as breaking every rule.
+     * @return The report of the invalid rows.
+     */
+    public static ValidationReport validate(List<WhiskeyData.WhiskeyDetails> rows) {
+        int n = rows.size();
+        int[] masks = new int[n];
+        IntStream range = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(i -> {
+            WhiskeyData.WhiskeyDetails d = rows.get(i);
+            masks[i] = d == null ? (1 << Rule.values().length) - 1 : check(d);
+        });
+        return ValidationReport.of(masks);
+    }
+
+    /**
+     * Validates a batch of records.
+     *
+     * @param rows The records. Must not be {@code null}.
+     * @return The report of the invalid rows.
+     */
+    public static ValidationReport validate(WhiskeyData.WhiskeyDetails[] rows) {
+        return validate(Arrays.asList(rows));
+    }
+
+    /**
+     * Validates a stream of records; rows are numbered in encounter order.
+     *
+     * @param rows The records. Must not be {@code null}.
+     * @return The report of the invalid rows.
+     */
+    public static ValidationReport validate(Stream<WhiskeyData.WhiskeyDetails> rows) {
+        return validate(rows.toList());
+    }
+}
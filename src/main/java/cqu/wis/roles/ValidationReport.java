@@ -0,0 +1,168 @@
+package cqu.wis.roles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact result of validating a batch with {@link ValidationEngine}.
+ *
+ * <p>
+ * Only invalid rows are stored: their row numbers and a bit mask of the
+ * broken {@link ValidationEngine.Rule}s, plus a count per rule. Messages are
+ * produced on request.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class ValidationReport {
+
+    /**
+     * Number of rows checked.
+     */
+    private final int rowCount;
+
+    /**
+     * Row numbers of the invalid rows, in increasing order.
+     */
+    private final int[] invalidRows;
+
+    /**
+     * Broken-rule mask of each invalid row, parallel to {@link #invalidRows}.
+     */
+    private final int[] masks;
+
+    /**
+     * Number of rows breaking each rule, indexed by rule ordinal.
+     */
+    private final int[] ruleCounts;
+
+    /**
+     * Creates a report.
+     *
+     * @param rowCount The number of rows checked.
+     * @param invalidRows The invalid row numbers.
+     * @param masks Their masks.
+     * @param ruleCounts The per-rule counts.
+     */
+    private ValidationReport(int rowCount, int[] invalidRows, int[] masks, int[] ruleCounts) {
+        this.rowCount = rowCount;
+        this.invalidRows = invalidRows;
+        this.masks = masks;
+        this.ruleCounts = ruleCounts;
+    }
+
+    /**
+     * Builds a report from the mask of every row.
+     *
+     * @param allMasks The mask of each row; 0 for valid rows.
+     * @return The report.
+     */
+    static ValidationReport of(int[] allMasks) {
+        int invalid = 0;
+        for (int m : allMasks) {
+            if (m != 0) {
+                invalid++;
+            }
+        }
+        int[] rows = new int[invalid];
+        int[] masks = new int[invalid];
+        int[] counts = new int[ValidationEngine.Rule.values().length];
+        int n = 0;
+        for (int i = 0; i < allMasks.length; i++) {
+            int m = allMasks[i];
+            if (m != 0) {
+                rows[n] = i;
+                masks[n++] = m;
+                for (int bits = m; bits != 0; bits &= bits - 1) {
+                    counts[Integer.numberOfTrailingZeros(bits)]++;
+                }
+            }
+        }
+        return new ValidationReport(allMasks.length, rows, masks, counts);
+    }
+
+    /**
+     * Returns the number of rows checked.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of rows breaking at least one rule.
+     *
+     * @return The invalid row count.
+     */
+    public int getInvalidCount() {
+        return invalidRows.length;
+    }
+
+    /**
+     * Returns whether every row is valid.
+     *
+     * @return {@code true} if no rule was broken.
+     */
+    public boolean isValid() {
+        return invalidRows.length == 0;
+    }
+
+    /**
+     * Returns the row numbers of the invalid rows.
+     *
+     * @return A new array of row numbers in increasing order.
+     */
+    public int[] getInvalidRows() {
+        return invalidRows.clone();
+    }
+
+    /**
+     * Returns the number of rows breaking a rule.
+     *
+     * @param rule The rule.
+     * @return The count.
+     */
+    public int getCount(ValidationEngine.Rule rule) {
+        return ruleCounts[rule.ordinal()];
+    }
+
+    /**
+     * Returns the messages for a row.
+     *
+     * @param row The row number.
+     * @return The messages of the rules the row breaks; empty if it is valid.
+     */
+    public List<String> getMessages(int row) {
+        int i = Arrays.binarySearch(invalidRows, row);
+        List<String> out = new ArrayList<>();
+        if (i >= 0) {
+            for (ValidationEngine.Rule rule : ValidationEngine.Rule.values()) {
+                if ((masks[i] & rule.bit()) != 0) {
+                    out.add(rule.getMessage());
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns a one-line summary, e.g.
+     * {@code "1000 rows, 2 invalid (Region must be alphabetic. x2)"}.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rowCount).append(" rows, ").append(invalidRows.length).append(" invalid");
+        String sep = " (";
+        for (ValidationEngine.Rule rule : ValidationEngine.Rule.values()) {
+            if (ruleCounts[rule.ordinal()] > 0) {
+                sb.append(sep).append(rule.getMessage()).append(" x").append(ruleCounts[rule.ordinal()]);
+                sep = ", ";
+            }
+        }
+        return invalidRows.length == 0 ? sb.toString() : sb.append(')').toString();
+    }
+}
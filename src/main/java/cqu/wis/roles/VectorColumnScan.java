@@ -0,0 +1,117 @@
+package cqu.wis.roles;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnScan} comparing a full machine vector of rows per instruction
+ * (8 rows with AVX2, 16 with AVX-512).
+ *
+ * <p>
+ * Only instantiated through {@link ColumnScan#vector()} when the
+ * {@code jdk.incubator.vector} module is present. Each vector's match mask is
+ * turned into positions by walking its set bits, and the rows left over after
+ * the last full vector are handled by the scalar loop.</p>
+ *
+ * @author Prajita Bhandari
+ */
+final class VectorColumnScan implements ColumnScan {
+
+    /**
+     * The widest vector shape the hardware supports.
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.length() + " lanes)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int between(int[] column, int size, int min, int max, int[] out) {
+        if (min > max) {
+            return 0;
+        }
+        int bound = SPECIES.loopBound(size);
+        int n = 0;
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            IntVector v = IntVector.fromArray(SPECIES, column, i);
+            VectorMask<Integer> m = v.compare(VectorOperators.GE, min).and(v.compare(VectorOperators.LE, max));
+            n = positions(m.toLong(), i, out, n);
+        }
+        return tail(column, bound, size, min, max, out, n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int between(int[] a, int aMin, int aMax, int[] b, int bMin, int bMax, int size, int[] out) {
+        if (aMin > aMax || bMin > bMax) {
+            return 0;
+        }
+        int bound = SPECIES.loopBound(size);
+        int n = 0;
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            IntVector va = IntVector.fromArray(SPECIES, a, i);
+            IntVector vb = IntVector.fromArray(SPECIES, b, i);
+            VectorMask<Integer> m = va.compare(VectorOperators.GE, aMin)
+                    .and(va.compare(VectorOperators.LE, aMax))
+                    .and(vb.compare(VectorOperators.GE, bMin))
+                    .and(vb.compare(VectorOperators.LE, bMax));
+            n = positions(m.toLong(), i, out, n);
+        }
+        for (int i = bound; i < size; i++) {
+            if (a[i] >= aMin && a[i] <= aMax && b[i] >= bMin && b[i] <= bMax) {
+                out[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Appends the positions of the set bits of a lane mask.
+     *
+     * @param bits The mask, bit {@code k} set if lane {@code k} matched.
+     * @param base Position of lane 0.
+     * @param out Receives the positions.
+     * @param n Number of positions already written.
+     * @return The new number of positions written.
+     */
+    private static int positions(long bits, int base, int[] out, int n) {
+        while (bits != 0) {
+            out[n++] = base + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        return n;
+    }
+
+    /**
+     * Scans the rows after the last full vector.
+     *
+     * @param column The column values.
+     * @param from First row to scan.
+     * @param size Number of rows.
+     * @param min The lower bound (inclusive).
+     * @param max The upper bound (inclusive).
+     * @param out Receives the positions.
+     * @param n Number of positions already written.
+     * @return The new number of positions written.
+     */
+    private static int tail(int[] column, int from, int size, int min, int max, int[] out, int n) {
+        for (int i = from; i < size; i++) {
+            if (column[i] >= min && column[i] <= max) {
+                out[n++] = i;
+            }
+        }
+        return n;
+    }
+}
@@ -4,64 +4,271 @@
  */
 package cqu.wis.roles;
 
+import cqu.wis.data.DiskResultCache;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeySource;
+import cqu.wis.log.Log;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Manager class that provides a high-level interface for whiskey data
  * operations and navigation functionality. Acts as a facade over the
- * {@link WhiskeyData} class, providing methods for data retrieval, connection
+ * {@link WhiskeySource}, providing methods for data retrieval, connection
  * management, and record navigation. Maintains an in-memory cache of whiskey
  * records for efficient navigation and provides search capabilities by region
  * and age range.
  *
+ * <p>
+ * Loaded records are held as an immutable {@link ResultSnapshot}; the
+ * manager's own navigation methods use a default {@link ResultCursor}, and
+ * further sessions or windows can browse the same snapshot concurrently through
+ * cursors obtained from {@link #openCursor()}.</p>
+ *
+ * <p>
+ * When constructed with a {@link DiskResultCache}, searches are answered from
+ * the cache when a result is on disk (also across restarts), and results
+ * older than {@code wis.cache.revalidateMs} milliseconds (default 30000) are
+ * refreshed from the database in the background; the whole catalog is
+ * refreshed by streaming it within the memory budget, as
+ * {@link #findAllMalts()} loads it. A failed query throws
+ * rather than returning a result, so an outage cannot overwrite good cached
+ * data; empty results are not cached either. Cached results are keyed by
+ * {@link WhiskeySource#getSource()} as well as the query, so databases sharing
+ * a cache directory never see each other's results. All database access is
+ * serialized on the {@link WhiskeySource}, which need not be
+ * thread-safe.</p>
+ *
+ * <p>
+ * Loaded records are held within a memory budget ({@code wis.result.memoryBytes},
+ * 32 MB by default): {@link #findAllMalts()} streams the catalog from the
+ * database, and records beyond the budget are spilled to a temporary
+ * memory-mapped file and read back on navigation (see
+ * {@link SpillingSnapshot}). Results that exceed the budget are not written to
+ * the persistent cache.</p>
+ *
+ * <p>
+ * Once the complete catalog has been loaded, it is held for
+ * {@code wis.warmup.maxAgeMs} milliseconds (default 300000) and
+ * {@link #getMaltsFromRegion(String)} and {@link #getMaltsInAgeRange(int, int)}
+ * are answered from it without the database: from its {@link CatalogIndex}
+ * if a warm-up built one, otherwise by filtering it, on all cores if it is
+ * large (see {@link ParallelFilter}). Regions are matched ignoring case, as
+ * the database compares them.</p>
+ *
+ * <p>
+ * {@link #startWarmUp()} loads the catalog in the background before it is
+ * needed (for example while the user logs in), builds its indexes, holds it
+ * for searches and runs the region and age searches against it so that they
+ * are compiled, making even the first search after login an in-memory one;
+ * this happens once per manager. The next
+ * {@link #findAllMalts()} then uses the warmed catalog instead of querying
+ * again, provided it is no older than {@code wis.warmup.maxAgeMs}
+ * milliseconds (default 300000).</p>
+ *
  * @author Prajita Bhandari
  *
  */
 public class WhiskeyDataManager {
 
     /**
-     * The underlying WhiskeyData object for database access.
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(WhiskeyDataManager.class);
+
+    /**
+     * Age in milliseconds after which a cached result is refreshed in the
+     * background.
+     */
+    private static final long REVALIDATE_AFTER_MILLIS = Long.getLong("wis.cache.revalidateMs", 30_000);
+
+    /**
+     * Runs background revalidations, one at a time, on a daemon thread.
+     */
+    private static final ExecutorService REVALIDATOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wis-cache-revalidate");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Age in milliseconds after which a warmed catalog is no longer used.
+     */
+    private static final long WARM_MAX_AGE_MILLIS = Long.getLong("wis.warmup.maxAgeMs", 300_000);
+
+    /**
+     * Number of times each in-memory query path is run during warm-up so that
+     * it is compiled before first use.
+     */
+    private static final int WARM_ITERATIONS = Integer.getInteger("wis.warmup.iterations", 200);
+
+    /**
+     * Runs catalog warm-ups on a daemon thread.
+     */
+    private static final ExecutorService WARMER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wis-warmup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The underlying data source for database access.
+     */
+    private final WhiskeySource wd;
+
+    /**
+     * Persistent result cache, or {@code null} if results are not cached.
+     */
+    private final DiskResultCache diskCache;
+
+    /**
+     * Estimated number of bytes of loaded records held on the heap; the rest
+     * are spilled to disk.
+     */
+    private final long memoryBudget;
+
+    /**
+     * Keys with a background revalidation queued or running.
+     */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Immutable snapshot of the whiskey records loaded in memory.
+     */
+    private volatile ResultSnapshot snapshot;
+
+    /**
+     * Bitmap index of {@link #snapshot}, or {@code null} until requested.
+     */
+    private volatile CatalogIndex index;
+
+    /**
+     * Columnar copy of {@link #snapshot}, or {@code null} until requested.
      */
-    private final WhiskeyData wd;
+    private volatile ColumnarCatalog columns;
 
     /**
-     * Cached list of whiskey records loaded in memory.
+     * Distillery name index of {@link #snapshot}, or {@code null} until
+     * requested.
      */
-    private List<WhiskeyData.WhiskeyDetails> records;
+    private volatile DistilleryIndex distilleryIndex;
 
     /**
-     * Index of the current record in the list.
+     * The complete catalog last loaded, for answering searches, or
+     * {@code null} if none has been loaded.
      */
-    private int currentIndex;
+    private volatile HeldCatalog catalog;
+
+    /**
+     * Catalog loaded by the last warm-up and not yet used, or {@code null}.
+     * Guarded by {@link #wd}.
+     */
+    private ResultSnapshot warmed;
+
+    /**
+     * When {@link #warmed} was loaded, in milliseconds since the epoch.
+     * Guarded by {@link #wd}.
+     */
+    private long warmedAt;
+
+    /**
+     * Whether a warm-up is queued or running.
+     */
+    private final AtomicBoolean warming = new AtomicBoolean();
+
+    /**
+     * Whether a warm-up has completed, after which none is started again.
+     */
+    private volatile boolean warmedUp;
+
+    /**
+     * Combined result of the searches run by the last warm-up, kept so that
+     * the work is not eliminated as unused.
+     */
+    private volatile long warmUpResult;
+
+    /**
+     * Cursor used by the manager's own navigation methods.
+     */
+    private ResultCursor cursor;
+
+    /**
+     * A complete catalog held for answering searches.
+     *
+     * @param records The catalog.
+     * @param loadedAt When it was loaded, in milliseconds since the epoch.
+     * @param index Its bitmap index, or {@code null} if none was built.
+     */
+    private record HeldCatalog(ResultSnapshot records, long loadedAt, CatalogIndex index) {
+
+    }
 
     /**
      * Constructs a new WhiskeyDataManager with the specified data source.
      *
-     * @param wd The {@link WhiskeyData} instance to use for data operations.
+     * @param wd The {@link WhiskeySource} to use for data operations.
      * Must not be {@code null}.
      * @throws NullPointerException If {@code wd} is {@code null}.
      */
-    public WhiskeyDataManager(WhiskeyData wd) {
+    public WhiskeyDataManager(WhiskeySource wd) {
+        this(wd, null);
+    }
+
+    /**
+     * Constructs a new WhiskeyDataManager that serves repeat searches from a
+     * persistent result cache.
+     *
+     * @param wd The {@link WhiskeySource} to use for data operations.
+     * Must not be {@code null}.
+     * @param diskCache The result cache, or {@code null} to always query the
+     * database.
+     * @throws NullPointerException If {@code wd} is {@code null}.
+     */
+    public WhiskeyDataManager(WhiskeySource wd, DiskResultCache diskCache) {
+        this(wd, diskCache, SpillingSnapshot.DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Constructs a new WhiskeyDataManager with an explicit memory budget for
+     * loaded records.
+     *
+     * @param wd The {@link WhiskeySource} to use for data operations.
+     * Must not be {@code null}.
+     * @param diskCache The result cache, or {@code null} to always query the
+     * database.
+     * @param memoryBudget The estimated number of bytes of loaded records to
+     * hold on the heap. Must not be negative.
+     * @throws NullPointerException If {@code wd} is {@code null}.
+     * @throws IllegalArgumentException If {@code memoryBudget} is negative.
+     */
+    WhiskeyDataManager(WhiskeySource wd, DiskResultCache diskCache, long memoryBudget) {
         if (wd == null) {
-            throw new NullPointerException("WhiskeyData cannot be null");
+            throw new NullPointerException("WhiskeySource cannot be null");
+        }
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative");
         }
         this.wd = wd;
-        this.records = new ArrayList<>();
-        this.currentIndex = -1;
+        this.diskCache = diskCache;
+        this.memoryBudget = memoryBudget;
+        setSnapshot(ResultSnapshot.empty());
     }
 
     /**
      * Establishes connection to the underlying whiskey data source.
      * <p>
-     * Delegates to {@link WhiskeyData#connect()}. Should be called before
+     * Delegates to {@link WhiskeySource#connect()}. Should be called before
      * performing any data operations.
      * </p>
      *
-     * @throws SQLException If the underlying {@link WhiskeyData} fails to
+     * @throws SQLException If the underlying {@link WhiskeySource} fails to
      * connect.
      */
     public void connect() throws SQLException {
@@ -71,7 +278,7 @@ public class WhiskeyDataManager {
     /**
      * Closes the connection to the underlying whiskey data source.
      * <p>
-     * Delegates to {@link WhiskeyData#disconnect()}. Should be called when data
+     * Delegates to {@link WhiskeySource#disconnect()}. Should be called when data
      * operations are complete.
      * </p>
      */
@@ -83,16 +290,139 @@ public class WhiskeyDataManager {
      * Retrieves all malt whiskey records and loads them into memory.
      * <p>
      * After loading, sets the internal cursor to the first record if any
-     * records exist.
+     * records exist. Records beyond the memory budget are spilled to disk as
+     * they are read.
      * </p>
      *
      * @return The total number of malt whiskey records found and loaded, or 0
      * if none.
+     * @throws cqu.wis.data.QueryTimeoutException If the query exceeds its
+     * latency budget; the previously loaded records are kept.
+     * @throws cqu.wis.data.DataAccessException If the query fails, including
+     * part-way through the catalog; the previously loaded records are kept.
+     * @throws java.io.UncheckedIOException If records beyond the memory budget
+     * cannot be spilled; the previously loaded records are kept.
      */
     public int findAllMalts() {
-        records = wd.getAllMalts();
-        currentIndex = (records.isEmpty()) ? -1 : 0;
-        return records.size();
+        ResultSnapshot warm = takeWarmed();
+        if (warm != null) {
+            // Already held, with its index, by the warm-up
+            setSnapshot(warm);
+            return warm.size();
+        }
+        List<WhiskeyData.WhiskeyDetails> hit = diskCache == null ? null
+                : fromCache("all", () -> holdCatalog(streamAllMalts(), null));
+        setSnapshot(hit != null ? SpillingSnapshot.copyOf(hit, memoryBudget) : streamAllMalts());
+        holdCatalog(snapshot, null);
+        return snapshot.size();
+    }
+
+    /**
+     * Starts loading and indexing the catalog in the background, unless a
+     * warm-up is already queued or running or has completed.
+     *
+     * @return {@code true} if a warm-up was started.
+     */
+    public boolean startWarmUp() {
+        if (warmedUp || !warming.compareAndSet(false, true)) {
+            return false;
+        }
+        WARMER.execute(() -> {
+            try {
+                warmUp();
+            } catch (RuntimeException e) {
+                LOG.warn("Catalog warm-up failed", e);
+            } finally {
+                warming.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Loads the catalog, builds its indexes and holds it for searches, then
+     * runs the region and age searches against it so that the code they use
+     * is compiled; the catalog is also kept for the next
+     * {@link #findAllMalts()}.
+     *
+     * <p>
+     * The records and cursor currently loaded are not changed. The data
+     * source is held only while the catalog is read; the searches run
+     * against the held catalog, so searches from the user interface wait at
+     * most for the catalog load. The catalog is kept only if it was read
+     * completely.</p>
+     *
+     * @throws cqu.wis.data.QueryTimeoutException If the query exceeds its
+     * latency budget; no catalog is kept.
+     * @throws cqu.wis.data.DataAccessException If the query fails; no catalog
+     * is kept.
+     * @throws java.io.UncheckedIOException If records beyond the memory budget
+     * cannot be spilled.
+     */
+    public void warmUp() {
+        ResultSnapshot loaded;
+        // Held while loading so that a findAllMalts() arriving meanwhile
+        // waits for this catalog rather than querying again
+        synchronized (wd) {
+            List<WhiskeyData.WhiskeyDetails> hit = diskCache == null ? null
+                    : fromCache("all", () -> holdCatalog(streamAllMalts(), null));
+            loaded = hit != null ? SpillingSnapshot.copyOf(hit, memoryBudget) : streamAllMalts();
+            warmed = loaded;
+            warmedAt = System.currentTimeMillis();
+        }
+        CatalogIndex idx = CatalogIndex.build(loaded);
+        DistilleryIndex names = new DistilleryIndex(loaded);
+        index = idx;
+        distilleryIndex = names;
+        holdCatalog(loaded, idx);
+        long sink = 0;
+        if (!loaded.isEmpty()) {
+            for (int i = 0; i < WARM_ITERATIONS; i++) {
+                int age = i % 30;
+                for (String region : idx.getRegions()) {
+                    sink += getMaltsFromRegion(region).size();
+                }
+                sink += getMaltsInAgeRange(age, age + 5).size();
+                sink += names.ceiling(Integer.toString(i));
+            }
+        }
+        warmUpResult = sink;
+        warmedUp = true;
+    }
+
+    /**
+     * Returns the catalog loaded by the last warm-up if it is recent enough,
+     * so that it is used only once.
+     *
+     * @return The warmed catalog, or {@code null} if there is none.
+     */
+    private ResultSnapshot takeWarmed() {
+        synchronized (wd) {
+            ResultSnapshot warm = warmed;
+            warmed = null;
+            boolean fresh = System.currentTimeMillis() - warmedAt < WARM_MAX_AGE_MILLIS;
+            return fresh ? warm : null;
+        }
+    }
+
+    /**
+     * Streams every record from the database into a snapshot within the
+     * memory budget, storing it in the persistent cache if it fits.
+     *
+     * @return The loaded snapshot.
+     */
+    private ResultSnapshot streamAllMalts() {
+        ResultSnapshot loaded;
+        try (SpillingSnapshot.Builder builder = new SpillingSnapshot.Builder(memoryBudget)) {
+            synchronized (wd) {
+                wd.forEachMalt(builder::add);
+            }
+            loaded = builder.build();
+        }
+        if (diskCache != null && !loaded.isEmpty() && loaded instanceof ListSnapshot list) {
+            diskCache.put(diskKey("all"), list.records());
+        }
+        return loaded;
     }
 
     /**
@@ -103,11 +433,7 @@ public class WhiskeyDataManager {
      * or {@code null} if no records are currently loaded.
      */
     public WhiskeyData.WhiskeyDetails first() {
-        if (records.isEmpty()) {
-            return null;
-        }
-        currentIndex = 0;
-        return records.get(currentIndex);
+        return cursor.first();
     }
 
     /**
@@ -118,11 +444,7 @@ public class WhiskeyDataManager {
      * {@code null} if no records are loaded.
      */
     public WhiskeyData.WhiskeyDetails next() {
-        if (records.isEmpty()) {
-            return null;
-        }
-        currentIndex = (currentIndex + 1) % records.size();
-        return records.get(currentIndex);
+        return cursor.next();
     }
 
     /**
@@ -133,11 +455,69 @@ public class WhiskeyDataManager {
      * collection, or {@code null} if no records are loaded.
      */
     public WhiskeyData.WhiskeyDetails previous() {
-        if (records.isEmpty()) {
-            return null;
+        return cursor.previous();
+    }
+
+    /**
+     * Navigates to and returns the last whiskey record in the collection.
+     *
+     * @return The last {@link WhiskeyData.WhiskeyDetails} in the collection,
+     * or {@code null} if no records are loaded.
+     */
+    public WhiskeyData.WhiskeyDetails last() {
+        return cursor.last();
+    }
+
+    /**
+     * Navigates directly to the record at an index.
+     *
+     * @param index The zero-based index of the record.
+     * @return The {@link WhiskeyData.WhiskeyDetails} at {@code index}, or
+     * {@code null} if the index is out of range, in which case the position
+     * does not change.
+     */
+    public WhiskeyData.WhiskeyDetails seek(int index) {
+        return cursor.seek(index);
+    }
+
+    /**
+     * Navigates to the record whose distillery name is the first at or after
+     * a key in alphabetical order (ignoring case).
+     *
+     * <p>
+     * The lookup is a binary search over a sorted index of the distillery
+     * names, built on first use after each load. Subsequent {@link #next()}
+     * and {@link #previous()} calls continue from that record in loaded
+     * order.</p>
+     *
+     * @param key The name or name prefix to seek to. Must not be
+     * {@code null}.
+     * @return The matching {@link WhiskeyData.WhiskeyDetails}, or {@code null}
+     * if every name sorts before {@code key}, in which case the position does
+     * not change.
+     * @throws NullPointerException If {@code key} is {@code null}.
+     */
+    public WhiskeyData.WhiskeyDetails seekDistillery(String key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null");
+        }
+        ResultCursor c = cursor;
+        DistilleryIndex idx = distilleryIndex;
+        if (idx == null || idx.getSnapshot() != c.getSnapshot()) {
+            idx = new DistilleryIndex(c.getSnapshot());
+            distilleryIndex = idx;
         }
-        currentIndex = (currentIndex - 1 + records.size()) % records.size();
-        return records.get(currentIndex);
+        int position = idx.ceiling(key);
+        return position < 0 ? null : c.seek(position);
+    }
+
+    /**
+     * Returns the zero-based index of the current record.
+     *
+     * @return The current index, or -1 if no records are loaded.
+     */
+    public int getPosition() {
+        return cursor.getIndex();
     }
 
     /**
@@ -147,15 +527,74 @@ public class WhiskeyDataManager {
      * if no records are loaded or if the cursor is not initialized.
      */
     public WhiskeyData.WhiskeyDetails getCurrent() {
-        if (records.isEmpty() || currentIndex < 0) {
-            return null;
+        return cursor.getCurrent();
+    }
+
+    /**
+     * Returns the snapshot of records currently loaded.
+     *
+     * @return the current {@link ResultSnapshot}; never {@code null}.
+     */
+    public ResultSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns bitmap indexes over the records currently loaded, building them
+     * on first use after each load.
+     *
+     * <p>
+     * Combined region and age filters over the loaded catalog can be answered
+     * from the index without querying the database.</p>
+     *
+     * @return the {@link CatalogIndex} of the current snapshot.
+     */
+    public CatalogIndex getIndex() {
+        CatalogIndex idx = index;
+        ResultSnapshot current = snapshot;
+        if (idx == null || idx.getSnapshot() != current) {
+            idx = CatalogIndex.build(current);
+            index = idx;
         }
-        return records.get(currentIndex);
+        return idx;
+    }
+
+    /**
+     * Returns the age and price columns of the records currently loaded,
+     * building them on first use after each load.
+     *
+     * <p>
+     * Age and price range filters over the loaded catalog can be answered by
+     * scanning the columns without querying the database.</p>
+     *
+     * @return the {@link ColumnarCatalog} of the current snapshot.
+     */
+    public ColumnarCatalog getColumns() {
+        ColumnarCatalog cols = columns;
+        ResultSnapshot current = snapshot;
+        if (cols == null || cols.getSnapshot() != current) {
+            cols = ColumnarCatalog.build(current);
+            columns = cols;
+        }
+        return cols;
+    }
+
+    /**
+     * Opens an independent cursor over the records currently loaded.
+     *
+     * <p>
+     * The cursor keeps browsing the same snapshot even if the manager later
+     * loads different records.</p>
+     *
+     * @return a new {@link ResultCursor} positioned on the first record.
+     */
+    public ResultCursor openCursor() {
+        return snapshot.openCursor();
     }
 
     /**
-     * Replaces the in-memory list of records with the provided array and resets
-     * the cursor to the first element if any are present.
+     * Replaces the in-memory records with a snapshot of the provided array,
+     * spilling records beyond the memory budget to disk, and resets the cursor to the first element if any are present.
      *
      * <p>
      * This method is intended for unit testing (setDetails is not part of the
@@ -165,13 +604,19 @@ public class WhiskeyDataManager {
      * be {@code null} or empty, which will result in an empty records list.
      */
     public void setDetails(WhiskeyData.WhiskeyDetails[] details) {
-        if (details == null) {
-            records = new ArrayList<>();
-            currentIndex = -1;
-        } else {
-            records = new ArrayList<>(Arrays.asList(details));
-            currentIndex = (records.isEmpty()) ? -1 : 0;
-        }
+        setSnapshot(details == null ? ResultSnapshot.empty()
+                : SpillingSnapshot.copyOf(Arrays.asList(details), memoryBudget));
+    }
+
+    /**
+     * Replaces the loaded records with the given snapshot and positions the
+     * default cursor on its first record.
+     *
+     * @param snapshot The snapshot to load.
+     */
+    private void setSnapshot(ResultSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.cursor = snapshot.openCursor();
     }
 
     /**
@@ -179,17 +624,35 @@ public class WhiskeyDataManager {
      * internal state.
      * <p>
      * This method is used directly by controllers that want the raw list of
-     * matching records.
+     * matching records. While a complete catalog is held, the records are
+     * filtered from it, on all cores if it is large, without querying.
      * </p>
      *
      * @param region The geographic region to filter by. Must not be
      * {@code null}.
      * @return A {@link List} of {@link WhiskeyData.WhiskeyDetails} objects from
      * the specified region. Returns an empty list if no malts are found in the
-     * region or if an error occurs.
+     * region.
+     * @throws cqu.wis.data.QueryTimeoutException If the query exceeds its
+     * latency budget.
+     * @throws cqu.wis.data.DataAccessException If the query fails.
      */
     public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region) {
-        return wd.getMaltsFromRegion(region);
+        HeldCatalog held = heldCatalog();
+        if (held != null && held.index() != null) {
+            CatalogIndex idx = held.index();
+            CompressedBitmap positions = CompressedBitmap.empty();
+            for (String r : idx.getRegions()) {
+                if (r.equalsIgnoreCase(region)) {
+                    positions = positions.or(idx.region(r));
+                }
+            }
+            return idx.materialize(positions);
+        }
+        if (held != null) {
+            return ParallelFilter.filter(held.records(), d -> region.equalsIgnoreCase(d.region()));
+        }
+        return cached("region:" + region, () -> wd.getMaltsFromRegion(region));
     }
 
     /**
@@ -197,7 +660,8 @@ public class WhiskeyDataManager {
      * does NOT set internal state.
      * <p>
      * This method is used directly by controllers that want the raw list of
-     * matching records.
+     * matching records. While a complete catalog is held, the records are
+     * filtered from it, on all cores if it is large, without querying.
      * </p>
      *
      * @param min The minimum age in years (inclusive). Should be non-negative.
@@ -205,9 +669,120 @@ public class WhiskeyDataManager {
      * or equal to min.
      * @return A {@link List} of {@link WhiskeyData.WhiskeyDetails} objects with
      * ages between {@code min} and {@code max}. Returns an empty list if no
-     * malts are found in the age range or if an error occurs.
+     * malts are found in the age range.
+     * @throws cqu.wis.data.QueryTimeoutException If the query exceeds its
+     * latency budget.
+     * @throws cqu.wis.data.DataAccessException If the query fails.
      */
     public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int min, int max) {
-        return wd.getMaltsInAgeRange(min, max);
+        HeldCatalog held = heldCatalog();
+        if (held != null && held.index() != null) {
+            return held.index().materialize(held.index().ageBetween(min, max));
+        }
+        if (held != null) {
+            return ParallelFilter.filter(held.records(), d -> d.age() >= min && d.age() <= max);
+        }
+        return cached("age:" + min + "-" + max, () -> wd.getMaltsInAgeRange(min, max));
+    }
+
+    /**
+     * Holds a complete catalog for answering searches, unless it is empty.
+     *
+     * @param all The catalog.
+     * @param idx Its bitmap index, or {@code null} to filter it on all cores
+     * instead.
+     */
+    private void holdCatalog(ResultSnapshot all, CatalogIndex idx) {
+        if (!all.isEmpty()) {
+            catalog = new HeldCatalog(all, System.currentTimeMillis(), idx);
+        }
+    }
+
+    /**
+     * Returns the held catalog if it is recent enough to answer searches.
+     *
+     * @return The catalog, or {@code null} if searches must query.
+     */
+    private HeldCatalog heldCatalog() {
+        HeldCatalog held = catalog;
+        return held != null && System.currentTimeMillis() - held.loadedAt() < WARM_MAX_AGE_MILLIS
+                ? held : null;
+    }
+
+    /**
+     * Returns the result for a query from the persistent cache if present,
+     * queuing a background refresh when it is stale; otherwise runs the query
+     * and caches a non-empty result.
+     *
+     * @param key The query type and parameters.
+     * @param query Runs the query against the database.
+     * @return The matching records.
+     */
+    private List<WhiskeyData.WhiskeyDetails> cached(String key, Supplier<List<WhiskeyData.WhiskeyDetails>> query) {
+        if (diskCache == null) {
+            return load(null, query);
+        }
+        List<WhiskeyData.WhiskeyDetails> hit = fromCache(key, () -> load(key, query));
+        return hit != null ? hit : load(key, query);
+    }
+
+    /**
+     * Returns the result for a query from the persistent cache if present,
+     * queuing a background refresh when it is stale.
+     *
+     * @param key The query type and parameters.
+     * @param refresh Reloads the result from the database and stores it in
+     * the persistent cache; for the whole catalog this streams within the
+     * memory budget, so a refresh never holds more of it on the heap than a
+     * load would.
+     * @return The cached records, or {@code null} if none are cached.
+     */
+    private List<WhiskeyData.WhiskeyDetails> fromCache(String key, Runnable refresh) {
+        DiskResultCache.Entry entry = diskCache.get(diskKey(key));
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.savedAt() >= REVALIDATE_AFTER_MILLIS && revalidating.add(key)) {
+            REVALIDATOR.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    // Keep serving the cached result; retried on a later hit
+                } finally {
+                    revalidating.remove(key);
+                }
+            });
+        }
+        return entry.records();
+    }
+
+    /**
+     * Runs a query while holding the data source, storing a non-empty result
+     * that fits within the memory budget in the persistent cache.
+     *
+     * @param key The cache key, or {@code null} not to store the result.
+     * @param query Runs the query against the database.
+     * @return The matching records.
+     */
+    private List<WhiskeyData.WhiskeyDetails> load(String key, Supplier<List<WhiskeyData.WhiskeyDetails>> query) {
+        List<WhiskeyData.WhiskeyDetails> result;
+        synchronized (wd) {
+            result = query.get();
+        }
+        if (key != null && !result.isEmpty() && SpillingSnapshot.estimateBytes(result) <= memoryBudget) {
+            diskCache.put(diskKey(key), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the persistent cache key for a query, qualified by the database
+     * the result comes from.
+     *
+     * @param key The query type and parameters.
+     * @return The key under which the result is cached.
+     */
+    private String diskKey(String key) {
+        return wd.getSource() + "#" + key;
     }
 }
@@ -29,10 +29,16 @@ public class WhiskeyDataValidator {
 
     }
 
+    /**
+     * Shared response for valid input, so successful checks allocate nothing.
+     */
+    private static final ValidationResponse VALID = new ValidationResponse(true, "");
+
     /**
      * Validates whiskey region input for geographic filtering operations.
      * Ensures the region parameter contains only alphabetic characters and is
-     * not null or empty.
+     * not null or empty, using {@link ValidationEngine#isAlphabetic(String)}
+     * rather than compiling a regular expression on every call.
      *
      * @param region The geographic region string to validate. Must not be
      * {@code null}.
@@ -44,10 +50,10 @@ public class WhiskeyDataValidator {
      * </ul>
      */
     public ValidationResponse checkRegion(String region) {
-        if (region == null || region.isEmpty() || !region.matches("[a-zA-Z]+")) {
+        if (!ValidationEngine.isAlphabetic(region)) {
             return new ValidationResponse(false, "Region must be alphabetic.");
         }
-        return new ValidationResponse(true, "");
+        return VALID;
     }
 
     /**
@@ -75,7 +81,7 @@ public class WhiskeyDataValidator {
             if (l > r) {
                 return new ValidationResponse(false, "Lower bound must not exceed upper bound.");
             }
-            return new ValidationResponse(true, "");
+            return VALID;
         } catch (NumberFormatException e) {
             return new ValidationResponse(false, "Invalid age format.");
         }
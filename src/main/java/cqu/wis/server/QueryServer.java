@@ -0,0 +1,450 @@
+package cqu.wis.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import cqu.wis.data.AuditLog;
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.PooledUserData;
+import cqu.wis.data.PooledWhiskeyData;
+import cqu.wis.data.QueryTimeoutException;
+import cqu.wis.data.WhiskeyData;
+import cqu.wis.data.WhiskeySource;
+import cqu.wis.log.Log;
+import cqu.wis.roles.LoginRateLimiter;
+import cqu.wis.roles.QueryResultCache;
+import cqu.wis.roles.UserDataManager;
+import cqu.wis.roles.UserDataValidator;
+import cqu.wis.roles.WhiskeyDataValidator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless HTTP server exposing the whiskey queries and login over a local
+ * JSON API.
+ *
+ * <p>
+ * All clients share one pooled data layer and one {@link QueryResultCache},
+ * so adding analysts does not add database connections or duplicate result
+ * sets. Requests are handled on virtual threads.</p>
+ *
+ * <p>
+ * Endpoints (all responses are JSON):</p>
+ * <ul>
+ * <li>{@code GET /malts} – all malts</li>
+ * <li>{@code GET /malts/region?region=Islay} – malts from a region</li>
+ * <li>{@code GET /malts/age?lower=10&upper=18} – malts in an age range</li>
+ * <li>{@code POST /login} with form body {@code username=..&password=..} –
+ * credential check</li>
+ * </ul>
+ *
+ * <p>
+ * Parameters of a {@code GET} request are read from the query string and
+ * those of a {@code POST} request from the form body only, so credentials are
+ * never taken from a URL, where they would be logged by proxies and kept in
+ * browser history. Malformed percent-encoding is answered with status 400,
+ * and unexpected failures with a generic status 500 whose details are only
+ * logged.</p>
+ *
+ * <p>
+ * Every login attempt with a username and password is recorded in the
+ * {@link AuditLog}, as it is from the desktop login screen.</p>
+ *
+ * <p>
+ * Configuration is read from system properties {@code wis.server.port}
+ * (default 8080), {@code wis.server.poolSize} (default 8) and
+ * {@code wis.server.cacheTtlMs} (default 30000). The server binds to the
+ * loopback interface only.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public class QueryServer {
+
+    /**
+     * Logger for unexpected request failures.
+     */
+    private static final Log LOG = Log.get(QueryServer.class);
+
+    /**
+     * Pooled access to the WHISKEY database.
+     */
+    private final WhiskeySource wd;
+
+    /**
+     * Cache of query results shared by all clients.
+     */
+    private final QueryResultCache cache;
+
+    /**
+     * User lookup with its shared lookup cache.
+     */
+    private final UserDataManager udm;
+
+    /**
+     * Validator for credentials.
+     */
+    private final UserDataValidator udv = new UserDataValidator();
+
+    /**
+     * Validator for region and age parameters.
+     */
+    private final WhiskeyDataValidator wdv = new WhiskeyDataValidator();
+
+    /**
+     * Rate limiter protecting the login endpoint.
+     */
+    private final LoginRateLimiter limiter = new LoginRateLimiter();
+
+    /**
+     * Audit log recording each login attempt.
+     */
+    private final AuditLog audit;
+
+    /**
+     * The underlying HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * Constructs a server over already connected data sources.
+     *
+     * @param wd Thread-safe WHISKEY data access. Must not be {@code null}.
+     * @param udm User data manager over thread-safe USERS data access. Must not
+     * be {@code null}.
+     * @param cache Cache shared by all clients. Must not be {@code null}.
+     * @param audit Audit log recording each login attempt. Must not be
+     * {@code null}.
+     * @throws NullPointerException If any argument is {@code null}.
+     */
+    public QueryServer(WhiskeySource wd, UserDataManager udm, QueryResultCache cache, AuditLog audit) {
+        if (wd == null || udm == null || cache == null || audit == null) {
+            throw new NullPointerException("Data sources, cache and audit log must not be null");
+        }
+        this.wd = wd;
+        this.udm = udm;
+        this.cache = cache;
+        this.audit = audit;
+    }
+
+    /**
+     * Starts the server in headless mode using settings from system
+     * properties.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        int port = Integer.getInteger("wis.server.port", 8080);
+        int poolSize = Integer.getInteger("wis.server.poolSize", 8);
+        long ttl = Long.getLong("wis.server.cacheTtlMs", 30_000);
+
+        PooledWhiskeyData wd = new PooledWhiskeyData(poolSize);
+        PooledUserData ud = new PooledUserData(poolSize);
+        try {
+            wd.connect();
+            ud.connect();
+        } catch (SQLException e) {
+            System.err.println("Cannot connect to database: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        QueryServer qs = new QueryServer(wd, new UserDataManager(ud), new QueryResultCache(ttl, 1024),
+                AuditLog.getInstance());
+        try {
+            qs.start(port);
+        } catch (IOException e) {
+            System.err.println("Cannot start server: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println("WIS query server listening on http://localhost:" + qs.getPort());
+    }
+
+    /**
+     * Binds the server to the loopback interface and starts handling
+     * requests.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/malts", handler(this::allMalts));
+        server.createContext("/malts/region", handler(this::maltsFromRegion));
+        server.createContext("/malts/age", handler(this::maltsInAgeRange));
+        server.createContext("/login", handler(this::login));
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting up to one second for requests in progress.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+        }
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the bound port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * The result of handling a request.
+     *
+     * @param status HTTP status code.
+     * @param json Response body.
+     */
+    private record Response(int status, String json) {
+
+    }
+
+    /**
+     * A request handler producing a {@link Response}.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+
+        /**
+         * Handles one request.
+         *
+         * @param exchange the HTTP exchange.
+         * @param params decoded query-string parameters of a {@code GET}, or
+         * form body parameters of a {@code POST}.
+         * @return the response to send.
+         * @throws IOException if the request body cannot be read.
+         */
+        Response handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    /**
+     * Adapts an {@link Endpoint} to an {@link HttpHandler}, decoding parameters
+     * and writing the JSON response.
+     *
+     * @param endpoint the endpoint to adapt.
+     * @return the HTTP handler.
+     */
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            Response response;
+            Map<String, String> params;
+            try {
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                    params = parseParams(body);
+                } else {
+                    params = parseParams(exchange.getRequestURI().getRawQuery());
+                }
+            } catch (IllegalArgumentException e) {
+                params = null;
+            }
+            if (params == null) {
+                response = error(400, "Malformed parameters.");
+            } else {
+                try {
+                    response = endpoint.handle(exchange, params);
+                } catch (QueryTimeoutException e) {
+                    response = error(504, "Timed out: " + e.getMessage());
+                } catch (DataAccessException e) {
+                    response = error(503, "Database unavailable: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    LOG.error("Request {} {} failed", exchange.getRequestMethod(),
+                            exchange.getRequestURI().getPath(), e);
+                    response = error(500, "Internal error.");
+                }
+            }
+            byte[] bytes = response.json().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        };
+    }
+
+    /**
+     * Handles {@code GET /malts}.
+     *
+     * @param exchange the HTTP exchange.
+     * @param params the decoded request parameters.
+     * @return the response to send.
+     */
+    private Response allMalts(HttpExchange exchange, Map<String, String> params) {
+        if (!"/malts".equals(exchange.getRequestURI().getPath())) {
+            return error(404, "Not found.");
+        }
+        return ok(cache.get("all", wd::getAllMalts));
+    }
+
+    /**
+     * Handles {@code GET /malts/region}.
+     *
+     * @param exchange the HTTP exchange.
+     * @param params the decoded request parameters.
+     * @return the response to send.
+     */
+    private Response maltsFromRegion(HttpExchange exchange, Map<String, String> params) {
+        String region = params.getOrDefault("region", "");
+        var check = wdv.checkRegion(region);
+        if (!check.valid()) {
+            return error(400, check.message());
+        }
+        return ok(cache.get("region:" + region, () -> wd.getMaltsFromRegion(region)));
+    }
+
+    /**
+     * Handles {@code GET /malts/age}.
+     *
+     * @param exchange the HTTP exchange.
+     * @param params the decoded request parameters.
+     * @return the response to send.
+     */
+    private Response maltsInAgeRange(HttpExchange exchange, Map<String, String> params) {
+        String lower = params.getOrDefault("lower", "");
+        String upper = params.getOrDefault("upper", "");
+        var check = wdv.checkAgeRange(lower, upper);
+        if (!check.valid()) {
+            return error(400, check.message());
+        }
+        int l = lower.isEmpty() ? 0 : Integer.parseInt(lower);
+        int u = upper.isEmpty() ? 100 : Integer.parseInt(upper);
+        return ok(cache.get("age:" + l + "-" + u, () -> wd.getMaltsInAgeRange(l, u)));
+    }
+
+    /**
+     * Handles {@code POST /login}, recording the attempt in the audit log
+     * whatever its outcome.
+     *
+     * @param exchange the HTTP exchange.
+     * @param params the decoded request parameters.
+     * @return the response to send.
+     */
+    private Response login(HttpExchange exchange, Map<String, String> params) {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return error(405, "Use POST.");
+        }
+        String username = params.get("username");
+        String password = params.get("password");
+        boolean success = false;
+        String outcome = "Database unavailable.";
+        try {
+            var fieldCheck = udv.checkForFieldsPresent(username, password);
+            if (!fieldCheck.valid()) {
+                outcome = fieldCheck.message();
+                return error(400, outcome);
+            }
+            if (!limiter.tryAcquire(username)) {
+                outcome = "Too many attempts. Please wait and try again.";
+                return error(429, outcome);
+            }
+            var authCheck = udv.checkCurrentDetails(udm.findUser(username), username, password);
+            success = authCheck.valid();
+            outcome = authCheck.message();
+            return new Response(success ? 200 : 401,
+                    "{\"valid\":" + success + ",\"message\":" + quote(outcome) + "}");
+        } finally {
+            audit.record(AuditLog.Type.LOGIN, username, success, outcome);
+        }
+    }
+
+    /**
+     * Builds a 200 response listing the given records.
+     *
+     * @param records the records to render.
+     * @return the response.
+     */
+    private static Response ok(List<WhiskeyData.WhiskeyDetails> records) {
+        StringBuilder sb = new StringBuilder(64 + records.size() * 80);
+        sb.append("{\"count\":").append(records.size()).append(",\"malts\":[");
+        for (int i = 0; i < records.size(); i++) {
+            WhiskeyData.WhiskeyDetails d = records.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"distillery\":").append(quote(d.distillery()))
+                    .append(",\"age\":").append(d.age())
+                    .append(",\"region\":").append(quote(d.region()))
+                    .append(",\"price\":").append(d.price()).append('}');
+        }
+        return new Response(200, sb.append("]}").toString());
+    }
+
+    /**
+     * Builds an error response.
+     *
+     * @param status the HTTP status code.
+     * @param message the error message.
+     * @return the response.
+     */
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + quote(message) + "}");
+    }
+
+    /**
+     * Renders a string as a JSON string literal.
+     *
+     * @param s the string, may be {@code null}.
+     * @return the quoted and escaped string, or {@code null}.
+     */
+    private static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Decodes {@code application/x-www-form-urlencoded} parameters.
+     *
+     * @param raw the raw query string or body, may be {@code null}.
+     * @return a mutable map of decoded parameters.
+     * @throws IllegalArgumentException if a parameter has malformed
+     * percent-encoding.
+     */
+    private static Map<String, String> parseParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -4,6 +4,10 @@ package cqu.wis.view;
  * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
  * Click nbfs://nbhost/SystemFileSystem/Templates/javafx/FXMLController.java to edit this template
  */
+import cqu.wis.data.AuditLog;
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.UserData;
+import cqu.wis.roles.LoginRateLimiter;
 import cqu.wis.roles.SceneCoordinator;
 import cqu.wis.roles.SceneCoordinator.SceneKey;
 import cqu.wis.roles.UserDataManager;
@@ -33,6 +37,18 @@ import javafx.scene.control.TextField;
  */
 public class LoginController implements Initializable {
 
+    /**
+     * Message shown when an authentication attempt is rejected by the rate
+     * limiter.
+     */
+    static final String RATE_LIMITED_MESSAGE = "Too many attempts. Please wait and try again.";
+
+    /**
+     * Message shown when the user lookup fails or exceeds its latency budget,
+     * as distinct from an unknown username.
+     */
+    static final String TIMEOUT_MESSAGE = "The user database is not responding. Please try again.";
+
     /**
      * Text field for username input.
      */
@@ -92,6 +108,17 @@ public class LoginController implements Initializable {
      */
     private UserDataValidator udv;
 
+    /**
+     * Rate limiter that rejects excessive authentication attempts before they
+     * reach the database.
+     */
+    private LoginRateLimiter limiter;
+
+    /**
+     * Audit log receiving every authentication attempt made on this screen.
+     */
+    private AuditLog audit;
+
     /**
      * Injects required dependencies into the controller for proper operation.
      * Must be called after controller instantiation and before any user
@@ -102,11 +129,17 @@ public class LoginController implements Initializable {
      * authentication.
      * @param udv UserDataValidator instance for input and credential
      * validation.
+     * @param limiter LoginRateLimiter instance shared by all authentication
+     * screens.
+     * @param audit AuditLog instance recording each attempt.
      */
-    public void inject(SceneCoordinator sc, UserDataManager udm, UserDataValidator udv) {
+    public void inject(SceneCoordinator sc, UserDataManager udm, UserDataValidator udv,
+            LoginRateLimiter limiter, AuditLog audit) {
         this.sc = sc;
         this.udm = udm;
         this.udv = udv;
+        this.limiter = limiter;
+        this.audit = audit;
     }
 
     /**
@@ -129,48 +162,77 @@ public class LoginController implements Initializable {
      * Handles the login button action event to authenticate user credentials.
      * Implements multi‐stage validation, including default‐password redirect.
      *
-     * 1) Check that username and password fields are present. 2) Retrieve user
-     * details; if null ⇒ show "Username not found.". 3) If stored password ==
-     * "password" ⇒ show "Default password, please change." and navigate to
-     * PASSWORD scene (force change). 4) Otherwise compare SHA‐1(enteredPass) vs
+     * 1) Check that username and password fields are present. 2) Once the rate
+     * limiter admits the attempt, retrieve user details; if null ⇒ show
+     * "Username not found.". 3) If stored password == "password" ⇒ show
+     * "Default password, please change." and navigate to PASSWORD scene
+     * (force change). 4) Otherwise compare SHA‐1(enteredPass) vs
      * stored hash: • If mismatch ⇒ show "Incorrect password." • If match ⇒
      * navigate to QUERY scene.
      *
+     * Each attempt is recorded as a {@link LoginEvent} and in the
+     * {@link AuditLog}.
+     *
      * @param event The {@link ActionEvent} triggered by clicking the login
      * button.
      */
     @FXML
     private void loginAction(ActionEvent event) {
+        LoginEvent loginEvent = new LoginEvent();
+        loginEvent.begin();
         String username = txtUserName.getText();
         String password = txtPassword.getText();
 
-        // 1) Validate that required fields are present
-        var fieldCheck = udv.checkForFieldsPresent(username, password);
-        if (!fieldCheck.valid()) {
-            txtMessage.setText(fieldCheck.message());
-            return;
-        }
+        try {
+            // 1) Validate that required fields are present
+            var fieldCheck = udv.checkForFieldsPresent(username, password);
+            if (!fieldCheck.valid()) {
+                txtMessage.setText(fieldCheck.message());
+                return;
+            }
 
-        // 2) Retrieve user details
-        var userDetails = udm.findUser(username);
+            // 2) Reject the attempt early if this user or the system is being flooded
+            if (!limiter.tryAcquire(username)) {
+                txtMessage.setText(RATE_LIMITED_MESSAGE);
+                return;
+            }
 
-        // 3) Validate credentials (including default‐password logic)
-        var authCheck = udv.checkCurrentDetails(userDetails, username, password);
-        txtMessage.setText(authCheck.message());
+            // 3) Retrieve user details
+            UserData.UserDetails userDetails;
+            try {
+                userDetails = udm.findUser(username);
+            } catch (DataAccessException e) {
+                txtMessage.setText(TIMEOUT_MESSAGE);
+                return;
+            }
 
-        if (!authCheck.valid()) {
-            // Invalid login or "Username not found."
-            return;
-        }
+            // 4) Validate credentials (including default‐password logic)
+            var authCheck = udv.checkCurrentDetails(userDetails, username, password);
+            txtMessage.setText(authCheck.message());
+            loginEvent.success = authCheck.valid();
 
-        // If valid AND default‐password prompt, redirect to PASSWORD scene
-        if ("Default password, please change.".equals(authCheck.message())) {
-            sc.setScene(SceneKey.PASSWORD);
-            return;
-        }
+            if (!authCheck.valid()) {
+                // Invalid login or "Username not found."
+                return;
+            }
 
-        // Otherwise (correct hashed password), proceed to QUERY
-        sc.setScene(SceneKey.QUERY);
+            // If valid AND default‐password prompt, redirect to PASSWORD scene
+            if ("Default password, please change.".equals(authCheck.message())) {
+                sc.setScene(SceneKey.PASSWORD);
+                return;
+            }
+
+            // Otherwise (correct hashed password), proceed to QUERY
+            sc.setScene(SceneKey.QUERY);
+        } finally {
+            audit.record(AuditLog.Type.LOGIN, username, loginEvent.success, txtMessage.getText());
+            loginEvent.end();
+            if (loginEvent.shouldCommit()) {
+                loginEvent.username = username;
+                loginEvent.outcome = txtMessage.getText();
+                loginEvent.commit();
+            }
+        }
     }
 
     /**
@@ -0,0 +1,44 @@
+package cqu.wis.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for each login attempt handled by
+ * {@link LoginController}.
+ *
+ * <p>
+ * The duration covers field validation, the user lookup and the credential
+ * check, so it can be compared against the nested {@code cqu.wis.UserQuery}
+ * event to separate database time from validation time.</p>
+ *
+ * @author Prajita Bhandari
+ */
+@Name("cqu.wis.Login")
+@Label("Login Attempt")
+@Category({"WIS", "User Interface"})
+@Description("Handling of a login attempt")
+@StackTrace(false)
+public class LoginEvent extends jdk.jfr.Event {
+
+    /**
+     * Username entered on the login screen.
+     */
+    @Label("Username")
+    public String username;
+
+    /**
+     * Whether the credentials were accepted.
+     */
+    @Label("Success")
+    public boolean success;
+
+    /**
+     * Message shown to the user as a result of the attempt.
+     */
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,39 @@
+package cqu.wis.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for each password change submitted
+ * through {@link PasswordController}.
+ *
+ * @author Prajita Bhandari
+ */
+@Name("cqu.wis.PasswordChange")
+@Label("Password Change")
+@Category({"WIS", "User Interface"})
+@Description("Handling of a password change request")
+@StackTrace(false)
+public class PasswordChangeEvent extends jdk.jfr.Event {
+
+    /**
+     * Username entered on the password screen.
+     */
+    @Label("Username")
+    public String username;
+
+    /**
+     * Whether the password was changed.
+     */
+    @Label("Success")
+    public boolean success;
+
+    /**
+     * Message shown to the user as a result of the request.
+     */
+    @Label("Outcome")
+    public String outcome;
+}
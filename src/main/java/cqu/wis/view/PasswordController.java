@@ -4,6 +4,10 @@
  */
 package cqu.wis.view;
 
+import cqu.wis.data.AuditLog;
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.UserData;
+import cqu.wis.roles.LoginRateLimiter;
 import cqu.wis.roles.SceneCoordinator;
 import cqu.wis.roles.SceneCoordinator.SceneKey;
 import cqu.wis.roles.UserDataManager;
@@ -94,6 +98,17 @@ public class PasswordController implements Initializable {
      */
     private UserDataValidator udv;
 
+    /**
+     * Rate limiter that rejects excessive authentication attempts before they
+     * reach the database.
+     */
+    private LoginRateLimiter limiter;
+
+    /**
+     * Audit log receiving every authentication attempt made on this screen.
+     */
+    private AuditLog audit;
+
     /**
      * Injects required dependencies into the controller for proper operation.
      * Must be called after controller instantiation and before any user
@@ -104,11 +119,17 @@ public class PasswordController implements Initializable {
      * updates.
      * @param udv UserDataValidator instance for credential and password
      * validation.
+     * @param limiter LoginRateLimiter instance shared by all authentication
+     * screens.
+     * @param audit AuditLog instance recording each attempt.
      */
-    public void inject(SceneCoordinator sc, UserDataManager udm, UserDataValidator udv) {
+    public void inject(SceneCoordinator sc, UserDataManager udm, UserDataValidator udv,
+            LoginRateLimiter limiter, AuditLog audit) {
         this.sc = sc;
         this.udm = udm;
         this.udv = udv;
+        this.limiter = limiter;
+        this.audit = audit;
     }
 
     /**
@@ -131,53 +152,86 @@ public class PasswordController implements Initializable {
      * Handles the Submit button click to process a password change.
      *
      * Steps: 1) Check that all three fields (username, old password, new
-     * password) are present. 2) Verify the old password against what's in the
-     * database. 3) Validate the new password (complexity, difference from old,
+     * password) are present. 2) Once the rate limiter admits the attempt,
+     * verify the old password against what's in the database. 3) Validate the new password (complexity, difference from old,
      * etc.). 4) If everything is valid, update the DB with SHA‐1(newPassword)
      * and navigate to QUERY.
      *
+     * Each request is recorded as a {@link PasswordChangeEvent} and in the
+     * {@link AuditLog}.
+     *
      * @param event The {@link ActionEvent} triggered by clicking the Submit
      * button.
      */
     @FXML
     private void submitAction(ActionEvent event) {
+        PasswordChangeEvent changeEvent = new PasswordChangeEvent();
+        changeEvent.begin();
         // Read user‐entered fields
         String username = txtUserName.getText().trim();
         String oldPassword = txtOldPassword.getText();
         String newPassword = txtNewPassword.getText();
 
-        // 1) Field presence check
-        var fieldCheck = udv.checkForFieldsPresent(username, oldPassword, newPassword);
-        if (!fieldCheck.valid()) {
-            txtMessages.setText(fieldCheck.message());
-            return;
-        }
+        try {
+            // 1) Field presence check
+            var fieldCheck = udv.checkForFieldsPresent(username, oldPassword, newPassword);
+            if (!fieldCheck.valid()) {
+                txtMessages.setText(fieldCheck.message());
+                return;
+            }
 
-        // 2) Authenticate current credentials
-        var user = udm.findUser(username);
-        var authCheck = udv.checkCurrentDetails(user, username, oldPassword);
-        if (!authCheck.valid()) {
-            txtMessages.setText(authCheck.message());
-            return;
-        }
+            // 2) Reject the attempt early if this user or the system is being flooded
+            if (!limiter.tryAcquire(username)) {
+                txtMessages.setText(LoginController.RATE_LIMITED_MESSAGE);
+                return;
+            }
 
-        // If the stored password was "password", the validator would have returned
-        // (true, "Default password, please change."), but we never reach here
-        // if default‐password. In practice, user cannot be on this screen with default pw,
-        // because LoginController redirected to PASSWORD only after seeing default pw.
-        // 3) Validate new password strength & difference from old
-        var newPassCheck = udv.checkNewDetails(user, oldPassword, newPassword, newPassword);
-        if (!newPassCheck.valid()) {
-            txtMessages.setText(newPassCheck.message());
-            return;
-        }
+            // 3) Authenticate current credentials
+            UserData.UserDetails user;
+            try {
+                user = udm.findUser(username);
+            } catch (DataAccessException e) {
+                txtMessages.setText(LoginController.TIMEOUT_MESSAGE);
+                return;
+            }
+            var authCheck = udv.checkCurrentDetails(user, username, oldPassword);
+            if (!authCheck.valid()) {
+                txtMessages.setText(authCheck.message());
+                return;
+            }
+
+            // If the stored password was "password", the validator would have returned
+            // (true, "Default password, please change."), but we never reach here
+            // if default‐password. In practice, user cannot be on this screen with default pw,
+            // because LoginController redirected to PASSWORD only after seeing default pw.
+            // 4) Validate new password strength & difference from old
+            var newPassCheck = udv.checkNewDetails(user, oldPassword, newPassword, newPassword);
+            if (!newPassCheck.valid()) {
+                txtMessages.setText(newPassCheck.message());
+                return;
+            }
 
-        // 4) All checks passed → update the password to its SHA‐1 hash
-        udm.updatePassword(username, udv.generateSHA1(newPassword));
-        txtMessages.setText("Password changed successfully.");
+            // 5) All checks passed → update the password to its SHA‐1 hash
+            try {
+                udm.updatePassword(username, udv.generateSHA1(newPassword));
+            } catch (DataAccessException e) {
+                txtMessages.setText(LoginController.TIMEOUT_MESSAGE);
+                return;
+            }
+            txtMessages.setText("Password changed successfully.");
+            changeEvent.success = true;
 
-        // 5) Once updated, navigate back to the QUERY screen
-        sc.setScene(SceneKey.QUERY);
+            // 6) Once updated, navigate back to the QUERY screen
+            sc.setScene(SceneKey.QUERY);
+        } finally {
+            audit.record(AuditLog.Type.PASSWORD_CHANGE, username, changeEvent.success, txtMessages.getText());
+            changeEvent.end();
+            if (changeEvent.shouldCommit()) {
+                changeEvent.username = username;
+                changeEvent.outcome = txtMessages.getText();
+                changeEvent.commit();
+            }
+        }
     }
 
     /**
@@ -5,11 +5,21 @@
 package cqu.wis.view;
 
 import cqu.wis.roles.SceneCoordinator;
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.QueryTimeoutException;
 import cqu.wis.data.WhiskeyData;
+import cqu.wis.roles.PriceHistoryManager;
+import cqu.wis.roles.PriceSeries;
 import cqu.wis.roles.WhiskeyDataManager;
 import cqu.wis.roles.WhiskeyDataValidator;
 import java.net.URL;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -31,6 +41,18 @@ import javafx.scene.control.TextField;
  */
 public class QueryController implements Initializable {
 
+    /**
+     * Message shown when a search exceeds its latency budget, as distinct from
+     * a search that found nothing.
+     */
+    private static final String TIMEOUT_MESSAGE = "The search timed out. Please try again.";
+
+    /**
+     * Message shown when a search fails, as distinct from a search that found
+     * nothing.
+     */
+    private static final String FAILURE_MESSAGE = "The search failed. Please try again.";
+
     /**
      * Text field for displaying and entering distillery name.
      */
@@ -55,6 +77,13 @@ public class QueryController implements Initializable {
     @FXML
     private TextField txtPrice;
 
+    /**
+     * Text field for displaying the price history of the displayed whiskey:
+     * its range over the last year and its price a year ago.
+     */
+    @FXML
+    private TextField txtPriceHistory;
+
     /**
      * Text area for displaying status messages, validation errors, and query
      * results.
@@ -74,6 +103,24 @@ public class QueryController implements Initializable {
     @FXML
     private Button btnPrevious;
 
+    /**
+     * Button for jumping to the last whiskey record.
+     */
+    @FXML
+    private Button btnLast;
+
+    /**
+     * Text field for entering a record number or distillery name to jump to.
+     */
+    @FXML
+    private TextField txtSeek;
+
+    /**
+     * Button for jumping to the record entered in {@link #txtSeek}.
+     */
+    @FXML
+    private Button btnSeek;
+
     /**
      * Button for executing malts from region query.
      */
@@ -137,6 +184,24 @@ public class QueryController implements Initializable {
      */
     private WhiskeyDataValidator wdv;
 
+    /**
+     * PriceHistoryManager for the price history of the displayed whiskey.
+     */
+    private PriceHistoryManager phm;
+
+    /**
+     * Applies changes to the display fields and message area, coalescing
+     * rapid navigation into one update per field. All writes to those
+     * controls go through it.
+     */
+    private final UiUpdateDispatcher ui = new UiUpdateDispatcher();
+
+    /**
+     * Distillery whose price history the history field should show. Accessed
+     * only on the application thread.
+     */
+    private String historyFor;
+
     /**
      * Injects required dependencies into the controller.
      *
@@ -146,11 +211,25 @@ public class QueryController implements Initializable {
      * and queries.
      * @param wdv The {@link WhiskeyDataValidator} instance for input
      * validation.
+     * @param phm The {@link PriceHistoryManager} instance for price history
+     * lookups.
      */
-    public void inject(SceneCoordinator sc, WhiskeyDataManager wdm, WhiskeyDataValidator wdv) {
+    public void inject(SceneCoordinator sc, WhiskeyDataManager wdm, WhiskeyDataValidator wdv,
+            PriceHistoryManager phm) {
         this.sc = sc;
         this.wdm = wdm;
         this.wdv = wdv;
+        this.phm = phm;
+    }
+
+    /**
+     * Returns the dispatcher through which the controller writes its display
+     * fields and messages, so that display updates can be timed.
+     *
+     * @return The dispatcher.
+     */
+    public UiUpdateDispatcher getUpdateDispatcher() {
+        return ui;
     }
 
     /**
@@ -167,6 +246,7 @@ public class QueryController implements Initializable {
     public void initialize(URL url, ResourceBundle rb) {
         txtMessage.setWrapText(true);
         txtMessage.setPrefRowCount(4); // Ensure enough space for full messages
+        txtPriceHistory.setEditable(false);
     }
 
     /**
@@ -181,9 +261,9 @@ public class QueryController implements Initializable {
         var next = wdm.next();
         if (next != null) {
             display(next);
-            txtMessage.clear();
+            showMessage("");
         } else {
-            txtMessage.setText("You are at the last record.");
+            showMessage("You are at the last record.");
         }
     }
 
@@ -199,12 +279,65 @@ public class QueryController implements Initializable {
         var prev = wdm.previous();
         if (prev != null) {
             display(prev);
-            txtMessage.clear();
+            showMessage("");
+        } else {
+            showMessage("You are at the first record.");
+        }
+    }
+
+    /**
+     * Handles the last button action to jump to the last whiskey record.
+     *
+     * @param event The {@link ActionEvent} triggered by clicking the last
+     * button.
+     */
+    @FXML
+    private void lastAction(ActionEvent event) {
+        var last = wdm.last();
+        if (last != null) {
+            display(last);
+            showPosition();
         } else {
-            txtMessage.setText("You are at the first record.");
+            showMessage("No records loaded.");
         }
     }
 
+    /**
+     * Handles the go-to button action. A whole number jumps to that record
+     * (counting from 1); any other text jumps to the first distillery at or
+     * after it in alphabetical order.
+     *
+     * @param event The {@link ActionEvent} triggered by clicking the go-to
+     * button.
+     */
+    @FXML
+    private void seekAction(ActionEvent event) {
+        String target = txtSeek.getText().trim();
+        if (target.isEmpty()) {
+            showMessage("Error: Please enter a record number or distillery name.");
+            return;
+        }
+        WhiskeyData.WhiskeyDetails found;
+        try {
+            found = wdm.seek(Integer.parseInt(target) - 1);
+        } catch (NumberFormatException e) {
+            found = wdm.seekDistillery(target);
+        }
+        if (found != null) {
+            display(found);
+            showPosition();
+        } else {
+            showMessage("No matching record.");
+        }
+    }
+
+    /**
+     * Shows the current record number and the number of loaded records.
+     */
+    private void showPosition() {
+        showMessage("Record " + (wdm.getPosition() + 1) + " of " + wdm.getSnapshot().size() + ".");
+    }
+
     /**
      * Handles the malts from region query action.
      *
@@ -218,22 +351,33 @@ public class QueryController implements Initializable {
         // Validate the region input
         var check = wdv.checkRegion(region);
         if (!check.valid()) {
-            txtMessage.setText(check.message());
+            showMessage(check.message());
             clearDisplayFields();
             return;
         }
 
         // Execute query and handle results
-        var results = wdm.getMaltsFromRegion(region);
+        List<WhiskeyData.WhiskeyDetails> results;
+        try {
+            results = wdm.getMaltsFromRegion(region);
+        } catch (QueryTimeoutException e) {
+            showMessage(TIMEOUT_MESSAGE);
+            clearDisplayFields();
+            return;
+        } catch (DataAccessException e) {
+            showMessage(FAILURE_MESSAGE);
+            clearDisplayFields();
+            return;
+        }
         if (results.isEmpty()) {
-            txtMessage.setText("No records found.");
+            showMessage("No records found.");
             clearDisplayFields();
         } else {
             wdm.setDetails(results.toArray(new WhiskeyData.WhiskeyDetails[0]));
             var current = wdm.getCurrent();
             if (current != null) {
                 display(current);
-                txtMessage.setText(results.size() + " records found.");
+                showMessage(results.size() + " records found.");
             }
         }
     }
@@ -256,7 +400,7 @@ public class QueryController implements Initializable {
 
         // Check if both fields are empty
         if (leftText.isEmpty() && rightText.isEmpty()) {
-            txtMessage.setText("Error: Please enter at least one age value.");
+            showMessage("Error: Please enter at least one age value.");
             clearDisplayFields();
             return;
         }
@@ -280,20 +424,20 @@ public class QueryController implements Initializable {
 
             // Validate non-negative values
             if (left < 0 || right < 0) {
-                txtMessage.setText("Error: Age values must not be negative.");
+                showMessage("Error: Age values must not be negative.");
                 clearDisplayFields();
                 return;
             }
 
             // Validate logical order
             if (right < left) {
-                txtMessage.setText("Error: Upper bound cannot be less than lower bound.");
+                showMessage("Error: Upper bound cannot be less than lower bound.");
                 clearDisplayFields();
                 return;
             }
 
             if (left == right) {
-                txtMessage.setText("Error: Lower and upper bounds must be different.");
+                showMessage("Error: Lower and upper bounds must be different.");
                 clearDisplayFields();
                 return;
             }
@@ -301,18 +445,24 @@ public class QueryController implements Initializable {
             // Valid range, perform query
             var results = wdm.getMaltsInAgeRange(left, right);
             if (results.isEmpty()) {
-                txtMessage.setText("No records found.");
+                showMessage("No records found.");
                 clearDisplayFields();
             } else {
                 wdm.setDetails(results.toArray(new WhiskeyData.WhiskeyDetails[0]));
                 var current = wdm.getCurrent();
                 if (current != null) {
                     display(current);
-                    txtMessage.setText(results.size() + " records found.");
+                    showMessage(results.size() + " records found.");
                 }
             }
         } catch (NumberFormatException e) {
-            txtMessage.setText("Error: Please enter valid whole numbers.");
+            showMessage("Error: Please enter valid whole numbers.");
+            clearDisplayFields();
+        } catch (QueryTimeoutException e) {
+            showMessage(TIMEOUT_MESSAGE);
+            clearDisplayFields();
+        } catch (DataAccessException e) {
+            showMessage(FAILURE_MESSAGE);
             clearDisplayFields();
         }
     }
@@ -325,13 +475,22 @@ public class QueryController implements Initializable {
      */
     @FXML
     private void allMaltsAction(ActionEvent event) {
-        int count = wdm.findAllMalts();
+        int count;
+        try {
+            count = wdm.findAllMalts();
+        } catch (QueryTimeoutException e) {
+            showMessage(TIMEOUT_MESSAGE);
+            return;
+        } catch (DataAccessException e) {
+            showMessage(FAILURE_MESSAGE);
+            return;
+        }
         var current = wdm.getCurrent();
         if (current != null) {
             display(current);
-            txtMessage.setText(count + " records found.");
+            showMessage(count + " records found.");
         } else {
-            txtMessage.setText("No records found.");
+            showMessage("No records found.");
             clearDisplayFields();
         }
     }
@@ -348,7 +507,8 @@ public class QueryController implements Initializable {
         txtMaltsFromRegion.clear();
         txtLowerAge.clear();
         txtUpperAge.clear();
-        txtMessage.clear();
+        txtSeek.clear();
+        showMessage("");
     }
 
     /**
@@ -363,27 +523,107 @@ public class QueryController implements Initializable {
     }
 
     /**
-     * Displays whiskey details in the form fields.
+     * Displays whiskey details in the form fields. The price history is
+     * requested only when the update is applied, so rapid navigation looks up
+     * just the record that ends up displayed.
      *
      * @param d The {@link WhiskeyData.WhiskeyDetails} object containing whiskey
      * information to display. If {@code null}, the fields remain unchanged.
      */
     private void display(WhiskeyData.WhiskeyDetails d) {
         if (d != null) {
-            txtDistillery.setText(d.distillery());
-            txtAge.setText(String.valueOf(d.age()));
-            txtRegion.setText(d.region());
-            txtPrice.setText("$" + d.price());
+            ui.setText(txtDistillery, d.distillery());
+            ui.setText(txtAge, String.valueOf(d.age()));
+            ui.setText(txtRegion, d.region());
+            ui.setText(txtPrice, "$" + d.price());
+            ui.post(txtPriceHistory, () -> showPriceHistory(d.distillery()));
         }
     }
 
     /**
-     * Clears all four display text fields (distillery, age, region, price).
+     * Shows a whiskey's price history, reading it off the application thread
+     * if it is not in memory. Runs on the application thread; a history that
+     * arrives after another whiskey has been displayed is discarded.
+     *
+     * @param distillery The name of the distillery.
+     */
+    private void showPriceHistory(String distillery) {
+        historyFor = distillery;
+        CompletableFuture<String> description = phm.getSeriesAsync(distillery).handle(this::describePriceHistory);
+        if (description.isDone()) {
+            txtPriceHistory.setText(description.join());
+            return;
+        }
+        txtPriceHistory.setText("History loading...");
+        description.thenAccept(text -> ui.post(txtPriceHistory, () -> {
+            if (distillery.equals(historyFor)) {
+                txtPriceHistory.setText(text);
+            }
+        }));
+    }
+
+    /**
+     * Describes the outcome of reading a price history.
+     *
+     * @param series The history, or {@code null} if it could not be read.
+     * @param error Why the history could not be read, or {@code null}.
+     * @return The description.
+     */
+    private String describePriceHistory(PriceSeries series, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof QueryTimeoutException) {
+            return "History timed out";
+        }
+        if (cause != null) {
+            return "History unavailable";
+        }
+        return describePriceHistory(series);
+    }
+
+    /**
+     * Describes a whiskey's price over the last year, e.g.
+     * {@code "1 yr: $52-$61, was $55"}.
+     *
+     * @param series The whiskey's price history.
+     * @return The description, or a short note if the history is empty.
+     */
+    private String describePriceHistory(PriceSeries series) {
+        LocalDate today = LocalDate.now();
+        LocalDate yearAgo = today.minusYears(1);
+        Optional<PriceSeries.PriceRange> range = series.range(yearAgo, today);
+        if (range.isEmpty()) {
+            return "No price history";
+        }
+        StringBuilder sb = new StringBuilder("1 yr: $").append(range.get().min());
+        if (range.get().max() != range.get().min()) {
+            sb.append("-$").append(range.get().max());
+        }
+        OptionalInt then = series.priceAt(yearAgo);
+        if (then.isPresent()) {
+            sb.append(", was $").append(then.getAsInt());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Clears all display text fields (distillery, age, region, price and
+     * price history), and discards any price history still loading.
      */
     private void clearDisplayFields() {
-        txtDistillery.clear();
-        txtAge.clear();
-        txtRegion.clear();
-        txtPrice.clear();
+        historyFor = null;
+        ui.setText(txtDistillery, "");
+        ui.setText(txtAge, "");
+        ui.setText(txtRegion, "");
+        ui.setText(txtPrice, "");
+        ui.setText(txtPriceHistory, "");
+    }
+
+    /**
+     * Shows a message in the message area.
+     *
+     * @param message The message; an empty string clears the area.
+     */
+    private void showMessage(String message) {
+        ui.setText(txtMessage, message);
     }
 }
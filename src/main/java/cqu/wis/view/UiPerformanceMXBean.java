@@ -0,0 +1,118 @@
+package cqu.wis.view;
+
+/**
+ * Management interface of the {@link UiPerformanceMonitor}, registered as
+ * {@code cqu.wis:type=UiPerformance}.
+ *
+ * <p>
+ * Durations are in milliseconds and cover everything recorded since start-up
+ * or the last {@link #reset()}.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public interface UiPerformanceMXBean {
+
+    /**
+     * Returns the number of pulses in which a monitored scene ran its CSS and
+     * layout pass.
+     *
+     * @return The scene pulse count.
+     */
+    long getScenePulseCount();
+
+    /**
+     * Returns the mean duration of the CSS and layout pass of a scene pulse.
+     *
+     * @return The mean pulse duration in milliseconds.
+     */
+    double getAveragePulseMillis();
+
+    /**
+     * Returns the longest CSS and layout pass of a scene pulse.
+     *
+     * @return The maximum pulse duration in milliseconds.
+     */
+    double getMaxPulseMillis();
+
+    /**
+     * Returns the number of scene pulses in which the scene's layout had to
+     * be recomputed.
+     *
+     * @return The layout pass count.
+     */
+    long getLayoutPassCount();
+
+    /**
+     * Returns the number of button clicks whose resulting display update has
+     * been applied.
+     *
+     * @return The input latency sample count.
+     */
+    long getInputLatencyCount();
+
+    /**
+     * Returns the mean time from a button click to the application of the
+     * display update it caused.
+     *
+     * @return The mean input latency in milliseconds.
+     */
+    double getAverageInputLatencyMillis();
+
+    /**
+     * Returns the longest time from a button click to the application of the
+     * display update it caused.
+     *
+     * @return The maximum input latency in milliseconds.
+     */
+    double getMaxInputLatencyMillis();
+
+    /**
+     * Returns the number of action handlers that blocked the application
+     * thread for longer than {@link #getLongHandlerThresholdMillis()}.
+     *
+     * @return The long handler count.
+     */
+    long getLongHandlerCount();
+
+    /**
+     * Returns the longest time an action handler blocked the application
+     * thread.
+     *
+     * @return The maximum handler duration in milliseconds.
+     */
+    double getMaxHandlerMillis();
+
+    /**
+     * Returns the scene and control of the longest action handler, for
+     * example {@code QUERY/btnAllMalts}.
+     *
+     * @return The slowest handler, or an empty string if none was recorded.
+     */
+    String getSlowestHandler();
+
+    /**
+     * Returns the duration above which an action handler counts as long.
+     *
+     * @return The threshold in milliseconds.
+     */
+    long getLongHandlerThresholdMillis();
+
+    /**
+     * Returns whether the on-screen overlay is shown.
+     *
+     * @return {@code true} if the overlay is visible.
+     */
+    boolean isOverlayVisible();
+
+    /**
+     * Shows or hides the on-screen overlay.
+     *
+     * @param visible {@code true} to show the overlay.
+     */
+    void setOverlayVisible(boolean visible);
+
+    /**
+     * Clears all recorded measurements.
+     */
+    void reset();
+}
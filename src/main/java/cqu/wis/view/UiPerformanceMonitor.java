@@ -0,0 +1,513 @@
+package cqu.wis.view;
+
+import cqu.wis.log.Log;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCombination;
+import javafx.stage.Popup;
+import javafx.stage.Window;
+import javafx.util.Duration;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures the responsiveness of the application thread for the scenes it is
+ * attached to.
+ *
+ * <p>
+ * For each attached scene the monitor records:</p>
+ * <ul>
+ * <li>the duration of every scene pulse, from the scene's pre-layout to its
+ * post-layout pulse listener, which spans the CSS and layout passes (JavaFX
+ * has no public hook for rendering or for CSS passes on their own);</li>
+ * <li>how many of those pulses had to recompute the layout;</li>
+ * <li>in scenes measured with {@link #measureDisplays}, the time from a click
+ * on one of their buttons to the application of the display update it
+ * caused, that is of the {@link UiUpdateDispatcher} batch holding the last
+ * update the button's handler posted;</li>
+ * <li>the duration of every action handler, counting those above
+ * {@code wis.ui.longHandlerMs} milliseconds (default 50) and remembering the
+ * slowest.</li>
+ * </ul>
+ * <p>
+ * The measurements are published through JMX as a {@link UiPerformanceMXBean}
+ * and can be shown in an overlay window, toggled with Shortcut+Shift+P in any
+ * attached scene or through the {@code OverlayVisible} attribute. Recording
+ * happens on the application thread; the getters may be called from any
+ * thread.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class UiPerformanceMonitor implements UiPerformanceMXBean {
+
+    /**
+     * Logger for failures.
+     */
+    private static final Log LOG = Log.get(UiPerformanceMonitor.class);
+
+    /**
+     * Name under which the monitor is registered with the platform MBean
+     * server.
+     */
+    public static final String OBJECT_NAME = "cqu.wis:type=UiPerformance";
+
+    /**
+     * Key combination that toggles the overlay.
+     */
+    private static final KeyCombination OVERLAY_TOGGLE = KeyCombination.keyCombination("Shortcut+Shift+P");
+
+    /**
+     * Duration in milliseconds above which an action handler counts as long.
+     */
+    private final long longHandlerMillis;
+
+    /**
+     * Durations of the CSS and layout pass of scene pulses.
+     */
+    private final Stat pulses = new Stat();
+
+    /**
+     * Times from a button click to the application of its display update.
+     */
+    private final Stat inputLatency = new Stat();
+
+    /**
+     * Durations of action handlers.
+     */
+    private final Stat handlers = new Stat();
+
+    /**
+     * Scenes the monitor is attached to, used to find the overlay's owner.
+     */
+    private final List<Scene> scenes = new ArrayList<>();
+
+    /**
+     * Number of scene pulses that recomputed the layout.
+     */
+    private long layoutPasses;
+
+    /**
+     * Number of action handlers longer than {@link #longHandlerMillis}.
+     */
+    private long longHandlers;
+
+    /**
+     * Scene and control of the longest action handler.
+     */
+    private String slowestHandler = "";
+
+    /**
+     * Start of the current scene pulse in nanoseconds, used only on the
+     * application thread.
+     */
+    private long pulseStart;
+
+    /**
+     * Whether the root of the current scene pulse needed layout at its start.
+     */
+    private boolean pulseNeedsLayout;
+
+    /**
+     * Time of the button click being handled in a measured scene in
+     * nanoseconds.
+     */
+    private long clickAt;
+
+    /**
+     * Start of the running action handler in nanoseconds.
+     */
+    private long handlerStart;
+
+    /**
+     * The overlay window, created when first shown.
+     */
+    private Popup overlay;
+
+    /**
+     * Text of the overlay.
+     */
+    private Label overlayText;
+
+    /**
+     * Refreshes the overlay while it is visible.
+     */
+    private Timeline overlayRefresh;
+
+    /**
+     * Whether the overlay is requested to be visible.
+     */
+    private volatile boolean overlayVisible;
+
+    /**
+     * Creates a monitor with the long handler threshold from the
+     * {@code wis.ui.longHandlerMs} system property.
+     */
+    public UiPerformanceMonitor() {
+        this(Long.getLong("wis.ui.longHandlerMs", 50));
+    }
+
+    /**
+     * Creates a monitor with an explicit long handler threshold.
+     *
+     * @param longHandlerMillis Duration in milliseconds above which an action
+     * handler counts as long.
+     */
+    UiPerformanceMonitor(long longHandlerMillis) {
+        this.longHandlerMillis = longHandlerMillis;
+    }
+
+    /**
+     * Starts measuring a scene.
+     *
+     * @param name The name reported for handlers in the scene, such as its
+     * scene key.
+     * @param scene The scene. Must not be {@code null}.
+     * @throws NullPointerException If {@code scene} is {@code null}.
+     */
+    public void attach(String name, Scene scene) {
+        if (scene == null) {
+            throw new NullPointerException("Scene cannot be null");
+        }
+        scenes.add(scene);
+        scene.addPreLayoutPulseListener(() -> {
+            pulseStart = System.nanoTime();
+            pulseNeedsLayout = scene.getRoot() != null && scene.getRoot().isNeedsLayout();
+        });
+        scene.addPostLayoutPulseListener(() -> {
+            long now = System.nanoTime();
+            recordPulse(now - pulseStart, pulseNeedsLayout);
+        });
+        scene.addEventFilter(ActionEvent.ACTION, e -> handlerStart = System.nanoTime());
+        scene.addEventHandler(ActionEvent.ACTION, e -> {
+            String control = e.getTarget() instanceof Node node && node.getId() != null
+                    ? node.getId() : e.getTarget().getClass().getSimpleName();
+            recordHandler(name + "/" + control, System.nanoTime() - handlerStart);
+        });
+        scene.getAccelerators().put(OVERLAY_TOGGLE, () -> setOverlayVisible(!overlayVisible));
+    }
+
+    /**
+     * Measures the time from a click on a button of a scene to the
+     * application of the display update it caused. The scene's controller
+     * must make all its display writes through {@code display}; the update is
+     * taken to be applied once every write posted by the button's handler has
+     * been. Writes made later, such as those of a price history read in the
+     * background, are not waited for.
+     *
+     * @param scene The scene. Must not be {@code null}.
+     * @param display The dispatcher the scene's controller writes through.
+     * Must not be {@code null}.
+     * @throws NullPointerException If {@code scene} or {@code display} is
+     * {@code null}.
+     */
+    public void measureDisplays(Scene scene, UiUpdateDispatcher display) {
+        if (scene == null || display == null) {
+            throw new NullPointerException("Scene and dispatcher cannot be null");
+        }
+        scene.addEventFilter(ActionEvent.ACTION, e -> clickAt = System.nanoTime());
+        scene.addEventHandler(ActionEvent.ACTION, e -> {
+            if (e.getTarget() instanceof Button) {
+                displayRequested(clickAt, display);
+            }
+        });
+    }
+
+    /**
+     * Records the latency of a display update once the updates posted so far
+     * have been applied.
+     *
+     * @param clickAt Time of the click in nanoseconds.
+     * @param display The dispatcher the update was posted to.
+     */
+    void displayRequested(long clickAt, UiUpdateDispatcher display) {
+        display.whenApplied(() -> recordInputLatency(System.nanoTime() - clickAt));
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server under
+     * {@link #OBJECT_NAME}. A failure is reported and otherwise ignored.
+     */
+    public void register() {
+        try {
+            register(new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            LOG.warn("Cannot register UI performance monitor", e);
+        }
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server.
+     *
+     * @param name The name to register under.
+     * @throws JMException If the name is taken or registration fails.
+     */
+    void register(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    /**
+     * Records a scene pulse.
+     *
+     * @param nanos Duration of its CSS and layout pass.
+     * @param layout Whether the layout had to be recomputed.
+     */
+    synchronized void recordPulse(long nanos, boolean layout) {
+        pulses.record(nanos);
+        if (layout) {
+            layoutPasses++;
+        }
+    }
+
+    /**
+     * Records the time from a button click to the application of its display
+     * update.
+     *
+     * @param nanos The latency.
+     */
+    synchronized void recordInputLatency(long nanos) {
+        inputLatency.record(nanos);
+    }
+
+    /**
+     * Records an action handler.
+     *
+     * @param handler The scene and control that handled the action.
+     * @param nanos How long the handler ran.
+     */
+    synchronized void recordHandler(String handler, long nanos) {
+        if (nanos > handlers.max) {
+            slowestHandler = handler;
+        }
+        handlers.record(nanos);
+        if (nanos > longHandlerMillis * 1_000_000) {
+            longHandlers++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getScenePulseCount() {
+        return pulses.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double getAveragePulseMillis() {
+        return pulses.averageMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double getMaxPulseMillis() {
+        return pulses.max / 1e6;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getLayoutPassCount() {
+        return layoutPasses;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getInputLatencyCount() {
+        return inputLatency.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double getAverageInputLatencyMillis() {
+        return inputLatency.averageMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double getMaxInputLatencyMillis() {
+        return inputLatency.max / 1e6;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getLongHandlerCount() {
+        return longHandlers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double getMaxHandlerMillis() {
+        return handlers.max / 1e6;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String getSlowestHandler() {
+        return slowestHandler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongHandlerThresholdMillis() {
+        return longHandlerMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * May be called from any thread; the overlay is changed on the
+     * application thread.</p>
+     */
+    @Override
+    public void setOverlayVisible(boolean visible) {
+        overlayVisible = visible;
+        if (Platform.isFxApplicationThread()) {
+            updateOverlay();
+        } else {
+            Platform.runLater(this::updateOverlay);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void reset() {
+        pulses.reset();
+        inputLatency.reset();
+        handlers.reset();
+        layoutPasses = 0;
+        longHandlers = 0;
+        slowestHandler = "";
+    }
+
+    /**
+     * Returns a one-line-per-metric summary, as shown in the overlay.
+     *
+     * @return The summary.
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("pulse  avg %.1f ms  max %.1f ms  (%d, %d layout)%n"
+                + "input  avg %.1f ms  max %.1f ms  (%d)%n"
+                + "handler max %.1f ms  %s  (%d long)",
+                pulses.averageMillis(), pulses.max / 1e6, pulses.count, layoutPasses,
+                inputLatency.averageMillis(), inputLatency.max / 1e6, inputLatency.count,
+                handlers.max / 1e6, slowestHandler, longHandlers);
+    }
+
+    /**
+     * Shows or hides the overlay to match {@link #overlayVisible}, over the
+     * window of the attached scene that is showing.
+     */
+    private void updateOverlay() {
+        if (overlay == null) {
+            overlayText = new Label();
+            overlayText.setStyle("-fx-background-color: rgba(0,0,0,0.75); -fx-text-fill: white;"
+                    + " -fx-font-family: monospace; -fx-padding: 6;");
+            overlayText.setMouseTransparent(true);
+            overlay = new Popup();
+            overlay.getContent().add(overlayText);
+            overlayRefresh = new Timeline(new KeyFrame(Duration.millis(500), e -> overlayText.setText(toString())));
+            overlayRefresh.setCycleCount(Timeline.INDEFINITE);
+        }
+        Window owner = scenes.stream().map(Scene::getWindow)
+                .filter(w -> w != null && w.isShowing()).findFirst().orElse(null);
+        if (overlayVisible && owner != null) {
+            overlayText.setText(toString());
+            overlay.show(owner, owner.getX() + 8, owner.getY() + 32);
+            overlayRefresh.play();
+        } else {
+            overlayRefresh.stop();
+            overlay.hide();
+        }
+    }
+
+    /**
+     * Count, total and maximum of a series of durations.
+     */
+    private static final class Stat {
+
+        /**
+         * Number of durations recorded.
+         */
+        long count;
+
+        /**
+         * Sum of the durations in nanoseconds.
+         */
+        long total;
+
+        /**
+         * Longest duration in nanoseconds.
+         */
+        long max;
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos The duration.
+         */
+        void record(long nanos) {
+            count++;
+            total += nanos;
+            max = Math.max(max, nanos);
+        }
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return The mean in milliseconds, or 0 if none were recorded.
+         */
+        double averageMillis() {
+            return count == 0 ? 0 : total / 1e6 / count;
+        }
+
+        /**
+         * Clears the recorded durations.
+         */
+        void reset() {
+            count = 0;
+            total = 0;
+            max = 0;
+        }
+    }
+}
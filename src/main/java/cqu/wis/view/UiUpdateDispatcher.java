@@ -0,0 +1,221 @@
+package cqu.wis.view;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.scene.control.TextInputControl;
+
+/**
+ * Applies updates to JavaFX controls on the application thread, coalescing
+ * updates to the same control.
+ *
+ * <p>
+ * Updates may be posted from any thread. Each update is keyed, normally by the
+ * control it changes; while an update for a key is waiting, posting another
+ * for the same key replaces it, so only the latest value reaches the control
+ * and superseded ones are dropped. Waiting updates are applied in the order
+ * their keys were first posted, in a single {@link Platform#runLater} batch.
+ * A batch stops after {@code wis.ui.maxUpdatesPerPulse} updates (default 64)
+ * or {@code wis.ui.pulseBudgetMs} milliseconds (default 4) and schedules the
+ * rest for a later batch, so a heavy stream of results cannot starve
+ * rendering.</p>
+ *
+ * <p>
+ * All writes to a control that is updated through a dispatcher must go
+ * through it; a direct write could otherwise be overwritten by an older
+ * update that is still waiting.</p>
+ *
+ * @author Prajita Bhandari
+ */
+public final class UiUpdateDispatcher {
+
+    /**
+     * Default maximum number of updates applied per batch.
+     */
+    private static final int DEFAULT_MAX_PER_PULSE = Integer.getInteger("wis.ui.maxUpdatesPerPulse", 64);
+
+    /**
+     * Default time budget of a batch in nanoseconds.
+     */
+    private static final long DEFAULT_BUDGET_NANOS = Long.getLong("wis.ui.pulseBudgetMs", 4) * 1_000_000;
+
+    /**
+     * Schedules a batch on the application thread.
+     */
+    private final Consumer<Runnable> scheduler;
+
+    /**
+     * Maximum number of updates applied per batch.
+     */
+    private final int maxPerPulse;
+
+    /**
+     * Time budget of a batch in nanoseconds.
+     */
+    private final long budgetNanos;
+
+    /**
+     * The latest waiting update for each key.
+     */
+    private final Map<Object, Runnable> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Keys with a waiting update, in the order they were first posted.
+     */
+    private final Queue<Object> order = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a batch is scheduled and not yet started.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Number of updates applied.
+     */
+    private final AtomicLong applied = new AtomicLong();
+
+    /**
+     * Number of updates replaced before they were applied.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a dispatcher that applies updates through
+     * {@link Platform#runLater}, with the limits from the system properties.
+     */
+    public UiUpdateDispatcher() {
+        this(Platform::runLater, DEFAULT_MAX_PER_PULSE, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Creates a dispatcher with an explicit scheduler and limits.
+     *
+     * @param scheduler Runs a batch on the application thread.
+     * @param maxPerPulse The maximum number of updates applied per batch. Must
+     * be positive.
+     * @param budgetNanos The time budget of a batch in nanoseconds.
+     * @throws NullPointerException If {@code scheduler} is {@code null}.
+     * @throws IllegalArgumentException If {@code maxPerPulse} is not positive.
+     */
+    UiUpdateDispatcher(Consumer<Runnable> scheduler, int maxPerPulse, long budgetNanos) {
+        if (scheduler == null) {
+            throw new NullPointerException("Scheduler cannot be null");
+        }
+        if (maxPerPulse <= 0) {
+            throw new IllegalArgumentException("Updates per pulse must be positive");
+        }
+        this.scheduler = scheduler;
+        this.maxPerPulse = maxPerPulse;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Posts an update, replacing any update for the same key that is still
+     * waiting.
+     *
+     * @param key Identifies what the update changes, normally the control.
+     * Must not be {@code null}.
+     * @param update Changes the control; runs on the application thread. Must
+     * not be {@code null}.
+     * @throws NullPointerException If {@code key} or {@code update} is
+     * {@code null}.
+     */
+    public void post(Object key, Runnable update) {
+        if (key == null || update == null) {
+            throw new NullPointerException("Key and update cannot be null");
+        }
+        if (pending.put(key, update) == null) {
+            order.add(key);
+        } else {
+            dropped.incrementAndGet();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.accept(this::drain);
+        }
+    }
+
+    /**
+     * Posts an update setting the text of a control.
+     *
+     * @param control The control. Must not be {@code null}.
+     * @param text The new text; {@code null} clears the control.
+     * @throws NullPointerException If {@code control} is {@code null}.
+     */
+    public void setText(TextInputControl control, String text) {
+        post(control, () -> control.setText(text));
+    }
+
+    /**
+     * Runs an action on the application thread once every update posted
+     * before it has been applied, in the batch that applies the last of them.
+     * The action is not counted as an update and is never replaced.
+     *
+     * @param action The action. Must not be {@code null}.
+     * @throws NullPointerException If {@code action} is {@code null}.
+     */
+    public void whenApplied(Runnable action) {
+        post(new Marker(), action);
+    }
+
+    /**
+     * Returns the number of updates applied so far.
+     *
+     * @return The applied update count.
+     */
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    /**
+     * Returns the number of updates dropped because a newer update for the
+     * same key was posted before they were applied.
+     *
+     * @return The dropped update count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Applies waiting updates within the batch limits, scheduling another
+     * batch if any remain. An update that throws is reported to the thread's
+     * uncaught exception handler and does not stop the batch.
+     */
+    private void drain() {
+        scheduled.set(false);
+        long deadline = System.nanoTime() + budgetNanos;
+        int count = 0;
+        Object key;
+        while ((key = order.peek()) != null) {
+            if (count == maxPerPulse || (count > 0 && System.nanoTime() - deadline >= 0)) {
+                if (scheduled.compareAndSet(false, true)) {
+                    scheduler.accept(this::drain);
+                }
+                return;
+            }
+            order.poll();
+            Runnable update = pending.remove(key);
+            count++;
+            try {
+                update.run();
+                if (!(key instanceof Marker)) {
+                    applied.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, e);
+            }
+        }
+    }
+
+    /**
+     * Key of an action posted by {@link #whenApplied}, unique to it.
+     */
+    private static final class Marker {
+    }
+}
@@ -29,6 +29,34 @@ module cqu.wis {
     requires java.base;
     requires java.sql;
 
+    /**
+     * Requires the Flight Recorder module to emit custom profiling events for
+     * queries, logins and scene switches.
+     */
+    requires jdk.jfr;
+
+    /**
+     * Requires the logging module for the rotating slow-query log file.
+     */
+    requires java.logging;
+
+    /**
+     * Requires the JDK HTTP server module for the headless query server mode.
+     */
+    requires jdk.httpserver;
+
+    /**
+     * Requires the management module to publish UI performance measurements
+     * through JMX.
+     */
+    requires java.management;
+
+    /**
+     * Optionally uses the incubating Vector API for columnar filtering; only
+     * read when the JVM is started with --add-modules jdk.incubator.vector.
+     */
+    requires static jdk.incubator.vector;
+
     /**
      * Opens the 'cqu.wis' package to javafx.fxml to allow reflective access during FXML loading.
      */
@@ -0,0 +1,148 @@
+package cqu.wis.data;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AuditLog}.
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<String> readAll(Path dir) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                lines.addAll(Files.readAllLines(file));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Verifies that every event recorded by concurrent callers is written,
+     * even when they overrun a small buffer, and that values are escaped.
+     *
+     * @throws Exception If the log cannot be read.
+     */
+    @Test
+    public void testConcurrentEventsAreAllWritten() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        try (AuditLog log = new AuditLog(dir, 64, 100L * 1024 * 1024, 2)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String user = "user" + t;
+                Thread p = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.record(AuditLog.Type.LOGIN, user, i % 2 == 0, "Incorrect password.");
+                    }
+                });
+                producers.add(p);
+                p.start();
+            }
+            for (Thread p : producers) {
+                p.join();
+            }
+            log.record(AuditLog.Type.PASSWORD_CHANGE, "a\"b", true, "line\nbreak");
+            log.flush();
+
+            List<String> lines = Files.readAllLines(dir.resolve(AuditLog.FILE_NAME));
+            assertEquals(threads * perThread + 1, lines.size());
+            for (int t = 0; t < threads; t++) {
+                String user = "\"user\":\"user" + t + "\"";
+                assertEquals(perThread, lines.stream().filter(l -> l.contains(user)).count());
+            }
+            String last = lines.get(lines.size() - 1);
+            assertTrue(last.contains("\"type\":\"PASSWORD_CHANGE\""), last);
+            assertTrue(last.contains("\"user\":\"a\\\"b\""), last);
+            assertTrue(last.contains("\"outcome\":\"line\\nbreak\""), last);
+            assertEquals(0, log.getFailedCount());
+        }
+    }
+
+    /**
+     * Verifies that the file is rotated at its size limit, that only the
+     * configured number of old files is kept, and that close writes the
+     * remaining events.
+     *
+     * @throws Exception If the log cannot be read.
+     */
+    @Test
+    public void testRotation() throws Exception {
+        try (AuditLog log = new AuditLog(dir, 1024, 1_000, 2)) {
+            for (int i = 0; i < 100; i++) {
+                log.record(AuditLog.Type.LOGIN, "user" + i, true, "Login successful.");
+                log.flush();
+            }
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(AuditLog.FILE_NAME, AuditLog.FILE_NAME + ".1", AuditLog.FILE_NAME + ".2"),
+                    files.map(p -> p.getFileName().toString()).sorted().toList());
+        }
+        for (String name : List.of(AuditLog.FILE_NAME, AuditLog.FILE_NAME + ".1")) {
+            assertTrue(Files.size(dir.resolve(name)) <= 1_000, name);
+        }
+        List<String> lines = readAll(dir);
+        assertTrue(lines.stream().anyMatch(l -> l.contains("\"user\":\"user99\"")));
+        assertFalse(lines.stream().anyMatch(l -> l.contains("\"user\":\"user0\"")));
+    }
+
+    /**
+     * Verifies that events that cannot be written are kept and written once
+     * the directory becomes writable, and that flush reports the outage
+     * meanwhile.
+     *
+     * @throws Exception If the log cannot be read.
+     */
+    @Test
+    public void testFailedWritesAreRetried() throws Exception {
+        Path blocked = dir.resolve("blocked");
+        Files.createFile(blocked);
+        try (AuditLog log = new AuditLog(blocked, 64, 100_000, 1)) {
+            log.record(AuditLog.Type.LOGIN, "user0", false, "Incorrect password.");
+            assertThrows(UncheckedIOException.class, log::flush);
+
+            Files.delete(blocked);
+            log.record(AuditLog.Type.LOGIN, "user1", true, "Login successful.");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (true) {
+                try {
+                    log.flush();
+                    break;
+                } catch (UncheckedIOException e) {
+                    assertTrue(System.currentTimeMillis() < deadline, "events were not retried");
+                    Thread.sleep(20);
+                }
+            }
+            assertEquals(0, log.getFailedCount(), "no event should be discarded");
+        }
+        List<String> lines = Files.readAllLines(blocked.resolve(AuditLog.FILE_NAME));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"user\":\"user0\""), lines.get(0));
+    }
+
+    /**
+     * Verifies that recording after close fails instead of silently dropping
+     * the event.
+     */
+    @Test
+    public void testRecordAfterCloseFails() {
+        AuditLog log = new AuditLog(dir, 64, 100_000, 1);
+        log.close();
+        assertThrows(IllegalStateException.class,
+                () -> log.record(AuditLog.Type.LOGIN, "user0", true, "Login successful."));
+    }
+}
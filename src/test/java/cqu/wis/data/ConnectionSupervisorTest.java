@@ -0,0 +1,153 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConnectionSupervisor}.
+ * <p>
+ * These tests break the active connection of an embedded database and verify
+ * that the supervisor fails over to a working connection.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ConnectionSupervisorTest {
+
+    private String url;
+    private ConnectionSupervisor supervisor;
+
+    /**
+     * Creates the embedded database and a supervisor before each test.
+     *
+     * @throws SQLException if the database cannot be created.
+     */
+    @BeforeEach
+    public void setup() throws SQLException {
+        url = EmbeddedDatabase.createWhiskey("supervisor", 10);
+        supervisor = new ConnectionSupervisor(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+    }
+
+    /**
+     * Closes the supervisor after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        supervisor.close();
+    }
+
+    /**
+     * Verifies that a dead connection is replaced and the generation
+     * advances.
+     *
+     * @throws SQLException if the database cannot be reached.
+     */
+    @Test
+    public void testRecoverReplacesBrokenConnection() throws SQLException {
+        Connection first = supervisor.getConnection();
+        long generation = supervisor.getGeneration();
+        first.close();
+        assertTrue(supervisor.recover(new SQLException("closed"), first));
+        Connection second = supervisor.getConnection();
+        assertNotSame(first, second);
+        assertTrue(second.isValid(1));
+        assertEquals(generation + 1, supervisor.getGeneration());
+    }
+
+    /**
+     * Verifies that a statement error on a healthy connection does not cause a
+     * failover.
+     */
+    @Test
+    public void testStatementErrorKeepsConnection() {
+        Connection first = supervisor.getConnection();
+        assertFalse(supervisor.recover(new SQLSyntaxErrorException("bad SQL", "42000"), first));
+        assertSame(first, supervisor.getConnection());
+    }
+
+    /**
+     * Verifies that a statement error is rejected without probing the
+     * connection, so even a closed connection is left for the monitor.
+     *
+     * @throws SQLException if the database cannot be reached.
+     */
+    @Test
+    public void testStatementErrorSkipsProbe() throws SQLException {
+        Connection first = supervisor.getConnection();
+        first.close();
+        assertFalse(supervisor.recover(new SQLException("no such table", "42S02"), first));
+        assertFalse(supervisor.recover(new SQLException("division by zero", "22012"), first));
+        assertSame(first, supervisor.getConnection(), "a statement error should not fail over");
+        assertTrue(supervisor.recover(new SQLException("unknown", "HY000"), first),
+                "an unclassified error should be probed and fail over");
+    }
+
+    /**
+     * Verifies that MySQL connections get connect and socket timeouts and
+     * other drivers only the credentials.
+     */
+    @Test
+    public void testConnectionProperties() {
+        Properties mysql = ConnectionSupervisor.connectionProperties("jdbc:mysql://localhost/WHISKEY", "u", "p");
+        assertEquals("u", mysql.getProperty("user"));
+        assertEquals(String.valueOf(ConnectionSupervisor.CONNECT_TIMEOUT_MILLIS), mysql.getProperty("connectTimeout"));
+        assertEquals(String.valueOf(ConnectionSupervisor.SOCKET_TIMEOUT_MILLIS), mysql.getProperty("socketTimeout"));
+        Properties h2 = ConnectionSupervisor.connectionProperties(url, "u", "p");
+        assertNull(h2.getProperty("connectTimeout"));
+        assertEquals("p", h2.getProperty("password"));
+    }
+
+    /**
+     * Verifies that a data access object keeps answering after its connection
+     * is replaced.
+     *
+     * @throws SQLException if the database cannot be reached.
+     */
+    @Test
+    public void testWhiskeyDataSurvivesFailover() throws SQLException {
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            assertEquals(10, wd.getAllMalts().size());
+            wd.getSupervisor().getConnection().close();
+            assertEquals(10, wd.getAllMalts().size(), "query should be retried on the standby");
+        } finally {
+            wd.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a stream broken after some rows were delivered is
+     * reported as a failure rather than as a shorter catalog.
+     *
+     * @throws SQLException if the database cannot be reached.
+     */
+    @Test
+    public void testTruncatedStreamFails() throws SQLException {
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            int[] delivered = {0};
+            DataAccessException e = assertThrows(DataAccessException.class, () -> wd.forEachMalt(d -> {
+                if (++delivered[0] == 3) {
+                    try {
+                        wd.getSupervisor().getConnection().close();
+                    } catch (SQLException ex) {
+                        fail(ex);
+                    }
+                }
+            }));
+            assertEquals(3, delivered[0], "rows must not be repeated or retried");
+            assertTrue(e.getMessage().contains("after 3 rows"), e.getMessage());
+        } finally {
+            wd.disconnect();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DataPool}.
+ * <p>
+ * The pool is filled with plain objects, and each borrower checks that no
+ * other caller holds its member at the same time.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class DataPoolTest {
+
+    /**
+     * Verifies that each member is lent to one caller at a time and that no
+     * more callers than members run at once.
+     *
+     * @throws Exception If a borrowing thread fails.
+     */
+    @Test
+    public void testMembersAreLentExclusively() throws Exception {
+        DataPool<Object> pool = new DataPool<>(2, Object::new);
+        Set<Object> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                results.add(threads.submit(() -> pool.call(member -> {
+                    boolean exclusive = inUse.add(member);
+                    peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.decrementAndGet();
+                    inUse.remove(member);
+                    return exclusive;
+                })));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS), "a member was lent to two callers at once");
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        assertTrue(peak.get() <= 2, "more callers than members ran at once");
+        assertEquals(2, pool.members().size());
+    }
+
+    /**
+     * Verifies that a member is returned to the pool when the work throws.
+     */
+    @Test
+    public void testMemberReturnedAfterFailure() {
+        DataPool<Object> pool = new DataPool<>(1, Object::new);
+        assertThrows(IllegalStateException.class, () -> pool.call(member -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertSame(pool.members().get(0), pool.call(member -> member), "the member should be available again");
+        assertThrows(IllegalArgumentException.class, () -> new DataPool<>(0, Object::new));
+    }
+}
@@ -0,0 +1,108 @@
+package cqu.wis.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DiskResultCache}.
+ * <p>
+ * These tests verify that results survive a new cache instance, that corrupt
+ * files are discarded and that the size limit is enforced.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class DiskResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<WhiskeyData.WhiskeyDetails> records = List.of(
+            new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 120),
+            new WhiskeyData.WhiskeyDetails("Glen Scotia", 15, "Campbeltown", 95),
+            new WhiskeyData.WhiskeyDetails("Bruichladdich", 0, null, -1));
+
+    /**
+     * Verifies that a stored result is read back by a new instance, as after
+     * a restart.
+     */
+    @Test
+    public void testRoundTripAcrossInstances() {
+        new DiskResultCache(dir, 1 << 20).put("region:Islay", records);
+        DiskResultCache.Entry entry = new DiskResultCache(dir, 1 << 20).get("region:Islay");
+        assertNotNull(entry);
+        assertEquals(records, entry.records());
+        assertNull(new DiskResultCache(dir, 1 << 20).get("region:Speyside"));
+    }
+
+    /**
+     * Verifies that a file with a flipped byte fails its checksum and is
+     * deleted.
+     *
+     * @throws IOException if the cache file cannot be modified.
+     */
+    @Test
+    public void testCorruptFileIsDiscarded() throws IOException {
+        DiskResultCache cache = new DiskResultCache(dir, 1 << 20);
+        cache.put("all", records);
+        Path file;
+        try (Stream<Path> files = Files.list(dir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] data = Files.readAllBytes(file);
+        data[data.length / 2] ^= 0x40;
+        Files.write(file, data);
+        assertNull(cache.get("all"));
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Verifies that the least recently used results are evicted when the cache
+     * grows past its limit.
+     */
+    @Test
+    public void testEvictsToSizeLimit() {
+        List<WhiskeyData.WhiskeyDetails> big = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            big.add(new WhiskeyData.WhiskeyDetails("Distillery" + i, i, "Highland", 50 + i));
+        }
+        int entrySize = DiskResultCache.encode("age:0", big, 0).length;
+        DiskResultCache cache = new DiskResultCache(dir, entrySize * 3L);
+        for (int i = 0; i < 10; i++) {
+            cache.put("age:" + i, big);
+        }
+        assertTrue(cache.getSizeBytes() <= entrySize * 3L);
+        assertNotNull(cache.get("age:9"), "most recent result should be kept");
+    }
+
+    /**
+     * Verifies that the cache is used again once a directory that could not
+     * be written becomes writable.
+     *
+     * @throws Exception If the blocking file cannot be created or removed.
+     */
+    @Test
+    public void testRetriesAfterFailedWrite() throws Exception {
+        Path blocked = dir.resolve("blocked");
+        Files.createFile(blocked);
+        DiskResultCache cache = new DiskResultCache(blocked, 1 << 20);
+        cache.put("all", records);
+        assertNull(cache.get("all"));
+
+        Files.delete(blocked);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.get("all") == null && System.currentTimeMillis() < deadline) {
+            cache.put("all", records);
+            Thread.sleep(50);
+        }
+        assertNotNull(cache.get("all"), "the cache should be retried after a failed write");
+    }
+}
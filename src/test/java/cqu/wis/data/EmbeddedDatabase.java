@@ -0,0 +1,239 @@
+package cqu.wis.data;
+
+import cqu.wis.roles.UserDataValidator;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Embedded in-memory H2 databases standing in for the MySQL WHISKEY and USERS
+ * databases in tests.
+ * <p>
+ * Each database is identified by name and lives until the JVM exits, so
+ * several independent databases can be created in one test run.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public final class EmbeddedDatabase {
+
+    /**
+     * Username for every embedded database.
+     */
+    public static final String USER = "sa";
+
+    /**
+     * Password for every embedded database.
+     */
+    public static final String PASSWORD = "";
+
+    /**
+     * Regions used when generating whiskey rows.
+     */
+    public static final String[] REGIONS = {"Islay", "Speyside", "Highland", "Lowland", "Campbeltown"};
+
+    /**
+     * Plain-text password of every generated user.
+     */
+    public static final String USER_PASSWORD = "Passw0rd!";
+
+    /**
+     * Whether tables passed to {@link #slowDown(String, String, long)} are
+     * currently slow.
+     */
+    private static volatile boolean slow;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Returns the JDBC URL of the named embedded database.
+     *
+     * @param name the database name.
+     * @return the JDBC URL.
+     */
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Creates (or recreates) a WHISKEY stand-in with generated rows. Row
+     * {@code i} has distillery {@code "Distillery" + i}, region
+     * {@code REGIONS[i % REGIONS.length]}, age {@code 3 + i % 30} and price
+     * {@code 40 + i % 200}.
+     *
+     * @param name the database name.
+     * @param rows the number of rows to generate.
+     * @return the JDBC URL of the database.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static String createWhiskey(String name, int rows) throws SQLException {
+        return createWhiskey(name, rows, REGIONS);
+    }
+
+    /**
+     * Creates (or recreates) a WHISKEY stand-in whose generated rows are all
+     * from the given regions.
+     *
+     * @param name the database name.
+     * @param rows the number of rows to generate.
+     * @param regions the regions to cycle through.
+     * @return the JDBC URL of the database.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static String createWhiskey(String name, int rows, String... regions) throws SQLException {
+        String url = url(name);
+        try (Connection c = DriverManager.getConnection(url, USER, PASSWORD);
+                Statement st = c.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SINGLEMALTS");
+            st.execute("CREATE TABLE SINGLEMALTS (DISTILLERY VARCHAR(64), AGE INT, REGION VARCHAR(32), PRICE INT)");
+            st.execute("CREATE INDEX SINGLEMALTS_REGION ON SINGLEMALTS (REGION)");
+            st.execute("CREATE INDEX SINGLEMALTS_AGE ON SINGLEMALTS (AGE)");
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO SINGLEMALTS VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    ps.setString(1, "Distillery" + i);
+                    ps.setInt(2, 3 + i % 30);
+                    ps.setString(3, regions[i % regions.length]);
+                    ps.setInt(4, 40 + i % 200);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Creates (or recreates) a PRICEHISTORY table in the named database for
+     * malts {@code "Distillery0"} to {@code "Distillery(malts-1)"}. Change
+     * {@code j} of malt {@code i} is dated {@code start + 7 * j} days and
+     * priced {@link #historicPrice(int, int)}.
+     *
+     * @param name the database name.
+     * @param malts the number of malts.
+     * @param changes the number of price changes of each malt.
+     * @param start the date of each malt's first change.
+     * @return the JDBC URL of the database.
+     * @throws SQLException if the table cannot be created.
+     */
+    public static String createPriceHistory(String name, int malts, int changes, LocalDate start)
+            throws SQLException {
+        String url = url(name);
+        try (Connection c = DriverManager.getConnection(url, USER, PASSWORD);
+                Statement st = c.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS PRICEHISTORY");
+            st.execute("CREATE TABLE PRICEHISTORY (DISTILLERY VARCHAR(64) NOT NULL, PRICEDATE DATE NOT NULL,"
+                    + " PRICE INT NOT NULL, PRIMARY KEY (DISTILLERY, PRICEDATE))");
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO PRICEHISTORY VALUES (?, ?, ?)")) {
+                for (int i = 0; i < malts; i++) {
+                    for (int j = 0; j < changes; j++) {
+                        ps.setString(1, "Distillery" + i);
+                        ps.setDate(2, Date.valueOf(start.plusDays(7L * j)));
+                        ps.setInt(3, historicPrice(i, j));
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Returns the generated price of change {@code j} of malt {@code i} in
+     * {@link #createPriceHistory(String, int, int, LocalDate)}.
+     *
+     * @param i the malt.
+     * @param j the change.
+     * @return the price.
+     */
+    public static int historicPrice(int i, int j) {
+        return 40 + i % 200 + (j * 37 + i) % 23;
+    }
+
+    /**
+     * Creates (or recreates) a USERS stand-in with users {@code user0} to
+     * {@code user(count-1)}, all with the SHA‐1 hash of
+     * {@link #USER_PASSWORD}.
+     *
+     * @param name the database name.
+     * @param count the number of users to generate.
+     * @return the JDBC URL of the database.
+     * @throws SQLException if the database cannot be created.
+     */
+    public static String createUsers(String name, int count) throws SQLException {
+        String url = url(name);
+        String hash = UserDataValidator.generateSHA1(USER_PASSWORD);
+        try (Connection c = DriverManager.getConnection(url, USER, PASSWORD);
+                Statement st = c.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS PASSWORDS");
+            st.execute("CREATE TABLE PASSWORDS (USERNAME VARCHAR(64) PRIMARY KEY, PASSWORD VARCHAR(64))");
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO PASSWORDS VALUES (?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    ps.setString(1, "user" + i);
+                    ps.setString(2, hash);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Makes queries on a table slow while {@link #setSlow(boolean)} is on, by
+     * replacing the table with a view whose rows each wait about
+     * {@code millis} milliseconds, one millisecond per row of an inner range.
+     * H2 checks the query timeout while scanning that range, so a statement
+     * whose budget is shorter than the wait fails with a timeout. Call this
+     * before preparing statements on the table.
+     *
+     * @param url the JDBC URL of the database.
+     * @param table the table to slow down.
+     * @param millis roughly how long each row waits.
+     * @throws SQLException if the view cannot be created.
+     */
+    public static void slowDown(String url, String table, long millis) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, USER, PASSWORD);
+                Statement st = c.createStatement()) {
+            st.execute("CREATE ALIAS IF NOT EXISTS PAUSE FOR \"" + EmbeddedDatabase.class.getName() + ".pause\"");
+            st.execute("ALTER TABLE " + table + " RENAME TO " + table + "_DATA");
+            st.execute("CREATE VIEW " + table + " AS SELECT * FROM " + table + "_DATA WHERE"
+                    + " (SELECT COUNT(*) FROM SYSTEM_RANGE(1, " + millis + ") WHERE PAUSE(X)) = " + millis);
+        }
+    }
+
+    /**
+     * Turns the waits of tables passed to
+     * {@link #slowDown(String, String, long)} on or off.
+     *
+     * @param on {@code true} to make their queries slow.
+     */
+    public static void setSlow(boolean on) {
+        slow = on;
+    }
+
+    /**
+     * Waits a millisecond while {@link #setSlow(boolean)} is on, and accepts
+     * the row; called by H2 through the {@code PAUSE} alias created by
+     * {@link #slowDown(String, String, long)}.
+     *
+     * @param tick the row of the inner range being scanned; unused.
+     * @return always {@code true}.
+     */
+    public static boolean pause(long tick) {
+        if (slow) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+}
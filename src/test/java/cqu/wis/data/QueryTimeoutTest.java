@@ -0,0 +1,104 @@
+package cqu.wis.data;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link LatencyBudget} timeout path.
+ * <p>
+ * Tables of embedded databases are slowed down past the budgets of the
+ * queries under test while they run. The budgets are set to one second when
+ * this class is the first to use {@link LatencyBudget}; otherwise the
+ * defaults apply and the tests only take longer. H2 applies the last query
+ * timeout set on any statement to its whole connection, so each table waits
+ * longer than every budget prepared on that connection.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class QueryTimeoutTest {
+
+    static {
+        for (String budget : new String[]{"allMalts", "regionSearch", "ageSearch", "login", "passwordUpdate"}) {
+            System.setProperty("wis.budget." + budget + "Ms", "1000");
+        }
+    }
+
+    /**
+     * Returns a wait that exceeds all the given budgets.
+     *
+     * @param budgets the budgets applied on one connection.
+     * @return the wait in milliseconds.
+     */
+    private static long beyond(LatencyBudget... budgets) {
+        long longest = 0;
+        for (LatencyBudget budget : budgets) {
+            longest = Math.max(longest, budget.getMillis());
+        }
+        return longest + 500;
+    }
+
+    /**
+     * Verifies that a region search running past its budget is reported as a
+     * {@link QueryTimeoutException} rather than as a failure or an empty
+     * result, and that the connection is kept and answers the next query.
+     *
+     * @throws SQLException if the embedded database cannot be created.
+     */
+    @Test
+    public void testWhiskeyQueryTimesOut() throws SQLException {
+        String url = EmbeddedDatabase.createWhiskey("timeoutWhiskey", 10);
+        EmbeddedDatabase.slowDown(url, "SINGLEMALTS", beyond(LatencyBudget.ALL_MALTS,
+                LatencyBudget.REGION_SEARCH, LatencyBudget.AGE_SEARCH));
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            long generation = wd.getSupervisor().getGeneration();
+            EmbeddedDatabase.setSlow(true);
+            QueryTimeoutException e = assertThrows(QueryTimeoutException.class,
+                    () -> wd.getMaltsFromRegion("Islay"));
+            assertSame(LatencyBudget.REGION_SEARCH, e.getBudget());
+            assertInstanceOf(SQLTimeoutException.class, e.getCause());
+
+            EmbeddedDatabase.setSlow(false);
+            List<WhiskeyData.WhiskeyDetails> malts = wd.getMaltsFromRegion("Islay");
+            assertEquals(2, malts.size());
+            assertEquals(generation, wd.getSupervisor().getGeneration(), "a timeout must not replace the connection");
+        } finally {
+            EmbeddedDatabase.setSlow(false);
+            wd.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a user lookup running past its budget is reported as a
+     * {@link QueryTimeoutException} rather than as an unknown user, and that
+     * the connection is kept and answers the next lookup.
+     *
+     * @throws SQLException if the embedded database cannot be created.
+     */
+    @Test
+    public void testUserLookupTimesOut() throws SQLException {
+        String url = EmbeddedDatabase.createUsers("timeoutUsers", 3);
+        EmbeddedDatabase.slowDown(url, "PASSWORDS", beyond(LatencyBudget.LOGIN, LatencyBudget.PASSWORD_UPDATE));
+        UserData ud = new UserData();
+        ud.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            long generation = ud.getSupervisor().getGeneration();
+            EmbeddedDatabase.setSlow(true);
+            QueryTimeoutException e = assertThrows(QueryTimeoutException.class, () -> ud.findUser("user0"));
+            assertSame(LatencyBudget.LOGIN, e.getBudget());
+
+            EmbeddedDatabase.setSlow(false);
+            assertNotNull(ud.findUser("user0"));
+            assertEquals(generation, ud.getSupervisor().getGeneration(), "a timeout must not replace the connection");
+        } finally {
+            EmbeddedDatabase.setSlow(false);
+            ud.disconnect();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package cqu.wis.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RoutedUserData} and {@link RoutedWhiskeyData}.
+ * <p>
+ * Two embedded databases stand in for a primary and a replica. They are not
+ * actually replicated: the replica holds different data, so each result
+ * shows which database served it, and the replica's lag is set by the test.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ReplicaRoutingTest {
+
+    private static final long MAX_LAG_MILLIS = 1_000;
+
+    /**
+     * Long enough that no scheduled measurement runs during a test.
+     */
+    private static final long CHECK_MILLIS = 60_000;
+
+    private final AtomicLong replicaLag = new AtomicLong();
+
+    private final ReplicationLag probe = c -> replicaLag.get();
+
+    private RoutedUserData users(String name) throws Exception {
+        String primary = EmbeddedDatabase.createUsers(name + "Primary", 10);
+        String replica = EmbeddedDatabase.createUsers(name + "Replica", 10);
+        try (Connection c = DriverManager.getConnection(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+                Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE PASSWORDS SET PASSWORD = 'REPLICA'");
+        }
+        RoutedUserData ud = new RoutedUserData(
+                new DatabaseEndpoint(primary, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD),
+                List.of(new DatabaseEndpoint(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD)),
+                probe, MAX_LAG_MILLIS, CHECK_MILLIS);
+        ud.connect();
+        return ud;
+    }
+
+    /**
+     * Verifies that lookups go to a replica within the lag limit and to the
+     * primary once the replica falls behind.
+     *
+     * @throws Exception If the embedded databases cannot be created.
+     */
+    @Test
+    public void testLagAwareReads() throws Exception {
+        RoutedUserData ud = users("rwLag");
+        try {
+            assertEquals("REPLICA", ud.findUser("user1").password());
+            replicaLag.set(5_000);
+            ud.checkReplicas();
+            assertEquals(List.of(5_000L), ud.getReplicaLags());
+            assertNotEquals("REPLICA", ud.findUser("user1").password(), "a lagging replica should be bypassed");
+        } finally {
+            ud.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a password change is written to the primary and that
+     * the changed user's next lookup reads it there, while other users are
+     * still served by the replica.
+     *
+     * @throws Exception If the embedded databases cannot be created.
+     */
+    @Test
+    public void testReadYourWrites() throws Exception {
+        RoutedUserData ud = users("rwWrite");
+        try {
+            ud.updatePassword("user2", "NEW");
+            assertEquals("NEW", ud.findUser("user2").password());
+            assertEquals("REPLICA", ud.findUser("user1").password());
+        } finally {
+            ud.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that catalog queries are served by the replica while it is
+     * current.
+     *
+     * @throws Exception If the embedded databases cannot be created.
+     */
+    @Test
+    public void testWhiskeyReadsUseReplica() throws Exception {
+        String primary = EmbeddedDatabase.createWhiskey("rwWhiskeyPrimary", 500);
+        String replica = EmbeddedDatabase.createWhiskey("rwWhiskeyReplica", 200);
+        RoutedWhiskeyData wd = new RoutedWhiskeyData(
+                new DatabaseEndpoint(primary, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD),
+                List.of(new DatabaseEndpoint(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD)),
+                probe, MAX_LAG_MILLIS, CHECK_MILLIS);
+        wd.connect();
+        try {
+            assertEquals(200, wd.getAllMalts().size());
+            assertEquals(200, wd.forEachMalt(d -> {
+            }));
+            replicaLag.set(Long.MAX_VALUE);
+            wd.checkReplicas();
+            assertEquals(500, wd.getAllMalts().size());
+        } finally {
+            wd.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a replica that cannot be connected does not prevent
+     * startup, serves no reads, and is used once it can be connected.
+     *
+     * @throws Exception If the embedded databases cannot be created.
+     */
+    @Test
+    public void testUnreachableReplicaIsSkipped() throws Exception {
+        String primary = EmbeddedDatabase.createWhiskey("rwDownPrimary", 500);
+        String replica = EmbeddedDatabase.url("rwDownReplica") + ";IFEXISTS=TRUE";
+        RoutedWhiskeyData wd = new RoutedWhiskeyData(
+                new DatabaseEndpoint(primary, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD),
+                List.of(new DatabaseEndpoint(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD)),
+                probe, MAX_LAG_MILLIS, CHECK_MILLIS);
+        wd.connect();
+        try {
+            assertEquals(List.of(Long.MAX_VALUE), wd.getReplicaLags());
+            assertEquals(500, wd.getAllMalts().size(), "reads should go to the primary");
+            EmbeddedDatabase.createWhiskey("rwDownReplica", 200);
+            wd.checkReplicas();
+            assertEquals(200, wd.getAllMalts().size(), "the replica should be used once connected");
+        } finally {
+            wd.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a read failing on a replica that died after its last lag
+     * measurement is served by the primary, and that the replica is then
+     * bypassed.
+     *
+     * @throws Exception If the embedded databases cannot be created.
+     */
+    @Test
+    public void testFailedReplicaReadFallsBackToPrimary() throws Exception {
+        String primary = EmbeddedDatabase.createWhiskey("rwDiePrimary", 500);
+        String replica = EmbeddedDatabase.createWhiskey("rwDieReplica", 200);
+        RoutedWhiskeyData wd = new RoutedWhiskeyData(
+                new DatabaseEndpoint(primary, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD),
+                List.of(new DatabaseEndpoint(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD)),
+                probe, MAX_LAG_MILLIS, CHECK_MILLIS);
+        wd.connect();
+        try {
+            assertEquals(200, wd.getAllMalts().size());
+            try (Connection c = DriverManager.getConnection(replica, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+                    Statement st = c.createStatement()) {
+                st.execute("DROP TABLE SINGLEMALTS");
+            }
+            assertEquals(500, wd.getAllMalts().size(), "the read should be repeated on the primary");
+            assertEquals(List.of(Long.MAX_VALUE), wd.getReplicaLags());
+            assertEquals(500, wd.forEachMalt(d -> {
+            }), "the replica should be bypassed until it is measured again");
+        } finally {
+            wd.disconnect();
+        }
+    }
+}
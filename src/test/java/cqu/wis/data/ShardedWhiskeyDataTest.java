@@ -0,0 +1,116 @@
+package cqu.wis.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ShardedWhiskeyData}.
+ * <p>
+ * Three embedded databases stand in for shards, each holding the rows of its
+ * own regions, and the sharded results are compared with the union of the
+ * shards.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ShardedWhiskeyDataTest {
+
+    private ShardedWhiskeyData sharded;
+
+    /**
+     * Creates three shards and connects to them.
+     *
+     * @throws Exception If a database cannot be created or connected.
+     */
+    @BeforeEach
+    public void setup() throws Exception {
+        String a = EmbeddedDatabase.createWhiskey("shardA", 1_000, "Islay", "Speyside");
+        String b = EmbeddedDatabase.createWhiskey("shardB", 700, "Highland");
+        String c = EmbeddedDatabase.createWhiskey("shardC", 300, "Lowland", "Campbeltown");
+        sharded = new ShardedWhiskeyData(List.of(
+                new ShardedWhiskeyData.Shard(a, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD, Set.of("Islay", "Speyside")),
+                new ShardedWhiskeyData.Shard(b, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD, Set.of("Highland")),
+                new ShardedWhiskeyData.Shard(c, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD, Set.of("Lowland", "Campbeltown"))));
+        sharded.connect();
+    }
+
+    /**
+     * Disconnects from the shards.
+     */
+    @AfterEach
+    public void teardown() {
+        sharded.disconnect();
+    }
+
+    private static List<WhiskeyData.WhiskeyDetails> sorted(List<WhiskeyData.WhiskeyDetails> records) {
+        List<WhiskeyData.WhiskeyDetails> copy = new ArrayList<>(records);
+        copy.sort(Comparator.comparing(WhiskeyData.WhiskeyDetails::region)
+                .thenComparing(WhiskeyData.WhiskeyDetails::distillery));
+        return copy;
+    }
+
+    /**
+     * Verifies that a region search is routed to its shard and that an
+     * unknown region is searched everywhere.
+     */
+    @Test
+    public void testRegionRouting() {
+        List<WhiskeyData.WhiskeyDetails> highland = sharded.getMaltsFromRegion("Highland");
+        assertEquals(700, highland.size());
+        assertEquals(500, sharded.getMaltsFromRegion("Islay").size());
+        assertEquals(150, sharded.getMaltsFromRegion("Campbeltown").size());
+        assertTrue(sharded.getMaltsFromRegion("Atlantis").isEmpty());
+    }
+
+    /**
+     * Verifies that the scatter-gather queries return the union of the shards,
+     * listed shard by shard, and that the streamed and listed catalogs agree.
+     */
+    @Test
+    public void testScatterGather() {
+        List<WhiskeyData.WhiskeyDetails> all = sharded.getAllMalts();
+        assertEquals(2_000, all.size());
+        Map<String, Integer> shardOf = Map.of("Islay", 0, "Speyside", 0, "Highland", 1, "Lowland", 2, "Campbeltown", 2);
+        int shard = 0;
+        for (WhiskeyData.WhiskeyDetails d : all) {
+            assertTrue(shardOf.get(d.region()) >= shard, "records should be listed shard by shard");
+            shard = shardOf.get(d.region());
+        }
+        List<WhiskeyData.WhiskeyDetails> streamed = new ArrayList<>();
+        assertEquals(2_000, sharded.forEachMalt(streamed::add));
+        assertEquals(sorted(all), sorted(streamed));
+
+        List<WhiskeyData.WhiskeyDetails> aged = sharded.getMaltsInAgeRange(10, 12);
+        long expected = all.stream().filter(d -> d.age() >= 10 && d.age() <= 12).count();
+        assertEquals(expected, aged.size());
+    }
+
+    /**
+     * Verifies that the shard specification is parsed and validated.
+     *
+     * @throws Exception If the parsed shards cannot be connected.
+     */
+    @Test
+    public void testParse() throws Exception {
+        ShardedWhiskeyData parsed = ShardedWhiskeyData.parse(
+                "Islay,Speyside=" + EmbeddedDatabase.url("shardA") + "  Highland=" + EmbeddedDatabase.url("shardB"),
+                EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        parsed.connect();
+        try {
+            assertEquals(500, parsed.getMaltsFromRegion("Speyside").size());
+        } finally {
+            parsed.disconnect();
+        }
+        assertThrows(IllegalArgumentException.class, () -> ShardedWhiskeyData.parse("Islay", "u", "p"));
+        assertThrows(IllegalArgumentException.class, () -> ShardedWhiskeyData.parse(
+                "Islay=jdbc:a islay=jdbc:b", "u", "p"));
+    }
+}
@@ -0,0 +1,63 @@
+package cqu.wis.data;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SlowQueryLog}.
+ * <p>
+ * Slow statements are recorded against an embedded WHISKEY database with a
+ * zero threshold, so that every statement is logged and explained.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class SlowQueryLogTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifies that a query shape is marked as explained only once its
+     * {@code EXPLAIN} has succeeded, and that the plan reaches the log even
+     * though the caller's connection is closed straight away, since the
+     * {@code EXPLAIN} runs on a connection of its own.
+     *
+     * @throws Exception If the embedded database cannot be created.
+     */
+    @Test
+    public void testShapeMarkedOnlyAfterSuccessfulExplain() throws Exception {
+        String url = EmbeddedDatabase.createWhiskey("slowQuery", 10);
+        String bad = "SELECT * FROM MISSING WHERE REGION = ?";
+        String good = "SELECT * FROM SINGLEMALTS WHERE REGION = ?";
+        SlowQueryLog log = new SlowQueryLog(0, dir);
+        try (ConnectionSupervisor supervisor = new ConnectionSupervisor(url, EmbeddedDatabase.USER,
+                EmbeddedDatabase.PASSWORD)) {
+            long slow = TimeUnit.SECONDS.toNanos(1);
+            log.record(supervisor, bad, new Object[]{"Islay"}, slow, 0);
+            log.record(supervisor, good, new Object[]{"Islay"}, slow, 2);
+            supervisor.getConnection().close();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!log.isExplained(good) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(log.isExplained(good), "a successful explain should mark its shape");
+            assertFalse(log.isExplained(bad), "a failed explain must not mark its shape");
+        }
+        StringBuilder text = new StringBuilder();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".log")).toList()) {
+                text.append(Files.readString(file));
+            }
+        }
+        assertTrue(text.toString().contains("EXPLAIN [" + good + "]" + System.lineSeparator()), text.toString());
+        assertTrue(text.toString().contains("EXPLAIN [" + bad + "] failed"), text.toString());
+    }
+}
@@ -0,0 +1,147 @@
+package cqu.wis.log;
+
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Log} and {@link AsyncAppender}.
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class LogTest {
+
+    /**
+     * Verifies that disabled events are never formatted and that enabled
+     * events are written as structured lines with their error.
+     */
+    @Test
+    public void testLevelFilteringAndFormat() {
+        StringBuffer out = new StringBuffer();
+        try (AsyncAppender appender = new AsyncAppender(16, AsyncAppender.DropPolicy.DROP_NEWEST, out::append)) {
+            Log log = new Log("cqu.wis.data.UserData", appender, Level.WARN);
+            AtomicInteger formatted = new AtomicInteger();
+            Object expensive = new Object() {
+                @Override
+                public String toString() {
+                    formatted.incrementAndGet();
+                    return "value";
+                }
+            };
+            log.debug("Debug {}", expensive);
+            log.info("Info {} {}", expensive, expensive);
+            assertFalse(log.isEnabled(Level.INFO));
+
+            log.warn("Find user error for {}", "user 1", new SQLException("Connection reset"));
+            log.error("Scene not found for key: {}", expensive);
+            appender.flush();
+
+            String[] lines = out.toString().split("\n");
+            assertEquals(2, lines.length);
+            assertTrue(lines[0].contains(" level=WARN logger=cqu.wis.data.UserData "), lines[0]);
+            assertTrue(lines[0].contains(" msg=\"Find user error for user 1\""), lines[0]);
+            assertTrue(lines[0].contains(" error=\"java.sql.SQLException: Connection reset\" stack=\""
+                    + "java.sql.SQLException: Connection reset\\n\\tat cqu.wis.log.LogTest."), lines[0]);
+            assertTrue(lines[1].endsWith(" msg=\"Scene not found for key: value\""), lines[1]);
+            assertEquals(1, formatted.get());
+        }
+    }
+
+    /**
+     * Verifies that events arriving while the queue is full are dropped
+     * without blocking, counted by level, and reported once the writer
+     * catches up.
+     *
+     * @throws Exception If the writer does not start in time.
+     */
+    @Test
+    public void testDropsWhenFull() throws Exception {
+        StringBuffer out = new StringBuffer();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsyncAppender appender = new AsyncAppender(4, AsyncAppender.DropPolicy.DROP_NEWEST, s -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.append(s);
+        })) {
+            Log log = new Log("test", appender, Level.DEBUG);
+            log.info("first");
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 4; i++) {
+                log.warn("queued {}", i);
+            }
+            for (int i = 0; i < 3; i++) {
+                log.error("lost {}", i);
+            }
+            log.debug("lost too");
+            assertEquals(4, appender.getDroppedCount());
+            assertEquals(3, appender.getDroppedCount(Level.ERROR));
+            assertEquals(1, appender.getDroppedCount(Level.DEBUG));
+
+            release.countDown();
+            appender.flush();
+            String written = out.toString();
+            assertTrue(written.contains("msg=\"queued 3\""), written);
+            assertFalse(written.contains("lost"), written);
+            assertTrue(written.contains("msg=\"Dropped 4 log events because the queue was full\""), written);
+        }
+    }
+
+    /**
+     * Verifies that the drop-oldest policy keeps the newest events.
+     */
+    @Test
+    public void testDropOldest() {
+        StringBuffer out = new StringBuffer();
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsyncAppender appender = new AsyncAppender(2, AsyncAppender.DropPolicy.DROP_OLDEST, s -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.append(s);
+        })) {
+            Log log = new Log("test", appender, Level.INFO);
+            for (int i = 0; i < 20; i++) {
+                log.info("event {}", i);
+            }
+            release.countDown();
+            appender.flush();
+            String written = out.toString();
+            assertTrue(written.contains("msg=\"event 19\""), written);
+            assertTrue(appender.getDroppedCount(Level.INFO) >= 17);
+        }
+    }
+
+    /**
+     * Verifies that an error's causes are summarised and its full stack
+     * trace, including the causes, is written on the event's line.
+     */
+    @Test
+    public void testErrorCauseChainAndStack() {
+        StringBuffer out = new StringBuffer();
+        try (AsyncAppender appender = new AsyncAppender(16, AsyncAppender.DropPolicy.DROP_NEWEST, out::append)) {
+            Log log = new Log("test", appender, Level.INFO);
+            SQLException root = new SQLException("Communications link failure");
+            log.error("Query failed", new IllegalStateException("getAllMalts failed", root));
+            appender.flush();
+
+            String line = out.toString();
+            assertEquals(1, line.split("\n").length, "the event should stay on one line");
+            assertTrue(line.contains(" error=\"java.lang.IllegalStateException: getAllMalts failed; caused by "
+                    + "java.sql.SQLException: Communications link failure\""), line);
+            assertTrue(line.contains("\\nCaused by: java.sql.SQLException: Communications link failure\\n\\tat "),
+                    line);
+        }
+    }
+}
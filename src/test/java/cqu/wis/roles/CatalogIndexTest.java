@@ -0,0 +1,96 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CompressedBitmap} and {@link CatalogIndex}.
+ * <p>
+ * Bitmap operations are checked against {@link BitSet} on sparse, dense and
+ * mixed sets spanning several chunks, and index filters against a plain scan
+ * of the records.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class CatalogIndexTest {
+
+    private static final String[] REGIONS = {"Islay", "Speyside", "Highland", "Lowland"};
+
+    /**
+     * Builds a bitmap and its reference set with the given density.
+     */
+    private static CompressedBitmap random(Random rnd, BitSet ref, int size, double density) {
+        CompressedBitmap.Builder b = new CompressedBitmap.Builder();
+        for (int i = 0; i < size; i++) {
+            // Alternate dense and sparse chunks so both container kinds meet
+            double d = (i >>> 16) % 2 == 0 ? density : density / 50;
+            if (rnd.nextDouble() < d) {
+                b.add(i);
+                ref.set(i);
+            }
+        }
+        return b.build();
+    }
+
+    private static void assertBits(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+    }
+
+    /**
+     * Verifies AND, OR and AND NOT against {@link BitSet}.
+     */
+    @Test
+    public void testOperationsMatchBitSet() {
+        Random rnd = new Random(42);
+        int size = 5 * 65536;
+        for (double[] densities : new double[][]{{0.5, 0.5}, {0.5, 0.02}, {0.01, 0.03}}) {
+            BitSet ra = new BitSet();
+            BitSet rb = new BitSet();
+            CompressedBitmap a = random(rnd, ra, size, densities[0]);
+            CompressedBitmap b = random(rnd, rb, size, densities[1]);
+
+            BitSet and = (BitSet) ra.clone();
+            and.and(rb);
+            assertBits(and, a.and(b));
+            BitSet or = (BitSet) ra.clone();
+            or.or(rb);
+            assertBits(or, a.or(b));
+            BitSet andNot = (BitSet) ra.clone();
+            andNot.andNot(rb);
+            assertBits(andNot, a.andNot(b));
+            assertBits(rb, b.andNot(CompressedBitmap.empty()));
+            assertTrue(a.contains(ra.nextSetBit(0)));
+        }
+    }
+
+    /**
+     * Verifies a combined region, age and NOT filter against a scan.
+     */
+    @Test
+    public void testIndexFilterMatchesScan() {
+        List<WhiskeyData.WhiskeyDetails> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new WhiskeyData.WhiskeyDetails("D" + i, 3 + i % 30, REGIONS[i % REGIONS.length], i));
+        }
+        CatalogIndex index = CatalogIndex.build(ResultSnapshot.of(records));
+
+        CompressedBitmap islayOrLowland = index.region("Islay").or(index.region("Lowland"));
+        CompressedBitmap filter = islayOrLowland.and(index.ageBetween(10, 15))
+                .and(index.not(index.ageBetween(12, 12)));
+        List<WhiskeyData.WhiskeyDetails> expected = records.stream()
+                .filter(d -> d.region().equals("Islay") || d.region().equals("Lowland"))
+                .filter(d -> d.age() >= 10 && d.age() <= 15 && d.age() != 12)
+                .toList();
+        assertEquals(expected, index.materialize(filter));
+        assertTrue(index.region("Campbeltown").isEmpty());
+        assertEquals(records.size(), index.all().cardinality());
+    }
+}
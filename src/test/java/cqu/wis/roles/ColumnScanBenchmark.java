@@ -0,0 +1,84 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.EmbeddedDatabase;
+import cqu.wis.data.WhiskeyData;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the scalar and vectorized column scans with the SQL
+ * query path for an age-range filter.
+ * <p>
+ * Run the {@code main} method from the test class path with
+ * {@code --add-modules jdk.incubator.vector} to include the vector scan. Row
+ * counts are read from {@code wis.bench.rows} (comma separated, default
+ * {@code 1000000,10000000,50000000}); the SQL path, which loads an embedded
+ * stand-in database, is only measured up to {@code wis.bench.sqlMaxRows}
+ * (default 1000000). Each line reports the best time of several rounds.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ColumnScanBenchmark {
+
+    private static final int ROUNDS = 7;
+
+    /**
+     * A filter under test, returning the number of matches.
+     */
+    interface Op {
+
+        int run();
+    }
+
+    /**
+     * Runs the benchmark and prints one line per path and row count.
+     *
+     * @param args unused.
+     * @throws Exception if the stand-in database cannot be created.
+     */
+    public static void main(String[] args) throws Exception {
+        String[] counts = System.getProperty("wis.bench.rows", "1000000,10000000,50000000").split(",");
+        int sqlMax = Integer.getInteger("wis.bench.sqlMaxRows", 1_000_000);
+        ColumnScan vector = ColumnScan.vector();
+        if (vector == null) {
+            System.out.println("jdk.incubator.vector not present; vector path skipped");
+        }
+        for (String c : counts) {
+            int rows = Integer.parseInt(c.trim());
+            Random rnd = new Random(1);
+            int[] ages = rnd.ints(rows, 3, 33).toArray();
+            int[] prices = rnd.ints(rows, 40, 240).toArray();
+            ColumnarCatalog scalar = ColumnarCatalog.ofColumns(ages, prices, ColumnScan.scalar());
+            measure("scalar", rows, () -> scalar.ageBetween(10, 12).length);
+            measure("scalar age+price", rows, () -> scalar.ageAndPriceBetween(10, 20, 50, 60).length);
+            if (vector != null) {
+                ColumnarCatalog vec = ColumnarCatalog.ofColumns(ages, prices, vector);
+                measure(vector.name(), rows, () -> vec.ageBetween(10, 12).length);
+                measure("vector age+price", rows, () -> vec.ageAndPriceBetween(10, 20, 50, 60).length);
+            }
+            if (rows <= sqlMax) {
+                String url = EmbeddedDatabase.createWhiskey("bench" + rows, rows);
+                WhiskeyData wd = new WhiskeyData();
+                wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+                measure("sql (embedded)", rows, () -> wd.getMaltsInAgeRange(10, 12).size());
+                wd.disconnect();
+            }
+        }
+    }
+
+    private static void measure(String name, int rows, Op op) {
+        int matches = 0;
+        for (int i = 0; i < 3; i++) {
+            matches = op.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            matches = op.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-22s %,12d rows %10.2f ms %8.2f ns/row (%,d matches)%n",
+                name, rows, best / 1e6, (double) best / rows, matches);
+    }
+}
@@ -0,0 +1,77 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ColumnarCatalog} and the {@link ColumnScan}
+ * implementations.
+ * <p>
+ * Every available scan is checked against a plain filter, including row
+ * counts that leave a partial vector at the end. The vector scan is only
+ * exercised when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ColumnarCatalogTest {
+
+    private static List<ColumnScan> scans() {
+        List<ColumnScan> scans = new ArrayList<>(List.of(ColumnScan.scalar()));
+        if (ColumnScan.vector() != null) {
+            scans.add(ColumnScan.vector());
+        }
+        return scans;
+    }
+
+    /**
+     * Verifies single- and two-column range scans against a plain filter.
+     */
+    @Test
+    public void testScansMatchPlainFilter() {
+        Random rnd = new Random(7);
+        for (int size : new int[]{0, 1, 15, 17, 1003}) {
+            int[] ages = rnd.ints(size, 0, 40).toArray();
+            int[] prices = rnd.ints(size, -10, 300).toArray();
+            int[] expectedAge = IntStream.range(0, size).filter(i -> ages[i] >= 10 && ages[i] <= 18).toArray();
+            int[] expectedBoth = IntStream.range(0, size)
+                    .filter(i -> ages[i] >= 10 && ages[i] <= 18 && prices[i] >= -5 && prices[i] <= 100).toArray();
+            for (ColumnScan scan : scans()) {
+                ColumnarCatalog c = ColumnarCatalog.ofColumns(ages, prices, scan);
+                assertArrayEquals(expectedAge, c.ageBetween(10, 18), scan.name() + " size " + size);
+                assertArrayEquals(expectedBoth, c.ageAndPriceBetween(10, 18, -5, 100), scan.name());
+                assertEquals(0, c.ageBetween(18, 10).length, "empty range");
+            }
+        }
+    }
+
+    /**
+     * Verifies that extreme bounds do not overflow.
+     */
+    @Test
+    public void testExtremeBounds() {
+        int[] values = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        for (ColumnScan scan : scans()) {
+            ColumnarCatalog c = ColumnarCatalog.ofColumns(values, values, scan);
+            assertEquals(5, c.priceBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).length, scan.name());
+            assertArrayEquals(new int[]{1, 2}, c.priceBetween(-1, 0), scan.name());
+        }
+    }
+
+    /**
+     * Verifies that matches are materialized from the snapshot.
+     */
+    @Test
+    public void testMaterialize() {
+        WhiskeyData.WhiskeyDetails a = new WhiskeyData.WhiskeyDetails("A", 10, "Islay", 100);
+        WhiskeyData.WhiskeyDetails b = new WhiskeyData.WhiskeyDetails("B", 20, "Islay", 50);
+        ColumnarCatalog c = ColumnarCatalog.build(ResultSnapshot.of(List.of(a, b)));
+        assertEquals(List.of(b), c.materialize(c.ageAndPriceBetween(15, 25, 0, 60)));
+    }
+}
@@ -0,0 +1,361 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.EmbeddedDatabase;
+import cqu.wis.data.UserData;
+import cqu.wis.data.WhiskeyData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent load generator and soak-test harness for the login and query
+ * paths.
+ * <p>
+ * Each simulated user owns its own {@link UserDataManager} and
+ * {@link WhiskeyDataManager} (as each running {@code App} does) connected to
+ * embedded stand-in databases, and repeatedly logs in and runs the three
+ * whiskey queries with random think times. Users are started evenly over the
+ * ramp-up period. Throughput, latency percentiles and error rates are reported
+ * per operation at every reporting interval and at the end of the run.
+ * </p>
+ * <p>
+ * Settings are read from system properties: {@code wis.load.users} (default
+ * 20), {@code wis.load.durationSec} (10), {@code wis.load.rampUpSec} (2),
+ * {@code wis.load.thinkMs} (20), {@code wis.load.reportSec} (5),
+ * {@code wis.load.rows} (5000) and {@code wis.load.userCache} (true). Run
+ * {@code main} directly, or {@code mvn test -Psoak} for a long soak run.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class LoadTestHarness {
+
+    /**
+     * Operations exercised by each simulated user.
+     */
+    public enum Operation {
+        FIND_USER, CHECK_DETAILS, ALL_MALTS, MALTS_FROM_REGION, MALTS_IN_AGE_RANGE
+    }
+
+    /**
+     * Run settings.
+     *
+     * @param users number of simulated users.
+     * @param durationSec total run time including ramp-up.
+     * @param rampUpSec period over which users are started.
+     * @param thinkMs maximum random pause between operations.
+     * @param reportSec interval between progress reports, 0 for none.
+     * @param rows number of whiskey rows in the stand-in database.
+     * @param userCache whether the user lookup cache is enabled.
+     */
+    public record Config(int users, int durationSec, int rampUpSec, int thinkMs,
+            int reportSec, int rows, boolean userCache) {
+
+        /**
+         * Reads the settings from system properties.
+         *
+         * @return the configuration.
+         */
+        public static Config fromSystemProperties() {
+            return new Config(
+                    Integer.getInteger("wis.load.users", 20),
+                    Integer.getInteger("wis.load.durationSec", 10),
+                    Integer.getInteger("wis.load.rampUpSec", 2),
+                    Integer.getInteger("wis.load.thinkMs", 20),
+                    Integer.getInteger("wis.load.reportSec", 5),
+                    Integer.getInteger("wis.load.rows", 5000),
+                    Boolean.parseBoolean(System.getProperty("wis.load.userCache", "true")));
+        }
+    }
+
+    /**
+     * Fixed-memory latency histogram with log-linear buckets (16 per power of
+     * two) covering 1 µs to over an hour, safe for concurrent recording.
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BUCKETS = 16;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private volatile long max;
+
+        /**
+         * Records one latency.
+         *
+         * @param nanos the latency in nanoseconds.
+         */
+        public void record(long nanos) {
+            long micros = Math.max(1, nanos / 1000);
+            counts.incrementAndGet(index(micros));
+            total.increment();
+            if (micros > max) {
+                synchronized (this) {
+                    max = Math.max(max, micros);
+                }
+            }
+        }
+
+        private static int index(long micros) {
+            int exp = 63 - Long.numberOfLeadingZeros(micros);
+            if (exp < 4) {
+                return (int) micros;
+            }
+            int sub = (int) ((micros >>> (exp - 4)) & (SUB_BUCKETS - 1));
+            return Math.min(BUCKETS - 1, (exp - 3) * SUB_BUCKETS + sub);
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exp = index / SUB_BUCKETS + 3;
+            int sub = index % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exp - 4)) - 1;
+        }
+
+        /**
+         * Returns the number of recorded latencies.
+         *
+         * @return the count.
+         */
+        public long count() {
+            return total.sum();
+        }
+
+        /**
+         * Returns an upper estimate of the given percentile in microseconds.
+         *
+         * @param percentile the percentile, from 0 to 100.
+         * @return the latency in microseconds, or 0 if nothing was recorded.
+         */
+        public long percentileMicros(double percentile) {
+            long n = count();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(n * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the largest recorded latency in microseconds.
+         *
+         * @return the maximum latency.
+         */
+        public long maxMicros() {
+            return max;
+        }
+    }
+
+    /**
+     * Per-operation results.
+     */
+    public static final class Stats {
+
+        private final Histogram latency = new Histogram();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * Returns the latency histogram of successful and failed calls.
+         *
+         * @return the histogram.
+         */
+        public Histogram latency() {
+            return latency;
+        }
+
+        /**
+         * Returns the number of failed calls.
+         *
+         * @return the error count.
+         */
+        public long errors() {
+            return errors.sum();
+        }
+    }
+
+    private final Config config;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private String whiskeyUrl;
+    private String usersUrl;
+
+    /**
+     * Creates a harness with the given settings.
+     *
+     * @param config the run settings.
+     */
+    public LoadTestHarness(Config config) {
+        this.config = config;
+        for (Operation op : Operation.values()) {
+            stats.put(op, new Stats());
+        }
+    }
+
+    /**
+     * Runs a load test configured from system properties and prints the
+     * report.
+     *
+     * @param args unused.
+     * @throws Exception if the stand-in databases cannot be created.
+     */
+    public static void main(String[] args) throws Exception {
+        new LoadTestHarness(Config.fromSystemProperties()).run();
+    }
+
+    /**
+     * Returns the results collected for an operation.
+     *
+     * @param op the operation.
+     * @return its statistics.
+     */
+    public Stats stats(Operation op) {
+        return stats.get(op);
+    }
+
+    /**
+     * Creates the stand-in databases, runs all simulated users for the
+     * configured duration and prints the final report.
+     *
+     * @throws SQLException if the stand-in databases cannot be created.
+     * @throws InterruptedException if interrupted while waiting for users.
+     */
+    public void run() throws SQLException, InterruptedException {
+        whiskeyUrl = EmbeddedDatabase.createWhiskey("load_whiskey", config.rows());
+        usersUrl = EmbeddedDatabase.createUsers("load_users", Math.max(1, config.users()));
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.durationSec());
+        long rampStep = config.users() == 0 ? 0
+                : TimeUnit.SECONDS.toNanos(config.rampUpSec()) / config.users();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            int id = i;
+            long startAt = start + rampStep * i;
+            threads.add(Thread.ofVirtual().name("load-user-" + i)
+                    .start(() -> simulateUser(id, startAt, deadline)));
+        }
+
+        long nextReport = start + TimeUnit.SECONDS.toNanos(Math.max(1, config.reportSec()));
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            if (config.reportSec() > 0 && System.nanoTime() >= nextReport) {
+                report("progress", System.nanoTime() - start);
+                nextReport += TimeUnit.SECONDS.toNanos(config.reportSec());
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        report("final", System.nanoTime() - start);
+    }
+
+    /**
+     * Body of one simulated user.
+     */
+    private void simulateUser(int id, long startAt, long deadline) {
+        sleepNanos(startAt - System.nanoTime());
+        UserData ud = new UserData();
+        WhiskeyData wd = new WhiskeyData();
+        try {
+            ud.connect(usersUrl, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+            wd.connect(whiskeyUrl, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        } catch (SQLException e) {
+            stats.get(Operation.FIND_USER).errors.increment();
+            return;
+        }
+        UserDataManager udm = config.userCache()
+                ? new UserDataManager(ud) : new UserDataManager(ud, 0, 0);
+        UserDataValidator udv = new UserDataValidator();
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String username = "user" + id;
+
+        while (System.nanoTime() < deadline) {
+            UserData.UserDetails[] found = new UserData.UserDetails[1];
+            time(Operation.FIND_USER, () -> (found[0] = udm.findUser(username)) != null);
+            time(Operation.CHECK_DETAILS, () -> udv.checkCurrentDetails(
+                    found[0], username, EmbeddedDatabase.USER_PASSWORD).valid());
+            think(random);
+            time(Operation.ALL_MALTS, () -> wdm.findAllMalts() == config.rows());
+            think(random);
+            String region = EmbeddedDatabase.REGIONS[random.nextInt(EmbeddedDatabase.REGIONS.length)];
+            time(Operation.MALTS_FROM_REGION, () -> !wdm.getMaltsFromRegion(region).isEmpty());
+            think(random);
+            int lower = 3 + random.nextInt(20);
+            time(Operation.MALTS_IN_AGE_RANGE, () -> !wdm.getMaltsInAgeRange(lower, lower + 5).isEmpty());
+            think(random);
+        }
+        wd.disconnect();
+        ud.disconnect();
+    }
+
+    /**
+     * A timed call returning whether it succeeded.
+     */
+    private interface Call {
+
+        boolean run();
+    }
+
+    private void time(Operation op, Call call) {
+        Stats s = stats.get(op);
+        long begin = System.nanoTime();
+        boolean ok;
+        try {
+            ok = call.run();
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+        s.latency.record(System.nanoTime() - begin);
+        if (!ok) {
+            s.errors.increment();
+        }
+    }
+
+    private void think(ThreadLocalRandom random) {
+        if (config.thinkMs() > 0) {
+            sleepNanos(TimeUnit.MILLISECONDS.toNanos(random.nextInt(config.thinkMs() + 1)));
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void report(String label, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n[%s] %d users, %.1f s elapsed%n", label, config.users(), seconds);
+        System.out.printf("%-20s %10s %10s %8s %8s %8s %8s %8s%n",
+                "operation", "count", "ops/s", "err%", "p50us", "p90us", "p99us", "maxus");
+        for (Operation op : Operation.values()) {
+            Stats s = stats.get(op);
+            long n = s.latency.count();
+            System.out.printf("%-20s %10d %10.1f %8.2f %8d %8d %8d %8d%n", op, n, n / seconds,
+                    n == 0 ? 0.0 : 100.0 * s.errors() / n,
+                    s.latency.percentileMicros(50), s.latency.percentileMicros(90),
+                    s.latency.percentileMicros(99), s.latency.maxMicros());
+        }
+    }
+}
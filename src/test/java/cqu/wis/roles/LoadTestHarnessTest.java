@@ -0,0 +1,58 @@
+package cqu.wis.roles;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke test for {@link LoadTestHarness}.
+ * <p>
+ * Runs a short load test against the embedded stand-in databases (settings
+ * can be raised with the {@code wis.load.*} system properties, as the
+ * {@code soak} Maven profile does) and checks that every operation ran without
+ * errors.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class LoadTestHarnessTest {
+
+    /**
+     * Verifies that all operations complete and none fail under concurrent
+     * load.
+     */
+    @Test
+    public void testLoadRunCompletesWithoutErrors() throws Exception {
+        LoadTestHarness.Config defaults = LoadTestHarness.Config.fromSystemProperties();
+        LoadTestHarness.Config config = new LoadTestHarness.Config(
+                Integer.getInteger("wis.load.users", 4),
+                Integer.getInteger("wis.load.durationSec", 2),
+                Integer.getInteger("wis.load.rampUpSec", 1),
+                defaults.thinkMs(),
+                Integer.getInteger("wis.load.reportSec", 0),
+                Integer.getInteger("wis.load.rows", 500),
+                defaults.userCache());
+        LoadTestHarness harness = new LoadTestHarness(config);
+        harness.run();
+        for (LoadTestHarness.Operation op : LoadTestHarness.Operation.values()) {
+            LoadTestHarness.Stats stats = harness.stats(op);
+            assertTrue(stats.latency().count() > 0, op + " should have run");
+            assertEquals(0, stats.errors(), op + " should not fail");
+        }
+    }
+
+    /**
+     * Verifies the histogram percentile estimates.
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LoadTestHarness.Histogram h = new LoadTestHarness.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.count());
+        long p50 = h.percentileMicros(50);
+        assertTrue(p50 >= 500 && p50 <= 532, "p50 within one bucket of 500us: " + p50);
+        assertEquals(1000, h.percentileMicros(100));
+    }
+}
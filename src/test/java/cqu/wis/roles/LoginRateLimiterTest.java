@@ -0,0 +1,141 @@
+package cqu.wis.roles;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link LoginRateLimiter}.
+ * <p>
+ * A manual clock is used so that token refill can be verified without
+ * sleeping.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class LoginRateLimiterTest {
+
+    private long now;
+    private LoginRateLimiter limiter;
+
+    /**
+     * Creates a limiter allowing a burst of 3 attempts per user refilling at 1
+     * per second, with a generous global limit and room for 2 tracked users.
+     */
+    @BeforeEach
+    public void setup() {
+        now = 0;
+        limiter = new LoginRateLimiter(1, 3, 1000, 8000, 2, () -> now);
+    }
+
+    /**
+     * Verifies that a user may make a burst of attempts and is then rejected.
+     */
+    @Test
+    public void testBurstThenReject() {
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"), "fourth attempt in a burst should be rejected");
+        assertEquals(3, limiter.getAllowedCount());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    /**
+     * Verifies that usernames are limited independently and case-insensitively.
+     */
+    @Test
+    public void testUsersAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("alice");
+        }
+        assertFalse(limiter.tryAcquire("ALICE "), "username should be normalised");
+        assertTrue(limiter.tryAcquire("bob"), "another user should not be affected");
+    }
+
+    /**
+     * Verifies that tokens are refilled as time passes.
+     */
+    @Test
+    public void testTokensRefill() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("alice");
+        }
+        assertFalse(limiter.tryAcquire("alice"));
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(limiter.tryAcquire("alice"), "one token should refill after a second");
+        assertFalse(limiter.tryAcquire("alice"));
+    }
+
+    /**
+     * Verifies that the global limit applies across all users.
+     */
+    @Test
+    public void testGlobalLimit() {
+        LoginRateLimiter tight = new LoginRateLimiter(100, 100, 8, 8, 100, () -> now);
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (tight.tryAcquire("user" + i)) {
+                allowed++;
+            }
+        }
+        assertTrue(allowed <= 8, "no more than the global burst should be allowed");
+    }
+
+    /**
+     * Verifies that an attempt rejected by the global limit does not use up
+     * the user's own allowance, and that a global burst smaller than the
+     * number of stripes is refused.
+     */
+    @Test
+    public void testGlobalRejectionRefundsUserToken() {
+        LoginRateLimiter tight = new LoginRateLimiter(0.001, 2, 8, 8, 100, () -> now);
+        assertTrue(tight.tryAcquire("alice"));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(tight.tryAcquire("alice"), "global stripe should be empty");
+        }
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(tight.tryAcquire("alice"), "globally rejected attempts should not use the user's tokens");
+        assertFalse(tight.tryAcquire("alice"));
+
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(1, 1, 1, 7, 1));
+    }
+
+    /**
+     * Verifies that the number of tracked usernames stays bounded and idle
+     * buckets are swept.
+     */
+    @Test
+    public void testTrackedKeysAreBounded() {
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        limiter.tryAcquire("c");
+        assertEquals(2, limiter.getTrackedKeyCount());
+        now += TimeUnit.SECONDS.toNanos(10);
+        limiter.tryAcquire("d");
+        assertEquals(1, limiter.getTrackedKeyCount(), "idle buckets should have been swept");
+    }
+
+    /**
+     * Verifies that idle buckets are swept at most once per refill interval,
+     * with new usernames using the overflow buckets in between.
+     */
+    @Test
+    public void testSweepIsRateLimited() {
+        limiter.tryAcquire("a");
+        now = TimeUnit.MILLISECONDS.toNanos(500);
+        limiter.tryAcquire("b");
+        limiter.tryAcquire("c");    // sweeps, but nothing is idle yet
+        assertEquals(2, limiter.getTrackedKeyCount());
+
+        now = TimeUnit.MILLISECONDS.toNanos(1200);
+        limiter.tryAcquire("d");    // "a" is idle, but the last sweep was too recent
+        assertEquals(2, limiter.getTrackedKeyCount(), "no sweep should run within the refill interval");
+
+        now = TimeUnit.MILLISECONDS.toNanos(1500);
+        limiter.tryAcquire("e");
+        assertEquals(1, limiter.getTrackedKeyCount(), "the next interval should sweep again");
+    }
+}
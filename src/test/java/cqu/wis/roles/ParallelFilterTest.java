@@ -0,0 +1,88 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ParallelFilter}.
+ * <p>
+ * These tests verify that the parallel path returns the same records in the
+ * same order as a sequential filter.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ParallelFilterTest {
+
+    private static List<WhiskeyData.WhiskeyDetails> records(int size) {
+        String[] regions = {"Islay", "Speyside", "Highland"};
+        List<WhiskeyData.WhiskeyDetails> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(new WhiskeyData.WhiskeyDetails("D" + i, 3 + (i * 7) % 30, regions[i % 3], i));
+        }
+        return records;
+    }
+
+    /**
+     * Verifies that the parallel result equals the sequential result, in
+     * order, for several sizes and chunk boundaries.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Predicate<WhiskeyData.WhiskeyDetails> p = d -> d.region().equals("Islay") && d.age() > 20;
+            for (int size : new int[]{0, 1, 4095, 100_003}) {
+                ResultSnapshot s = ResultSnapshot.of(records(size));
+                List<WhiskeyData.WhiskeyDetails> sequential = ParallelFilter.filter(s, p, Integer.MAX_VALUE, pool);
+                List<WhiskeyData.WhiskeyDetails> parallel = ParallelFilter.filter(s, p, 0, pool);
+                assertEquals(sequential, parallel, "size " + size);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Verifies that once {@link WhiskeyDataManager} has loaded the complete
+     * catalog, its region and age searches are filtered from it without
+     * querying, even after a search result has replaced the loaded records,
+     * and that regions are matched ignoring case as the database does.
+     */
+    @Test
+    public void testManagerSearchesUseLoadedCatalog() {
+        List<WhiskeyData.WhiskeyDetails> all = records(ParallelFilter.DEFAULT_THRESHOLD + 10);
+        WhiskeyData wd = new WhiskeyData() {
+            @Override
+            public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+                all.forEach(sink);
+                return all.size();
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsFromRegion(String region) {
+                throw new AssertionError("region search should not query");
+            }
+
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getMaltsInAgeRange(int lower, int upper) {
+                throw new AssertionError("age search should not query");
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
+        assertEquals(all.size(), wdm.findAllMalts());
+
+        List<WhiskeyData.WhiskeyDetails> speyside = wdm.getMaltsFromRegion("speyside");
+        assertEquals(all.stream().filter(d -> d.region().equals("Speyside")).toList(), speyside);
+        wdm.setDetails(speyside.toArray(new WhiskeyData.WhiskeyDetails[0]));
+        assertEquals(all.stream().filter(d -> d.age() >= 10 && d.age() <= 12).toList(),
+                wdm.getMaltsInAgeRange(10, 12));
+    }
+}
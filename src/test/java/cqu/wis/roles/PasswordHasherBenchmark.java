@@ -0,0 +1,85 @@
+package cqu.wis.roles;
+
+import java.security.MessageDigest;
+
+/**
+ * Micro-benchmark comparing the original {@code String.format} based SHA‐1
+ * hashing with {@link PasswordHasher}.
+ * <p>
+ * Run the {@code main} method from the test class path. For each
+ * implementation it reports the average latency and the approximate number of
+ * bytes allocated per hash, measured from heap usage over many iterations.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class PasswordHasherBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final String PASSWORD = "Correct-Horse-9";
+
+    /**
+     * The hashing code as it was before {@link PasswordHasher} was introduced.
+     */
+    static String legacySha1(String s) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        byte[] bytes = md.digest(s.getBytes());
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A hashing operation under test.
+     */
+    interface Op {
+
+        Object run() throws Exception;
+    }
+
+    /**
+     * Runs the benchmark and prints one line per implementation.
+     *
+     * @param args unused.
+     * @throws Exception if hashing fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String stored = PasswordHasher.sha1Hex(PASSWORD);
+        measure("legacy generateSHA1", () -> legacySha1(PASSWORD));
+        measure("PasswordHasher.sha1Hex", () -> PasswordHasher.sha1Hex(PASSWORD));
+        measure("PasswordHasher.matches", () -> PasswordHasher.matches(PASSWORD, stored));
+    }
+
+    private static void measure(String name, Op op) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = op.run();
+        }
+        Runtime rt = Runtime.getRuntime();
+        long bestBytes = Long.MAX_VALUE;
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            System.gc();
+            long usedBefore = rt.totalMemory() - rt.freeMemory();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink = op.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            long used = rt.totalMemory() - rt.freeMemory() - usedBefore;
+            bestNanos = Math.min(bestNanos, elapsed);
+            if (used >= 0) {
+                // A negative delta means a GC ran during the round
+                bestBytes = Math.min(bestBytes, used);
+            }
+        }
+        System.out.printf("%-24s %8.1f ns/op %10s B/op (%s)%n", name,
+                (double) bestNanos / ITERATIONS,
+                bestBytes == Long.MAX_VALUE ? "n/a" : String.format("%.1f", (double) bestBytes / ITERATIONS),
+                sink);
+    }
+}
@@ -0,0 +1,84 @@
+package cqu.wis.roles;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PasswordHasher}.
+ * <p>
+ * The hasher is compared against a plain {@link MessageDigest} over the
+ * UTF‐8 bytes of each input, including non-ASCII and surrogate-pair input.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class PasswordHasherTest {
+
+    /**
+     * Computes the reference hash using the JDK directly.
+     */
+    private static String reference(String s) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Verifies the well-known SHA‐1 test vector for "abc".
+     */
+    @Test
+    public void testKnownVector() {
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", PasswordHasher.sha1Hex("abc"));
+    }
+
+    /**
+     * Verifies that non-ASCII input is hashed as UTF‐8.
+     */
+    @Test
+    public void testMatchesReferenceForNonAscii() throws Exception {
+        for (String s : new String[]{"", "Pässwörd1!", "密码Secret9#", "emoji🥃Dram", "x".repeat(500)}) {
+            assertEquals(reference(s), PasswordHasher.sha1Hex(s), "hash of " + s);
+        }
+    }
+
+    /**
+     * Verifies that matches() accepts the right password and rejects others.
+     */
+    @Test
+    public void testMatches() {
+        String stored = PasswordHasher.sha1Hex("RightOne!");
+        assertTrue(PasswordHasher.matches("RightOne!", stored));
+        assertFalse(PasswordHasher.matches("WrongOne!", stored));
+        assertFalse(PasswordHasher.matches("RightOne!", stored.substring(1)));
+        assertFalse(PasswordHasher.matches("RightOne!", null));
+    }
+
+    /**
+     * Verifies that concurrent callers on virtual threads, sharing the pooled
+     * hashing state, each get the right hash.
+     *
+     * @throws Exception If a hashing task fails.
+     */
+    @Test
+    public void testConcurrentVirtualThreads() throws Exception {
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                String password = "Passw0rd" + i + "ü".repeat(i % 7);
+                results.add(threads.submit(() -> reference(password).equals(PasswordHasher.sha1Hex(password))
+                        && PasswordHasher.matches(password, reference(password))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+}
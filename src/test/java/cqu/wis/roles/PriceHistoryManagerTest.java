@@ -0,0 +1,152 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.EmbeddedDatabase;
+import cqu.wis.data.PriceHistoryData;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PriceSeries} and {@link PriceHistoryManager}.
+ * <p>
+ * The encoded series are checked against a plain scan of the same price
+ * changes, and the manager against a generated PRICEHISTORY table.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class PriceHistoryManagerTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 6);
+
+    /**
+     * Verifies price-at-date and min/max queries against a plain scan, for
+     * random series spanning many blocks and random periods.
+     */
+    @Test
+    public void testSeriesMatchesScan() {
+        Random random = new Random(42);
+        int n = 1_000;
+        int[] days = new int[n];
+        int[] prices = new int[n];
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        int day = (int) START.toEpochDay();
+        int price = 80;
+        for (int i = 0; i < n; i++) {
+            day += 1 + random.nextInt(20);
+            price = Math.max(1, price + random.nextInt(41) - 20);
+            days[i] = day;
+            prices[i] = price;
+            builder.add(LocalDate.ofEpochDay(day), price);
+        }
+        PriceSeries series = builder.build();
+        assertEquals(n, series.size());
+        assertTrue(series.getEncodedBytes() < n * 4, "series should be smaller than plain ints");
+
+        for (int t = 0; t < 2_000; t++) {
+            int from = days[0] - 30 + random.nextInt(days[n - 1] - days[0] + 60);
+            int to = from + random.nextInt(400);
+            int expectedAt = -1;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (days[i] <= from) {
+                    expectedAt = prices[i];
+                }
+                boolean inEffect = days[i] <= to && (i == n - 1 || days[i + 1] > from);
+                if (inEffect) {
+                    min = Math.min(min, prices[i]);
+                    max = Math.max(max, prices[i]);
+                }
+            }
+            OptionalInt at = series.priceAt(LocalDate.ofEpochDay(from));
+            assertEquals(expectedAt, at.orElse(-1), "price at " + from);
+            Optional<PriceSeries.PriceRange> range = series.range(LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to));
+            if (min == Integer.MAX_VALUE) {
+                assertTrue(range.isEmpty());
+            } else {
+                assertEquals(new PriceSeries.PriceRange(min, max), range.orElseThrow(), from + ".." + to);
+            }
+        }
+        LocalDate last = LocalDate.ofEpochDay(days[n - 1]);
+        assertThrows(IllegalArgumentException.class, () -> builder.add(last, 1));
+        assertThrows(IllegalArgumentException.class, () -> series.range(START.plusDays(1), START));
+        assertTrue(PriceSeries.EMPTY.priceAt(START).isEmpty());
+    }
+
+    /**
+     * Verifies that histories are read on demand before a load and served
+     * from memory after it, with the same answers.
+     *
+     * @throws Exception If the embedded database cannot be created.
+     */
+    @Test
+    public void testLoadFromTable() throws Exception {
+        String url = EmbeddedDatabase.createPriceHistory("priceHistory", 50, 100, START);
+        PriceHistoryData phd = new PriceHistoryData();
+        phd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            PriceHistoryManager phm = new PriceHistoryManager(phd);
+            PriceSeries fetched = phm.getSeries("Distillery7");
+            assertEquals(100, fetched.size());
+            assertFalse(phm.isLoaded());
+
+            phm.load();
+            assertTrue(phm.isLoaded());
+            PriceSeries loaded = phm.getSeries("Distillery7");
+            for (int j = 0; j < 100; j++) {
+                LocalDate date = START.plusDays(7L * j + 3);
+                assertEquals(EmbeddedDatabase.historicPrice(7, j), loaded.priceAt(date).getAsInt());
+                assertEquals(fetched.priceAt(date), loaded.priceAt(date));
+            }
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int j = 10; j <= 20; j++) {
+                min = Math.min(min, EmbeddedDatabase.historicPrice(7, j));
+                max = Math.max(max, EmbeddedDatabase.historicPrice(7, j));
+            }
+            assertEquals(new PriceSeries.PriceRange(min, max),
+                    loaded.range(START.plusDays(70), START.plusDays(140)).orElseThrow());
+            assertEquals(0, phm.getSeries("Unknown").size());
+            assertSame(loaded, phm.getSeriesAsync("Distillery7").getNow(null), "loaded history should be immediate");
+        } finally {
+            phd.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a load that fails keeps nothing, and that reads of a
+     * history that cannot be read report the failure instead of an empty
+     * history.
+     *
+     * @throws Exception If the embedded database cannot be created.
+     */
+    @Test
+    public void testFailedLoadKeepsNothing() throws Exception {
+        String url = EmbeddedDatabase.createPriceHistory("droppedPriceHistory", 2, 3, START);
+        PriceHistoryData phd = new PriceHistoryData();
+        phd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try (Connection conn = DriverManager.getConnection(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+                Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE PRICEHISTORY");
+            PriceHistoryManager phm = new PriceHistoryManager(phd);
+            assertThrows(DataAccessException.class, phm::load);
+            assertFalse(phm.isLoaded());
+            assertThrows(DataAccessException.class, () -> phm.getSeries("Distillery0"));
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> phm.getSeriesAsync("Distillery0").join());
+            assertInstanceOf(DataAccessException.class, e.getCause());
+        } finally {
+            phd.disconnect();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.WhiskeyData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link QueryResultCache}.
+ * <p>
+ * Queries are stubbed with suppliers that count how often they run, so that
+ * sharing, expiry and failure handling can be checked without a database.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class QueryResultCacheTest {
+
+    private static final List<WhiskeyData.WhiskeyDetails> RESULT
+            = List.of(new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 80));
+
+    /**
+     * Verifies that concurrent misses for one key share a single query and
+     * all receive its result.
+     *
+     * @throws Exception If a request thread fails.
+     */
+    @Test
+    public void testConcurrentMissesShareOneQuery() throws Exception {
+        QueryResultCache cache = new QueryResultCache(60_000, 16);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<WhiskeyData.WhiskeyDetails>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("all", () -> {
+                    runs.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return RESULT;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<WhiskeyData.WhiskeyDetails>> result : results) {
+                assertEquals(RESULT, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get(), "concurrent misses should share one query");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that a result is served until it expires and then reloaded.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting.
+     */
+    @Test
+    public void testResultExpires() throws InterruptedException {
+        QueryResultCache cache = new QueryResultCache(50, 16);
+        AtomicInteger runs = new AtomicInteger();
+        cache.get("all", () -> {
+            runs.incrementAndGet();
+            return RESULT;
+        });
+        cache.get("all", () -> {
+            runs.incrementAndGet();
+            return RESULT;
+        });
+        assertEquals(1, runs.get(), "a fresh result should be served from the cache");
+        Thread.sleep(100);
+        cache.get("all", () -> {
+            runs.incrementAndGet();
+            return RESULT;
+        });
+        assertEquals(2, runs.get(), "an expired result should be reloaded");
+    }
+
+    /**
+     * Verifies that a failed query is reported and not cached, whether it
+     * throws an exception or an error.
+     */
+    @Test
+    public void testFailuresAreNotCached() {
+        QueryResultCache cache = new QueryResultCache(60_000, 16);
+        assertThrows(DataAccessException.class, () -> cache.get("all", () -> {
+            throw new DataAccessException("getAllMalts failed", new SQLException("reset"));
+        }));
+        assertEquals(RESULT, cache.get("all", () -> RESULT), "a failure should not be cached");
+
+        assertThrows(StackOverflowError.class, () -> cache.get("region:Islay", () -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals(RESULT, cache.get("region:Islay", () -> RESULT),
+                "an error should not leave the key blocked");
+    }
+}
@@ -0,0 +1,89 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ResultSnapshot} and {@link ResultCursor}.
+ * <p>
+ * These tests verify that snapshots are immutable and that cursors over the
+ * same snapshot navigate independently.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ResultCursorTest {
+
+    private final WhiskeyData.WhiskeyDetails d1 = new WhiskeyData.WhiskeyDetails("A", 10, "X", 100);
+    private final WhiskeyData.WhiskeyDetails d2 = new WhiskeyData.WhiskeyDetails("B", 12, "Y", 110);
+    private final WhiskeyData.WhiskeyDetails d3 = new WhiskeyData.WhiskeyDetails("C", 14, "Z", 120);
+
+    private ResultSnapshot snapshot;
+
+    /**
+     * Creates a three-record snapshot before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        snapshot = ResultSnapshot.of(List.of(d1, d2, d3));
+    }
+
+    /**
+     * Verifies that later changes to the source list do not affect a
+     * snapshot.
+     */
+    @Test
+    public void testSnapshotIsImmutable() {
+        List<WhiskeyData.WhiskeyDetails> source = new ArrayList<>(List.of(d1, d2));
+        ResultSnapshot s = ResultSnapshot.of(source);
+        source.add(d3);
+        assertEquals(2, s.size());
+    }
+
+    /**
+     * Verifies that two cursors over the same snapshot keep separate
+     * positions.
+     */
+    @Test
+    public void testCursorsAreIndependent() {
+        ResultCursor a = snapshot.openCursor();
+        ResultCursor b = snapshot.openCursor();
+        assertEquals(d2, a.next());
+        assertEquals(d3, a.next());
+        assertEquals(d1, b.getCurrent(), "second cursor should not have moved");
+        assertEquals(d3, b.previous(), "previous from first should wrap to last");
+        assertEquals(d3, a.getCurrent());
+    }
+
+    /**
+     * Verifies that a cursor on an empty snapshot returns null everywhere.
+     */
+    @Test
+    public void testEmptySnapshot() {
+        ResultCursor c = ResultSnapshot.empty().openCursor();
+        assertNull(c.first());
+        assertNull(c.next());
+        assertNull(c.previous());
+        assertNull(c.getCurrent());
+        assertEquals(-1, c.getIndex());
+    }
+
+    /**
+     * Verifies that a cursor opened from the manager keeps its snapshot when
+     * the manager loads new records.
+     */
+    @Test
+    public void testManagerCursorKeepsSnapshot() {
+        WhiskeyDataManager manager = new WhiskeyDataManager(new WhiskeyData());
+        manager.setDetails(new WhiskeyData.WhiskeyDetails[]{d1, d2});
+        ResultCursor session = manager.openCursor();
+        manager.setDetails(new WhiskeyData.WhiskeyDetails[]{d3});
+        assertEquals(d2, session.next());
+        assertEquals(d3, manager.getCurrent());
+    }
+}
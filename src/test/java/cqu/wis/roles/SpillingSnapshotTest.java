@@ -0,0 +1,102 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.EmbeddedDatabase;
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SpillingSnapshot}.
+ * <p>
+ * These tests verify that records beyond the memory budget are spilled and
+ * read back unchanged, and that the manager's navigation works over a spilled
+ * result.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class SpillingSnapshotTest {
+
+    private static List<WhiskeyData.WhiskeyDetails> records(int size) {
+        List<WhiskeyData.WhiskeyDetails> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(new WhiskeyData.WhiskeyDetails("Distillery " + i, i % 40, i % 7 == 0 ? null : "Islay", -i));
+        }
+        return records;
+    }
+
+    private static void assertSnapshot(List<WhiskeyData.WhiskeyDetails> expected, ResultSnapshot actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), "record " + i);
+        }
+    }
+
+    /**
+     * Verifies that a result within the budget stays in memory.
+     */
+    @Test
+    public void testWithinBudgetIsNotSpilled() {
+        List<WhiskeyData.WhiskeyDetails> records = records(10);
+        ResultSnapshot s = SpillingSnapshot.copyOf(records, Long.MAX_VALUE);
+        assertFalse(s instanceof SpillingSnapshot);
+        assertSnapshot(records, s);
+    }
+
+    /**
+     * Verifies that records beyond the budget are spilled and read back in
+     * order, including null fields.
+     */
+    @Test
+    public void testSpilledRecordsReadBack() {
+        List<WhiskeyData.WhiskeyDetails> records = records(20_000);
+        long budget = SpillingSnapshot.estimateBytes(records.subList(0, 100));
+        SpillingSnapshot s = (SpillingSnapshot) SpillingSnapshot.copyOf(records, budget);
+        assertEquals(100, s.getHeldCount());
+        assertEquals(19_900, s.getSpilledCount());
+        assertSnapshot(records, s);
+        assertThrows(IndexOutOfBoundsException.class, () -> s.get(20_000));
+    }
+
+    /**
+     * Verifies navigation of a manager whose records are all spilled.
+     */
+    @Test
+    public void testManagerNavigatesSpilledRecords() {
+        List<WhiskeyData.WhiskeyDetails> records = records(500);
+        WhiskeyDataManager wdm = new WhiskeyDataManager(new WhiskeyData(), null, 0);
+        wdm.setDetails(records.toArray(new WhiskeyData.WhiskeyDetails[0]));
+        assertTrue(wdm.getSnapshot() instanceof SpillingSnapshot);
+        assertEquals(records.get(0), wdm.first());
+        assertEquals(records.get(499), wdm.previous());
+        assertEquals(records.get(250), wdm.seek(250));
+        assertEquals(records.get(251), wdm.next());
+        assertEquals("Distillery 42", wdm.seekDistillery("Distillery 42").distillery());
+    }
+
+    /**
+     * Verifies that the full catalog is streamed from the database into a
+     * spilled snapshot.
+     *
+     * @throws Exception If the embedded database cannot be created.
+     */
+    @Test
+    public void testFindAllMaltsSpills() throws Exception {
+        String url = EmbeddedDatabase.createWhiskey("spill", 3_000);
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            List<WhiskeyData.WhiskeyDetails> expected = wd.getAllMalts();
+            WhiskeyDataManager wdm = new WhiskeyDataManager(wd, null, 4096);
+            assertEquals(3_000, wdm.findAllMalts());
+            SpillingSnapshot s = (SpillingSnapshot) wdm.getSnapshot();
+            assertTrue(s.getSpilledCount() > 0);
+            assertSnapshot(expected, s);
+        } finally {
+            wd.disconnect();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.UserData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the user lookup cache in {@link UserDataManager}.
+ * <p>
+ * A stub {@link UserData} counts how often the database would be queried, and
+ * a manual clock drives cache expiry.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class UserDataManagerTest {
+
+    /**
+     * In-memory stand-in for the USERS database that counts lookups.
+     */
+    private static class StubUserData extends UserData {
+
+        private final Map<String, String> passwords = new HashMap<>();
+        private int lookups;
+        private int failures;
+        private boolean failAfterUpdate;
+
+        @Override
+        public UserDetails findUser(String name) {
+            lookups++;
+            if (failures > 0) {
+                failures--;
+                throw new DataAccessException("findUser failed", new SQLException("Connection refused"));
+            }
+            String password = passwords.get(name);
+            return password == null ? null : new UserDetails(name, password);
+        }
+
+        @Override
+        public void updatePassword(String name, String newPassword) {
+            passwords.put(name, newPassword);
+            if (failAfterUpdate) {
+                throw new DataAccessException("updatePassword failed", new SQLException("Connection reset"));
+            }
+        }
+    }
+
+    private StubUserData data;
+    private long now;
+    private UserDataManager manager;
+
+    /**
+     * Creates a manager with a two-entry cache and a one-second TTL before each
+     * test.
+     */
+    @BeforeEach
+    public void setup() {
+        data = new StubUserData();
+        data.passwords.put("alice", "hashA");
+        data.passwords.put("bob", "hashB");
+        data.passwords.put("carol", "hashC");
+        now = 0;
+        manager = new UserDataManager(data, 2, 1000, () -> now);
+    }
+
+    /**
+     * Verifies that repeated lookups within the TTL hit the database once.
+     */
+    @Test
+    public void testRepeatedLookupIsCached() {
+        assertEquals("hashA", manager.findUser("alice").password());
+        assertEquals("hashA", manager.findUser("alice").password());
+        assertEquals(1, data.lookups);
+    }
+
+    /**
+     * Verifies that unknown usernames are cached as well.
+     */
+    @Test
+    public void testUnknownUserIsNegativelyCached() {
+        assertNull(manager.findUser("mallory"));
+        assertNull(manager.findUser("mallory"));
+        assertEquals(1, data.lookups);
+    }
+
+    /**
+     * Verifies that a failed lookup is reported as a failure rather than as an
+     * unknown user, and is not cached: the next lookup reaches the database
+     * and finds the user.
+     */
+    @Test
+    public void testFailedLookupIsNotCached() {
+        data.failures = 1;
+        assertThrows(DataAccessException.class, () -> manager.findUser("alice"));
+        assertEquals("hashA", manager.findUser("alice").password());
+        assertEquals("hashA", manager.findUser("alice").password());
+        assertEquals(2, data.lookups);
+    }
+
+    /**
+     * Verifies that an entry is reloaded once its TTL has passed.
+     */
+    @Test
+    public void testEntryExpiresAfterTtl() {
+        manager.findUser("alice");
+        now += TimeUnit.MILLISECONDS.toNanos(1000);
+        manager.findUser("alice");
+        assertEquals(2, data.lookups);
+    }
+
+    /**
+     * Verifies that a password update invalidates the cached lookup.
+     */
+    @Test
+    public void testUpdatePasswordInvalidatesEntry() {
+        manager.findUser("alice");
+        manager.updatePassword("alice", "newHash");
+        assertEquals("newHash", manager.findUser("alice").password());
+        assertEquals(2, data.lookups);
+    }
+
+    /**
+     * Verifies that a password update that fails after reaching the database
+     * still invalidates the cached lookup, so the new password is not
+     * rejected for the rest of the TTL.
+     */
+    @Test
+    public void testFailedUpdatePasswordInvalidatesEntry() {
+        manager.findUser("alice");
+        data.failAfterUpdate = true;
+        assertThrows(DataAccessException.class, () -> manager.updatePassword("alice", "newHash"));
+        assertEquals("newHash", manager.findUser("alice").password());
+        assertEquals(2, data.lookups);
+    }
+
+    /**
+     * Verifies that the least recently used entry is evicted when the cache is
+     * full.
+     */
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        manager.findUser("alice");
+        manager.findUser("bob");
+        manager.findUser("alice");   // alice is now most recently used
+        manager.findUser("carol");   // evicts bob
+        manager.findUser("alice");
+        assertEquals(3, data.lookups, "alice should still be cached");
+        manager.findUser("bob");
+        assertEquals(4, data.lookups, "bob should have been evicted");
+    }
+
+    /**
+     * Verifies that invalid usernames are still rejected.
+     */
+    @Test
+    public void testEmptyUsernameRejected() {
+        assertThrows(IllegalArgumentException.class, () -> manager.findUser(""));
+    }
+}
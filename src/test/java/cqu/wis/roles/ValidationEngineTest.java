@@ -0,0 +1,72 @@
+package cqu.wis.roles;
+
+import cqu.wis.data.WhiskeyData;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ValidationEngine} and {@link ValidationReport}.
+ * <p>
+ * These tests verify each rule, the compact report of a batch and that the
+ * parallel path reports the same rows as the sequential one.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class ValidationEngineTest {
+
+    /**
+     * Verifies that each rule is detected and a valid record passes.
+     */
+    @Test
+    public void testRules() {
+        assertEquals(0, ValidationEngine.check(new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 90)));
+        int mask = ValidationEngine.check(new WhiskeyData.WhiskeyDetails(" ", 101, "Islay 2", -1));
+        for (ValidationEngine.Rule rule : ValidationEngine.Rule.values()) {
+            assertNotEquals(0, mask & rule.bit(), rule.name());
+        }
+        assertFalse(ValidationEngine.isAlphabetic(""));
+        assertFalse(ValidationEngine.isAlphabetic("Île"), "only ASCII letters, as [a-zA-Z]+");
+    }
+
+    /**
+     * Verifies the report of a batch with a few invalid rows.
+     */
+    @Test
+    public void testReport() {
+        List<WhiskeyData.WhiskeyDetails> rows = new ArrayList<>();
+        rows.add(new WhiskeyData.WhiskeyDetails("A", 10, "Islay", 90));
+        rows.add(new WhiskeyData.WhiskeyDetails("B", 10, "Islay1", 90));
+        rows.add(new WhiskeyData.WhiskeyDetails("C", 10, "Speyside", -5));
+        ValidationReport report = ValidationEngine.validate(rows);
+        assertEquals(3, report.getRowCount());
+        assertEquals(2, report.getInvalidCount());
+        assertArrayEquals(new int[]{1, 2}, report.getInvalidRows());
+        assertEquals(List.of("Region must be alphabetic."), report.getMessages(1));
+        assertTrue(report.getMessages(0).isEmpty());
+        assertEquals(1, report.getCount(ValidationEngine.Rule.PRICE_NON_NEGATIVE));
+        assertEquals("3 rows, 2 invalid (Region must be alphabetic. x1, Price must not be negative. x1)",
+                report.toString());
+    }
+
+    /**
+     * Verifies a batch large enough to be checked in parallel.
+     */
+    @Test
+    public void testParallelBatch() {
+        int n = ValidationEngine.PARALLEL_THRESHOLD * 3;
+        WhiskeyData.WhiskeyDetails[] rows = new WhiskeyData.WhiskeyDetails[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = new WhiskeyData.WhiskeyDetails("D" + i, i % 1000 == 0 ? -1 : 12, "Highland", 50);
+        }
+        ValidationReport report = ValidationEngine.validate(rows);
+        assertEquals(n / 1000, report.getInvalidCount());
+        int[] invalid = report.getInvalidRows();
+        for (int i = 0; i < invalid.length; i++) {
+            assertEquals(i * 1000, invalid[i]);
+        }
+    }
+}
@@ -5,8 +5,19 @@
 package cqu.wis.roles;
 
 import org.junit.jupiter.api.BeforeEach;
+import cqu.wis.data.DataAccessException;
+import cqu.wis.data.DiskResultCache;
+import cqu.wis.data.EmbeddedDatabase;
 import cqu.wis.data.WhiskeyData;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -182,4 +193,159 @@ public class WhiskeyDataManagerTest {
         assertNull(manager.next(), "After setDetails(null), next() should be null");
         assertNull(manager.previous(), "After setDetails(null), previous() should be null");
     }
+
+    /**
+     * Verifies seeking by index and to the last record, and that an out of
+     * range index leaves the position unchanged.
+     */
+    @Test
+    public void testSeekIndexAndLast() {
+        WhiskeyData.WhiskeyDetails d1 = new WhiskeyData.WhiskeyDetails("Oban", 14, "Highland", 120);
+        WhiskeyData.WhiskeyDetails d2 = new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 100);
+        WhiskeyData.WhiskeyDetails d3 = new WhiskeyData.WhiskeyDetails("Talisker", 18, "Island", 150);
+        manager.setDetails(new WhiskeyData.WhiskeyDetails[]{d1, d2, d3});
+        assertEquals(d3, manager.last());
+        assertEquals(d2, manager.seek(1));
+        assertNull(manager.seek(3), "seek past the end should return null");
+        assertEquals(1, manager.getPosition(), "failed seek should not move");
+        assertEquals(d3, manager.next());
+    }
+
+    /**
+     * Verifies seeking to the first distillery at or after a key, ignoring
+     * case, and continuing in loaded order afterwards.
+     */
+    @Test
+    public void testSeekDistillery() {
+        WhiskeyData.WhiskeyDetails d1 = new WhiskeyData.WhiskeyDetails("Oban", 14, "Highland", 120);
+        WhiskeyData.WhiskeyDetails d2 = new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 100);
+        WhiskeyData.WhiskeyDetails d3 = new WhiskeyData.WhiskeyDetails("Talisker", 18, "Island", 150);
+        manager.setDetails(new WhiskeyData.WhiskeyDetails[]{d1, d2, d3});
+        assertEquals(d1, manager.seekDistillery("b"), "Oban is the first name at or after 'b'");
+        assertEquals(d2, manager.next());
+        assertEquals(d2, manager.seekDistillery("ARD"));
+        assertEquals(d3, manager.seekDistillery("Talisker"));
+        assertNull(manager.seekDistillery("Zzz"));
+        assertEquals(2, manager.getPosition());
+    }
+
+    /**
+     * Verifies that a warmed catalog answers the first region and age
+     * searches and the next findAllMalts() without querying, together with
+     * its prebuilt index, and that it does not change the records loaded
+     * until then.
+     *
+     * @throws Exception If the embedded database cannot be created.
+     */
+    @Test
+    public void testWarmUpServesSearchesAndNextFindAllMalts() throws Exception {
+        String url = EmbeddedDatabase.createWhiskey("warmup", 500);
+        WhiskeyData wd = new WhiskeyData();
+        wd.connect(url, EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
+        wdm.warmUp();
+        assertTrue(wdm.getSnapshot().isEmpty(), "warm-up should not change the loaded records");
+        wd.disconnect();
+        List<WhiskeyData.WhiskeyDetails> islay = wdm.getMaltsFromRegion("islay");
+        assertEquals(100, islay.size(), "region search should use the warmed catalog");
+        assertEquals("Distillery0", islay.get(0).distillery());
+        // Row i is 3 + i % 30 years old: 3 of every 30 rows, and rows 487 to 489
+        assertEquals(51, wdm.getMaltsInAgeRange(10, 12).size(), "age search should use the warmed catalog");
+        assertEquals(500, wdm.findAllMalts(), "warmed catalog should be used without the database");
+        assertSame(wdm.getSnapshot(), wdm.getIndex().getSnapshot(), "prebuilt index should be reused");
+    }
+
+    /**
+     * Verifies that a warm-up whose catalog stream breaks part-way keeps
+     * nothing, so the next findAllMalts() reads the complete catalog, and that
+     * a completed warm-up is not started again.
+     *
+     * @throws Exception If the warm-up thread is interrupted.
+     */
+    @Test
+    public void testFailedWarmUpKeepsNothing() throws Exception {
+        WhiskeyData.WhiskeyDetails d = new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 80);
+        int[] calls = {0};
+        WhiskeyData wd = new WhiskeyData() {
+            @Override
+            public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+                int rows = ++calls[0] == 1 ? 3 : 5;
+                for (int i = 0; i < rows; i++) {
+                    sink.accept(d);
+                }
+                if (calls[0] == 1) {
+                    throw new DataAccessException("getAllMalts failed after 3 rows", new SQLException("reset"));
+                }
+                return rows;
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd);
+        assertThrows(DataAccessException.class, wdm::warmUp);
+        assertEquals(5, wdm.findAllMalts(), "partial warm-up catalog must not be used");
+
+        wdm.warmUp();
+        assertEquals(3, calls[0]);
+        assertFalse(wdm.startWarmUp(), "a completed warm-up should not run again");
+    }
+
+    /**
+     * Verifies that two databases sharing a persistent cache directory each
+     * get their own results.
+     *
+     * @param cacheDir The shared cache directory.
+     * @throws Exception If an embedded database cannot be created.
+     */
+    @Test
+    public void testDiskCacheIsKeyedByDatabase(@TempDir Path cacheDir) throws Exception {
+        WhiskeyData a = new WhiskeyData();
+        a.connect(EmbeddedDatabase.createWhiskey("diskCacheA", 30), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        WhiskeyData b = new WhiskeyData();
+        b.connect(EmbeddedDatabase.createWhiskey("diskCacheB", 12), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        try {
+            assertEquals(30, new WhiskeyDataManager(a, new DiskResultCache(cacheDir, 1 << 20)).findAllMalts());
+            assertEquals(12, new WhiskeyDataManager(b, new DiskResultCache(cacheDir, 1 << 20)).findAllMalts(),
+                    "another database's cached catalog must not be served");
+        } finally {
+            a.disconnect();
+            b.disconnect();
+        }
+    }
+
+    /**
+     * Verifies that a stale cached catalog is refreshed in the background by
+     * streaming it, never by reading it into one list.
+     *
+     * @param cacheDir The cache directory.
+     * @throws Exception If the refresh does not run.
+     */
+    @Test
+    public void testStaleCatalogIsRevalidatedByStreaming(@TempDir Path cacheDir) throws Exception {
+        WhiskeyData.WhiskeyDetails d = new WhiskeyData.WhiskeyDetails("Ardbeg", 10, "Islay", 80);
+        CountDownLatch streamed = new CountDownLatch(1);
+        AtomicInteger listed = new AtomicInteger();
+        WhiskeyData wd = new WhiskeyData() {
+            @Override
+            public List<WhiskeyData.WhiskeyDetails> getAllMalts() {
+                listed.incrementAndGet();
+                return List.of(d);
+            }
+
+            @Override
+            public int forEachMalt(Consumer<? super WhiskeyData.WhiskeyDetails> sink) {
+                sink.accept(d);
+                streamed.countDown();
+                return 1;
+            }
+        };
+        DiskResultCache stale = new DiskResultCache(cacheDir, 1 << 20) {
+            @Override
+            public Entry get(String key) {
+                return new Entry(List.of(d, d), 0);
+            }
+        };
+        WhiskeyDataManager wdm = new WhiskeyDataManager(wd, stale);
+        assertEquals(2, wdm.findAllMalts(), "the cached catalog should be served");
+        assertTrue(streamed.await(5, TimeUnit.SECONDS), "the stale catalog should be refreshed");
+        assertEquals(0, listed.get(), "the refresh must not read the catalog into one list");
+    }
 }
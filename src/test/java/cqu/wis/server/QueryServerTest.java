@@ -0,0 +1,163 @@
+package cqu.wis.server;
+
+import cqu.wis.data.AuditLog;
+import cqu.wis.data.EmbeddedDatabase;
+import cqu.wis.data.UserData;
+import cqu.wis.data.WhiskeyData;
+import cqu.wis.roles.QueryResultCache;
+import cqu.wis.roles.UserDataManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for {@link QueryServer}.
+ * <p>
+ * The server is started on a free loopback port over embedded WHISKEY and
+ * USERS databases and called with a real HTTP client.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class QueryServerTest {
+
+    private WhiskeyData wd;
+    private UserData ud;
+    private AuditLog audit;
+    private QueryServer server;
+
+    @TempDir
+    Path auditDir;
+
+    /**
+     * Creates the embedded databases and starts the server before each test.
+     *
+     * @throws SQLException If a database cannot be created.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setup() throws SQLException, IOException {
+        wd = new WhiskeyData();
+        wd.connect(EmbeddedDatabase.createWhiskey("server", 50), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        ud = new UserData();
+        ud.connect(EmbeddedDatabase.createUsers("serverUsers", 3), EmbeddedDatabase.USER, EmbeddedDatabase.PASSWORD);
+        audit = new AuditLog(auditDir, 64, 100_000, 1);
+        server = new QueryServer(wd, new UserDataManager(ud), new QueryResultCache(60_000, 16), audit);
+        server.start(0);
+    }
+
+    /**
+     * Stops the server and closes the databases after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+        audit.close();
+        wd.disconnect();
+        ud.disconnect();
+    }
+
+    /**
+     * Verifies a region search over HTTP.
+     *
+     * @throws Exception If the request fails.
+     */
+    @Test
+    public void testRegionSearch() throws Exception {
+        Reply reply = send("GET", "/malts/region?region=Islay", null);
+        assertEquals(200, reply.status());
+        assertTrue(reply.body().startsWith("{\"count\":10,"), reply.body());
+        assertTrue(reply.body().contains("\"distillery\":\"Distillery0\""), reply.body());
+
+        assertEquals(400, send("GET", "/malts/age?lower=x", null).status());
+    }
+
+    /**
+     * Verifies that malformed percent-encoding is rejected as a bad request
+     * without echoing the decoder's message.
+     *
+     * @throws Exception If the request fails.
+     */
+    @Test
+    public void testMalformedEncodingIsBadRequest() throws Exception {
+        Reply reply = send("POST", "/login", "username=%zz&password=x");
+        assertEquals(400, reply.status(), reply.body());
+        assertFalse(reply.body().contains("%zz"), reply.body());
+    }
+
+    /**
+     * Verifies that login credentials are read from the form body and never
+     * from the query string, and that each attempt is audited.
+     *
+     * @throws Exception If the request fails.
+     */
+    @Test
+    public void testLoginReadsBodyOnly() throws Exception {
+        String form = "username=user0&password=" + EmbeddedDatabase.USER_PASSWORD.replace("!", "%21");
+        Reply ok = send("POST", "/login", form);
+        assertEquals(200, ok.status(), ok.body());
+        assertTrue(ok.body().contains("\"valid\":true"), ok.body());
+
+        Reply inUrl = send("POST", "/login?" + form, "");
+        assertEquals(400, inUrl.status(), "credentials in the URL should be ignored");
+
+        audit.flush();
+        List<String> lines = Files.readAllLines(auditDir.resolve("audit.log"));
+        assertEquals(2, lines.size(), "both attempts should be audited");
+        assertTrue(lines.get(0).contains("\"user\":\"user0\"") && lines.get(0).contains("\"success\":true"),
+                lines.get(0));
+    }
+
+    /**
+     * A response status and body.
+     *
+     * @param status The HTTP status code.
+     * @param body The response body.
+     */
+    private record Reply(int status, String body) {
+
+    }
+
+    /**
+     * Sends a request to the running server and reads the response.
+     *
+     * @param method The HTTP method.
+     * @param path The path and query string.
+     * @param form The form body, or {@code null} for none.
+     * @return The response.
+     * @throws IOException If the request fails.
+     */
+    private Reply send(String method, String path, String form) throws IOException {
+        URI uri = URI.create("http://localhost:" + server.getPort() + path);
+        HttpURLConnection conn = (HttpURLConnection) uri.toURL().openConnection();
+        try {
+            conn.setRequestMethod(method);
+            if (form != null) {
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                try (OutputStream out = conn.getOutputStream()) {
+                    out.write(form.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = conn.getResponseCode();
+            try (InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream()) {
+                return new Reply(status, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
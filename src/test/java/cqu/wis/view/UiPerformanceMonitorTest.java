@@ -0,0 +1,96 @@
+package cqu.wis.view;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UiPerformanceMonitor}.
+ * <p>
+ * Measurements are recorded directly, without a running JavaFX toolkit, and
+ * read back through the getters and the platform MBean server.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class UiPerformanceMonitorTest {
+
+    /**
+     * Verifies the pulse, latency and handler statistics and that reset
+     * clears them.
+     */
+    @Test
+    public void testRecordsAndResets() {
+        UiPerformanceMonitor monitor = new UiPerformanceMonitor(50);
+        monitor.recordPulse(2_000_000, true);
+        monitor.recordPulse(6_000_000, false);
+        monitor.recordInputLatency(10_000_000);
+        monitor.recordHandler("QUERY/btnNext", 1_000_000);
+        monitor.recordHandler("QUERY/btnAllMalts", 80_000_000);
+        monitor.recordHandler("LOGIN/btnLogin", 30_000_000);
+
+        assertEquals(2, monitor.getScenePulseCount());
+        assertEquals(4.0, monitor.getAveragePulseMillis(), 1e-9);
+        assertEquals(6.0, monitor.getMaxPulseMillis(), 1e-9);
+        assertEquals(1, monitor.getLayoutPassCount());
+        assertEquals(1, monitor.getInputLatencyCount());
+        assertEquals(10.0, monitor.getMaxInputLatencyMillis(), 1e-9);
+        assertEquals(1, monitor.getLongHandlerCount());
+        assertEquals(80.0, monitor.getMaxHandlerMillis(), 1e-9);
+        assertEquals("QUERY/btnAllMalts", monitor.getSlowestHandler());
+
+        monitor.reset();
+        assertEquals(0, monitor.getScenePulseCount());
+        assertEquals(0.0, monitor.getAveragePulseMillis());
+        assertEquals(0, monitor.getLongHandlerCount());
+        assertEquals("", monitor.getSlowestHandler());
+    }
+
+    /**
+     * Verifies that the measurements can be read through JMX.
+     *
+     * @throws Exception If registration or the attribute lookup fails.
+     */
+    @Test
+    public void testPublishedThroughJmx() throws Exception {
+        UiPerformanceMonitor monitor = new UiPerformanceMonitor(50);
+        ObjectName name = new ObjectName("cqu.wis.test:type=UiPerformance");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        monitor.register(name);
+        try {
+            monitor.recordHandler("PASSWORD/btnChange", 120_000_000);
+            assertEquals(1L, server.getAttribute(name, "LongHandlerCount"));
+            assertEquals("PASSWORD/btnChange", server.getAttribute(name, "SlowestHandler"));
+            assertEquals(false, server.getAttribute(name, "OverlayVisible"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    /**
+     * Verifies that a click's display latency is recorded only once the
+     * updates its handler posted have all been applied.
+     */
+    @Test
+    public void testDisplayLatencyWaitsForDispatchedUpdates() {
+        UiPerformanceMonitor monitor = new UiPerformanceMonitor(50);
+        Queue<Runnable> batches = new ArrayDeque<>();
+        UiUpdateDispatcher display = new UiUpdateDispatcher(batches::add, 1, Long.MAX_VALUE);
+        long clickAt = System.nanoTime();
+        display.post("distillery", () -> { });
+        display.post("age", () -> { });
+        monitor.displayRequested(clickAt, display);
+        assertEquals(0, monitor.getInputLatencyCount());
+        batches.poll().run();
+        batches.poll().run();
+        assertEquals(0, monitor.getInputLatencyCount(), "recorded before the display was applied");
+        batches.poll().run();
+        assertEquals(1, monitor.getInputLatencyCount());
+        assertTrue(batches.isEmpty());
+    }
+}
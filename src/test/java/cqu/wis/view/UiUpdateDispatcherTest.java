@@ -0,0 +1,108 @@
+package cqu.wis.view;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UiUpdateDispatcher}.
+ * <p>
+ * Batches are queued instead of being run on the JavaFX thread, so each test
+ * decides when a pulse happens.
+ * </p>
+ *
+ * @author Prajita Bhandari
+ *
+ */
+public class UiUpdateDispatcherTest {
+
+    private final Queue<Runnable> batches = new ArrayDeque<>();
+
+    /**
+     * Verifies that updates to the same key are coalesced into the latest one
+     * and that keys keep the order in which they were first posted.
+     */
+    @Test
+    public void testCoalescesSupersededUpdates() {
+        UiUpdateDispatcher ui = new UiUpdateDispatcher(batches::add, 64, Long.MAX_VALUE);
+        List<String> applied = new ArrayList<>();
+        ui.post("name", () -> applied.add("name=1"));
+        ui.post("age", () -> applied.add("age=1"));
+        ui.post("name", () -> applied.add("name=2"));
+        assertEquals(1, batches.size(), "one batch should be scheduled");
+        batches.poll().run();
+        assertEquals(List.of("name=2", "age=1"), applied);
+        assertEquals(2, ui.getAppliedCount());
+        assertEquals(1, ui.getDroppedCount());
+        assertTrue(batches.isEmpty());
+    }
+
+    /**
+     * Verifies that a batch applies at most the configured number of updates
+     * and schedules the rest for a later batch.
+     */
+    @Test
+    public void testCapsUpdatesPerPulse() {
+        UiUpdateDispatcher ui = new UiUpdateDispatcher(batches::add, 3, Long.MAX_VALUE);
+        List<Integer> applied = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            int value = i;
+            ui.post(i, () -> applied.add(value));
+        }
+        batches.poll().run();
+        assertEquals(3, applied.size());
+        batches.poll().run();
+        batches.poll().run();
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), applied);
+        assertTrue(batches.isEmpty());
+    }
+
+    /**
+     * Verifies that a failing update does not prevent the others in its
+     * batch.
+     */
+    @Test
+    public void testFailingUpdateDoesNotStopBatch() {
+        UiUpdateDispatcher ui = new UiUpdateDispatcher(batches::add, 64, Long.MAX_VALUE);
+        List<String> applied = new ArrayList<>();
+        Thread.UncaughtExceptionHandler previous = Thread.currentThread().getUncaughtExceptionHandler();
+        List<Throwable> reported = new ArrayList<>();
+        Thread.currentThread().setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        try {
+            ui.post("bad", () -> {
+                throw new IllegalStateException("boom");
+            });
+            ui.post("good", () -> applied.add("good"));
+            batches.poll().run();
+        } finally {
+            Thread.currentThread().setUncaughtExceptionHandler(previous);
+        }
+        assertEquals(List.of("good"), applied);
+        assertEquals(1, reported.size());
+    }
+
+    /**
+     * Verifies that an action waiting for the posted updates runs in the
+     * batch that applies the last of them, even when they span batches, and
+     * is not counted as an update.
+     */
+    @Test
+    public void testWhenAppliedRunsAfterPostedUpdates() {
+        UiUpdateDispatcher ui = new UiUpdateDispatcher(batches::add, 2, Long.MAX_VALUE);
+        List<String> applied = new ArrayList<>();
+        ui.post("name", () -> applied.add("name"));
+        ui.post("age", () -> applied.add("age"));
+        ui.post("region", () -> applied.add("region"));
+        ui.whenApplied(() -> applied.add("done"));
+        ui.post("name", () -> applied.add("name=2"));
+        batches.poll().run();
+        assertEquals(List.of("name=2", "age"), applied);
+        batches.poll().run();
+        assertEquals(List.of("name=2", "age", "region", "done"), applied);
+        assertEquals(3, ui.getAppliedCount());
+        assertTrue(batches.isEmpty());
+    }
+}